@@ -7,39 +7,386 @@ import fileBackup.backupExecution.completed.CompletedModifiedFilesBackup;
 import fileBackup.backupExecution.completed.CompletedSingleFileDeletions;
 import fileBackup.backupExecution.pending.PendingDeletedRecords;
 import fileBackup.backupExecution.pending.PendingModifiedRecords;
+import fileBackup.copying.CopyEngine;
+import fileBackup.devices.Device;
 import fileBackup.fileAnalysis.FileChangeRecord;
 import fileBackup.fileAnalysis.FileSystemAction;
 import fileBackup.fileAnalysis.FileType;
+import io.vavr.control.Try;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
 
 /**
  * Entry point to run backup execution tasks.
  *
+ * <p>Each task runs once the {@code Device} it reads and writes has a free slot, so backups sharing a device with a
+ * scan or another backup don't compete for it beyond its concurrency. The overloads without devices are
+ * unrestricted.</p>
+ *
+ * <p>HardLink records link to the copy of another new file, so they are only executed once every other record
+ * has been.</p>
+ *
+ * <p>Modified records can be backed up by several workers at once, see
+ * {@link #backupModifiedFiles(PendingModifiedRecords, Device, Device, ExecutionLanes)}. The tasks of each record
+ * still run in order within a single {@code BackupTaskExecutionPipeline}, so a file is only copied once its parent
+ * directories exist.</p>
+ *
+ * <p>Before any record runs, a {@code DirectoryPlan} creates every missing backup directory once, so records
+ * within them skip creating and checking their parent directory.</p>
+ *
+ * <p>Passing a {@code ResultJournal} streams every {@code BackupOperation} to disk as it completes instead of
+ * returning them all in memory.</p>
+ *
+ * <p>Files are copied by the {@code CopyEngine} passed in with the settings of the backup, the overloads without one
+ * use the default {@code CopyEngine}.</p>
+ *
  * Created by matt on 30-Jun-17.
  */
 public class BackupExecutor {
 
     public static CompletedModifiedFilesBackup backupModifiedFiles(PendingModifiedRecords pendingModifiedRecords) {
+        return backupModifiedFiles(pendingModifiedRecords, Device.UNLIMITED, Device.UNLIMITED);
+    }
+
+    /**
+     * @param pendingModifiedRecords The records to back up.
+     * @param currentDevice The {@code Device} of the current working root.
+     * @param backupDevice The {@code Device} of the backup root.
+     * @return The completed backup.
+     */
+    public static CompletedModifiedFilesBackup backupModifiedFiles(PendingModifiedRecords pendingModifiedRecords,
+                                                                   Device currentDevice, Device backupDevice) {
+        return backupModifiedFiles(pendingModifiedRecords, currentDevice, backupDevice, 1);
+    }
+
+    /**
+     * @param pendingModifiedRecords The records to back up.
+     * @param currentDevice The {@code Device} of the current working root.
+     * @param backupDevice The {@code Device} of the backup root.
+     * @param parallelism The maximum number of records backed up at once.
+     * @return The completed backup.
+     */
+    public static CompletedModifiedFilesBackup backupModifiedFiles(PendingModifiedRecords pendingModifiedRecords,
+                                                                   Device currentDevice, Device backupDevice,
+                                                                   int parallelism) {
+        return backupModifiedFiles(pendingModifiedRecords, currentDevice, backupDevice, ExecutionLanes.of(parallelism));
+    }
+
+    public static CompletedModifiedFilesBackup backupModifiedFiles(PendingModifiedRecords pendingModifiedRecords,
+                                                                   Device currentDevice, Device backupDevice,
+                                                                   ExecutionLanes executionLanes) {
+        return backupModifiedFiles(pendingModifiedRecords, currentDevice, backupDevice, executionLanes,
+                CopyEngine.getInstance());
+    }
+
+    /**
+     * Backs up the modified records using up to {@code ExecutionLanes.getParallelism()} workers, further limited by
+     * the concurrency of the devices and split between the small and large file lanes. The {@code BackupOperation}s
+     * are returned in the same order as the records regardless of the order they complete in, exactly as a single
+     * worker would return them.
+     *
+     * @param pendingModifiedRecords The records to back up.
+     * @param currentDevice The {@code Device} of the current working root.
+     * @param backupDevice The {@code Device} of the backup root.
+     * @param executionLanes Decides the order records run in and the workers running them.
+     * @param copyEngine Copies the files with the settings of the backup.
+     * @return The completed backup.
+     */
+    public static CompletedModifiedFilesBackup backupModifiedFiles(PendingModifiedRecords pendingModifiedRecords,
+                                                                   Device currentDevice, Device backupDevice,
+                                                                   ExecutionLanes executionLanes,
+                                                                   CopyEngine copyEngine) {
+        int workers = Math.max(1, Math.min(executionLanes.getParallelism(),
+                Device.getConcurrency(currentDevice, backupDevice)));
+        DirectoryPlan directoryPlan = createDirectories(pendingModifiedRecords, backupDevice, workers);
         List<BackupOperation> backupOperations = new ArrayList<>();
+        for (List<FileChangeRecord> batch : hardLinksLast(pendingModifiedRecords)) {
+            BackupOperation[] results = new BackupOperation[batch.size()];
+            backupModifiedFiles(batch, currentDevice, backupDevice, executionLanes, copyEngine, workers,
+                    directoryPlan, (i, backupOperation) -> results[i] = backupOperation);
+            for (BackupOperation result : results) {
+                if (result != null) {
+                    backupOperations.add(result);
+                }
+            }
+        }
+        return CompletedModifiedFilesBackup.of(backupOperations);
+    }
+
+    public static CompletedModifiedFilesBackup backupModifiedFiles(PendingModifiedRecords pendingModifiedRecords,
+                                                                   Device currentDevice, Device backupDevice,
+                                                                   ExecutionLanes executionLanes,
+                                                                   ResultJournal journal) {
+        return backupModifiedFiles(pendingModifiedRecords, currentDevice, backupDevice, executionLanes,
+                CopyEngine.getInstance(), journal);
+    }
+
+    /**
+     * Backs up the modified records exactly as
+     * {@link #backupModifiedFiles(PendingModifiedRecords, Device, Device, ExecutionLanes, CopyEngine)} but appends each
+     * {@code BackupOperation} to {@code journal} as soon as it completes, so only the failures are held in memory.
+     * Operations are journaled in the order they complete.
+     *
+     * @param pendingModifiedRecords The records to back up.
+     * @param currentDevice The {@code Device} of the current working root.
+     * @param backupDevice The {@code Device} of the backup root.
+     * @param executionLanes Decides the order records run in and the workers running them.
+     * @param copyEngine Copies the files with the settings of the backup.
+     * @param journal The journal every operation is appended to, closed once every record has completed.
+     * @return The completed backup.
+     */
+    public static CompletedModifiedFilesBackup backupModifiedFiles(PendingModifiedRecords pendingModifiedRecords,
+                                                                   Device currentDevice, Device backupDevice,
+                                                                   ExecutionLanes executionLanes,
+                                                                   CopyEngine copyEngine, ResultJournal journal) {
+        int workers = Math.max(1, Math.min(executionLanes.getParallelism(),
+                Device.getConcurrency(currentDevice, backupDevice)));
+        try {
+            DirectoryPlan directoryPlan = createDirectories(pendingModifiedRecords, backupDevice, workers);
+            for (List<FileChangeRecord> batch : hardLinksLast(pendingModifiedRecords)) {
+                backupModifiedFiles(batch, currentDevice, backupDevice, executionLanes, copyEngine, workers,
+                        directoryPlan, (i, backupOperation) -> journal.append(backupOperation));
+            }
+        } finally {
+            Try.run(journal::close);
+        }
+        return CompletedModifiedFilesBackup.of(journal);
+    }
+
+    /**
+     * Plans and creates every missing backup directory of the records up front, waiting for the backup device.
+     */
+    private static DirectoryPlan createDirectories(PendingModifiedRecords pendingModifiedRecords, Device backupDevice,
+                                                   int workers) {
+        return backupDevice.call(() -> {
+            DirectoryPlan directoryPlan = DirectoryPlan.of(pendingModifiedRecords.getModifiedFiles());
+            directoryPlan.create(workers);
+            return directoryPlan;
+        });
+    }
+
+    /**
+     * @return Every record other than the HardLink records, followed by the HardLink records which must run once the
+     * files they link to have been copied.
+     */
+    private static List<List<FileChangeRecord>> hardLinksLast(PendingModifiedRecords pendingModifiedRecords) {
+        List<FileChangeRecord> records = new ArrayList<>();
+        List<FileChangeRecord> hardLinks = new ArrayList<>();
 
         for (FileChangeRecord record : pendingModifiedRecords.getModifiedFiles()) {
-            if (record.getFileSystemAction() == FileSystemAction.Modify) {
-                BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline.of(CopyFileTask.of(record));
-                backupOperations.add(BackupOperation.of(record, pipeline));
+            if (record.getFileSystemAction() == FileSystemAction.HardLink) {
+                hardLinks.add(record);
+            } else {
+                records.add(record);
             }
-            if (record.getFileSystemAction() == FileSystemAction.New) {
-                BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline
-                        .of(CreateMissingParentDirectoriesTask.of(record))
-                        .andThen(CopyFileTask.of(record));
-                backupOperations.add(BackupOperation.of(record, pipeline));
+        }
+        return Arrays.asList(records, hardLinks);
+    }
+
+    /**
+     * Splits {@code records} into lanes, runs each lane on its own workers and waits for every record, passing each
+     * operation to {@code onCompleted} with the index of its record as it completes.
+     */
+    private static void backupModifiedFiles(List<FileChangeRecord> records, Device currentDevice, Device backupDevice,
+                                            ExecutionLanes executionLanes, CopyEngine copyEngine, int workers,
+                                            DirectoryPlan directoryPlan,
+                                            BiConsumer<Integer, BackupOperation> onCompleted) {
+        long[] jobSizes = new long[records.size()];
+        List<Integer> smallLane = new ArrayList<>();
+        List<Integer> largeLane = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            jobSizes[i] = ExecutionLanes.jobSize(records.get(i));
+            (executionLanes.isLarge(jobSizes[i]) ? largeLane : smallLane).add(i);
+        }
+        if (executionLanes.isShortestJobFirst()) {
+            // Stable, so records of equal size keep the order they were scanned in.
+            smallLane.sort(Comparator.comparingLong(i -> jobSizes[i]));
+            largeLane.sort(Comparator.comparingLong(i -> jobSizes[i]));
+        }
+
+        if (workers == 1) {
+            for (int i : smallLane) {
+                backupModifiedFile(records.get(i), currentDevice, backupDevice, copyEngine, directoryPlan)
+                        .ifPresent(backupOperation -> onCompleted.accept(i, backupOperation));
+            }
+            for (int i : largeLane) {
+                backupModifiedFile(records.get(i), currentDevice, backupDevice, copyEngine, directoryPlan)
+                        .ifPresent(backupOperation -> onCompleted.accept(i, backupOperation));
+            }
+        } else {
+            // Both lanes run at once, the small lane never waits behind a large file.
+            int largeWorkers = executionLanes.largeLaneWorkers(workers, smallLane.size(), largeLane.size());
+            List<ExecutorService> executorServices = new ArrayList<>();
+            List<CompletableFuture<Void>> futures = new ArrayList<>(records.size());
+            try {
+                submitLane(smallLane, workers - largeWorkers, records, currentDevice, backupDevice, copyEngine,
+                        directoryPlan, onCompleted, executorServices, futures);
+                submitLane(largeLane, largeWorkers, records, currentDevice, backupDevice, copyEngine,
+                        directoryPlan, onCompleted, executorServices, futures);
+                futures.forEach(CompletableFuture::join);
+            } finally {
+                executorServices.forEach(ExecutorService::shutdownNow);
             }
         }
-        return CompletedModifiedFilesBackup.of(backupOperations);
+    }
+
+    /**
+     * Submits the records of a lane in lane order to a new pool of up to {@code workers} threads.
+     */
+    private static void submitLane(List<Integer> lane, int workers, List<FileChangeRecord> records,
+                                   Device currentDevice, Device backupDevice, CopyEngine copyEngine,
+                                   DirectoryPlan directoryPlan, BiConsumer<Integer, BackupOperation> onCompleted,
+                                   List<ExecutorService> executorServices, List<CompletableFuture<Void>> futures) {
+        if (lane.isEmpty()) {
+            return;
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(workers, lane.size()));
+        executorServices.add(executorService);
+        for (int i : lane) {
+            futures.add(CompletableFuture.runAsync(() ->
+                    backupModifiedFile(records.get(i), currentDevice, backupDevice, copyEngine, directoryPlan)
+                            .ifPresent(backupOperation -> onCompleted.accept(i, backupOperation)), executorService));
+        }
+    }
+
+    /**
+     * Executes the backup tasks for a single New, Modify, Touch, Link, HardLink or Move record.
+     *
+     * @param record The {@code FileChangeRecord}.
+     * @return The executed {@code BackupOperation} or empty if the record is not a modification.
+     */
+    public static Optional<BackupOperation> backupModifiedFile(FileChangeRecord record) {
+        return backupModifiedFile(record, Device.UNLIMITED, Device.UNLIMITED);
+    }
+
+    /**
+     * Executes the backup tasks for a single New, Modify, Touch, Link, HardLink or Move record. Copies, hard links and
+     * moves, which may fall back to copying, wait for both devices. Updating the last modified time and linking a duplicate
+     * directory only wait for {@code backupDevice}.
+     *
+     * @param record The {@code FileChangeRecord}.
+     * @param currentDevice The {@code Device} of the current working root.
+     * @param backupDevice The {@code Device} of the backup root.
+     * @return The executed {@code BackupOperation} or empty if the record is not a modification.
+     */
+    public static Optional<BackupOperation> backupModifiedFile(FileChangeRecord record,
+                                                               Device currentDevice, Device backupDevice) {
+        return backupModifiedFile(record, currentDevice, backupDevice, CopyEngine.getInstance());
+    }
+
+    /**
+     * Executes the backup tasks for a single record exactly as
+     * {@link #backupModifiedFile(FileChangeRecord, Device, Device)}, copying with the supplied {@code CopyEngine}.
+     *
+     * @param record The {@code FileChangeRecord}.
+     * @param currentDevice The {@code Device} of the current working root.
+     * @param backupDevice The {@code Device} of the backup root.
+     * @param copyEngine Copies the file with the settings of the backup.
+     * @return The executed {@code BackupOperation} or empty if the record is not a modification.
+     */
+    public static Optional<BackupOperation> backupModifiedFile(FileChangeRecord record, Device currentDevice,
+                                                               Device backupDevice, CopyEngine copyEngine) {
+        if (record.getFileSystemAction() == FileSystemAction.Modify) {
+            BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline.of(CopyFileTask.of(record, copyEngine));
+            return Optional.of(Device.call(currentDevice, backupDevice, () -> BackupOperation.of(record, pipeline)));
+        }
+        if (record.getFileSystemAction() == FileSystemAction.Touch) {
+            BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline.of(UpdateLastModifiedTask.of(record));
+            return Optional.of(backupDevice.call(() -> BackupOperation.of(record, pipeline)));
+        }
+        if (record.getFileSystemAction() == FileSystemAction.New) {
+            BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline
+                    .of(CreateMissingParentDirectoriesTask.of(record))
+                    .andThen(CopyFileTask.of(record, copyEngine));
+            return Optional.of(Device.call(currentDevice, backupDevice, () -> BackupOperation.of(record, pipeline)));
+        }
+        if (record.getFileSystemAction() == FileSystemAction.Link) {
+            BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline
+                    .of(CreateMissingParentDirectoriesTask.of(record))
+                    .andThen(CreateLinkTask.of(record));
+            return Optional.of(backupDevice.call(() -> BackupOperation.of(record, pipeline)));
+        }
+        if (record.getFileSystemAction() == FileSystemAction.HardLink) {
+            BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline
+                    .of(CreateMissingParentDirectoriesTask.of(record))
+                    .andThen(CreateHardLinkTask.of(record, copyEngine));
+            return Optional.of(Device.call(currentDevice, backupDevice, () -> BackupOperation.of(record, pipeline)));
+        }
+        if (record.getFileSystemAction() == FileSystemAction.Move) {
+            BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline
+                    .of(CreateMissingParentDirectoriesTask.of(record))
+                    .andThen(MoveTask.of(record, copyEngine));
+            return Optional.of(Device.call(currentDevice, backupDevice, () -> BackupOperation.of(record, pipeline)));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Executes the backup tasks for a single record exactly as
+     * {@link #backupModifiedFile(FileChangeRecord, Device, Device, CopyEngine)}, except a New record whose backup
+     * parent directory was created by {@code directoryPlan} is copied without creating or checking its parent again.
+     */
+    static Optional<BackupOperation> backupModifiedFile(FileChangeRecord record, Device currentDevice,
+                                                        Device backupDevice, CopyEngine copyEngine,
+                                                        DirectoryPlan directoryPlan) {
+        if (record.getFileSystemAction() == FileSystemAction.New
+                && directoryPlan.isReady(record.getBackupPath().getParent())) {
+            BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline
+                    .of(CopyFileTask.ofExistingParent(record, copyEngine));
+            return Optional.of(Device.call(currentDevice, backupDevice, () -> BackupOperation.of(record, pipeline)));
+        }
+        if (record.getFileSystemAction() == FileSystemAction.Link
+                && directoryPlan.isReady(record.getBackupPath().getParent())) {
+            BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline.of(CreateLinkTask.of(record));
+            return Optional.of(backupDevice.call(() -> BackupOperation.of(record, pipeline)));
+        }
+        if (record.getFileSystemAction() == FileSystemAction.HardLink
+                && directoryPlan.isReady(record.getBackupPath().getParent())) {
+            BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline
+                    .of(CreateHardLinkTask.of(record, copyEngine));
+            return Optional.of(Device.call(currentDevice, backupDevice, () -> BackupOperation.of(record, pipeline)));
+        }
+        if (record.getFileSystemAction() == FileSystemAction.Move
+                && directoryPlan.isReady(record.getBackupPath().getParent())) {
+            BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline.of(MoveTask.of(record, copyEngine));
+            return Optional.of(Device.call(currentDevice, backupDevice, () -> BackupOperation.of(record, pipeline)));
+        }
+        return backupModifiedFile(record, currentDevice, backupDevice, copyEngine);
     }
 
     public static CompletedDeletionBackup deleteFiles(PendingDeletedRecords pendingDeletedRecords) {
+        return deleteFiles(pendingDeletedRecords, Device.UNLIMITED);
+    }
+
+    /**
+     * @param pendingDeletedRecords The records to delete from the backup.
+     * @param backupDevice The {@code Device} of the backup root.
+     * @return The completed deletions.
+     */
+    public static CompletedDeletionBackup deleteFiles(PendingDeletedRecords pendingDeletedRecords, Device backupDevice) {
+        return deleteFiles(pendingDeletedRecords, backupDevice, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Deletes single files one at a time while each deleted directory is deleted by up to {@code parallelism}
+     * workers, further limited by the concurrency of the backup device.
+     *
+     * @param pendingDeletedRecords The records to delete from the backup.
+     * @param backupDevice The {@code Device} of the backup root.
+     * @param parallelism The maximum number of files deleted at once within a directory.
+     * @return The completed deletions.
+     */
+    public static CompletedDeletionBackup deleteFiles(PendingDeletedRecords pendingDeletedRecords, Device backupDevice,
+                                                      int parallelism) {
+        int workers = Math.max(1, Math.min(parallelism, backupDevice.getConcurrency()));
         List<BackupOperation> singleFileDeletions = new ArrayList<>();
         List<DeleteDirectoryTaskResult> directoryDeletions = new ArrayList<>();
 
@@ -47,11 +394,11 @@ public class BackupExecutor {
             if (record.getFileSystemAction() == FileSystemAction.Delete) {
                 if (record.getFileType() == FileType.File) {
                     BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline.of(DeleteFileTask.of(record));
-                    BackupOperation backupOperation = BackupOperation.of(record, pipeline);
+                    BackupOperation backupOperation = backupDevice.call(() -> BackupOperation.of(record, pipeline));
                     singleFileDeletions.add(backupOperation);
                 }
                 if (record.getFileType() == FileType.Directory) {
-                    directoryDeletions.add(DeleteDirectoryTask.of(record).execute());
+                    directoryDeletions.add(backupDevice.call(() -> DeleteDirectoryTask.of(record).execute(workers)));
                 }
             }
         }
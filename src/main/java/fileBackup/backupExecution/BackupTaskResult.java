@@ -3,7 +3,9 @@ package fileBackup.backupExecution;
 import fileBackup.fileAnalysis.FileChangeRecord;
 import fileBackup.backupExecution.backupTasks.BackupTask;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Optional;
 
 /**
@@ -15,7 +17,8 @@ public class BackupTaskResult {
 
     private FileChangeRecord fileChangeRecord;
     private FileBackupStatus fileBackupStatus;
-    private LocalDateTime backupCommitTime;
+    // Epoch millis rather than a LocalDateTime which is 3 objects per result.
+    private long backupCommitTime;
     private BackupTask backupTask;
 
     // Optional and can be null since a success contains no error.
@@ -27,7 +30,7 @@ public class BackupTaskResult {
                              String error) {
         this.fileChangeRecord = fileChangeRecord;
         this.fileBackupStatus = fileBackupStatus;
-        this.backupCommitTime = LocalDateTime.now();
+        this.backupCommitTime = System.currentTimeMillis();
         this.backupTask = backupTask;
         this.error = error;
     }
@@ -56,6 +59,10 @@ public class BackupTaskResult {
     }
 
     public LocalDateTime getBackupCommitTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(backupCommitTime), ZoneId.systemDefault());
+    }
+
+    long getBackupCommitMillis() {
         return backupCommitTime;
     }
 
@@ -68,7 +75,7 @@ public class BackupTaskResult {
         if (fileBackupStatus == FileBackupStatus.SUCCESS) {
             return "BackupTaskResult{" +
                     "fileBackupStatus=" + fileBackupStatus +
-                    ", backupCommitTime=" + backupCommitTime +
+                    ", backupCommitTime=" + getBackupCommitTime() +
                     ", backupTask=" + backupTask.getTaskDescription() +
                     '}';
         }
@@ -76,7 +83,7 @@ public class BackupTaskResult {
         return "BackupTaskResult{" +
                 "fileBackupStatus=" + fileBackupStatus +
                 ", errorReason=" + getErrorReason() +
-                ", backupCommitTime=" + backupCommitTime +
+                ", backupCommitTime=" + getBackupCommitTime() +
                 ", backupTask=" + backupTask.getTaskDescription() +
                 '}';
     }
@@ -0,0 +1,163 @@
+package fileBackup.backupExecution;
+
+import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FileSystemAction;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Creates every missing backup directory needed by a backup before any file is copied, replacing a
+ * {@code CreateMissingParentDirectoriesTask} per record.
+ *
+ * <p>Planning checks the parent of each New, Link, HardLink and Move record and its ancestors until an existing
+ * directory is found. Every directory is only checked once, so 10,000 new files in the same new folder cost a
+ * single check rather than 10,000.</p>
+ *
+ * <p>The missing directories form branches beneath directories which already exist. {@link #create(int)} creates
+ * each directory once its parent has been created, with independent branches created in parallel. A directory which
+ * can't be created leaves its branch missing and the records within it fall back to their own
+ * {@code CreateMissingParentDirectoriesTask}, which reports why.</p>
+ *
+ * <table border=1 cellpadding=5 summary="">
+ * <tr> <th>Directory</th> <th>{@link #isReady(Path)}</th> </tr>
+ * <tr> <td>Existed when planned</td> <td>{@code true}</td> </tr>
+ * <tr> <td>Missing and created by {@link #create(int)}</td> <td>{@code true}</td> </tr>
+ * <tr> <td>Missing and failed to be created, or beneath one which failed</td> <td>{@code false}</td> </tr>
+ * <tr> <td>Not the parent of a planned record</td> <td>{@code false}</td> </tr>
+ * </table>
+ */
+public class DirectoryPlan {
+    private final Set<Path> existing;
+    // Missing directories in parent first order.
+    private final List<Path> missing;
+    private final Map<Path, List<Path>> children;
+    private final Set<Path> created = ConcurrentHashMap.newKeySet();
+
+    private DirectoryPlan(Set<Path> existing, List<Path> missing, Map<Path, List<Path>> children) {
+        this.existing = existing;
+        this.missing = missing;
+        this.children = children;
+    }
+
+    /**
+     * Finds the missing backup directories of {@code records} by reading the backup drive.
+     *
+     * @param records The records about to be backed up, records which don't create a backup path are ignored.
+     * @return The plan.
+     */
+    public static DirectoryPlan of(Collection<FileChangeRecord> records) {
+        Set<Path> existing = new HashSet<>();
+        Set<Path> missing = new HashSet<>();
+
+        for (FileChangeRecord record : records) {
+            if (!createsBackupPath(record.getFileSystemAction())) {
+                continue;
+            }
+            Path directory = record.getBackupPath().getParent();
+            while (directory != null && !existing.contains(directory) && !missing.contains(directory)) {
+                if (Files.isDirectory(directory)) {
+                    existing.add(directory);
+                } else {
+                    missing.add(directory);
+                    directory = directory.getParent();
+                }
+            }
+        }
+
+        // Sorting by depth puts every parent before its children.
+        List<Path> ordered = new ArrayList<>(missing);
+        ordered.sort(Comparator.comparingInt(Path::getNameCount));
+        Map<Path, List<Path>> children = new HashMap<>();
+        for (Path directory : ordered) {
+            children.computeIfAbsent(directory.getParent(), parent -> new ArrayList<>()).add(directory);
+        }
+        return new DirectoryPlan(existing, ordered, children);
+    }
+
+    private static boolean createsBackupPath(FileSystemAction action) {
+        return action == FileSystemAction.New || action == FileSystemAction.Link
+                || action == FileSystemAction.HardLink || action == FileSystemAction.Move;
+    }
+
+    /**
+     * @return The missing directories, every parent before its children.
+     */
+    public List<Path> getMissingDirectories() {
+        return missing;
+    }
+
+    /**
+     * Creates the missing directories, each branch beneath an existing directory in parallel.
+     *
+     * @param parallelism The maximum number of directories created at once.
+     */
+    public void create(int parallelism) {
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<CreateBranch> branches = new ArrayList<>();
+        for (Path directory : missing) {
+            if (existing.contains(directory.getParent()) || directory.getParent() == null) {
+                branches.add(new CreateBranch(directory));
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(branches);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @param directory The parent of a record's backup path.
+     * @return {@code true} if {@code directory} is known to exist without checking the backup drive again.
+     */
+    public boolean isReady(Path directory) {
+        return directory != null && (existing.contains(directory) || created.contains(directory));
+    }
+
+    /**
+     * Creates a directory whose parent exists, followed by its children in parallel.
+     */
+    private class CreateBranch extends RecursiveAction {
+        private final Path directory;
+
+        private CreateBranch(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                Files.createDirectory(directory);
+            } catch (FileAlreadyExistsException e) {
+                // Created since planning, only usable if it is a directory.
+                if (!Files.isDirectory(directory)) {
+                    return;
+                }
+            } catch (IOException | SecurityException e) {
+                return;
+            }
+            created.add(directory);
+
+            List<CreateBranch> branches = new ArrayList<>();
+            for (Path child : children.getOrDefault(directory, Collections.emptyList())) {
+                branches.add(new CreateBranch(child));
+            }
+            invokeAll(branches);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package fileBackup.backupExecution;
+
+import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FileSystemAction;
+import fileBackup.fileAnalysis.FileType;
+import io.vavr.control.Try;
+
+import java.nio.file.Files;
+
+/**
+ * Decides how {@code BackupExecutor} schedules modified records across its workers.
+ *
+ * <p>Records are split by the size of the file they copy into 2 lanes, each with their own workers, so a single large
+ * file can't hold up thousands of small files queued behind it.</p>
+ *
+ * <table border=1 cellpadding=5 summary="">
+ * <tr> <th>Lane</th> <th>Records</th> <th>Workers</th> </tr>
+ * <tr>
+ *   <td>Small</td>
+ *   <td>Copies smaller than {@code largeFileThreshold} and every record which doesn't copy data such as a Touch,
+ *   Link or Move.</td>
+ *   <td>Every worker not used by the large lane.</td>
+ * </tr>
+ * <tr>
+ *   <td>Large</td>
+ *   <td>Copies of at least {@code largeFileThreshold} bytes.</td>
+ *   <td>At most {@code largeFileWorkers}, large copies are bound by bandwidth so more workers only cause seeking.</td>
+ * </tr>
+ * </table>
+ *
+ * <p>With {@code shortestJobFirst} each lane runs its smallest records first, keeping the files backed up per second
+ * high and the wait for any single file short. Otherwise records run in the order they were scanned.</p>
+ */
+public class ExecutionLanes {
+    public static final long DEFAULT_LARGE_FILE_THRESHOLD = 64L * 1024 * 1024;
+    public static final int DEFAULT_LARGE_FILE_WORKERS = 2;
+
+    private final int parallelism;
+    private final long largeFileThreshold;
+    private final int largeFileWorkers;
+    private final boolean shortestJobFirst;
+
+    private ExecutionLanes(int parallelism, long largeFileThreshold, int largeFileWorkers, boolean shortestJobFirst) {
+        this.parallelism = Math.max(1, parallelism);
+        this.largeFileThreshold = largeFileThreshold;
+        this.largeFileWorkers = Math.max(1, largeFileWorkers);
+        this.shortestJobFirst = shortestJobFirst;
+    }
+
+    /**
+     * @param parallelism The maximum number of records backed up at once across both lanes.
+     * @return The lanes with every other setting defaulted.
+     */
+    public static ExecutionLanes of(int parallelism) {
+        return new Builder(parallelism).create();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getLargeFileThreshold() {
+        return largeFileThreshold;
+    }
+
+    public int getLargeFileWorkers() {
+        return largeFileWorkers;
+    }
+
+    public boolean isShortestJobFirst() {
+        return shortestJobFirst;
+    }
+
+    /**
+     * @param jobSize The size returned by {@link #jobSize(FileChangeRecord)}.
+     * @return {@code true} if the record belongs in the large lane.
+     */
+    boolean isLarge(long jobSize) {
+        return jobSize >= largeFileThreshold;
+    }
+
+    /**
+     * Splits {@code workers} between the lanes, giving every worker to the only lane with records.
+     *
+     * @return The number of workers for the large lane, the small lane has the rest.
+     */
+    int largeLaneWorkers(int workers, int smallRecords, int largeRecords) {
+        if (largeRecords == 0) {
+            return 0;
+        }
+        if (smallRecords == 0) {
+            return Math.min(workers, largeFileWorkers);
+        }
+        return Math.max(1, Math.min(largeFileWorkers, workers - 1));
+    }
+
+    /**
+     * The number of bytes copied by a record, read from the file when the scan didn't record its size.
+     *
+     * @param record The record about to be backed up.
+     * @return The bytes copied, 0 for records which don't copy data.
+     */
+    static long jobSize(FileChangeRecord record) {
+        FileSystemAction action = record.getFileSystemAction();
+        if (record.getFileType() != FileType.File
+                || (action != FileSystemAction.New && action != FileSystemAction.Modify
+                && action != FileSystemAction.HardLink)) {
+            return 0;
+        }
+        if (record.getCurrentSize() >= 0) {
+            return record.getCurrentSize();
+        }
+        return record.getCurrentWorkingPath()
+                .map(path -> Try.of(() -> Files.size(path)).getOrElse(0L))
+                .orElse(0L);
+    }
+
+    public static class Builder {
+        private final int parallelism;
+        private long largeFileThreshold = DEFAULT_LARGE_FILE_THRESHOLD;
+        private int largeFileWorkers = DEFAULT_LARGE_FILE_WORKERS;
+        private boolean shortestJobFirst = true;
+
+        /**
+         * @param parallelism The maximum number of records backed up at once across both lanes.
+         */
+        public Builder(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * Files of at least this many bytes are copied in the large lane.
+         */
+        public Builder largeFileThreshold(long largeFileThreshold) {
+            this.largeFileThreshold = largeFileThreshold;
+            return this;
+        }
+
+        /**
+         * The maximum number of workers copying large files at once.
+         */
+        public Builder largeFileWorkers(int largeFileWorkers) {
+            this.largeFileWorkers = largeFileWorkers;
+            return this;
+        }
+
+        /**
+         * Run the smallest records of each lane first, defaults to {@code true}.
+         */
+        public Builder shortestJobFirst(boolean shortestJobFirst) {
+            this.shortestJobFirst = shortestJobFirst;
+            return this;
+        }
+
+        public ExecutionLanes create() {
+            return new ExecutionLanes(parallelism, largeFileThreshold, largeFileWorkers, shortestJobFirst);
+        }
+    }
+}
@@ -11,17 +11,26 @@ import java.util.List;
  * track of which {@code BackupOperation}s were run plus any {@code FileAccessError}s caused during the tree walking
  * process which can be used to ensure appropriate recovery steps can be taken.
  *
+ * <p>A walk touching hundreds of thousands of files only keeps a {@code BackupOperation} for the files which failed,
+ * every file and directory successfully backed up is only counted by {@link #getFilesCompleted()} and
+ * {@link #getDirectoriesCompleted()}.</p>
+ *
  * Created by matt on 04-Jul-17.
  */
 public class FileWalkBackupOperation {
     private List<BackupOperation> backupOperations;
     private List<FileAccessError> fileAccessErrors;
+    private long filesCompleted;
+    private long directoriesCompleted;
 
     public FileWalkBackupOperation() {
         this.backupOperations = new ArrayList<>();
         this.fileAccessErrors = new ArrayList<>();
     }
 
+    /**
+     * @return The {@code BackupOperation}s which failed.
+     */
     public List<BackupOperation> getBackupOperations() {
         return backupOperations;
     }
@@ -30,6 +39,21 @@ public class FileWalkBackupOperation {
         return fileAccessErrors;
     }
 
+    public long getFilesCompleted() {
+        return filesCompleted;
+    }
+
+    public long getDirectoriesCompleted() {
+        return directoriesCompleted;
+    }
+
+    /**
+     * @return The number of files and directories successfully backed up.
+     */
+    public long getTotalCompleted() {
+        return filesCompleted + directoriesCompleted;
+    }
+
     public void addBackupOperation(BackupOperation backupOperation) {
         backupOperations.add(backupOperation);
     }
@@ -37,4 +61,26 @@ public class FileWalkBackupOperation {
     public void addFileAccessError(FileAccessError fileAccessError) {
         fileAccessErrors.add(fileAccessError);
     }
+
+    public void incrementFilesCompleted() {
+        filesCompleted++;
+    }
+
+    public void incrementDirectoriesCompleted() {
+        directoriesCompleted++;
+    }
+
+    /**
+     * Adds the results of walking another part of the tree, used when the tree is walked in parallel.
+     *
+     * @param other The results to add to this.
+     * @return 'this' to allow chaining.
+     */
+    public FileWalkBackupOperation merge(FileWalkBackupOperation other) {
+        backupOperations.addAll(other.backupOperations);
+        fileAccessErrors.addAll(other.fileAccessErrors);
+        filesCompleted += other.filesCompleted;
+        directoriesCompleted += other.directoriesCompleted;
+        return this;
+    }
 }
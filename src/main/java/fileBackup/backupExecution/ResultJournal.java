@@ -0,0 +1,349 @@
+package fileBackup.backupExecution;
+
+import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FileSystemAction;
+import fileBackup.fileAnalysis.FileType;
+import io.vavr.control.Try;
+import settings.ApplicationSettings;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An append only binary journal of every {@code BackupOperation} executed by a backup, written to
+ * {@code ApplicationSettings.getResultJournalDirectory()} as each operation completes rather than keeping them all in
+ * memory until the backup ends.
+ *
+ * <p>Each operation is reduced to an {@link Entry} holding its status, action, paths, number of stages and commit
+ * time. Only failed operations are also kept in memory with their complete {@code BackupTaskExecutionPipeline}, along
+ * with the number of operations which succeeded and failed.</p>
+ *
+ * <p>Entries are written as a length followed by their fields so a reader can skip over them, and the offset of
+ * every {@value #INDEX_INTERVAL}th entry is kept so {@link #read(long, int)} can page through a journal of millions of
+ * entries without reading it from the start.</p>
+ *
+ * <p>Journals from the last {@value #JOURNALS_KEPT} backups are kept, older ones are deleted when a new journal is
+ * created.</p>
+ */
+public class ResultJournal implements Closeable {
+    private static final int MAGIC = 0x46424a52;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final String SUFFIX = ".journal";
+
+    static final int INDEX_INTERVAL = 1024;
+    static final int JOURNALS_KEPT = 10;
+
+    private final Path journalPath;
+    private final DataOutputStream out;
+    // Reused to find the length of each entry before it is written.
+    private final ByteArrayOutputStream entryBytes = new ByteArrayOutputStream(512);
+    private final DataOutputStream entryOut = new DataOutputStream(entryBytes);
+    private final List<BackupOperation> failures = new ArrayList<>();
+
+    private long[] index = new long[16];
+    private long size = HEADER_SIZE;
+    private long entries;
+    private long succeeded;
+    private boolean closed;
+
+    private ResultJournal(Path journalPath, DataOutputStream out) {
+        this.journalPath = journalPath;
+        this.out = out;
+    }
+
+    /**
+     * @return A new journal in {@code ApplicationSettings.getResultJournalDirectory()}.
+     * @throws IOException If the journal could not be created.
+     */
+    public static ResultJournal create() throws IOException {
+        Path directory = ApplicationSettings.getResultJournalDirectory();
+        Files.createDirectories(directory);
+        deleteOldJournals(directory);
+        return create(directory.resolve(System.currentTimeMillis() + SUFFIX));
+    }
+
+    /**
+     * @param journalPath The file to write the journal to, replacing any existing file.
+     * @return The new journal.
+     * @throws IOException If the journal could not be created.
+     */
+    public static ResultJournal create(Path journalPath) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(journalPath)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        return new ResultJournal(journalPath, out);
+    }
+
+    /**
+     * Keeps the newest {@value #JOURNALS_KEPT} - 1 journals, making room for the one about to be created.
+     */
+    private static void deleteOldJournals(Path directory) {
+        Try.run(() -> {
+            List<Path> journals;
+            try (Stream<Path> paths = Files.list(directory)) {
+                journals = paths.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                        .sorted(Collections.reverseOrder())
+                        .collect(Collectors.toList());
+            }
+            for (Path journal : journals.subList(Math.min(journals.size(), JOURNALS_KEPT - 1), journals.size())) {
+                Files.deleteIfExists(journal);
+            }
+        });
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    /**
+     * Appends the completed {@code BackupOperation}, safe to call from concurrent workers.
+     *
+     * @param backupOperation The completed operation.
+     * @throws UncheckedIOException If the journal could not be written.
+     */
+    public synchronized void append(BackupOperation backupOperation) {
+        FileBackupStatus status = backupOperation.getFileBackupStatus();
+        if (status == FileBackupStatus.FAILURE) {
+            failures.add(backupOperation);
+        } else {
+            succeeded++;
+        }
+
+        if (entries % INDEX_INTERVAL == 0) {
+            int slot = (int) (entries / INDEX_INTERVAL);
+            if (slot == index.length) {
+                index = Arrays.copyOf(index, index.length * 2);
+            }
+            index[slot] = size;
+        }
+
+        try {
+            entryBytes.reset();
+            write(entryOut, backupOperation, status);
+            out.writeInt(entryBytes.size());
+            entryBytes.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size += Integer.BYTES + entryBytes.size();
+        entries++;
+    }
+
+    private static void write(DataOutputStream out, BackupOperation backupOperation, FileBackupStatus status)
+            throws IOException {
+        FileChangeRecord record = backupOperation.getFileChangeRecord();
+        List<BackupTaskResult> stages = backupOperation.getBackupTaskExecutionPipeline().getBackupStages();
+        BackupTaskResult lastStage = stages.isEmpty() ? null : stages.get(stages.size() - 1);
+
+        out.writeByte(status.ordinal());
+        out.writeByte(record.getFileSystemAction().ordinal());
+        out.writeByte(record.getFileType().ordinal());
+        out.writeByte(stages.size());
+        out.writeLong(lastStage == null ? System.currentTimeMillis() : lastStage.getBackupCommitMillis());
+        out.writeUTF(record.getBackupPath().toString());
+        out.writeUTF(record.getCurrentWorkingPath().map(Path::toString).orElse(""));
+        out.writeUTF(record.getSourceBackupPath().map(Path::toString).orElse(""));
+        out.writeUTF(lastStage == null ? "" : lastStage.getErrorReason().orElse(""));
+    }
+
+    /**
+     * @return The total number of operations appended.
+     */
+    public synchronized long getTotal() {
+        return entries;
+    }
+
+    public synchronized long getTotalSucceeded() {
+        return succeeded;
+    }
+
+    public synchronized long getTotalFailed() {
+        return failures.size();
+    }
+
+    /**
+     * @return The failed operations in the order they completed, each with its complete pipeline.
+     */
+    public synchronized List<BackupOperation> getFailures() {
+        return new ArrayList<>(failures);
+    }
+
+    /**
+     * Reads a page of entries.
+     *
+     * @param from The index of the first entry to read, in the order they were appended.
+     * @param count The maximum number of entries to read.
+     * @return The entries, fewer than {@code count} at the end of the journal.
+     * @throws IOException If the journal could not be read.
+     */
+    public List<Entry> read(long from, int count) throws IOException {
+        long offset;
+        long total;
+        synchronized (this) {
+            if (!closed) {
+                out.flush();
+            }
+            total = entries;
+            if (from >= total || count <= 0) {
+                return Collections.emptyList();
+            }
+            offset = index[(int) (from / INDEX_INTERVAL)];
+        }
+
+        int remaining = (int) Math.min(count, total - from);
+        List<Entry> page = new ArrayList<>(remaining);
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(offset))));
+            for (long skip = from % INDEX_INTERVAL; skip > 0; skip--) {
+                in.skipBytes(in.readInt());
+            }
+            for (int i = 0; i < remaining; i++) {
+                in.readInt();
+                page.add(readEntry(in));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Reads every entry in the order they were appended without holding them in memory.
+     *
+     * @param consumer Receives each entry.
+     * @throws IOException If the journal could not be read.
+     */
+    public void forEach(Consumer<Entry> consumer) throws IOException {
+        long total;
+        synchronized (this) {
+            if (!closed) {
+                out.flush();
+            }
+            total = entries;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported result journal " + journalPath);
+            }
+            for (long i = 0; i < total; i++) {
+                in.readInt();
+                consumer.accept(readEntry(in));
+            }
+        }
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        FileBackupStatus status = FileBackupStatus.values()[in.readByte()];
+        FileSystemAction action = FileSystemAction.values()[in.readByte()];
+        FileType fileType = FileType.values()[in.readByte()];
+        int stages = in.readUnsignedByte();
+        long commitTime = in.readLong();
+        String backupPath = in.readUTF();
+        String currentWorkingPath = in.readUTF();
+        String sourceBackupPath = in.readUTF();
+        String error = in.readUTF();
+        return new Entry(status, action, fileType, stages, commitTime, backupPath, currentWorkingPath,
+                sourceBackupPath, error);
+    }
+
+    /**
+     * Flushes the journal, it can still be read once closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+
+    /**
+     * The journaled summary of a single {@code BackupOperation}.
+     */
+    public static class Entry {
+        private final FileBackupStatus fileBackupStatus;
+        private final FileSystemAction fileSystemAction;
+        private final FileType fileType;
+        private final int totalStages;
+        private final long commitTime;
+        private final String backupPath;
+        private final String currentWorkingPath;
+        private final String sourceBackupPath;
+        private final String error;
+
+        private Entry(FileBackupStatus fileBackupStatus, FileSystemAction fileSystemAction, FileType fileType,
+                      int totalStages, long commitTime, String backupPath, String currentWorkingPath,
+                      String sourceBackupPath, String error) {
+            this.fileBackupStatus = fileBackupStatus;
+            this.fileSystemAction = fileSystemAction;
+            this.fileType = fileType;
+            this.totalStages = totalStages;
+            this.commitTime = commitTime;
+            this.backupPath = backupPath;
+            this.currentWorkingPath = currentWorkingPath;
+            this.sourceBackupPath = sourceBackupPath;
+            this.error = error;
+        }
+
+        public FileBackupStatus getFileBackupStatus() {
+            return fileBackupStatus;
+        }
+
+        public FileSystemAction getFileSystemAction() {
+            return fileSystemAction;
+        }
+
+        public FileType getFileType() {
+            return fileType;
+        }
+
+        public int getTotalStages() {
+            return totalStages;
+        }
+
+        /**
+         * @return The commit time of the last stage executed.
+         */
+        public LocalDateTime getCommitTime() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(commitTime), ZoneId.systemDefault());
+        }
+
+        public Path getBackupPath() {
+            return Paths.get(backupPath);
+        }
+
+        public Optional<Path> getCurrentWorkingPath() {
+            return currentWorkingPath.isEmpty() ? Optional.empty() : Optional.of(Paths.get(currentWorkingPath));
+        }
+
+        /**
+         * @return The previous backup path of a Move.
+         */
+        public Optional<Path> getSourceBackupPath() {
+            return sourceBackupPath.isEmpty() ? Optional.empty() : Optional.of(Paths.get(sourceBackupPath));
+        }
+
+        /**
+         * @return The reason the last stage failed.
+         */
+        public Optional<String> getErrorReason() {
+            return error.isEmpty() ? Optional.empty() : Optional.of(error);
+        }
+    }
+}
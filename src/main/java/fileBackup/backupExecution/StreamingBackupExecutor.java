@@ -0,0 +1,238 @@
+package fileBackup.backupExecution;
+
+import fileBackup.backupExecution.backupTasks.SingleBackupTask;
+import fileBackup.backupExecution.completed.CompletedDeletionBackup;
+import fileBackup.backupExecution.completed.CompletedModifiedFilesBackup;
+import fileBackup.backupExecution.pending.PendingDeletedRecords;
+import fileBackup.copying.CopyEngine;
+import fileBackup.devices.Device;
+import fileBackup.fileAnalysis.FileAccessError;
+import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FileSystemAction;
+import fileBackup.fileAnalysis.TreeDiffCollector;
+import fileBackup.fileAnalysis.TreeDiffResult;
+import io.vavr.control.Either;
+
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the scan and the backup together rather than one after the other. Used instead of collecting every
+ * {@code FileChangeRecord} with {@code TreeDiffCollector} and then passing them to {@code BackupExecutor}.
+ *
+ * <p>New, Modify, Touch and Link records are placed into a bounded queue as soon as the {@code TreeDiffCollector}
+ * finds them, and a fixed number of workers drain the queue running the same tasks as
+ * {@code BackupExecutor.backupModifiedFile}. The total time approaches the longer of scanning and copying rather than
+ * their sum. When the workers fall behind the queue fills and the scan waits, so the backlog held in memory never
+ * exceeds {@code queueCapacity}.</p>
+ *
+ * <p>A record throwing an unexpected exception is returned as a failed {@code BackupOperation} rather than stopping
+ * its worker. Should every worker still stop, the scan fails instead of waiting forever for space in the queue.</p>
+ *
+ * <p>HardLink records are held back until every worker has finished, since the file they link to may still be
+ * queued or copying.</p>
+ *
+ * <p>Deletions are only executed once the scan and all copies have completed, keeping the same modified then deleted
+ * ordering as {@code BackupExecutionTask}. They are skipped entirely if the scan fails or any path could not be read,
+ * since the deleted records may then be wrong. Skipped deletions are returned by
+ * {@code StreamingBackupResult.getSkippedDeletedRecords()} to be reviewed through a {@code FileCollectorTask} scan
+ * instead.</p>
+ *
+ * <p>Records are copied before the scan has found every deletion, so moves are never detected by a
+ * {@code MoveDetector} and a moved file is copied to its new path and deleted from its old path.</p>
+ */
+public class StreamingBackupExecutor {
+    // Marks the end of the queue, one is added for each worker.
+    private static final FileChangeRecord END_OF_SCAN = new FileChangeRecord.Builder().create();
+
+    // How often a full queue checks the workers are still running.
+    static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final int queueCapacity;
+    private final int workers;
+    private final Device currentDevice;
+    private final Device backupDevice;
+    private final CopyEngine copyEngine;
+
+    /**
+     * @param queueCapacity The maximum number of records waiting to be backed up before the scan waits.
+     * @param workers The number of threads backing up records.
+     */
+    public StreamingBackupExecutor(int queueCapacity, int workers) {
+        this(queueCapacity, workers, Device.UNLIMITED, Device.UNLIMITED);
+    }
+
+    /**
+     * @param queueCapacity The maximum number of records waiting to be backed up before the scan waits.
+     * @param workers The number of threads backing up records, further limited by the concurrency of the devices.
+     * @param currentDevice The {@code Device} of the current working root.
+     * @param backupDevice The {@code Device} of the backup root.
+     */
+    public StreamingBackupExecutor(int queueCapacity, int workers, Device currentDevice, Device backupDevice) {
+        this(queueCapacity, workers, currentDevice, backupDevice, CopyEngine.getInstance());
+    }
+
+    /**
+     * @param queueCapacity The maximum number of records waiting to be backed up before the scan waits.
+     * @param workers The number of threads backing up records, further limited by the concurrency of the devices.
+     * @param currentDevice The {@code Device} of the current working root.
+     * @param backupDevice The {@code Device} of the backup root.
+     * @param copyEngine Copies the files with the settings of the backup.
+     */
+    public StreamingBackupExecutor(int queueCapacity, int workers, Device currentDevice, Device backupDevice,
+                                   CopyEngine copyEngine) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.workers = Math.max(1, Math.min(workers, Device.getConcurrency(currentDevice, backupDevice)));
+        this.currentDevice = currentDevice;
+        this.backupDevice = backupDevice;
+        this.copyEngine = copyEngine;
+    }
+
+    /**
+     * Scans and backs up, blocking until both have completed.
+     *
+     * @param collectorBuilder Builds the {@code TreeDiffCollector} used to scan. Its {@code fileChangeRecordConsumer}
+     *                         is replaced.
+     * @return The scan and backup results.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    public StreamingBackupResult backup(TreeDiffCollector.Builder collectorBuilder) throws InterruptedException {
+        BlockingQueue<FileChangeRecord> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Queue<BackupOperation> backupOperations = new ConcurrentLinkedQueue<>();
+        Queue<FileChangeRecord> hardLinks = new ConcurrentLinkedQueue<>();
+
+        AtomicInteger liveWorkers = new AtomicInteger(workers);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(workers);
+        for (int i = 0; i < workers; i++) {
+            executorService.execute(() -> {
+                try {
+                    drain(queue, backupOperations);
+                } finally {
+                    liveWorkers.decrementAndGet();
+                }
+            });
+        }
+
+        Either<FileAccessError, TreeDiffResult> scanResult;
+        try {
+            scanResult = collectorBuilder
+                    .fileChangeRecordConsumer(record -> {
+                        if (record.getFileSystemAction() == FileSystemAction.HardLink) {
+                            hardLinks.add(record);
+                        } else if (record.getFileSystemAction() != FileSystemAction.Delete) {
+                            enqueue(queue, record, liveWorkers);
+                        }
+                    })
+                    .create()
+                    .getFiles();
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                if (!offer(queue, END_OF_SCAN, liveWorkers)) {
+                    break;
+                }
+            }
+            executorService.shutdown();
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        for (FileChangeRecord record : hardLinks) {
+            BackupExecutor.backupModifiedFile(record, currentDevice, backupDevice, copyEngine)
+                    .ifPresent(backupOperations::add);
+        }
+
+        CompletedModifiedFilesBackup completedModifiedFilesBackup =
+                CompletedModifiedFilesBackup.of(new ArrayList<>(backupOperations));
+
+        PendingDeletedRecords pendingDeletedRecords = scanResult
+                .map(result -> PendingDeletedRecords.of(result.getDeletedFileWalkerResult().getFileChangeRecords()))
+                .getOrElse(PendingDeletedRecords.ofEmpty());
+        PendingDeletedRecords skippedDeletedRecords = PendingDeletedRecords.ofEmpty();
+        if (scanResult.isRight() && hasFileAccessErrors(scanResult.get())) {
+            skippedDeletedRecords = pendingDeletedRecords;
+            pendingDeletedRecords = PendingDeletedRecords.ofEmpty();
+        }
+        CompletedDeletionBackup completedDeletionBackup = BackupExecutor.deleteFiles(pendingDeletedRecords, backupDevice);
+
+        return new StreamingBackupResult(scanResult,
+                BackupExecutionResult.success(completedModifiedFilesBackup, completedDeletionBackup),
+                skippedDeletedRecords);
+    }
+
+    /**
+     * A path on either drive which couldn't be read may be missing from the current listing and so wrongly reported
+     * as deleted.
+     */
+    private static boolean hasFileAccessErrors(TreeDiffResult result) {
+        return !result.getModifiedFileWalkerResult().getFileAccessErrors().isEmpty()
+                || !result.getDeletedFileWalkerResult().getFileAccessErrors().isEmpty();
+    }
+
+    /**
+     * Invoked by scanning workers, waiting while the queue is full.
+     *
+     * @throws IllegalStateException If every worker has stopped so the queue will never drain.
+     */
+    private void enqueue(BlockingQueue<FileChangeRecord> queue, FileChangeRecord record, AtomicInteger liveWorkers) {
+        try {
+            if (!offer(queue, record, liveWorkers)) {
+                throw new IllegalStateException("No backup workers left to copy " + record.getBackupPath());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting to queue " + record.getBackupPath());
+        }
+    }
+
+    /**
+     * Waits for space in the queue while any worker is still running.
+     *
+     * @return {@code false} if every worker stopped before {@code record} could be queued.
+     */
+    private static boolean offer(BlockingQueue<FileChangeRecord> queue, FileChangeRecord record,
+                                 AtomicInteger liveWorkers) throws InterruptedException {
+        while (!queue.offer(record, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (liveWorkers.get() == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void drain(BlockingQueue<FileChangeRecord> queue, Queue<BackupOperation> backupOperations) {
+        try {
+            FileChangeRecord record;
+            while ((record = queue.take()) != END_OF_SCAN) {
+                try {
+                    BackupExecutor.backupModifiedFile(record, currentDevice, backupDevice, copyEngine)
+                            .ifPresent(backupOperations::add);
+                } catch (CancellationException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    backupOperations.add(BackupOperation.of(record,
+                            BackupTaskExecutionPipeline.of(new UnexpectedFailureTask(record, e))));
+                }
+            }
+        } catch (InterruptedException | CancellationException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reports an exception thrown while backing up a record as the failed stage of its {@code BackupOperation}.
+     */
+    private static class UnexpectedFailureTask extends SingleBackupTask {
+        private final RuntimeException exception;
+
+        private UnexpectedFailureTask(FileChangeRecord record, RuntimeException exception) {
+            super(record, "StreamingBackupExecutor: Back up " + record.getFileSystemAction() + " record");
+            this.exception = exception;
+        }
+
+        @Override
+        public BackupTaskResult execute() {
+            return onException(exception);
+        }
+    }
+}
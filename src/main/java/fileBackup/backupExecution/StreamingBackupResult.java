@@ -0,0 +1,43 @@
+package fileBackup.backupExecution;
+
+import fileBackup.backupExecution.pending.PendingDeletedRecords;
+import fileBackup.fileAnalysis.FileAccessError;
+import fileBackup.fileAnalysis.TreeDiffResult;
+import io.vavr.control.Either;
+
+/**
+ * The result of a {@code StreamingBackupExecutor} containing both the scan statistics and the backup that was
+ * executed while scanning.
+ */
+public class StreamingBackupResult {
+    private Either<FileAccessError, TreeDiffResult> scanResult;
+    private BackupExecutionResult backupExecutionResult;
+    private PendingDeletedRecords skippedDeletedRecords;
+
+    public StreamingBackupResult(Either<FileAccessError, TreeDiffResult> scanResult,
+                                 BackupExecutionResult backupExecutionResult,
+                                 PendingDeletedRecords skippedDeletedRecords) {
+        this.scanResult = scanResult;
+        this.backupExecutionResult = backupExecutionResult;
+        this.skippedDeletedRecords = skippedDeletedRecords;
+    }
+
+    /**
+     * @return The scan result, left if the scan failed in which case no deletions were executed.
+     */
+    public Either<FileAccessError, TreeDiffResult> getScanResult() {
+        return scanResult;
+    }
+
+    public BackupExecutionResult getBackupExecutionResult() {
+        return backupExecutionResult;
+    }
+
+    /**
+     * @return The deletions found by a scan which could not read every path, so they were not executed and should be
+     * reviewed first.
+     */
+    public PendingDeletedRecords getSkippedDeletedRecords() {
+        return skippedDeletedRecords;
+    }
+}
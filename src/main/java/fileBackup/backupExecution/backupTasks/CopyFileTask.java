@@ -1,10 +1,10 @@
 package fileBackup.backupExecution.backupTasks;
 
 import fileBackup.backupExecution.BackupTaskResult;
+import fileBackup.copying.CopyEngine;
 import fileBackup.fileAnalysis.FileChangeRecord;
 import io.vavr.control.Try;
 
-import java.io.IOException;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
@@ -14,27 +14,47 @@ import static io.vavr.API.$;
 import static io.vavr.API.Case;
 import static io.vavr.API.Match;
 import static io.vavr.Predicates.instanceOf;
-import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 /**
  * {@code CopyFileTask} copies or replaces a single file and represents a backup stage within a
- * {@code BackupTaskExecutionPipeline}.
+ * {@code BackupTaskExecutionPipeline}. The data is copied by the {@code CopyEngine} of the backup, or the default
+ * {@code CopyEngine} when none is supplied.
+ * The parent directory is checked before copying unless it is already known to exist, see
+ * {@link #ofExistingParent(FileChangeRecord)}.
  * <p>
  * Created by matt on 02-Jul-17.
  */
 public class CopyFileTask extends SingleBackupTask {
-    private CopyFileTask(FileChangeRecord record) {
+    private final boolean checkParent;
+    private final CopyEngine copyEngine;
+
+    private CopyFileTask(FileChangeRecord record, boolean checkParent, CopyEngine copyEngine) {
         super(record, "CopyFileTask: Copy/Replace file from current path to backup path");
+        this.checkParent = checkParent;
+        this.copyEngine = copyEngine;
     }
 
     public static CopyFileTask of(FileChangeRecord record) {
-        return new CopyFileTask(record);
+        return of(record, CopyEngine.getInstance());
+    }
+
+    public static CopyFileTask of(FileChangeRecord record, CopyEngine copyEngine) {
+        return new CopyFileTask(record, true, copyEngine);
+    }
+
+    /**
+     * @param record The record whose backup parent directory exists, such as one created by a {@code DirectoryPlan}.
+     * @param copyEngine Copies the file with the settings of the backup.
+     * @return The task which doesn't check the parent directory again.
+     */
+    public static CopyFileTask ofExistingParent(FileChangeRecord record, CopyEngine copyEngine) {
+        return new CopyFileTask(record, false, copyEngine);
     }
 
     @Override
     public BackupTaskResult execute() {
-        if (record.getBackupPath().getParent() == null || !record.getBackupPath().getParent().toFile().exists()) {
+        if (checkParent && (record.getBackupPath().getParent() == null
+                || !record.getBackupPath().getParent().toFile().exists())) {
             return BackupTaskResult.failure(record, this, "No parent directory exists, try creating parent directory hierarchy first");
         }
 
@@ -53,7 +73,8 @@ public class CopyFileTask extends SingleBackupTask {
                 // Otherwise if it doesn't exist the copy method will try write the new file.
                 throw new Exception("Invalid file permissions - Not writable for " + record.getBackupPath());
             }
-            return Files.copy(currentWorkingPath, record.getBackupPath(), COPY_ATTRIBUTES, REPLACE_EXISTING);
+            copyEngine.copy(currentWorkingPath, record.getBackupPath());
+            return record.getBackupPath();
         });
 
         return tryCopy
@@ -0,0 +1,53 @@
+package fileBackup.backupExecution.backupTasks;
+
+import fileBackup.backupExecution.BackupTaskResult;
+import fileBackup.copying.CopyEngine;
+import fileBackup.fileAnalysis.FileChangeRecord;
+import io.vavr.control.Try;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@code CreateHardLinkTask} creates a new backup file as a hard link to the backup of another file sharing the same
+ * data on the current drive, rather than copying the data again. Used for {@code FileSystemAction.HardLink}.
+ *
+ * <p>The file the link points to must already have been copied, so these tasks are executed after every other new
+ * file. When the link can't be created, such as when the backup drive is FAT formatted or the other file failed to
+ * copy, the current file is copied instead exactly as {@code CopyFileTask} would.</p>
+ */
+public class CreateHardLinkTask extends SingleBackupTask {
+    private final CopyEngine copyEngine;
+
+    private CreateHardLinkTask(FileChangeRecord record, CopyEngine copyEngine) {
+        super(record, "CreateHardLinkTask: Link backup path to the backup of the file sharing its data");
+        this.copyEngine = copyEngine;
+    }
+
+    public static CreateHardLinkTask of(FileChangeRecord record) {
+        return of(record, CopyEngine.getInstance());
+    }
+
+    /**
+     * @param record The HardLink record.
+     * @param copyEngine Copies the file when the link can't be created.
+     * @return The task.
+     */
+    public static CreateHardLinkTask of(FileChangeRecord record, CopyEngine copyEngine) {
+        return new CreateHardLinkTask(record, copyEngine);
+    }
+
+    @Override
+    public BackupTaskResult execute() {
+        if (!record.getSourceBackupPath().isPresent()) {
+            return CopyFileTask.of(record, copyEngine).execute();
+        }
+        Path sourceBackupPath = record.getSourceBackupPath().get();
+
+        Try<Path> tryLink = Try.of(() -> Files.createLink(record.getBackupPath(), sourceBackupPath));
+
+        return tryLink
+                .map(path -> BackupTaskResult.success(record, this))
+                .getOrElseGet(ex -> CopyFileTask.of(record, copyEngine).execute());
+    }
+}
@@ -0,0 +1,67 @@
+package fileBackup.backupExecution.backupTasks;
+
+import fileBackup.backupExecution.BackupTaskResult;
+import fileBackup.fileAnalysis.FileChangeRecord;
+import io.vavr.control.Try;
+
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static io.vavr.API.$;
+import static io.vavr.API.Case;
+import static io.vavr.API.Match;
+import static io.vavr.Predicates.instanceOf;
+
+/**
+ * {@code CreateLinkTask} creates a symbolic link at the backup path of a directory reached through more than one link
+ * on the current drive, pointing to the backup of the directory which owns it. The directory contents are only copied
+ * once for the owner. Used for {@code FileSystemAction.Link}.
+ *
+ * <p>The link is relative so the backup drive can be mounted elsewhere. An existing file or directory is never
+ * replaced.</p>
+ */
+public class CreateLinkTask extends SingleBackupTask {
+    private CreateLinkTask(FileChangeRecord record) {
+        super(record, "CreateLinkTask: Link backup path to the backup of the directory it duplicates");
+    }
+
+    public static CreateLinkTask of(FileChangeRecord record) {
+        return new CreateLinkTask(record);
+    }
+
+    @Override
+    public BackupTaskResult execute() {
+        if (!record.getSourceBackupPath().isPresent()) {
+            return BackupTaskResult.failure(record, this, "No source backup path to link to");
+        }
+        Path backupPath = record.getBackupPath();
+        if (backupPath.getParent() == null) {
+            return BackupTaskResult.failure(record, this, "No parent directory exists, try creating parent directory hierarchy first");
+        }
+
+        Try<Path> tryLink = Try.of(() -> {
+            Path target = backupPath.getParent().relativize(record.getSourceBackupPath().get());
+            return Files.createSymbolicLink(backupPath, target);
+        });
+
+        return tryLink
+                .map(path -> BackupTaskResult.success(record, this))
+                .getOrElseGet(ex -> Match(ex).of(
+                        Case($(instanceOf(FileAlreadyExistsException.class)), this::onFileAlreadyExistsException),
+                        Case($(instanceOf(UnsupportedOperationException.class)), this::onUnsupportedOperationException),
+                        Case($(instanceOf(SecurityException.class)), this::onSecurityException),
+                        Case($(), this::onException)
+                ));
+    }
+
+    private BackupTaskResult onFileAlreadyExistsException(Throwable e) {
+        String error = "Target " + record.getBackupPath() + " already exists and is not replaced by a link";
+        return BackupTaskResult.failure(record, this, error);
+    }
+
+    private BackupTaskResult onUnsupportedOperationException(Throwable e) {
+        String error = "Symbolic links are not supported on the backup drive";
+        return BackupTaskResult.failure(record, this, error);
+    }
+}
@@ -14,16 +14,27 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * {@code DeleteDirectoryTask} manages the execution of deleting all files in the directory, including the directory itself.
  *
- * <p>This is achieved through creating a {@code BackupOperation} for each file to delete and returning the corresponding
- * list of {@code BackupOperation} results.</p>
+ * <p>The directory is deleted bottom up by a {@code ForkJoinPool}. Each subdirectory is deleted by its own task and
+ * the files of a directory are deleted in batches of {@value #FILE_BATCH_SIZE}, so a single directory holding
+ * hundreds of thousands of files is still shared between the workers. A directory is deleted once every task
+ * beneath it has completed.</p>
+ *
+ * <p>Deleted files and directories are only counted in the returned {@code FileWalkBackupOperation}. A file or
+ * directory which can't be deleted is passed to a {@code DeleteFileTask} whose {@code BackupOperation} is kept,
+ * describing why it failed.</p>
  *
  * Created by matt on 03-Jul-17.
  */
 public class DeleteDirectoryTask extends BackupTask {
+    static final int FILE_BATCH_SIZE = 512;
 
     private DeleteDirectoryTask(FileChangeRecord record) {
         super(record, "DeleteDirectoryTask: Delete entire backup directory " + record.getBackupPath() + " and all files within it");
@@ -33,69 +44,168 @@ public class DeleteDirectoryTask extends BackupTask {
         return new DeleteDirectoryTask(record);
     }
 
+    /**
+     * Deletes the directory with a worker per available processor.
+     */
     public DeleteDirectoryTaskResult execute() {
-        DeleteFileVisitor deleteFileVisitor = new DeleteFileVisitor();
-        Try<Path> tryDelete = Try.of(() -> Files.walkFileTree(record.getBackupPath(), deleteFileVisitor));
+        return execute(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism The maximum number of files and directories deleted at once.
+     * @return The results of deleting the directory.
+     */
+    public DeleteDirectoryTaskResult execute(int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        Try<FileWalkBackupOperation> tryDelete = Try.of(() -> pool.invoke(new DeleteRoot(record.getBackupPath())));
+        pool.shutdown();
+
         if (tryDelete.isSuccess()) {
-            return new DeleteDirectoryTaskResult(record, Either.right(deleteFileVisitor.fileWalkBackupOperation));
+            return new DeleteDirectoryTaskResult(record, Either.right(tryDelete.get()));
         }
         return new DeleteDirectoryTaskResult(record,
                 Either.left(new BackupTaskError(this, "Unable to walk files due to IO error")));
     }
 
-    private class DeleteFileVisitor implements FileVisitor<Path> {
-        // Mutated during tree walking process and must only be accessed after walking has completed.
-        private FileWalkBackupOperation fileWalkBackupOperation;
-
-        public DeleteFileVisitor() {
-            fileWalkBackupOperation = new FileWalkBackupOperation();
-        }
-
-        @Override
-        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-            return FileVisitResult.CONTINUE;
-        }
-
-        @Override
-        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-            // Reuse DeleteFileTask, the result is then stored in BackupTaskExecutionPipeline.
+    /**
+     * Deletes a single file or empty directory, only creating a {@code BackupOperation} when it fails.
+     */
+    private void delete(Path path, FileType fileType, FileTime lastModified, FileWalkBackupOperation result) {
+        boolean deleted = (fileType == FileType.Directory || Files.isWritable(path))
+                && Try.run(() -> Files.delete(path)).isSuccess();
+        if (!deleted) {
+            // Running DeleteFileTask describes why the file couldn't be deleted.
             FileChangeRecord fileChangeRecord = new FileChangeRecord.Builder()
-                    .backupPath(file)
-                    .backupLastModified(attrs.lastModifiedTime())
+                    .backupPath(path)
+                    .backupLastModified(lastModified)
                     .fileSystemAction(FileSystemAction.Delete)
-                    .fileType(FileType.File)
+                    .fileType(fileType)
                     .create();
             BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline.of(DeleteFileTask.of(fileChangeRecord));
-            fileWalkBackupOperation.addBackupOperation((BackupOperation.of(record, pipeline)));
-            return FileVisitResult.CONTINUE;
+            deleted = pipeline.allStagesSuccessful();
+            if (!deleted) {
+                result.addBackupOperation(BackupOperation.of(record, pipeline));
+            }
+        }
+        if (deleted && fileType == FileType.Directory) {
+            result.incrementDirectoriesCompleted();
+        } else if (deleted) {
+            result.incrementFilesCompleted();
+        }
+    }
+
+    /**
+     * Deletes the root which is expected to be a directory but is deleted as a file otherwise.
+     */
+    private class DeleteRoot extends RecursiveTask<FileWalkBackupOperation> {
+        private final Path root;
+
+        private DeleteRoot(Path root) {
+            this.root = root;
         }
 
         @Override
-        public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-            if (exc != null) {
+        protected FileWalkBackupOperation compute() {
+            Try<BasicFileAttributes> attrs = Try.of(() ->
+                    Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+            if (attrs.isFailure()) {
+                FileWalkBackupOperation result = new FileWalkBackupOperation();
                 String reason = "DeleteDirectoryTask: visitFileFailed, a file in this directory could not be deleted";
-                fileWalkBackupOperation.addFileAccessError(new FileAccessError(file, reason));
+                result.addFileAccessError(new FileAccessError(root, reason));
+                return result;
+            }
+            if (attrs.get().isDirectory()) {
+                return new DeleteDirectory(root, attrs.get().lastModifiedTime()).compute();
             }
-            return FileVisitResult.CONTINUE;
+            FileWalkBackupOperation result = new FileWalkBackupOperation();
+            delete(root, FileType.File, attrs.get().lastModifiedTime(), result);
+            return result;
+        }
+    }
+
+    /**
+     * Deletes the contents of a directory in parallel, then the directory itself.
+     */
+    private class DeleteDirectory extends RecursiveTask<FileWalkBackupOperation> {
+        private final Path dir;
+        private final FileTime lastModified;
+
+        private DeleteDirectory(Path dir, FileTime lastModified) {
+            this.dir = dir;
+            this.lastModified = lastModified;
         }
 
         @Override
-        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-            if (exc != null) {
-                String reason = "DeleteDirectoryTask: postVisitDirectory failed, " + dir.toString() + " could not be deleted";
-                fileWalkBackupOperation.addFileAccessError(new FileAccessError(dir, reason));
+        protected FileWalkBackupOperation compute() {
+            FileWalkBackupOperation result = new FileWalkBackupOperation();
+            List<RecursiveTask<FileWalkBackupOperation>> forked = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            List<FileTime> lastModifiedTimes = new ArrayList<>();
+            boolean listed = true;
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    Try<BasicFileAttributes> attrs = Try.of(() ->
+                            Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+                    if (attrs.isFailure()) {
+                        String reason = "DeleteDirectoryTask: visitFileFailed, a file in this directory could not be deleted";
+                        result.addFileAccessError(new FileAccessError(entry, reason));
+                    } else if (attrs.get().isDirectory()) {
+                        forked.add(fork(new DeleteDirectory(entry, attrs.get().lastModifiedTime())));
+                    } else {
+                        files.add(entry);
+                        lastModifiedTimes.add(attrs.get().lastModifiedTime());
+                        if (files.size() == FILE_BATCH_SIZE) {
+                            forked.add(fork(new DeleteFiles(files, lastModifiedTimes)));
+                            files = new ArrayList<>();
+                            lastModifiedTimes = new ArrayList<>();
+                        }
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                listed = false;
+            }
+
+            // The last batch is deleted by this thread rather than forked.
+            result.merge(new DeleteFiles(files, lastModifiedTimes).compute());
+            for (RecursiveTask<FileWalkBackupOperation> task : forked) {
+                result.merge(task.join());
+            }
+
+            if (listed) {
+                delete(dir, FileType.Directory, lastModified, result);
             } else {
-                // Schedule directory to be deleted after all files within it have been removed.
-                FileChangeRecord fileChangeRecord = new FileChangeRecord.Builder()
-                        .backupPath(dir)
-                        .backupLastModified(FileTime.fromMillis(dir.toFile().lastModified()))
-                        .fileSystemAction(FileSystemAction.Delete)
-                        .fileType(FileType.Directory)
-                        .create();
-                BackupTaskExecutionPipeline pipeline = BackupTaskExecutionPipeline.of(DeleteFileTask.of(fileChangeRecord));
-                fileWalkBackupOperation.addBackupOperation(BackupOperation.of(record, pipeline));
+                String reason = "DeleteDirectoryTask: postVisitDirectory failed, " + dir.toString() + " could not be deleted";
+                result.addFileAccessError(new FileAccessError(dir, reason));
+            }
+            return result;
+        }
+
+        private RecursiveTask<FileWalkBackupOperation> fork(RecursiveTask<FileWalkBackupOperation> task) {
+            task.fork();
+            return task;
+        }
+    }
+
+    /**
+     * Deletes a batch of files within a single directory.
+     */
+    private class DeleteFiles extends RecursiveTask<FileWalkBackupOperation> {
+        private final List<Path> files;
+        private final List<FileTime> lastModifiedTimes;
+
+        private DeleteFiles(List<Path> files, List<FileTime> lastModifiedTimes) {
+            this.files = files;
+            this.lastModifiedTimes = lastModifiedTimes;
+        }
+
+        @Override
+        protected FileWalkBackupOperation compute() {
+            FileWalkBackupOperation result = new FileWalkBackupOperation();
+            for (int i = 0; i < files.size(); i++) {
+                delete(files.get(i), FileType.File, lastModifiedTimes.get(i), result);
             }
-            return FileVisitResult.CONTINUE;
+            return result;
         }
     }
 }
@@ -1,6 +1,7 @@
 package fileBackup.backupExecution.backupTasks;
 
 import fileBackup.backupExecution.BackupTaskResult;
+import fileBackup.copying.CopyEngine;
 import fileBackup.fileAnalysis.FileChangeRecord;
 import io.vavr.control.Try;
 
@@ -12,6 +13,7 @@ import static io.vavr.Predicates.instanceOf;
 
 /**
  * {@code DeleteFileTask} deletes a single file and represents a backup stage within a {@code BackupTaskExecutionPipeline}.
+ * Any unfinished copy left beside the file by the {@code CopyEngine} is deleted with it.
  * <p>
  * Created by matt on 03-Jul-17.
  */
@@ -31,7 +33,9 @@ public class DeleteFileTask extends SingleBackupTask {
             if (!Files.isWritable(record.getBackupPath())) {
                 throw new Exception("Invalid file permissions - Not writable for " + record.getBackupPath());
             }
-            return Files.deleteIfExists(record.getBackupPath());
+            boolean deleted = Files.deleteIfExists(record.getBackupPath());
+            CopyEngine.deleteTemporaryFiles(record.getBackupPath());
+            return deleted;
         });
 
         return tryDelete
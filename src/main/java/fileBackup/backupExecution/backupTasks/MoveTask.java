@@ -0,0 +1,57 @@
+package fileBackup.backupExecution.backupTasks;
+
+import fileBackup.backupExecution.BackupTaskResult;
+import fileBackup.copying.CopyEngine;
+import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FileType;
+import io.vavr.control.Try;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@code MoveTask} moves an existing backup file or directory which was moved or renamed on the current drive to its
+ * new backup path, rather than copying the new path and deleting the old one. Used for
+ * {@code FileSystemAction.Move}.
+ *
+ * <p>When a file can't be moved the current file is copied instead exactly as {@code CopyFileTask} would, leaving
+ * the old backup to be deleted by the next backup. A directory which can't be moved is reported as a failure, the
+ * next backup copies it again.</p>
+ */
+public class MoveTask extends SingleBackupTask {
+    private final CopyEngine copyEngine;
+
+    private MoveTask(FileChangeRecord record, CopyEngine copyEngine) {
+        super(record, "MoveTask: Move the existing backup to the backup path");
+        this.copyEngine = copyEngine;
+    }
+
+    public static MoveTask of(FileChangeRecord record) {
+        return of(record, CopyEngine.getInstance());
+    }
+
+    /**
+     * @param record The Move record.
+     * @param copyEngine Copies the file when it can't be moved.
+     * @return The task.
+     */
+    public static MoveTask of(FileChangeRecord record, CopyEngine copyEngine) {
+        return new MoveTask(record, copyEngine);
+    }
+
+    @Override
+    public BackupTaskResult execute() {
+        if (!record.getSourceBackupPath().isPresent()) {
+            return BackupTaskResult.failure(record, this, "No source backup path to move");
+        }
+        Path sourceBackupPath = record.getSourceBackupPath().get();
+
+        Try<Path> tryMove = Try.of(() -> Files.move(sourceBackupPath, record.getBackupPath()));
+
+        return tryMove
+                .map(path -> BackupTaskResult.success(record, this))
+                .getOrElseGet(ex -> record.getFileType() == FileType.File
+                        ? CopyFileTask.of(record, copyEngine).execute()
+                        : onException(ex));
+    }
+}
@@ -0,0 +1,56 @@
+package fileBackup.backupExecution.backupTasks;
+
+import fileBackup.backupExecution.BackupTaskResult;
+import fileBackup.fileAnalysis.FileChangeRecord;
+import io.vavr.control.Try;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+
+import static io.vavr.API.$;
+import static io.vavr.API.Case;
+import static io.vavr.API.Match;
+import static io.vavr.Predicates.instanceOf;
+
+/**
+ * {@code UpdateLastModifiedTask} sets the backup file last modified time to the current file last modified time
+ * without copying any data. Used for {@code FileSystemAction.Touch} where the file contents are already identical.
+ * Represents a backup stage within a {@code BackupTaskExecutionPipeline}.
+ */
+public class UpdateLastModifiedTask extends SingleBackupTask {
+    private UpdateLastModifiedTask(FileChangeRecord record) {
+        super(record, "UpdateLastModifiedTask: Update backup file last modified time to match current file");
+    }
+
+    public static UpdateLastModifiedTask of(FileChangeRecord record) {
+        return new UpdateLastModifiedTask(record);
+    }
+
+    @Override
+    public BackupTaskResult execute() {
+        if (record.getCurrentLastModified() == null) {
+            return BackupTaskResult.failure(record, this, "No current last modified time");
+        }
+
+        Try<Boolean> tryUpdate = Try.of(() -> {
+            if (!Files.isWritable(record.getBackupPath())) {
+                throw new Exception("Invalid file permissions - Not writable for " + record.getBackupPath());
+            }
+            Files.setLastModifiedTime(record.getBackupPath(), record.getCurrentLastModified());
+            return true;
+        });
+
+        return tryUpdate
+                .map(updated -> BackupTaskResult.success(record, this))
+                .getOrElseGet(ex -> Match(ex).of(
+                        Case($(instanceOf(NoSuchFileException.class)), this::onNonExistingFile),
+                        Case($(instanceOf(SecurityException.class)), this::onSecurityException),
+                        Case($(), this::onException)
+                ));
+    }
+
+    private BackupTaskResult onNonExistingFile(Throwable e) {
+        String error = "Failed to update backup file " + record.getBackupPath() + " as it does not exist";
+        return BackupTaskResult.failure(record, this, error);
+    }
+}
@@ -1,26 +1,62 @@
 package fileBackup.backupExecution.completed;
 
 import fileBackup.backupExecution.BackupOperation;
+import fileBackup.backupExecution.FileBackupStatus;
+import fileBackup.backupExecution.ResultJournal;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Contains the result of executing the modified/new files backup.
  *
+ * <p>A backup written to a {@code ResultJournal} only holds its failed {@code BackupOperation}s in memory, every
+ * operation including the failures is read back from {@link #getJournal()}.</p>
+ *
  * Created by matt on 08-Jul-17.
  */
 public class CompletedModifiedFilesBackup {
     private List<BackupOperation> results;
+    private ResultJournal journal;
 
-    private CompletedModifiedFilesBackup(List<BackupOperation> results) {
+    private CompletedModifiedFilesBackup(List<BackupOperation> results, ResultJournal journal) {
         this.results = results;
+        this.journal = journal;
     }
 
     public static CompletedModifiedFilesBackup of(List<BackupOperation> results) {
-        return new CompletedModifiedFilesBackup(results);
+        return new CompletedModifiedFilesBackup(results, null);
+    }
+
+    /**
+     * @param journal The journal every operation was appended to.
+     */
+    public static CompletedModifiedFilesBackup of(ResultJournal journal) {
+        return new CompletedModifiedFilesBackup(journal.getFailures(), journal);
     }
 
+    /**
+     * @return Every {@code BackupOperation}, or only the failures when {@link #getJournal()} is present.
+     */
     public List<BackupOperation> getResults() {
         return results;
     }
+
+    public Optional<ResultJournal> getJournal() {
+        return Optional.ofNullable(journal);
+    }
+
+    /**
+     * @return The number of operations executed.
+     */
+    public long getTotal() {
+        return journal == null ? results.size() : journal.getTotal();
+    }
+
+    public long getTotalFailed() {
+        if (journal != null) {
+            return journal.getTotalFailed();
+        }
+        return results.stream().filter(result -> result.getFileBackupStatus() == FileBackupStatus.FAILURE).count();
+    }
 }
@@ -3,7 +3,7 @@ package fileBackup.backupExecution.directoryFilters;
 import java.nio.file.Path;
 
 /**
- * Checks if a directory is active which determines whether or not an instance of {@code AbstractFileCollector} should
+ * Checks if a directory is active which determines whether or not the {@code TreeDiffCollector} should
  * traverse a directory or skip it entirely. Active is defined as any CRUD operation being performed on or
  * within a directory.
  *
@@ -7,7 +7,7 @@ import java.util.Set;
 
 /**
  * Live monitoring collects paths to directories which are deemed to be active, where active is defined as any CRUD
- * operation being performed on or within a directory. Instances of {@code AbstractFileCollector} use this filter
+ * operation being performed on or within a directory. The {@code TreeDiffCollector} uses this filter
  * to determine if they can skip an entire directory within the preVisitDirectory step during a file walk.
  *
  * Created by matt on 12-Jul-17.
@@ -7,7 +7,8 @@ import java.util.List;
 
 /**
  * Contains the {@code FileChangeRecord}s pending modification on the backup. These records have a status of
- * {@code FileSystemAction.New} or {@code FileSystemAction.Modify}.
+ * {@code FileSystemAction.New}, {@code FileSystemAction.Modify}, {@code FileSystemAction.Touch},
+ * {@code FileSystemAction.Link} or {@code FileSystemAction.HardLink}.
  *
  * Created by matt on 08-Jul-17.
  */
@@ -0,0 +1,121 @@
+package fileBackup.copying;
+
+import io.vavr.control.Try;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Times each {@code CopyStrategy} copying a sample file from the current drive to the backup drive to find the
+ * fastest between them. It is only run when asked for before a backup starts, never while copying.
+ *
+ * <p>The sample is {@value #SAMPLE_SIZE} bytes of random data, large enough to reach the sequential throughput of the
+ * drive while only taking a fraction of a second on most drives. Every strategy copies it {@value #ROUNDS} times and
+ * the best time of each is compared, so a slow first round while caches warm up doesn't decide the result. The
+ * sample and its copies are removed afterwards.</p>
+ *
+ * <p>{@code CopyStrategy.MemoryMapped} is never timed since a mapped source can't be deleted or renamed on Windows
+ * until the mapping is garbage collected, it has to be chosen explicitly.</p>
+ */
+public class CopyBenchmark {
+    static final int SAMPLE_SIZE = 16 * 1024 * 1024;
+    private static final int ROUNDS = 2;
+
+    // The strategies which can be chosen by the benchmark.
+    static final Set<CopyStrategy> CANDIDATES =
+            Collections.unmodifiableSet(EnumSet.of(CopyStrategy.TransferTo, CopyStrategy.DirectBuffer));
+
+    /**
+     * @param sourceDirectory A writable directory on the drive being copied from.
+     * @param targetDirectory A writable directory on the drive being copied to.
+     * @return The fastest strategy, or {@code CopyStrategy.TransferTo} if the benchmark can't run.
+     */
+    public static CopyStrategy fastest(Path sourceDirectory, Path targetDirectory) {
+        return Try.of(() -> run(sourceDirectory, targetDirectory))
+                .map(CopyBenchmark::fastest)
+                .getOrElse(CopyStrategy.TransferTo);
+    }
+
+    /**
+     * @param timings The best time of each strategy.
+     * @return The strategy with the lowest time.
+     */
+    static CopyStrategy fastest(Map<CopyStrategy, Long> timings) {
+        return timings.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(CopyStrategy.TransferTo);
+    }
+
+    /**
+     * @param sourceDirectory A writable directory on the drive being copied from.
+     * @param targetDirectory A writable directory on the drive being copied to.
+     * @return The best time in nanoseconds each of the {@link #CANDIDATES} took to copy the sample.
+     * @throws IOException If the sample can't be written or copied.
+     */
+    public static Map<CopyStrategy, Long> run(Path sourceDirectory, Path targetDirectory) throws IOException {
+        Path sourceBenchmarkDirectory = createBenchmarkDirectory(sourceDirectory);
+        try {
+            Path targetBenchmarkDirectory = createBenchmarkDirectory(targetDirectory);
+            try {
+                Path sample = writeSample(sourceBenchmarkDirectory.resolve("sample"));
+                BasicFileAttributes attrs = Files.readAttributes(sample, BasicFileAttributes.class);
+                Path target = targetBenchmarkDirectory.resolve("copy");
+
+                Map<CopyStrategy, Long> timings = new EnumMap<>(CopyStrategy.class);
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (CopyStrategy strategy : CANDIDATES) {
+                        long start = System.nanoTime();
+                        CopyEngine.getInstance().copy(sample, target, attrs, strategy);
+                        long elapsed = System.nanoTime() - start;
+                        timings.merge(strategy, elapsed, Math::min);
+                        Files.delete(target);
+                    }
+                }
+                return timings;
+            } finally {
+                deleteBenchmarkDirectory(targetBenchmarkDirectory);
+            }
+        } finally {
+            deleteBenchmarkDirectory(sourceBenchmarkDirectory);
+        }
+    }
+
+    private static Path createBenchmarkDirectory(Path directory) throws IOException {
+        return Files.createTempDirectory(directory, CopyEngine.TEMPORARY_PREFIX + "benchmark");
+    }
+
+    private static void deleteBenchmarkDirectory(Path benchmarkDirectory) throws IOException {
+        try (Stream<Path> paths = Files.list(benchmarkDirectory)) {
+            paths.forEach(path -> Try.run(() -> Files.deleteIfExists(path)));
+        }
+        Files.deleteIfExists(benchmarkDirectory);
+    }
+
+    private static Path writeSample(Path sample) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024);
+        new Random().nextBytes(buffer.array());
+        try (FileChannel channel = FileChannel.open(sample, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (int written = 0; written < SAMPLE_SIZE; written += buffer.capacity()) {
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(true);
+        }
+        return sample;
+    }
+}
@@ -0,0 +1,413 @@
+package fileBackup.copying;
+
+import fileBackup.devices.IoThrottle;
+import io.vavr.control.Try;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Replacement for {@code Files.copy(source, target, COPY_ATTRIBUTES, REPLACE_EXISTING)} used by {@code CopyFileTask},
+ * copying regular files through a {@code CopyStrategy}.
+ *
+ * <p>Each backup builds its own {@code CopyEngine} from its options with a {@link Builder} and passes it to the tasks
+ * copying its files, so backups running at the same time never share settings. {@link #getInstance()} has the
+ * defaults of every setting and is used when none is supplied.</p>
+ *
+ * <p>Each regular file is copied in the following order.</p>
+ *
+ * <ol>
+ *     <li>The source attributes are read before any data so changes made during the copy give the backup an older
+ *     last modified time, which the next scan picks up as modified.</li>
+ *     <li>A hidden sibling of the target is created and its length set to the source size, which allocates the file
+ *     up front on NTFS and FAT backup drives rather than growing it on each write.</li>
+ *     <li>The data is transferred by the {@code CopyStrategy}.</li>
+ *     <li>The last modified, last access and creation times, and the POSIX permissions or DOS attributes, are applied
+ *     to the sibling.</li>
+ *     <li>The sibling is atomically renamed over the target. The previous backup stays intact until the copy is
+ *     complete, and a backup hard linked to other names by {@code CreateHardLinkTask} is replaced rather than
+ *     written through, leaving the other names untouched exactly as {@code Files.copy} does.</li>
+ * </ol>
+ *
+ * <p>Directories, links and other files are still copied by {@code Files.copy}.</p>
+ *
+ * <p>{@code CopyStrategy.TransferTo} is used unless another is set by {@link Builder#strategy(CopyStrategy)}, either
+ * chosen by the user or found by running {@code CopyBenchmark} before the backup starts.</p>
+ *
+ * <p>When a delta threshold is set by {@link Builder#deltaThreshold(long)}, a file of at least that size replacing an
+ * existing backup is updated in place by the {@code DeltaCopier} instead, only writing the blocks which changed. It is
+ * off by default since the previous backup doesn't survive a failed update the way it does a failed copy.</p>
+ *
+ * <p>A file of at least the resumable threshold is copied in {@value #CHECKPOINT_INTERVAL} byte chunks. After each
+ * chunk the sibling is flushed to the drive and a checkpoint beside it records how far the copy got along with the
+ * size and last modified time of the source. A copy which fails, or never finishes because the machine slept or the
+ * drive was unplugged, leaves both behind. The next copy of the same unchanged source compares everything written so
+ * far with the source and continues after it, otherwise it starts again from the beginning. Reading the copied part
+ * from both drives is still cheaper than writing it again, and unlike checking the last chunk alone a chunk which was
+ * corrupted earlier can't survive into the backup.</p>
+ *
+ * <p>Siblings and checkpoints share the {@value #TEMPORARY_PREFIX} prefix followed by a fixed length hash of the
+ * target name rather than the name itself, so a target name at the 255 byte limit of most file systems can still be
+ * copied. These names are reserved, see {@link #isTemporaryFile(Path)}, and never backed up from the current drive or
+ * treated as backups on the backup drive. Deleting the backup of a file also deletes any left behind, and a scan
+ * deletes those found beside a file which is no longer being copied.</p>
+ *
+ * <p>Every copy and delta update is limited by the {@code IoThrottle} set by {@link Builder#throttle(IoThrottle)},
+ * which is unlimited by default. {@code CopyBenchmark} is never throttled so each strategy is timed at full speed.</p>
+ */
+public class CopyEngine {
+    // Prefix of the sibling a file is copied into before being renamed over the target.
+    public static final String TEMPORARY_PREFIX = ".filebackup-";
+
+    public static final long DEFAULT_RESUMABLE_THRESHOLD = 1024L * 1024 * 1024;
+    static final long CHECKPOINT_INTERVAL = 64L * 1024 * 1024;
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    // Siblings, checkpoints and the directories CopyBenchmark copies within.
+    private static final Pattern TEMPORARY_NAME = Pattern.compile(Pattern.quote(TEMPORARY_PREFIX)
+            + "([0-9a-f]{32}(" + Pattern.quote(TEMPORARY_SUFFIX) + "|" + Pattern.quote(CHECKPOINT_SUFFIX) + ")"
+            + "|benchmark[0-9]+)");
+
+    private static final CopyEngine instance = new Builder().create();
+
+    private final CopyStrategy strategy;
+    private final long deltaThreshold;
+    private final long resumableThreshold;
+    private final IoThrottle throttle;
+
+    private CopyEngine(CopyStrategy strategy, long deltaThreshold, long resumableThreshold, IoThrottle throttle) {
+        this.strategy = strategy;
+        this.deltaThreshold = deltaThreshold;
+        this.resumableThreshold = resumableThreshold;
+        this.throttle = throttle;
+    }
+
+    /**
+     * @return The {@code CopyEngine} with the default settings.
+     */
+    public static CopyEngine getInstance() {
+        return instance;
+    }
+
+    /**
+     * Copies {@code source} to {@code target} replacing any existing file, along with its attributes.
+     *
+     * @param source The file to copy.
+     * @param target The destination, its parent directory must exist.
+     * @throws IOException If the copy fails, the target is left as it was.
+     */
+    public void copy(Path source, Path target) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class);
+        if (!attrs.isRegularFile()) {
+            throttle.acquire(0, 1);
+            Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        if (deltaThreshold > 0 && attrs.size() >= deltaThreshold && DeltaCopier.canUpdate(target)) {
+            DeltaCopier.update(source, target, attrs, throttle);
+            return;
+        }
+        if (resumableThreshold > 0 && attrs.size() >= resumableThreshold) {
+            copyResumable(source, target, attrs, strategy, CHECKPOINT_INTERVAL, throttle);
+            return;
+        }
+        copy(source, target, attrs, strategy, throttle);
+    }
+
+    /**
+     * Copies a regular file with the supplied strategy at full speed.
+     *
+     * @see #copy(Path, Path, BasicFileAttributes, CopyStrategy, IoThrottle)
+     */
+    void copy(Path source, Path target, BasicFileAttributes attrs, CopyStrategy strategy) throws IOException {
+        copy(source, target, attrs, strategy, IoThrottle.UNLIMITED);
+    }
+
+    /**
+     * Copies a regular file with the supplied strategy.
+     *
+     * @param source The file to copy.
+     * @param target The destination, its parent directory must exist.
+     * @param attrs The attributes of {@code source} read before copying.
+     * @param strategy The {@code CopyStrategy}.
+     * @param throttle Limits the rate of the copy.
+     * @throws IOException If the copy fails, the target is left as it was.
+     */
+    void copy(Path source, Path target, BasicFileAttributes attrs, CopyStrategy strategy, IoThrottle throttle)
+            throws IOException {
+        Path temporary = temporarySibling(target);
+        try {
+            try (FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ);
+                 RandomAccessFile targetFile = new RandomAccessFile(temporary.toFile(), "rw")) {
+                targetFile.setLength(attrs.size());
+                strategy.transfer(sourceChannel, targetFile.getChannel(), 0, attrs.size(), throttle);
+            }
+            copyAttributes(source, temporary, attrs);
+            replace(temporary, target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Copies a regular file in checkpointed chunks, resuming from the checkpoint left by a previous attempt.
+     *
+     * @param source The file to copy.
+     * @param target The destination, its parent directory must exist.
+     * @param attrs The attributes of {@code source} read before copying.
+     * @param strategy The {@code CopyStrategy}.
+     * @param interval The number of bytes copied between checkpoints.
+     * @throws IOException If the copy fails, the target is left as it was and the copy can be resumed.
+     */
+    void copyResumable(Path source, Path target, BasicFileAttributes attrs, CopyStrategy strategy, long interval)
+            throws IOException {
+        copyResumable(source, target, attrs, strategy, interval, IoThrottle.UNLIMITED);
+    }
+
+    private void copyResumable(Path source, Path target, BasicFileAttributes attrs, CopyStrategy strategy,
+                               long interval, IoThrottle throttle) throws IOException {
+        Path temporary = temporarySibling(target);
+        Path checkpoint = checkpoint(target);
+        Checkpoint expected = new Checkpoint(attrs.size(), attrs.lastModifiedTime().toMillis(), 0);
+
+        try (FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ);
+             RandomAccessFile targetFile = new RandomAccessFile(temporary.toFile(), "rw")) {
+            FileChannel targetChannel = targetFile.getChannel();
+            long position = resumePosition(Checkpoint.read(checkpoint), expected, sourceChannel, targetChannel);
+            targetFile.setLength(attrs.size());
+
+            while (position < attrs.size()) {
+                long end = Math.min(position + interval, attrs.size());
+                strategy.transfer(sourceChannel, targetChannel, position, end, throttle);
+                targetChannel.force(false);
+                position = end;
+                expected.withCopied(position).write(checkpoint);
+            }
+        }
+        copyAttributes(source, temporary, attrs);
+        replace(temporary, target);
+        Files.deleteIfExists(checkpoint);
+    }
+
+    /**
+     * @return Where a copy continues from, only after the copied bytes of a matching checkpoint when every byte
+     * written is still identical to the source.
+     */
+    private static long resumePosition(Optional<Checkpoint> checkpoint, Checkpoint expected,
+                                       FileChannel source, FileChannel target) throws IOException {
+        if (!checkpoint.isPresent() || !checkpoint.get().isSameSource(expected)
+                || checkpoint.get().copied > target.size()) {
+            return 0;
+        }
+        long copied = checkpoint.get().copied;
+        return isSame(source, target, 0, copied) ? copied : 0;
+    }
+
+    private static boolean isSame(FileChannel source, FileChannel target, long start, long end) throws IOException {
+        ByteBuffer sourceBuffer = ByteBuffer.allocateDirect(CopyStrategy.BUFFER_SIZE);
+        ByteBuffer targetBuffer = ByteBuffer.allocateDirect(CopyStrategy.BUFFER_SIZE);
+        for (long position = start; position < end; position += sourceBuffer.capacity()) {
+            int length = (int) Math.min(sourceBuffer.capacity(), end - position);
+            if (!read(source, sourceBuffer, position, length) || !read(target, targetBuffer, position, length)
+                    || !sourceBuffer.equals(targetBuffer)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code false} if the channel ended before {@code length} bytes were read.
+     */
+    private static boolean read(FileChannel channel, ByteBuffer buffer, long position, int length)
+            throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    /**
+     * @param path A path on either drive.
+     * @return {@code true} if {@code path} has the reserved name of a sibling a copy is written to, its checkpoint or
+     * a {@code CopyBenchmark} directory.
+     */
+    public static boolean isTemporaryFile(Path path) {
+        return path.getFileName() != null && TEMPORARY_NAME.matcher(path.getFileName().toString()).matches();
+    }
+
+    /**
+     * Deletes the sibling and checkpoint left behind by an unfinished copy to {@code target}.
+     *
+     * @param target The backup path.
+     */
+    public static void deleteTemporaryFiles(Path target) throws IOException {
+        Files.deleteIfExists(temporarySibling(target));
+        Files.deleteIfExists(checkpoint(target));
+    }
+
+    /**
+     * @return The checkpoint of a resumable copy to {@code target}.
+     */
+    public static Path checkpoint(Path target) {
+        return target.resolveSibling(temporaryName(target) + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * @return The hidden sibling {@code target} is copied into, the same for every attempt so an abandoned copy is
+     * overwritten by the next.
+     */
+    public static Path temporarySibling(Path target) {
+        return target.resolveSibling(temporaryName(target) + TEMPORARY_SUFFIX);
+    }
+
+    /**
+     * @return The prefix followed by 32 hex characters of the MD5 of the target name, the same length for any name.
+     */
+    private static String temporaryName(Path target) {
+        UUID hash = UUID.nameUUIDFromBytes(target.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+        return String.format("%s%016x%016x", TEMPORARY_PREFIX, hash.getMostSignificantBits(),
+                hash.getLeastSignificantBits());
+    }
+
+    /**
+     * Renames {@code temporary} over {@code target}, only falling back to a non atomic rename on file systems
+     * without atomic moves.
+     */
+    static void replace(Path temporary, Path target) throws IOException {
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Applies the attributes {@code COPY_ATTRIBUTES} would have copied. Only the last modified time is required, the
+     * scan compares it, so permissions and DOS attributes are copied where both file systems support them.
+     */
+    static void copyAttributes(Path source, Path target, BasicFileAttributes attrs) throws IOException {
+        Files.getFileAttributeView(target, BasicFileAttributeView.class)
+                .setTimes(attrs.lastModifiedTime(), attrs.lastAccessTime(), attrs.creationTime());
+
+        if (supports(source, "posix") && supports(target, "posix")) {
+            PosixFileAttributes posix = Files.readAttributes(source, PosixFileAttributes.class);
+            Files.getFileAttributeView(target, PosixFileAttributeView.class).setPermissions(posix.permissions());
+        } else if (supports(source, "dos") && supports(target, "dos")) {
+            DosFileAttributes dos = Files.readAttributes(source, DosFileAttributes.class);
+            Files.setAttribute(target, "dos:readonly", dos.isReadOnly());
+            Files.setAttribute(target, "dos:hidden", dos.isHidden());
+            Files.setAttribute(target, "dos:archive", dos.isArchive());
+            Files.setAttribute(target, "dos:system", dos.isSystem());
+        }
+    }
+
+    private static boolean supports(Path path, String view) {
+        return path.getFileSystem().supportedFileAttributeViews().contains(view);
+    }
+
+    /**
+     * How far a resumable copy got, stored as a single line of text.
+     *
+     * <p>The source is only identified by its size and last modified time in milliseconds, which misses a source
+     * rewritten within the same millisecond or by a tool preserving the last modified time. It only decides whether
+     * the copied bytes are worth comparing, the comparison with the source decides whether they are kept.</p>
+     */
+    private static class Checkpoint {
+        private final long size;
+        private final long lastModified;
+        private final long copied;
+
+        private Checkpoint(long size, long lastModified, long copied) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.copied = copied;
+        }
+
+        private static Optional<Checkpoint> read(Path checkpoint) {
+            return Try.of(() -> new String(Files.readAllBytes(checkpoint), StandardCharsets.UTF_8).trim().split(" "))
+                    .filter(values -> values.length == 3)
+                    .map(values -> new Checkpoint(Long.parseLong(values[0]), Long.parseLong(values[1]),
+                            Long.parseLong(values[2])))
+                    .toJavaOptional();
+        }
+
+        private boolean isSameSource(Checkpoint other) {
+            return size == other.size && lastModified == other.lastModified;
+        }
+
+        private Checkpoint withCopied(long copied) {
+            return new Checkpoint(size, lastModified, copied);
+        }
+
+        private void write(Path checkpoint) throws IOException {
+            String line = size + " " + lastModified + " " + copied;
+            Files.write(checkpoint, line.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public static class Builder {
+        private CopyStrategy strategy = CopyStrategy.TransferTo;
+        private long deltaThreshold;
+        private long resumableThreshold = DEFAULT_RESUMABLE_THRESHOLD;
+        private IoThrottle throttle = IoThrottle.UNLIMITED;
+
+        /**
+         * The strategy used for every copy, defaults to {@code CopyStrategy.TransferTo}.
+         */
+        public Builder strategy(CopyStrategy strategy) {
+            this.strategy = strategy;
+            return this;
+        }
+
+        /**
+         * The size in bytes from which existing backups are updated in place, defaults to 0 which always copies in
+         * full.
+         */
+        public Builder deltaThreshold(long deltaThreshold) {
+            this.deltaThreshold = deltaThreshold;
+            return this;
+        }
+
+        /**
+         * The size in bytes from which copies are checkpointed so they can be resumed, 0 to never checkpoint.
+         * Defaults to {@value CopyEngine#DEFAULT_RESUMABLE_THRESHOLD}.
+         */
+        public Builder resumableThreshold(long resumableThreshold) {
+            this.resumableThreshold = resumableThreshold;
+            return this;
+        }
+
+        /**
+         * Limits the bandwidth and operations per second of every copy, defaults to {@code IoThrottle.UNLIMITED}.
+         */
+        public Builder throttle(IoThrottle throttle) {
+            this.throttle = throttle;
+            return this;
+        }
+
+        public CopyEngine create() {
+            return new CopyEngine(strategy, deltaThreshold, resumableThreshold, throttle);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package fileBackup.copying;
+
+import fileBackup.devices.IoThrottle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The ways {@code CopyEngine} can move the data of a regular file from the source channel to the target channel. Which
+ * is fastest depends on the operating system and the {@code FileStore}, see {@code CopyBenchmark}.
+ *
+ * <table border=1 cellpadding=5 summary="">
+ *     <tr><th>Strategy</th><th>Transfer</th></tr>
+ *     <tr><td>TransferTo</td><td>{@code FileChannel.transferTo} which lets the kernel copy between the files without
+ *     the data entering the JVM, such as {@code sendfile} or {@code copy_file_range} on Linux.</td></tr>
+ *     <tr><td>MemoryMapped</td><td>Maps the source in {@value #MAPPED_REGION_SIZE} byte regions and writes each
+ *     region to the target. On Windows a mapped source can't be deleted until the region is garbage collected.</td></tr>
+ *     <tr><td>DirectBuffer</td><td>Reads and writes through a {@value #BUFFER_SIZE} byte direct {@code ByteBuffer}
+ *     reused by each thread, avoiding the heap copies of stream based copying.</td></tr>
+ * </table>
+ */
+public enum CopyStrategy {
+    TransferTo("Zero copy transfer"),
+    MemoryMapped("Memory mapped"),
+    DirectBuffer("Direct buffer");
+
+    static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+    static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private String description;
+
+    CopyStrategy(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Copies the bytes from {@code start} up to {@code end} of {@code source} to the same offsets of {@code target}.
+     *
+     * @param source The source opened for reading.
+     * @param target The target opened for writing.
+     * @param start The offset of the first byte to copy.
+     * @param end The offset after the last byte to copy.
+     * @param throttle Limits the rate of the copy, which is split into {@code IoThrottle.CHUNK_SIZE} byte transfers
+     *                 when limited.
+     * @throws IOException If reading or writing fails.
+     */
+    void transfer(FileChannel source, FileChannel target, long start, long end, IoThrottle throttle)
+            throws IOException {
+        boolean limited = throttle.isLimited();
+        switch (this) {
+            case TransferTo:
+                target.position(start);
+                for (long position = start; position < end; ) {
+                    long length = limited ? Math.min(IoThrottle.CHUNK_SIZE, end - position) : end - position;
+                    throttle.acquire(length, 2);
+                    long started = System.nanoTime();
+                    long transferred = source.transferTo(position, length, target);
+                    if (transferred <= 0 && source.size() <= position) {
+                        throw new IOException("Source shrank to " + source.size() + " bytes while copying");
+                    }
+                    throttle.record(System.nanoTime() - started, transferred, 2);
+                    position += transferred;
+                }
+                break;
+            case MemoryMapped:
+                int regionSize = limited ? IoThrottle.CHUNK_SIZE : MAPPED_REGION_SIZE;
+                for (long position = start; position < end; position += regionSize) {
+                    long length = Math.min(regionSize, end - position);
+                    throttle.acquire(length, 2);
+                    long started = System.nanoTime();
+                    MappedByteBuffer region = source.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    while (region.hasRemaining()) {
+                        target.write(region, position + region.position());
+                    }
+                    throttle.record(System.nanoTime() - started, length, 2);
+                }
+                break;
+            case DirectBuffer:
+                ByteBuffer buffer = BUFFERS.get();
+                for (long position = start; position < end; ) {
+                    buffer.clear();
+                    if (end - position < buffer.capacity()) {
+                        buffer.limit((int) (end - position));
+                    }
+                    throttle.acquire(buffer.remaining(), 2);
+                    long started = System.nanoTime();
+                    int read = source.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("Source shrank to " + position + " bytes while copying");
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        position += target.write(buffer, position);
+                    }
+                    throttle.record(System.nanoTime() - started, read, 2);
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package fileBackup.copying;
+
+import fileBackup.devices.IoThrottle;
+import io.vavr.control.Try;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Updates an existing backup of a large file in place by only writing the blocks which differ from the source, used
+ * by {@code CopyEngine} for files of at least its delta threshold such as virtual machine images and databases where
+ * a change touches a few pages of a multi gigabyte file.
+ *
+ * <p>Both files are read in {@value #BLOCK_SIZE} byte blocks at the same offsets and each source block is only
+ * written, with a positional write, when it differs from the backup block. The backup is then extended or truncated to
+ * the source size. Reading stays sequential on both drives while the bytes written fall to the changed blocks.</p>
+ *
+ * <p>Unlike a full copy the previous backup doesn't survive a failed update. Its last modified time is only set once
+ * every block has been written, so the next scan still finds it modified and the update runs again.</p>
+ *
+ * <p>A backup sharing its data with other names through a hard link is never updated in place, that would change
+ * every name, so it is copied in full instead.</p>
+ */
+public class DeltaCopier {
+    static final int BLOCK_SIZE = 128 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> SOURCE_BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BLOCK_SIZE));
+    private static final ThreadLocal<ByteBuffer> TARGET_BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BLOCK_SIZE));
+
+    /**
+     * @param target The existing backup.
+     * @return {@code true} if {@code target} is a regular file which only has a single name.
+     */
+    static boolean canUpdate(Path target) {
+        return Try.of(() -> {
+            BasicFileAttributes attrs = Files.readAttributes(target, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            if (!attrs.isRegularFile() || !Files.isWritable(target)) {
+                return false;
+            }
+            if (!target.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+                // Hard links are only created by CreateHardLinkTask where the unix view is supported.
+                return true;
+            }
+            return ((Number) Files.getAttribute(target, "unix:nlink", LinkOption.NOFOLLOW_LINKS)).intValue() == 1;
+        }).getOrElse(false);
+    }
+
+    /**
+     * Updates {@code target} to match {@code source}, then applies the attributes of {@code source}.
+     *
+     * @param source The current file.
+     * @param target The existing backup.
+     * @param attrs The attributes of {@code source} read before updating.
+     * @return The number of bytes written to {@code target}.
+     * @throws IOException If reading or writing fails, {@code target} may be partially updated.
+     */
+    static long update(Path source, Path target, BasicFileAttributes attrs) throws IOException {
+        return update(source, target, attrs, IoThrottle.UNLIMITED);
+    }
+
+    /**
+     * Updates {@code target} as {@link #update(Path, Path, BasicFileAttributes)} does, taking a read of each file and
+     * the bytes of both from {@code throttle} for every block along with a write for each changed block.
+     */
+    static long update(Path source, Path target, BasicFileAttributes attrs, IoThrottle throttle) throws IOException {
+        long size = attrs.size();
+        long written = 0;
+        ByteBuffer sourceBuffer = SOURCE_BUFFERS.get();
+        ByteBuffer targetBuffer = TARGET_BUFFERS.get();
+
+        try (FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel targetChannel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long targetSize = targetChannel.size();
+            for (long position = 0; position < size; position += BLOCK_SIZE) {
+                int length = (int) Math.min(BLOCK_SIZE, size - position);
+                throttle.acquire(2L * length, 2);
+                long started = System.nanoTime();
+                readFully(sourceChannel, sourceBuffer, position, length);
+
+                boolean unchanged = false;
+                if (position + length <= targetSize) {
+                    readFully(targetChannel, targetBuffer, position, length);
+                    unchanged = sourceBuffer.equals(targetBuffer);
+                }
+                throttle.record(System.nanoTime() - started, 2L * length, 2);
+                if (!unchanged) {
+                    throttle.acquire(length, 1);
+                    started = System.nanoTime();
+                    while (sourceBuffer.hasRemaining()) {
+                        targetChannel.write(sourceBuffer, position + sourceBuffer.position());
+                    }
+                    throttle.record(System.nanoTime() - started, length, 1);
+                    written += length;
+                }
+            }
+            if (targetSize > size) {
+                targetChannel.truncate(size);
+            }
+        }
+        CopyEngine.copyAttributes(source, target, attrs);
+        return written;
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code position} into {@code buffer}, leaving it flipped ready to read.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, int length)
+            throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("File shrank to " + (position + buffer.position()) + " bytes while updating");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,108 @@
+package fileBackup.devices;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A storage device shared by every scan and backup touching it, limiting how many operations run on it at once.
+ * Obtained from the {@code DeviceScheduler}.
+ *
+ * <p>Operations touching 2 devices such as a copy acquire both devices in the order they were created so 2 copies
+ * going in opposite directions can't deadlock.</p>
+ */
+public class Device {
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Used when the device of a path can't be determined or no {@code DeviceScheduler} is supplied.
+     */
+    public static final Device UNLIMITED = new Device("Unlimited", DeviceType.Unknown, Integer.MAX_VALUE);
+
+    private final int id;
+    private final String name;
+    private final DeviceType deviceType;
+    private final int concurrency;
+    private final Semaphore permits;
+
+    Device(String name, DeviceType deviceType, int concurrency) {
+        this.id = nextId.getAndIncrement();
+        this.name = name;
+        this.deviceType = deviceType;
+        this.concurrency = Math.max(1, concurrency);
+        this.permits = new Semaphore(this.concurrency);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DeviceType getDeviceType() {
+        return deviceType;
+    }
+
+    /**
+     * @return The maximum number of operations run on this device at once.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Runs {@code operation} once this device has a free slot, waiting otherwise.
+     *
+     * @param operation The operation reading or writing this device.
+     * @param <T> The result type.
+     * @return The result of {@code operation}.
+     * @throws CancellationException If interrupted while waiting.
+     */
+    public <T> T call(Supplier<T> operation) {
+        acquire(this);
+        try {
+            return operation.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs {@code operation} once both devices have a free slot. The same device is only acquired once.
+     *
+     * @param a The first device.
+     * @param b The second device.
+     * @param operation The operation reading or writing both devices.
+     * @param <T> The result type.
+     * @return The result of {@code operation}.
+     * @throws CancellationException If interrupted while waiting.
+     */
+    public static <T> T call(Device a, Device b, Supplier<T> operation) {
+        if (a == b) {
+            return a.call(operation);
+        }
+        Device first = a.id < b.id ? a : b;
+        Device second = first == a ? b : a;
+        return first.call(() -> second.call(operation));
+    }
+
+    /**
+     * @return The concurrency of the slower of the 2 devices.
+     */
+    public static int getConcurrency(Device a, Device b) {
+        return Math.min(a.concurrency, b.concurrency);
+    }
+
+    private static void acquire(Device device) {
+        try {
+            device.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for " + device.name);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + deviceType.getDescription() + ", concurrency " + concurrency + ")";
+    }
+}
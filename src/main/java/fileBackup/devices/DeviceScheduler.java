@@ -0,0 +1,43 @@
+package fileBackup.devices;
+
+import io.vavr.control.Try;
+
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application wide registry of the {@code Device} behind each {@code FileStore}. Every scan and backup touching the
+ * same physical device shares the same {@code Device}, so 2 directory walks and the copies that follow them never
+ * exceed the concurrency suited to the device, see {@code DeviceType}.
+ *
+ * <p>Looking up the {@code FileStore} of a path reads the mount table, so callers get the {@code Device} of the
+ * current working and backup roots once and use it for every path beneath them.</p>
+ */
+public class DeviceScheduler {
+    private static DeviceScheduler instance = new DeviceScheduler();
+
+    private final Map<FileStore, Device> devices = new ConcurrentHashMap<>();
+
+    public static DeviceScheduler getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param path The path on the device.
+     * @return The {@code Device} holding {@code path}, otherwise {@code Device.UNLIMITED} if its {@code FileStore}
+     * can't be read.
+     */
+    public Device getDevice(Path path) {
+        return Try.of(() -> Files.getFileStore(path))
+                .map(fileStore -> devices.computeIfAbsent(fileStore, this::createDevice))
+                .getOrElse(Device.UNLIMITED);
+    }
+
+    private Device createDevice(FileStore fileStore) {
+        DeviceType deviceType = DeviceType.of(fileStore);
+        return new Device(fileStore.name(), deviceType, deviceType.getConcurrency());
+    }
+}
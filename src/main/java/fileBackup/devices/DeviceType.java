@@ -0,0 +1,116 @@
+package fileBackup.devices;
+
+import io.vavr.control.Try;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The kind of storage device behind a {@code FileStore}, deciding how many concurrent operations it is given.
+ *
+ * <table border=1 cellpadding=5 summary="">
+ *     <tr><th>Type</th><th>Concurrency</th><th>Reason</th></tr>
+ *     <tr><td>SolidState</td><td>Available processors</td><td>Deep command queues with no seek cost.</td></tr>
+ *     <tr><td>Rotational</td><td>1</td><td>Concurrent access moves the heads between files.</td></tr>
+ *     <tr><td>Removable</td><td>1</td><td>USB sticks and SD cards serialize access internally.</td></tr>
+ *     <tr><td>Network</td><td>4</td><td>Hides round trip latency without flooding the server.</td></tr>
+ *     <tr><td>Unknown</td><td>Available processors</td><td>Same as before devices were detected.</td></tr>
+ * </table>
+ */
+public enum DeviceType {
+    SolidState("Solid state drive"),
+    Rotational("Hard disk drive"),
+    Removable("Removable drive"),
+    Network("Network drive"),
+    Unknown("Unknown");
+
+    private static final int NETWORK_CONCURRENCY = 4;
+    private static final Path SYS_CLASS_BLOCK = Paths.get("/sys/class/block");
+
+    private String description;
+
+    DeviceType(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return The number of operations which should run concurrently on a device of this type.
+     */
+    public int getConcurrency() {
+        switch (this) {
+            case Rotational:
+            case Removable:
+                return 1;
+            case Network:
+                return NETWORK_CONCURRENCY;
+            default:
+                return Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * Detects the type from the file system type, the volume attributes on windows, or the block device queue
+     * settings under /sys on linux.
+     *
+     * @param fileStore The {@code FileStore} to detect.
+     * @return The {@code DeviceType}, {@code Unknown} if it can't be detected.
+     */
+    public static DeviceType of(FileStore fileStore) {
+        String type = fileStore.type().toLowerCase(Locale.ROOT);
+        if (type.startsWith("nfs") || type.startsWith("cifs") || type.startsWith("smb") || type.contains("sshfs")
+                || type.startsWith("afp") || type.contains("webdav")) {
+            return Network;
+        }
+
+        boolean removable = Try.of(() -> (Boolean) fileStore.getAttribute("volume:isRemovable")).getOrElse(false);
+        if (removable || type.equals("vfat") || type.equals("msdos") || type.startsWith("fat") || type.equals("exfat")) {
+            return Removable;
+        }
+
+        return ofBlockDevice(fileStore.name()).orElse(Unknown);
+    }
+
+    /**
+     * @param deviceName The linux device name such as /dev/sda1 or /dev/mapper/root.
+     */
+    private static Optional<DeviceType> ofBlockDevice(String deviceName) {
+        if (!deviceName.startsWith("/dev/")) {
+            return Optional.empty();
+        }
+        // Resolves /dev/mapper links to the dm-N device.
+        return Try.of(() -> Paths.get(deviceName).toRealPath()).toJavaOptional()
+                .flatMap(device -> ofBlockDevice(device.getFileName().toString(), SYS_CLASS_BLOCK));
+    }
+
+    /**
+     * @param kernelName The kernel name of the block device such as sda1 or dm-0.
+     * @param sysClassBlock The /sys/class/block directory.
+     */
+    static Optional<DeviceType> ofBlockDevice(String kernelName, Path sysClassBlock) {
+        return Try.of(() -> {
+            Path sysBlock = sysClassBlock.resolve(kernelName).toRealPath();
+            if (Files.exists(sysBlock.resolve("partition"))) {
+                sysBlock = sysBlock.getParent();
+            }
+
+            if (readFlag(sysBlock.resolve("removable")) || sysBlock.toString().contains("/usb")) {
+                return Removable;
+            }
+            return readFlag(sysBlock.resolve("queue").resolve("rotational")) ? Rotational : SolidState;
+        }).toJavaOptional();
+    }
+
+    private static boolean readFlag(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim().equals("1");
+    }
+}
@@ -0,0 +1,236 @@
+package fileBackup.devices;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the bandwidth and I/O operations per second used by a scan or backup so it can run while the machine is in
+ * use, complementing the concurrency limit of a {@code Device}. Each limit is a {@code TokenBucket}, a copy takes a
+ * token per byte and per read or write, and a scan takes a token per directory listing and per file it stats.
+ *
+ * <p>In adaptive mode the time taken by the throttled operations themselves is the signal of foreground load. Every
+ * {@value #ADJUST_INTERVAL_MILLIS} milliseconds the average latency per operation and per MiB copied is compared to
+ * its baseline, a moving average of the latencies of the previous intervals seeded by the first. When either rises
+ * above {@code latencyFactor} times its baseline the limits are halved, down to a fraction of {@value #MIN_SCALE} of
+ * the configured limits, and otherwise they recover by a fraction of {@value #RECOVERY_STEP} each interval. As the
+ * baseline follows the latencies, a burst of fast operations such as cache hits doesn't hold the limits down once
+ * the operations settle at a slower speed, and a sustained slowdown backs off for a few intervals at most.</p>
+ *
+ * <table border=1 cellpadding=5 summary="">
+ * <tr> <th>Limit</th> <th>Adaptive</th> <th>Behaviour</th> </tr>
+ * <tr> <td>0</td> <td>No</td> <td>Unlimited.</td> </tr>
+ * <tr> <td>Set</td> <td>No</td> <td>Fixed at the limit.</td> </tr>
+ * <tr> <td>0</td> <td>Yes</td> <td>Unlimited until the first back off, which limits to the rate measured over the
+ * last interval.</td> </tr>
+ * <tr> <td>Set</td> <td>Yes</td> <td>Between a fraction of {@value #MIN_SCALE} of the limit and the limit.</td> </tr>
+ * </table>
+ *
+ * <p>A single {@code IoThrottle} is safe to share between the scanning and copying workers of a backup, which then
+ * share its limits.</p>
+ */
+public class IoThrottle {
+    /**
+     * The size of each read or write a copy is split into when throttled, so waiting is spread evenly.
+     */
+    public static final int CHUNK_SIZE = 1024 * 1024;
+
+    public static final double DEFAULT_LATENCY_FACTOR = 2.0;
+
+    static final long ADJUST_INTERVAL_MILLIS = 250;
+    static final double MIN_SCALE = 0.05;
+    static final double RECOVERY_STEP = 0.05;
+    // Weight of each interval in the baseline, which then mostly reflects the last few seconds.
+    static final double BASELINE_WEIGHT = 1.0 / 16;
+
+    public static final IoThrottle UNLIMITED = new Builder().create();
+
+    private final long bytesPerSecond;
+    private final long operationsPerSecond;
+    private final boolean adaptive;
+    private final double latencyFactor;
+    private final LongSupplier clock;
+
+    private final TokenBucket bandwidth;
+    private final TokenBucket operations;
+
+    // Adaptive state, only accessed while holding the lock on this.
+    private double scale = 1;
+    private double baseBytesPerSecond;
+    private double baseOperationsPerSecond;
+    private long windowStart;
+    private long windowBytes;
+    private long windowTransferNanos;
+    private long windowOperations;
+    private long windowOperationNanos;
+    // 0 until seeded by the first interval with operations or transfers.
+    private double operationBaseline;
+    private double transferBaseline;
+
+    private IoThrottle(long bytesPerSecond, long operationsPerSecond, boolean adaptive, double latencyFactor,
+                       LongSupplier clock) {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+        this.operationsPerSecond = Math.max(0, operationsPerSecond);
+        this.adaptive = adaptive;
+        this.latencyFactor = latencyFactor;
+        this.clock = clock;
+        this.bandwidth = new TokenBucket(this.bytesPerSecond, clock);
+        this.operations = new TokenBucket(this.operationsPerSecond, clock);
+        this.baseBytesPerSecond = this.bytesPerSecond;
+        this.baseOperationsPerSecond = this.operationsPerSecond;
+        this.windowStart = clock.getAsLong();
+    }
+
+    /**
+     * @return {@code true} if any limit is set or adaptive mode may set one.
+     */
+    public boolean isLimited() {
+        return adaptive || bytesPerSecond > 0 || operationsPerSecond > 0;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Waits until {@code bytes} and {@code count} operations are within the limits.
+     *
+     * @param bytes The bytes about to be read or written.
+     * @param count The number of operations about to be made.
+     * @throws java.util.concurrent.CancellationException If interrupted while waiting.
+     */
+    public void acquire(long bytes, int count) {
+        bandwidth.acquire(bytes);
+        operations.acquire(count);
+    }
+
+    /**
+     * Reports how long throttled operations took, adjusting the limits in adaptive mode.
+     *
+     * @param nanos The time taken.
+     * @param bytes The bytes read or written, 0 for operations without data such as a directory listing.
+     * @param count The number of operations made.
+     */
+    public void record(long nanos, long bytes, int count) {
+        if (!adaptive) {
+            return;
+        }
+        synchronized (this) {
+            if (bytes > 0) {
+                windowBytes += bytes;
+                windowTransferNanos += nanos;
+            } else {
+                windowOperations += count;
+                windowOperationNanos += nanos;
+            }
+            long now = clock.getAsLong();
+            if (now - windowStart >= TimeUnit.MILLISECONDS.toNanos(ADJUST_INTERVAL_MILLIS)) {
+                adjust(now);
+            }
+        }
+    }
+
+    private void adjust(long now) {
+        double seconds = (now - windowStart) / (double) TimeUnit.SECONDS.toNanos(1);
+        boolean slower = false;
+        if (windowOperations > 0) {
+            double latency = windowOperationNanos / (double) windowOperations;
+            slower = operationBaseline > 0 && latency > operationBaseline * latencyFactor;
+            operationBaseline = updateBaseline(operationBaseline, latency);
+        }
+        if (windowBytes > 0) {
+            double latency = windowTransferNanos / (windowBytes / (double) CHUNK_SIZE);
+            slower |= transferBaseline > 0 && latency > transferBaseline * latencyFactor;
+            transferBaseline = updateBaseline(transferBaseline, latency);
+        }
+
+        if (slower) {
+            // An unlimited rate starts backing off from the rate it was running at.
+            if (baseBytesPerSecond == 0 && windowBytes > 0) {
+                baseBytesPerSecond = windowBytes / seconds / scale;
+            }
+            if (baseOperationsPerSecond == 0 && windowOperations > 0) {
+                baseOperationsPerSecond = windowOperations / seconds / scale;
+            }
+            scale = Math.max(MIN_SCALE, scale / 2);
+        } else {
+            scale = Math.min(1, scale + RECOVERY_STEP);
+        }
+        bandwidth.setRate(scale == 1 && bytesPerSecond == 0 ? 0 : baseBytesPerSecond * scale);
+        operations.setRate(scale == 1 && operationsPerSecond == 0 ? 0 : baseOperationsPerSecond * scale);
+
+        windowStart = now;
+        windowBytes = 0;
+        windowTransferNanos = 0;
+        windowOperations = 0;
+        windowOperationNanos = 0;
+    }
+
+    private static double updateBaseline(double baseline, double latency) {
+        return baseline > 0 ? baseline + (latency - baseline) * BASELINE_WEIGHT : latency;
+    }
+
+    /**
+     * @return The fraction of the limits currently allowed, always 1 unless adaptive.
+     */
+    public synchronized double getScale() {
+        return scale;
+    }
+
+    double getBytesPerSecond() {
+        return bandwidth.getRate();
+    }
+
+    double getOperationsPerSecond() {
+        return operations.getRate();
+    }
+
+    public static class Builder {
+        private long bytesPerSecond;
+        private long operationsPerSecond;
+        private boolean adaptive;
+        private double latencyFactor = DEFAULT_LATENCY_FACTOR;
+        private LongSupplier clock = System::nanoTime;
+
+        /**
+         * The maximum bytes copied per second, defaults to 0 which is unlimited.
+         */
+        public Builder bytesPerSecond(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        /**
+         * The maximum reads, writes, listings and stats per second, defaults to 0 which is unlimited.
+         */
+        public Builder operationsPerSecond(long operationsPerSecond) {
+            this.operationsPerSecond = operationsPerSecond;
+            return this;
+        }
+
+        /**
+         * Back off when the latency of throttled operations rises, defaults to {@code false}.
+         */
+        public Builder adaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+            return this;
+        }
+
+        /**
+         * How many times slower than their baseline operations become before backing off, defaults to
+         * {@value IoThrottle#DEFAULT_LATENCY_FACTOR}.
+         */
+        public Builder latencyFactor(double latencyFactor) {
+            this.latencyFactor = latencyFactor;
+            return this;
+        }
+
+        Builder clock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public IoThrottle create() {
+            return new IoThrottle(bytesPerSecond, operationsPerSecond, adaptive, latencyFactor, clock);
+        }
+    }
+}
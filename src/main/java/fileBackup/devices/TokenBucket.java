@@ -0,0 +1,95 @@
+package fileBackup.devices;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate tokens are taken to {@code rate} per second while allowing a burst of up to
+ * {@value #BURST_SECONDS} seconds worth of tokens after being idle.
+ *
+ * <p>A request larger than the tokens available is granted straight away and leaves the bucket in debt, so a single
+ * large transfer is never refused and the requests after it wait until the debt is repaid.</p>
+ */
+class TokenBucket {
+    static final double BURST_SECONDS = 0.25;
+
+    private final LongSupplier clock;
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param rate The tokens per second, 0 or less is unlimited.
+     */
+    TokenBucket(double rate) {
+        this(rate, System::nanoTime);
+    }
+
+    TokenBucket(double rate, LongSupplier clock) {
+        this.clock = clock;
+        this.rate = rate;
+        this.lastRefill = clock.getAsLong();
+        this.tokens = capacity();
+    }
+
+    synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Changes the rate, keeping the tokens already in the bucket.
+     *
+     * @param rate The tokens per second, 0 or less is unlimited.
+     */
+    synchronized void setRate(double rate) {
+        refill();
+        this.rate = rate;
+        tokens = Math.min(tokens, capacity());
+    }
+
+    /**
+     * Takes {@code count} tokens, waiting until the bucket is out of debt.
+     *
+     * @throws CancellationException If interrupted while waiting.
+     */
+    void acquire(long count) {
+        long waitNanos = reserve(count);
+        long deadline = clock.getAsLong() + waitNanos;
+        while (waitNanos > 0) {
+            LockSupport.parkNanos(this, waitNanos);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while throttled");
+            }
+            waitNanos = deadline - clock.getAsLong();
+        }
+    }
+
+    /**
+     * Takes {@code count} tokens without waiting.
+     *
+     * @return The nanoseconds to wait before the tokens may be used, 0 if they were available.
+     */
+    synchronized long reserve(long count) {
+        if (rate <= 0 || count <= 0) {
+            return 0;
+        }
+        refill();
+        tokens -= count;
+        return tokens >= 0 ? 0 : (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        if (rate > 0) {
+            tokens = Math.min(capacity(), tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+        }
+        lastRefill = now;
+    }
+
+    private double capacity() {
+        return Math.max(1, rate * BURST_SECONDS);
+    }
+}
@@ -0,0 +1,560 @@
+package fileBackup.fileAnalysis;
+
+import fileBackup.backupExecution.BackupExecutionResult;
+import fileBackup.backupExecution.BackupOperation;
+import fileBackup.backupExecution.FileBackupStatus;
+import fileBackup.backupExecution.completed.CompletedModifiedFilesBackup;
+import fileBackup.backupExecution.backupTasks.DeleteDirectoryTaskResult;
+import fileBackup.copying.CopyEngine;
+import io.vavr.control.Try;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A compact record of the relative path, size and last modified time of every file and directory on the backup drive,
+ * stored in the backup root as {@link #FILE_NAME}.
+ *
+ * <p>Every scan would otherwise read every directory and file attribute on the backup drive which dominates the scan
+ * time on spinning USB drives. Given the assumption that only this application modifies the backup once the initial
+ * copy is made, the backup drive state at the end of the last backup is known, so scanning compares the current drive
+ * against this manifest instead of the backup drive itself. The backup drive is then only touched to validate the
+ * manifest on load and to apply changes during backup execution.</p>
+ *
+ * <p>The manifest lifecycle keeps it trustworthy.</p>
+ *
+ * <pre>
+ *     1. Backup execution begins       - the manifest is loaded into memory then deleted from the backup root.
+ *     2. Backup execution completes    - every path touched by the backup is re-read and updated in the manifest,
+ *                                        which is written back to the backup root.
+ *     3. Backup execution interrupted  - no manifest exists so the next scan reads the backup drive in full.
+ *     4. Scanning                      - the manifest is loaded and validated against the backup drive by checking
+ *                                        the backup root, every directory and a sample of files. Any mismatch
+ *                                        discards the manifest in favour of a full scan.
+ * </pre>
+ *
+ * <p>Writing the manifest changes the last modified time of the backup root, so the time read before writing is
+ * restored once the manifest is in place. Changes made in the backup root outside of this application are then caught
+ * the same way as in any other directory.</p>
+ *
+ * <p>The file is gzip compressed where each directory is written once followed by the name, type, size and last
+ * modified time of each of its entries, so path prefixes are never repeated. Names are written as length prefixed
+ * UTF-8 so paths of any length can be recorded, and symbolic links created by {@code CreateLinkTask} keep their type
+ * rather than being read back as regular files.</p>
+ */
+public class BackupManifest {
+    public static final String FILE_NAME = ".filebackup-manifest";
+
+    private static final int MAGIC = 0x46424d46;
+    private static final int VERSION = 3;
+
+    // Number of entries re-read from the backup drive to validate a loaded manifest.
+    private static final int VALIDATION_SAMPLE_SIZE = 64;
+
+    private static final byte TYPE_FILE = 0;
+    private static final byte TYPE_DIRECTORY = 1;
+    private static final byte TYPE_SYMBOLIC_LINK = 2;
+    private static final byte TYPE_OTHER = 3;
+
+    private final Path backupRootPath;
+
+    // The backup root last modified time when the manifest was written.
+    private long rootLastModifiedNanos;
+
+    // Relative directory path using '/' separators, the backup root is "". Values are the directory entries by name.
+    private final Map<String, Map<String, Entry>> directories;
+
+    private BackupManifest(Path backupRootPath, long rootLastModifiedNanos,
+                           Map<String, Map<String, Entry>> directories) {
+        this.backupRootPath = backupRootPath;
+        this.rootLastModifiedNanos = rootLastModifiedNanos;
+        this.directories = directories;
+    }
+
+    /**
+     * @param backupRootPath The backup root.
+     * @param path The {@code Path} to check.
+     * @return {@code true} if the supplied {@code path} is the manifest file or its temporary file which must be
+     * excluded when scanning the backup drive.
+     */
+    public static boolean isManifestFile(Path backupRootPath, Path path) {
+        return path.getFileName() != null
+                && path.getFileName().toString().startsWith(FILE_NAME)
+                && backupRootPath.equals(path.getParent());
+    }
+
+    /**
+     * Reads and validates the manifest stored in the backup root.
+     *
+     * @param filePathInfo The {@code FilePathInfo} containing the backup root.
+     * @return The manifest if it exists and is valid, otherwise empty meaning the backup drive must be scanned.
+     */
+    public static Optional<BackupManifest> load(FilePathInfo filePathInfo) {
+        Path backupRootPath = filePathInfo.getBackupRootPath();
+        Path manifestPath = backupRootPath.resolve(FILE_NAME);
+        if (!Files.isRegularFile(manifestPath)) {
+            return Optional.empty();
+        }
+        return Try.of(() -> read(backupRootPath, manifestPath))
+                .filter(BackupManifest::isValid)
+                .toJavaOptional();
+    }
+
+    /**
+     * Creates a new manifest by walking the entire backup drive.
+     *
+     * @param backupRootPath The backup root.
+     * @return The manifest.
+     * @throws IOException If the backup drive could not be walked.
+     */
+    public static BackupManifest scan(Path backupRootPath) throws IOException {
+        BackupManifest manifest = new BackupManifest(backupRootPath, 0, new HashMap<>());
+        manifest.walk(backupRootPath);
+        return manifest;
+    }
+
+    /**
+     * Deletes the manifest from the backup root. Must be called before the backup drive is modified so an interrupted
+     * backup never leaves behind a manifest that no longer matches the backup drive.
+     *
+     * @param backupRootPath The backup root.
+     * @return {@code true} if no manifest exists once this method returns.
+     */
+    public static boolean invalidate(Path backupRootPath) {
+        return Try.of(() -> {
+            Files.deleteIfExists(backupRootPath.resolve(FILE_NAME));
+            return true;
+        }).getOrElse(false);
+    }
+
+    /**
+     * @param backupDir The backup directory to list.
+     * @return The entries directly within {@code backupDir} as full backup paths with their recorded attributes, or
+     * empty if the directory is not in the manifest.
+     */
+    public Optional<Map<Path, BasicFileAttributes>> list(Path backupDir) {
+        Map<String, Entry> entries = directories.get(toKey(backupDir));
+        if (entries == null) {
+            return Optional.empty();
+        }
+        Map<Path, BasicFileAttributes> result = new LinkedHashMap<>();
+        entries.forEach((name, entry) -> result.put(backupDir.resolve(name), entry));
+        return Optional.of(result);
+    }
+
+    /**
+     * @param backupPath The full backup path.
+     * @return The recorded attributes, or empty if the path is not in the manifest.
+     */
+    public Optional<BasicFileAttributes> getAttributes(Path backupPath) {
+        Path parent = backupPath.getParent();
+        if (parent == null || backupPath.getFileName() == null) {
+            return Optional.empty();
+        }
+        Map<String, Entry> entries = directories.get(toKey(parent));
+        if (entries == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entries.get(backupPath.getFileName().toString()));
+    }
+
+    /**
+     * Re-reads every backup path touched by the supplied backup from the backup drive, along with their parent
+     * directories since their last modified time changes when entries are added or removed. A failed copy can leave
+     * a sibling and checkpoint behind, so they are re-read too for the next scan to resume or sweep them.
+     *
+     * @param backupExecutionResult The result of the completed backup.
+     * @throws IOException If the {@code ResultJournal} of the backup could not be read.
+     */
+    public void apply(BackupExecutionResult backupExecutionResult) throws IOException {
+        Set<String> refreshedDirectories = new HashSet<>();
+
+        CompletedModifiedFilesBackup completedModifiedFilesBackup =
+                backupExecutionResult.getCompletedModifiedFilesBackup();
+        if (completedModifiedFilesBackup != null && completedModifiedFilesBackup.getJournal().isPresent()) {
+            // Read every operation back rather than only the failures held in memory.
+            completedModifiedFilesBackup.getJournal().get().forEach(entry -> {
+                refresh(entry.getBackupPath(), refreshedDirectories);
+                if (entry.getFileBackupStatus() == FileBackupStatus.FAILURE) {
+                    refreshTemporaryFiles(entry.getBackupPath(), refreshedDirectories);
+                }
+                if (entry.getFileSystemAction() == FileSystemAction.Move) {
+                    entry.getSourceBackupPath().ifPresent(source -> refresh(source, refreshedDirectories));
+                }
+            });
+        } else if (completedModifiedFilesBackup != null) {
+            for (BackupOperation operation : completedModifiedFilesBackup.getResults()) {
+                refresh(operation.getFileChangeRecord().getBackupPath(), refreshedDirectories);
+                if (operation.getFileBackupStatus() == FileBackupStatus.FAILURE) {
+                    refreshTemporaryFiles(operation.getFileChangeRecord().getBackupPath(), refreshedDirectories);
+                }
+                // A move also removes its source.
+                if (operation.getFileChangeRecord().getFileSystemAction() == FileSystemAction.Move) {
+                    operation.getFileChangeRecord().getSourceBackupPath()
+                            .ifPresent(source -> refresh(source, refreshedDirectories));
+                }
+            }
+        }
+        if (backupExecutionResult.getCompletedDeletionBackup() != null) {
+            for (BackupOperation operation : backupExecutionResult.getCompletedDeletionBackup()
+                    .getCompletedSingleFileDeletions().getSingleFileDeletions()) {
+                refresh(operation.getFileChangeRecord().getBackupPath(), refreshedDirectories);
+            }
+            for (DeleteDirectoryTaskResult result : backupExecutionResult.getCompletedDeletionBackup()
+                    .getCompletedDirectoryDeletions().getDirectoryDeletions()) {
+                refresh(result.getStartingRootRecord().getBackupPath(), refreshedDirectories);
+            }
+        }
+    }
+
+    /**
+     * Applies the changes made by a completed backup to the manifest loaded before the backup began, or scans the
+     * entire backup drive when there was no valid manifest, then writes it to the backup root. Failing to write the
+     * manifest only means the next scan reads the backup drive, so any failure leaves no manifest behind.
+     *
+     * @param backupRootPath The backup root.
+     * @param backupManifest The manifest loaded before the backup began.
+     * @param backupExecutionResult The completed backup.
+     */
+    public static void update(Path backupRootPath, Optional<BackupManifest> backupManifest,
+                              BackupExecutionResult backupExecutionResult) {
+        Try.run(() -> {
+            if (backupManifest.isPresent()) {
+                backupManifest.get().apply(backupExecutionResult);
+                backupManifest.get().write();
+            } else {
+                scan(backupRootPath).write();
+            }
+        }).onFailure(e -> invalidate(backupRootPath));
+    }
+
+    /**
+     * Atomically writes this manifest to the backup root.
+     *
+     * @throws IOException If the manifest could not be written.
+     */
+    public void write() throws IOException {
+        rootLastModifiedNanos = Files.getLastModifiedTime(backupRootPath).to(TimeUnit.NANOSECONDS);
+        Path tempPath = backupRootPath.resolve(FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, backupRootPath.getFileName().toString());
+            out.writeLong(rootLastModifiedNanos);
+            out.writeInt(directories.size());
+
+            for (Map.Entry<String, Map<String, Entry>> directory : directories.entrySet()) {
+                writeString(out, directory.getKey());
+                out.writeInt(directory.getValue().size());
+                for (Map.Entry<String, Entry> child : directory.getValue().entrySet()) {
+                    Entry entry = child.getValue();
+                    writeString(out, child.getKey());
+                    out.writeByte(entry.type);
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.lastModifiedNanos);
+                }
+            }
+        }
+        Files.move(tempPath, backupRootPath.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        // Undo the change made by creating the manifest, otherwise the next load always fails validation.
+        Files.setLastModifiedTime(backupRootPath, FileTime.from(rootLastModifiedNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Writes {@code value} as its UTF-8 length followed by its bytes, unlike {@code writeUTF} which is limited to
+     * 65535 bytes.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The total number of files and directories recorded.
+     */
+    public long size() {
+        return directories.values().stream().mapToLong(Map::size).sum();
+    }
+
+    private static BackupManifest read(Path backupRootPath, Path manifestPath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(manifestPath))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported manifest " + manifestPath);
+            }
+            if (!readString(in).equals(backupRootPath.getFileName().toString())) {
+                throw new IOException("Manifest " + manifestPath + " belongs to a different backup root");
+            }
+            long rootLastModifiedNanos = in.readLong();
+
+            int directoryCount = in.readInt();
+            Map<String, Map<String, Entry>> directories = new HashMap<>(directoryCount * 2);
+            for (int i = 0; i < directoryCount; i++) {
+                String key = readString(in);
+                int entryCount = in.readInt();
+                Map<String, Entry> entries = new HashMap<>(entryCount * 2);
+                for (int j = 0; j < entryCount; j++) {
+                    String name = readString(in);
+                    byte type = in.readByte();
+                    long size = in.readLong();
+                    long lastModifiedNanos = in.readLong();
+                    entries.put(name, new Entry(type, size, lastModifiedNanos));
+                }
+                directories.put(key, entries);
+            }
+            return new BackupManifest(backupRootPath, rootLastModifiedNanos, directories);
+        }
+    }
+
+    /**
+     * Re-reads the backup root, every directory and an evenly spaced sample of files from the backup drive. A directory
+     * last modified time changes whenever an entry is added, removed or renamed within it, and each directory is
+     * counted in case its last modified time was preserved or restored by another tool. A single difference in type,
+     * size, last modified time or number of entries means the backup has changed outside of this application and the
+     * manifest can't be trusted.
+     */
+    private boolean isValid() {
+        Try<FileTime> rootLastModified = Try.of(() -> Files.getLastModifiedTime(backupRootPath));
+        if (rootLastModified.isFailure() || rootLastModified.get().toMillis()
+                != FileTime.from(rootLastModifiedNanos, TimeUnit.NANOSECONDS).toMillis()) {
+            return false;
+        }
+        for (Map.Entry<String, Map<String, Entry>> directory : directories.entrySet()) {
+            Try<Integer> count = countEntries(fromKey(directory.getKey()));
+            if (count.isFailure() || count.get() != directory.getValue().size()) {
+                return false;
+            }
+        }
+
+        long total = size();
+        if (total == 0) {
+            return directories.containsKey("");
+        }
+        long step = Math.max(1, total / VALIDATION_SAMPLE_SIZE);
+        long index = 0;
+
+        for (Map.Entry<String, Map<String, Entry>> directory : directories.entrySet()) {
+            Path dir = fromKey(directory.getKey());
+            for (Map.Entry<String, Entry> child : directory.getValue().entrySet()) {
+                if (index++ % step != 0 && !child.getValue().isDirectory()) {
+                    continue;
+                }
+                Entry entry = child.getValue();
+                Try<BasicFileAttributes> attrs = Try.of(() -> Files.readAttributes(dir.resolve(child.getKey()),
+                        BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+                if (attrs.isFailure() || !entry.matches(attrs.get())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lists the names only, which is far cheaper than reading the attributes of every entry.
+     */
+    private Try<Integer> countEntries(Path dir) {
+        return Try.of(() -> {
+            int count = 0;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    if (!isManifestFile(backupRootPath, entry)) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        });
+    }
+
+    private void refreshTemporaryFiles(Path backupPath, Set<String> refreshedDirectories) {
+        refresh(CopyEngine.temporarySibling(backupPath), refreshedDirectories);
+        refresh(CopyEngine.checkpoint(backupPath), refreshedDirectories);
+    }
+
+    private void refresh(Path backupPath, Set<String> refreshedDirectories) {
+        if (!backupPath.startsWith(backupRootPath) || backupPath.equals(backupRootPath)) {
+            return;
+        }
+        String key = toKey(backupPath);
+        removeDirectory(key);
+
+        Try<BasicFileAttributes> attrs = Try.of(() ->
+                Files.readAttributes(backupPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+        if (attrs.isFailure()) {
+            Map<String, Entry> siblings = directories.get(toKey(backupPath.getParent()));
+            if (siblings != null) {
+                siblings.remove(backupPath.getFileName().toString());
+            }
+        } else {
+            put(backupPath, attrs.get());
+            if (attrs.get().isDirectory()) {
+                // A directory which failed to be fully deleted or a new empty directory.
+                Try.run(() -> walk(backupPath));
+            }
+        }
+
+        // New directories may have been created and the last modified time of each parent has changed.
+        for (Path parent = backupPath.getParent(); parent != null && !parent.equals(backupRootPath)
+                && parent.startsWith(backupRootPath); parent = parent.getParent()) {
+            if (!refreshedDirectories.add(toKey(parent))) {
+                break;
+            }
+            Path dir = parent;
+            Try.of(() -> Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS))
+                    .forEach(dirAttrs -> put(dir, dirAttrs));
+        }
+    }
+
+    private void walk(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                directories.computeIfAbsent(toKey(dir), key -> new HashMap<>());
+                if (!dir.equals(backupRootPath)) {
+                    put(dir, attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!isManifestFile(backupRootPath, file)) {
+                    put(file, attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void put(Path backupPath, BasicFileAttributes attrs) {
+        directories.computeIfAbsent(toKey(backupPath.getParent()), key -> new HashMap<>())
+                .put(backupPath.getFileName().toString(), Entry.of(attrs));
+        if (attrs.isDirectory()) {
+            directories.computeIfAbsent(toKey(backupPath), key -> new HashMap<>());
+        }
+    }
+
+    private void removeDirectory(String key) {
+        String prefix = key + "/";
+        directories.keySet().removeIf(existing -> existing.equals(key) || existing.startsWith(prefix));
+    }
+
+    private String toKey(Path backupPath) {
+        Path relative = backupRootPath.relativize(backupPath);
+        StringJoiner joiner = new StringJoiner("/");
+        for (Path name : relative) {
+            joiner.add(name.toString());
+        }
+        return joiner.toString();
+    }
+
+    private Path fromKey(String key) {
+        Path path = backupRootPath;
+        if (key.isEmpty()) {
+            return path;
+        }
+        for (String name : key.split("/")) {
+            path = path.resolve(name);
+        }
+        return path;
+    }
+
+    /**
+     * The recorded attributes of a single backup file or directory.
+     */
+    private static class Entry implements BasicFileAttributes {
+        private final byte type;
+        private final long size;
+        private final long lastModifiedNanos;
+
+        private Entry(byte type, long size, long lastModifiedNanos) {
+            this.type = type;
+            this.size = size;
+            this.lastModifiedNanos = lastModifiedNanos;
+        }
+
+        private static Entry of(BasicFileAttributes attrs) {
+            return new Entry(typeOf(attrs), attrs.isDirectory() ? 0 : attrs.size(),
+                    attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        }
+
+        private static byte typeOf(BasicFileAttributes attrs) {
+            if (attrs.isDirectory()) {
+                return TYPE_DIRECTORY;
+            } else if (attrs.isSymbolicLink()) {
+                return TYPE_SYMBOLIC_LINK;
+            } else if (attrs.isOther()) {
+                return TYPE_OTHER;
+            }
+            return TYPE_FILE;
+        }
+
+        private boolean matches(BasicFileAttributes attrs) {
+            return typeOf(attrs) == type
+                    && (isDirectory() || attrs.size() == size)
+                    && attrs.lastModifiedTime().toMillis() == lastModifiedTime().toMillis();
+        }
+
+        @Override
+        public FileTime lastModifiedTime() {
+            return FileTime.from(lastModifiedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public FileTime lastAccessTime() {
+            return lastModifiedTime();
+        }
+
+        @Override
+        public FileTime creationTime() {
+            return lastModifiedTime();
+        }
+
+        @Override
+        public boolean isRegularFile() {
+            return type == TYPE_FILE;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return type == TYPE_DIRECTORY;
+        }
+
+        @Override
+        public boolean isSymbolicLink() {
+            return type == TYPE_SYMBOLIC_LINK;
+        }
+
+        @Override
+        public boolean isOther() {
+            return type == TYPE_OTHER;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public Object fileKey() {
+            return null;
+        }
+    }
+}
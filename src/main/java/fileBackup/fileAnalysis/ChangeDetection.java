@@ -0,0 +1,26 @@
+package fileBackup.fileAnalysis;
+
+/**
+ * How a file existing on both the current and backup drive is determined to have changed.
+ */
+public enum ChangeDetection {
+    /**
+     * Compare last modified times only as per {@code FileModifiedComparision}.
+     */
+    Timestamp("Timestamp"),
+
+    /**
+     * Compare size, then last modified time, then a hash of the file contents as per {@code FileContentComparator}.
+     */
+    Content("Content");
+
+    private String description;
+
+    ChangeDetection(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
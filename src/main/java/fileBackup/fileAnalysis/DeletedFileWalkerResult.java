@@ -1,7 +1,7 @@
 package fileBackup.fileAnalysis;
 
 /**
- * Used by {@code DeletedFileCollector} to collect statistics for understanding the types of files analysed during
+ * Used by {@code TreeDiffCollector} to collect statistics for understanding the types of files analysed during
  * the backup scanning process.
  *
  * Created by matt on 30-Jun-17.
@@ -25,4 +25,13 @@ public class DeletedFileWalkerResult extends FileAnalysisResult {
     public void incrementTotalDirectoriesDeleted() {
         this.totalDirectoriesDeleted++;
     }
+
+    /**
+     * @param other The result to merge into this result.
+     */
+    public void merge(DeletedFileWalkerResult other) {
+        super.merge(other);
+        totalFilesDeleted += other.totalFilesDeleted;
+        totalDirectoriesDeleted += other.totalDirectoriesDeleted;
+    }
 }
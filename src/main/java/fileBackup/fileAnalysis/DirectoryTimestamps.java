@@ -0,0 +1,202 @@
+package fileBackup.fileAnalysis;
+
+import io.vavr.control.Try;
+import settings.ApplicationSettings;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The last modified times of each backup directory and its current working directory recorded by the previous
+ * {@code TreeDiffCollector} scan.
+ *
+ * <p>A directory last modified time only changes when an entry is added, removed or renamed within it. A directory is
+ * only recorded when every name in the backup directory was also in the current directory, so if neither last
+ * modified time has changed since it was recorded, the backup directory still holds nothing to delete and no names
+ * other than those in the current directory. The backup directory then doesn't need to be listed, the backup of each
+ * current entry is read directly instead.</p>
+ *
+ * <p>Directories modified within {@link #RACY_INTERVAL_MILLIS} of the scan are never recorded since a change made in
+ * the same clock tick as the scan wouldn't change the last modified time. FAT formatted USB drives only record the
+ * last modified time to 2 second resolution.</p>
+ *
+ * <p>The timestamps are stored per {@code FilePathInfo} under {@code ApplicationSettings.getDirectoryTimestampsPath()}
+ * rather than on the backup drive so scanning remains read only.</p>
+ */
+public class DirectoryTimestamps {
+    private static final int MAGIC = 0x46424454;
+    private static final int VERSION = 2;
+
+    static final long RACY_INTERVAL_MILLIS = 2000;
+
+    private final Path timestampsPath;
+    private final Path currentWorkingRootPath;
+    private final Path backupRootPath;
+    private final long scanStartMillis;
+
+    // Relative backup directory path using '/' separators, the backup root is "".
+    private final Map<String, Directory> directories;
+
+    private DirectoryTimestamps(Path timestampsPath, FilePathInfo filePathInfo, Map<String, Directory> directories) {
+        this.timestampsPath = timestampsPath;
+        this.currentWorkingRootPath = filePathInfo.getCurrentWorkingRootPath();
+        this.backupRootPath = filePathInfo.getBackupRootPath();
+        this.scanStartMillis = System.currentTimeMillis();
+        this.directories = directories;
+    }
+
+    /**
+     * Reads the timestamps recorded for the supplied {@code FilePathInfo}. A missing or unreadable file results in
+     * empty timestamps so every directory is listed.
+     *
+     * @param filePathInfo The {@code FilePathInfo}.
+     * @return The {@code DirectoryTimestamps}.
+     */
+    public static DirectoryTimestamps load(FilePathInfo filePathInfo) {
+        String id = filePathInfo.getCurrentWorkingRootPath() + "\n" + filePathInfo.getBackupRootPath();
+        Path timestampsPath = ApplicationSettings.getDirectoryTimestampsPath()
+                .resolve(UUID.nameUUIDFromBytes(id.getBytes(StandardCharsets.UTF_8)).toString());
+        return load(timestampsPath, filePathInfo);
+    }
+
+    /**
+     * @param timestampsPath The file the timestamps are read from and written to.
+     * @param filePathInfo The {@code FilePathInfo}.
+     * @return The {@code DirectoryTimestamps}.
+     */
+    public static DirectoryTimestamps load(Path timestampsPath, FilePathInfo filePathInfo) {
+        Map<String, Directory> directories = Files.isRegularFile(timestampsPath)
+                ? Try.of(() -> read(timestampsPath, filePathInfo)).getOrElse(ConcurrentHashMap::new)
+                : new ConcurrentHashMap<>();
+        return new DirectoryTimestamps(timestampsPath, filePathInfo, directories);
+    }
+
+    /**
+     * @param backupDir The backup directory about to be listed.
+     * @param backupLastModified The current last modified time of {@code backupDir}.
+     * @param currentLastModified The current last modified time of the current working directory {@code backupDir}
+     *                            maps to.
+     * @return {@code true} when neither last modified time has changed since {@code backupDir} was recorded, otherwise
+     * {@code backupDir} must be listed.
+     */
+    public boolean isUnchanged(Path backupDir, FileTime backupLastModified, FileTime currentLastModified) {
+        Directory directory = directories.get(toKey(backupDir));
+        return directory != null
+                && directory.backupLastModified == toNanos(backupLastModified)
+                && directory.currentLastModified == toNanos(currentLastModified);
+    }
+
+    /**
+     * Records a backup directory whose names were all found in its current working directory.
+     *
+     * @param backupDir The backup directory.
+     * @param backupLastModified The last modified time of {@code backupDir} read before it was listed.
+     * @param currentLastModified The last modified time of the current working directory read before it was listed.
+     */
+    public void record(Path backupDir, FileTime backupLastModified, FileTime currentLastModified) {
+        if (isUnreliable(backupLastModified) || isUnreliable(currentLastModified)) {
+            remove(backupDir);
+            return;
+        }
+        directories.put(toKey(backupDir), new Directory(toNanos(backupLastModified), toNanos(currentLastModified)));
+    }
+
+    /**
+     * Removes the record of a backup directory which held names missing from the current directory or could not be
+     * fully listed.
+     *
+     * @param backupDir The backup directory.
+     */
+    public void remove(Path backupDir) {
+        directories.remove(toKey(backupDir));
+    }
+
+    /**
+     * Atomically writes the timestamps.
+     *
+     * @throws IOException If the timestamps could not be written.
+     */
+    public void write() throws IOException {
+        Files.createDirectories(timestampsPath.getParent());
+        Path tempPath = timestampsPath.resolveSibling(timestampsPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(currentWorkingRootPath.toString());
+            out.writeUTF(backupRootPath.toString());
+            out.writeInt(directories.size());
+
+            for (Map.Entry<String, Directory> entry : directories.entrySet()) {
+                Directory directory = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(directory.backupLastModified);
+                out.writeLong(directory.currentLastModified);
+            }
+        }
+        Files.move(tempPath, timestampsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<String, Directory> read(Path timestampsPath, FilePathInfo filePathInfo) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(timestampsPath))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !in.readUTF().equals(filePathInfo.getCurrentWorkingRootPath().toString())
+                    || !in.readUTF().equals(filePathInfo.getBackupRootPath().toString())) {
+                throw new IOException("Directory timestamps " + timestampsPath + " do not belong to " + filePathInfo);
+            }
+
+            int directoryCount = in.readInt();
+            Map<String, Directory> directories = new ConcurrentHashMap<>(directoryCount * 2);
+            for (int i = 0; i < directoryCount; i++) {
+                String key = in.readUTF();
+                long backupLastModified = in.readLong();
+                long currentLastModified = in.readLong();
+                directories.put(key, new Directory(backupLastModified, currentLastModified));
+            }
+            return directories;
+        }
+    }
+
+    /**
+     * Also true for times outside the range nanoseconds can hold, which would all be recorded as the same value.
+     */
+    private boolean isUnreliable(FileTime lastModified) {
+        long nanos = toNanos(lastModified);
+        return lastModified.toMillis() > scanStartMillis - RACY_INTERVAL_MILLIS
+                || nanos == Long.MIN_VALUE || nanos == Long.MAX_VALUE;
+    }
+
+    private static long toNanos(FileTime fileTime) {
+        return fileTime.to(TimeUnit.NANOSECONDS);
+    }
+
+    private String toKey(Path backupDir) {
+        StringJoiner joiner = new StringJoiner("/");
+        for (Path name : backupRootPath.relativize(backupDir)) {
+            joiner.add(name.toString());
+        }
+        return joiner.toString();
+    }
+
+    private static class Directory {
+        private final long backupLastModified;
+        private final long currentLastModified;
+
+        private Directory(long backupLastModified, long currentLastModified) {
+            this.backupLastModified = backupLastModified;
+            this.currentLastModified = currentLastModified;
+        }
+    }
+}
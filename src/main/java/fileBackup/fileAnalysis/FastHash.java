@@ -0,0 +1,129 @@
+package fileBackup.fileAnalysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 64 bit xxHash of a files contents read through a {@code FileChannel}.
+ *
+ * <p>xxHash is a non cryptographic hash running close to memory bandwidth, so hashing is bound by the drive rather
+ * than the CPU. It only needs to detect whether 2 copies of the same file differ, not resist deliberate collisions.</p>
+ *
+ * <p>Files are read into a direct {@code ByteBuffer} of {@link #BUFFER_SIZE} bytes reused by each thread rather than
+ * memory mapped. A {@code MappedByteBuffer} is only unmapped once it is garbage collected, which on Windows keeps the
+ * file locked so the backup executor can't replace or delete it.</p>
+ */
+public class FastHash {
+    // Must be a multiple of the 32 byte stripe so a full buffer never holds a partial stripe.
+    static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(
+            () -> ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+
+    private FastHash() {}
+
+    /**
+     * @param path The file to hash.
+     * @return The hash of the file contents.
+     * @throws IOException If the file could not be read.
+     */
+    public static long hash(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = BUFFER.get();
+            buffer.clear();
+            long length = 0;
+            long v1 = PRIME1 + PRIME2;
+            long v2 = PRIME2;
+            long v3 = 0;
+            long v4 = -PRIME1;
+
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                length += read;
+                if (buffer.hasRemaining()) {
+                    continue;
+                }
+                // Full buffer, only whole stripes so nothing is carried over.
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    v1 = round(v1, buffer.getLong());
+                    v2 = round(v2, buffer.getLong());
+                    v3 = round(v3, buffer.getLong());
+                    v4 = round(v4, buffer.getLong());
+                }
+                buffer.clear();
+            }
+
+            buffer.flip();
+            int stripesEnd = buffer.limit() - buffer.limit() % 32;
+            while (buffer.position() < stripesEnd) {
+                v1 = round(v1, buffer.getLong());
+                v2 = round(v2, buffer.getLong());
+                v3 = round(v3, buffer.getLong());
+                v4 = round(v4, buffer.getLong());
+            }
+
+            long h;
+            if (length >= 32) {
+                h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7)
+                        + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                h = mergeRound(h, v1);
+                h = mergeRound(h, v2);
+                h = mergeRound(h, v3);
+                h = mergeRound(h, v4);
+            } else {
+                h = PRIME5;
+            }
+            return avalanche(finish(h + length, buffer));
+        }
+    }
+
+    /**
+     * Consumes the final partial stripe.
+     */
+    private static long finish(long h, ByteBuffer buffer) {
+        while (buffer.remaining() >= 8) {
+            h ^= round(0, buffer.getLong());
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+        }
+        if (buffer.remaining() >= 4) {
+            h ^= (buffer.getInt() & 0xFFFFFFFFL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+        }
+        while (buffer.hasRemaining()) {
+            h ^= (buffer.get() & 0xFF) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME1 + PRIME4;
+    }
+
+    private static long avalanche(long h) {
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+}
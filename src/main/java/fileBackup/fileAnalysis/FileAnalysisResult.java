@@ -13,9 +13,10 @@ public class FileAnalysisResult {
     private List<FileChangeRecord> fileChangeRecords;
     private long totalFilesScanned = 0;
     private long totalDirectoriesScanned = 0;
+    private long totalFileSystemCalls = 0;
 
     public FileAnalysisResult() {
-        fileChangeRecords = new ArrayList<>();
+        fileChangeRecords = new FileChangeSet();
         fileAccessErrors = new ArrayList<>();
     }
 
@@ -35,10 +36,32 @@ public class FileAnalysisResult {
         return totalDirectoriesScanned;
     }
 
+    /**
+     * @return The number of attribute reads, existence checks and directory listings made while scanning.
+     */
+    public long getTotalFileSystemCalls() {
+        return totalFileSystemCalls;
+    }
+
+    /**
+     * @return The average number of file system calls made for each file and directory scanned.
+     */
+    public double getFileSystemCallsPerEntry() {
+        long totalEntries = totalFilesScanned + totalDirectoriesScanned;
+        return totalEntries == 0 ? 0 : (double) totalFileSystemCalls / totalEntries;
+    }
+
     public void addFileChangeRecord(FileChangeRecord fileChangeRecord) {
         fileChangeRecords.add(fileChangeRecord);
     }
 
+    /**
+     * Replaces every record, used when records are reconciled after scanning.
+     */
+    void setFileChangeRecords(List<FileChangeRecord> fileChangeRecords) {
+        this.fileChangeRecords = fileChangeRecords;
+    }
+
     public void addFileError(FileAccessError fileAccessError) {
         fileAccessErrors.add(fileAccessError);
     }
@@ -50,4 +73,22 @@ public class FileAnalysisResult {
     public void incrementTotalDirectoriesScanned() {
         totalDirectoriesScanned++;
     }
+
+    public void addFileSystemCalls(long fileSystemCalls) {
+        totalFileSystemCalls += fileSystemCalls;
+    }
+
+    /**
+     * Adds all records, errors and statistics from {@code other} into this result. Used to combine the results
+     * collected by each worker of a {@code TreeDiffCollector}.
+     *
+     * @param other The result to merge into this result.
+     */
+    public void merge(FileAnalysisResult other) {
+        fileChangeRecords.addAll(other.fileChangeRecords);
+        fileAccessErrors.addAll(other.fileAccessErrors);
+        totalFilesScanned += other.totalFilesScanned;
+        totalDirectoriesScanned += other.totalDirectoriesScanned;
+        totalFileSystemCalls += other.totalFileSystemCalls;
+    }
 }
@@ -24,29 +24,50 @@ public class FileChangeRecord {
     // Optional as when new files are created they are not on backup drive yet.
     private FileTime backupLastModified;
 
+    // Optional, an existing backup path the action reads from such as the owner of a linked duplicate.
+    private Path sourceBackupPath;
+
+    // Size of the current file read while scanning, -1 when not known.
+    private long currentSize = -1;
+
     private FileChangeRecord(FileType fileType, FileSystemAction fileSystemAction, Path currentWorkingPath,
-                             Path backupPath, FileTime currentLastModified, FileTime backupLastModified) {
+                             Path backupPath, FileTime currentLastModified, FileTime backupLastModified,
+                             Path sourceBackupPath, long currentSize) {
         this.fileType = fileType;
         this.fileSystemAction = fileSystemAction;
         this.currentWorkingPath = currentWorkingPath;
         this.backupPath = backupPath;
         this.currentLastModified = currentLastModified;
         this.backupLastModified = backupLastModified;
+        this.sourceBackupPath = sourceBackupPath;
+        this.currentSize = currentSize;
+    }
+
+    /**
+     * Used by {@code FileChangeSet} views which read each value from the set rather than holding their own copy.
+     */
+    FileChangeRecord() {
     }
 
     public Optional<String> getModificationTimeDifference() {
-        if (fileSystemAction == FileSystemAction.Modify && backupLastModified != null && currentLastModified != null) {
+        FileSystemAction fileSystemAction = getFileSystemAction();
+        FileTime backupLastModified = getBackupLastModified();
+        FileTime currentLastModified = getCurrentLastModified();
+        if ((fileSystemAction == FileSystemAction.Modify || fileSystemAction == FileSystemAction.Touch)
+                && backupLastModified != null && currentLastModified != null) {
            return Optional.of(TimeUtils.prettyTimeBetween(backupLastModified.toInstant(), currentLastModified.toInstant()));
         }
         return Optional.empty();
     }
 
     public Optional<String> getCurrentLastModifiedTimeStamp() {
+        FileTime currentLastModified = getCurrentLastModified();
         if (currentLastModified == null) return Optional.empty();
         return Optional.of(TimeUtils.format(currentLastModified.toInstant()));
     }
 
     public Optional<String> getBackupLastModifiedTimeStamp() {
+        FileTime backupLastModified = getBackupLastModified();
         if (backupLastModified == null) return Optional.empty();
         return Optional.of(TimeUtils.format(backupLastModified.toInstant()));
     }
@@ -76,13 +97,30 @@ public class FileChangeRecord {
         return backupLastModified;
     }
 
+    /**
+     * @return The backup path of the directory owning a {@code FileSystemAction.Link} duplicate or the file owning the
+     * data of a {@code FileSystemAction.HardLink} or the existing backup path of a {@code FileSystemAction.Move},
+     * otherwise empty.
+     */
+    public Optional<Path> getSourceBackupPath() {
+        return Optional.ofNullable(sourceBackupPath);
+    }
+
+    /**
+     * @return The size in bytes of the current file when it was scanned, or -1 if not known.
+     */
+    public long getCurrentSize() {
+        return currentSize;
+    }
+
     @Override
     public String toString() {
         return "FileChangeRecord{" +
-                "fileType=" + fileType +
-                ", fileSystemAction=" + fileSystemAction +
+                "fileType=" + getFileType() +
+                ", fileSystemAction=" + getFileSystemAction() +
                 ", getCurrentWorkingPath=" + getCurrentWorkingPath() +
                 ", getBackupPath=" + getBackupPath() +
+                ", getSourceBackupPath=" + getSourceBackupPath() +
                 ", getCurrentLastModifiedTimeStamp=" + getCurrentLastModifiedTimeStamp() +
                 ", getBackupLastModifiedTimeStamp=" + getBackupLastModifiedTimeStamp() +
                 ", getModificationTimeDifference=" + getModificationTimeDifference() +
@@ -96,6 +134,8 @@ public class FileChangeRecord {
         private Path backupPath;
         private FileTime currentLastModified;
         private FileTime backupLastModified;
+        private Path sourceBackupPath;
+        private long currentSize = -1;
 
         public Builder fileType(FileType fileType) {
             this.fileType = fileType;
@@ -136,8 +176,25 @@ public class FileChangeRecord {
             return this;
         }
 
+        /**
+         * Optional, only used by actions reading an existing backup path.
+         */
+        public Builder sourceBackupPath(Path sourceBackupPath) {
+            this.sourceBackupPath = sourceBackupPath;
+            return this;
+        }
+
+        /**
+         * Optional, used to schedule copies by size.
+         */
+        public Builder currentSize(long currentSize) {
+            this.currentSize = currentSize;
+            return this;
+        }
+
         public FileChangeRecord create() {
-            return new FileChangeRecord(fileType, fileSystemAction, currentWorkingPath, backupPath, currentLastModified, backupLastModified);
+            return new FileChangeRecord(fileType, fileSystemAction, currentWorkingPath, backupPath, currentLastModified,
+                    backupLastModified, sourceBackupPath, currentSize);
         }
     }
 }
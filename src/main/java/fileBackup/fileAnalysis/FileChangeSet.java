@@ -0,0 +1,296 @@
+package fileBackup.fileAnalysis;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A compact append only list of {@code FileChangeRecord}s used by {@code FileAnalysisResult} to keep the heap small
+ * when scanning trees containing millions of files.
+ *
+ * <p>Rather than holding a {@code FileChangeRecord} per file with 2 {@code Path}s and 2 {@code FileTime}s, each value
+ * is kept in its own array.</p>
+ *
+ * <table border=1 cellpadding=5 summary="">
+ *     <tr><th>Value</th><th>Stored as</th></tr>
+ *     <tr><td>Paths</td><td>Index of the interned parent directory plus the file name. Files within the same directory
+ *     share one parent {@code Path}, and the backup file name is reused when it is equal to the current file name.</td></tr>
+ *     <tr><td>Last modified times</td><td>Primitive nanoseconds with {@code Long.MIN_VALUE} meaning absent. The few
+ *     times before 1677 or after 2262 which nanoseconds can't hold are kept as a {@code FileTime} in a map by index.
+ *     </td></tr>
+ *     <tr><td>Current sizes</td><td>Primitive bytes with -1 meaning absent.</td></tr>
+ *     <tr><td>{@code FileType} and {@code FileSystemAction}</td><td>A single byte holding both ordinals.</td></tr>
+ *     <tr><td>Source backup paths</td><td>A map by index, only the few linked duplicates and hard links have one.</td></tr>
+ * </table>
+ *
+ * <p>{@link #get(int)} returns a lightweight view which implements the {@code FileChangeRecord} API by reading from
+ * these arrays, so the UI and {@code BackupExecutor} work unchanged. A new view is created on each call so views
+ * should not be compared by identity.</p>
+ *
+ * <p>Not thread safe. Each {@code TreeDiffCollector} worker has its own {@code FileAnalysisResult} which are
+ * merged once walking completes.</p>
+ */
+public class FileChangeSet extends AbstractList<FileChangeRecord> implements RandomAccess {
+    private static final long NO_TIME = Long.MIN_VALUE;
+    // The FileTime is held in currentOutOfRangeTimes or backupOutOfRangeTimes instead.
+    private static final long OUT_OF_RANGE_TIME = Long.MAX_VALUE;
+    private static final int NO_PATH = -1;
+    private static final int NO_ORDINAL = 0x0F;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final FileType[] FILE_TYPES = FileType.values();
+    private static final FileSystemAction[] FILE_SYSTEM_ACTIONS = FileSystemAction.values();
+
+    private final List<Path> directories = new ArrayList<>();
+    private final Map<Path, Integer> directoryIndexes = new HashMap<>();
+
+    private int size = 0;
+
+    // High nibble is the FileSystemAction ordinal, low nibble is the FileType ordinal.
+    private byte[] types = new byte[INITIAL_CAPACITY];
+
+    // A null name means the path is the directory itself, used for paths without a parent.
+    private int[] currentDirectories = new int[INITIAL_CAPACITY];
+    private String[] currentNames = new String[INITIAL_CAPACITY];
+    private int[] backupDirectories = new int[INITIAL_CAPACITY];
+    private String[] backupNames = new String[INITIAL_CAPACITY];
+
+    private long[] currentLastModified = new long[INITIAL_CAPACITY];
+    private long[] backupLastModified = new long[INITIAL_CAPACITY];
+    private long[] currentSizes = new long[INITIAL_CAPACITY];
+
+    // Rarely present so only kept for the records which have one.
+    private final Map<Integer, Path> sourceBackupPaths = new HashMap<>();
+    private final Map<Integer, FileTime> currentOutOfRangeTimes = new HashMap<>();
+    private final Map<Integer, FileTime> backupOutOfRangeTimes = new HashMap<>();
+
+    @Override
+    public FileChangeRecord get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new View(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(FileChangeRecord record) {
+        ensureCapacity(size + 1);
+        types[size] = pack(record.getFileSystemAction(), record.getFileType());
+
+        Path backupPath = record.getBackupPath();
+        backupDirectories[size] = internParent(backupPath);
+        backupNames[size] = fileName(backupPath);
+
+        Path currentWorkingPath = record.getCurrentWorkingPath().orElse(null);
+        currentDirectories[size] = internParent(currentWorkingPath);
+        String currentName = fileName(currentWorkingPath);
+        currentNames[size] = currentName != null && currentName.equals(backupNames[size]) ? backupNames[size] : currentName;
+
+        currentLastModified[size] = toNanos(record.getCurrentLastModified(), currentOutOfRangeTimes, size);
+        backupLastModified[size] = toNanos(record.getBackupLastModified(), backupOutOfRangeTimes, size);
+        currentSizes[size] = record.getCurrentSize();
+        record.getSourceBackupPath().ifPresent(path -> sourceBackupPaths.put(size, path));
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Copies the arrays directly when {@code records} is another {@code FileChangeSet}, only re-interning its
+     * directories rather than every path.
+     */
+    @Override
+    public boolean addAll(Collection<? extends FileChangeRecord> records) {
+        if (!(records instanceof FileChangeSet)) {
+            return super.addAll(records);
+        }
+        FileChangeSet other = (FileChangeSet) records;
+        if (other.size == 0) {
+            return false;
+        }
+
+        int[] directoryMapping = new int[other.directories.size()];
+        for (int i = 0; i < directoryMapping.length; i++) {
+            directoryMapping[i] = internDirectory(other.directories.get(i));
+        }
+
+        int otherSize = other.size;
+        ensureCapacity(size + otherSize);
+        System.arraycopy(other.types, 0, types, size, otherSize);
+        System.arraycopy(other.currentNames, 0, currentNames, size, otherSize);
+        System.arraycopy(other.backupNames, 0, backupNames, size, otherSize);
+        System.arraycopy(other.currentLastModified, 0, currentLastModified, size, otherSize);
+        System.arraycopy(other.backupLastModified, 0, backupLastModified, size, otherSize);
+        System.arraycopy(other.currentSizes, 0, currentSizes, size, otherSize);
+        for (int i = 0; i < otherSize; i++) {
+            currentDirectories[size + i] = remap(directoryMapping, other.currentDirectories[i]);
+            backupDirectories[size + i] = remap(directoryMapping, other.backupDirectories[i]);
+        }
+        int offset = size;
+        other.sourceBackupPaths.forEach((index, path) -> sourceBackupPaths.put(offset + index, path));
+        other.currentOutOfRangeTimes.forEach((index, time) -> currentOutOfRangeTimes.put(offset + index, time));
+        other.backupOutOfRangeTimes.forEach((index, time) -> backupOutOfRangeTimes.put(offset + index, time));
+        size += otherSize;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        directories.clear();
+        directoryIndexes.clear();
+        sourceBackupPaths.clear();
+        currentOutOfRangeTimes.clear();
+        backupOutOfRangeTimes.clear();
+        Arrays.fill(currentNames, 0, size, null);
+        Arrays.fill(backupNames, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return The number of distinct parent directories referenced by the records.
+     */
+    public int getDirectoryCount() {
+        return directories.size();
+    }
+
+    private int internParent(Path path) {
+        if (path == null) {
+            return NO_PATH;
+        }
+        Path parent = path.getParent();
+        return internDirectory(parent != null ? parent : path);
+    }
+
+    private int internDirectory(Path directory) {
+        Integer index = directoryIndexes.get(directory);
+        if (index == null) {
+            index = directories.size();
+            directories.add(directory);
+            directoryIndexes.put(directory, index);
+        }
+        return index;
+    }
+
+    private static String fileName(Path path) {
+        if (path == null || path.getParent() == null) {
+            return null;
+        }
+        return path.getFileName().toString();
+    }
+
+    private Path toPath(int directory, String name) {
+        if (directory == NO_PATH) {
+            return null;
+        }
+        return name == null ? directories.get(directory) : directories.get(directory).resolve(name);
+    }
+
+    private static int remap(int[] directoryMapping, int directory) {
+        return directory == NO_PATH ? NO_PATH : directoryMapping[directory];
+    }
+
+    private static byte pack(FileSystemAction fileSystemAction, FileType fileType) {
+        int action = fileSystemAction == null ? NO_ORDINAL : fileSystemAction.ordinal();
+        int type = fileType == null ? NO_ORDINAL : fileType.ordinal();
+        return (byte) (action << 4 | type);
+    }
+
+    /**
+     * {@code FileTime.to} saturates at {@code Long.MIN_VALUE} and {@code Long.MAX_VALUE}, so either value is kept in
+     * {@code outOfRangeTimes} rather than being read back as absent or as the wrong time.
+     */
+    private static long toNanos(FileTime fileTime, Map<Integer, FileTime> outOfRangeTimes, int index) {
+        if (fileTime == null) {
+            return NO_TIME;
+        }
+        long nanos = fileTime.to(TimeUnit.NANOSECONDS);
+        if (nanos == Long.MIN_VALUE || nanos == Long.MAX_VALUE) {
+            outOfRangeTimes.put(index, fileTime);
+            return OUT_OF_RANGE_TIME;
+        }
+        return nanos;
+    }
+
+    private static FileTime toFileTime(long nanos, Map<Integer, FileTime> outOfRangeTimes, int index) {
+        if (nanos == NO_TIME) {
+            return null;
+        }
+        return nanos == OUT_OF_RANGE_TIME ? outOfRangeTimes.get(index) : FileTime.from(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= types.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, types.length + (types.length >> 1));
+        types = Arrays.copyOf(types, newCapacity);
+        currentDirectories = Arrays.copyOf(currentDirectories, newCapacity);
+        currentNames = Arrays.copyOf(currentNames, newCapacity);
+        backupDirectories = Arrays.copyOf(backupDirectories, newCapacity);
+        backupNames = Arrays.copyOf(backupNames, newCapacity);
+        currentLastModified = Arrays.copyOf(currentLastModified, newCapacity);
+        backupLastModified = Arrays.copyOf(backupLastModified, newCapacity);
+        currentSizes = Arrays.copyOf(currentSizes, newCapacity);
+    }
+
+    /**
+     * Reads each value from the enclosing set, only holding the index of the record.
+     */
+    private class View extends FileChangeRecord {
+        private final int index;
+
+        private View(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public FileType getFileType() {
+            int type = types[index] & 0x0F;
+            return type == NO_ORDINAL ? null : FILE_TYPES[type];
+        }
+
+        @Override
+        public FileSystemAction getFileSystemAction() {
+            int action = (types[index] >> 4) & 0x0F;
+            return action == NO_ORDINAL ? null : FILE_SYSTEM_ACTIONS[action];
+        }
+
+        @Override
+        public Optional<Path> getCurrentWorkingPath() {
+            return Optional.ofNullable(toPath(currentDirectories[index], currentNames[index]));
+        }
+
+        @Override
+        public Path getBackupPath() {
+            return toPath(backupDirectories[index], backupNames[index]);
+        }
+
+        @Override
+        public FileTime getCurrentLastModified() {
+            return toFileTime(currentLastModified[index], currentOutOfRangeTimes, index);
+        }
+
+        @Override
+        public FileTime getBackupLastModified() {
+            return toFileTime(backupLastModified[index], backupOutOfRangeTimes, index);
+        }
+
+        @Override
+        public Optional<Path> getSourceBackupPath() {
+            return Optional.ofNullable(sourceBackupPaths.get(index));
+        }
+
+        @Override
+        public long getCurrentSize() {
+            return currentSizes[index];
+        }
+    }
+}
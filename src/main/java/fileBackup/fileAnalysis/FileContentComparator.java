@@ -0,0 +1,76 @@
+package fileBackup.fileAnalysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Content aware alternative to {@code FileModifiedComparision.compare} used by {@code ChangeDetection.Content}.
+ *
+ * <p>Tools such as version control checkouts and build systems often touch files without changing their contents.
+ * Comparing last modified times alone replaces the entire backup file, which is costly for large files. Each check
+ * below is only made when the cheaper check before it can't decide.</p>
+ *
+ * <table border=1 cellpadding=5 summary="">
+ * <tr> <th>Check</th> <th>Result</th> </tr>
+ * <tr>
+ *   <td>Size differs</td>
+ *   <td>The contents have changed. {@code CURRENT_IS_NEWER} unless the current file is older.</td>
+ * </tr>
+ * <tr>
+ *   <td>Last modified time unchanged</td>
+ *   <td>{@code UNCHANGED} as per {@code FileModifiedComparision}.</td>
+ * </tr>
+ * <tr>
+ *   <td>Hash differs</td>
+ *   <td>The same result as {@code FileModifiedComparision}.</td>
+ * </tr>
+ * <tr>
+ *   <td>Hash identical</td>
+ *   <td>{@code TIMESTAMP_CHANGED}, only the backup last modified time needs updating.</td>
+ * </tr>
+ * </table>
+ *
+ * <p>Hashes are looked up through a {@code FileHashCache} so files are only read once per change.</p>
+ */
+public class FileContentComparator {
+    private final FileHashCache fileHashCache;
+
+    public FileContentComparator(FileHashCache fileHashCache) {
+        this.fileHashCache = fileHashCache;
+    }
+
+    /**
+     * @return The {@code FileModifiedComparision} result.
+     * @throws IOException If either file could not be hashed.
+     */
+    public FileModifiedComparision compare(Path currentPath, long currentSize, FileTime currentLastModified,
+                                           Path backupPath, long backupSize, FileTime backupLastModified)
+            throws IOException {
+        FileModifiedComparision timestampComparision =
+                FileModifiedComparision.compare(currentLastModified, backupLastModified);
+
+        if (currentSize != backupSize) {
+            return timestampComparision == FileModifiedComparision.CURRENT_IS_OLDER
+                    ? FileModifiedComparision.CURRENT_IS_OLDER
+                    : FileModifiedComparision.CURRENT_IS_NEWER;
+        }
+        if (timestampComparision == FileModifiedComparision.UNCHANGED) {
+            return FileModifiedComparision.UNCHANGED;
+        }
+
+        long currentHash = fileHashCache.hash(currentPath, currentSize, currentLastModified);
+        long backupHash = fileHashCache.hash(backupPath, backupSize, backupLastModified);
+        if (currentHash == backupHash) {
+            return FileModifiedComparision.TIMESTAMP_CHANGED;
+        }
+        return timestampComparision;
+    }
+
+    /**
+     * @return The {@code FileHashCache} to be written once scanning completes.
+     */
+    public FileHashCache getFileHashCache() {
+        return fileHashCache;
+    }
+}
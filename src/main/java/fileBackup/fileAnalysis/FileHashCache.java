@@ -0,0 +1,136 @@
+package fileBackup.fileAnalysis;
+
+import io.vavr.control.Try;
+import settings.ApplicationSettings;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the {@code FastHash} of files by path, size and last modified time so a file is only ever hashed again once
+ * it has changed. The cache is safe to use from concurrent scanning workers.
+ *
+ * <p>Only the latest hash of each path is kept, and entries for paths not hashed since the cache was loaded are
+ * dropped when it is written. The cache therefore never grows beyond the files compared by the latest scan, rather
+ * than keeping every file that was ever deleted or renamed.</p>
+ */
+public class FileHashCache {
+    private static final int MAGIC = 0x46424843;
+    private static final int VERSION = 1;
+
+    private final Path cachePath;
+    private final Map<String, Entry> entries;
+
+    // Paths hashed since the cache was loaded.
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+
+    private FileHashCache(Path cachePath, Map<String, Entry> entries) {
+        this.cachePath = cachePath;
+        this.entries = entries;
+    }
+
+    /**
+     * @return The cache stored in {@code ApplicationSettings.getHashCachePath()}, or an empty cache if it can't be read.
+     */
+    public static FileHashCache load() {
+        return load(ApplicationSettings.getHashCachePath());
+    }
+
+    /**
+     * @param cachePath The file the cache is read from and written to.
+     * @return The cache, or an empty cache if {@code cachePath} can't be read.
+     */
+    public static FileHashCache load(Path cachePath) {
+        Map<String, Entry> entries = Files.isRegularFile(cachePath)
+                ? Try.of(() -> read(cachePath)).getOrElse(ConcurrentHashMap::new)
+                : new ConcurrentHashMap<>();
+        return new FileHashCache(cachePath, entries);
+    }
+
+    /**
+     * Returns the cached hash if the file is unchanged, otherwise hashes the file and caches the result.
+     *
+     * @param path The file to hash.
+     * @param size The size of {@code path} in bytes.
+     * @param lastModified The last modified time of {@code path}.
+     * @return The hash of the file contents.
+     * @throws IOException If the file could not be read.
+     */
+    public long hash(Path path, long size, FileTime lastModified) throws IOException {
+        String key = path.toAbsolutePath().toString();
+        long lastModifiedNanos = lastModified.to(TimeUnit.NANOSECONDS);
+        seen.add(key);
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.size == size && entry.lastModified == lastModifiedNanos) {
+            return entry.hash;
+        }
+        long hash = FastHash.hash(path);
+        entries.put(key, new Entry(size, lastModifiedNanos, hash));
+        return hash;
+    }
+
+    /**
+     * Atomically writes the cache, dropping every entry not hashed since the cache was loaded.
+     *
+     * @throws IOException If the cache could not be written.
+     */
+    public void write() throws IOException {
+        entries.keySet().retainAll(seen);
+        Files.createDirectories(cachePath.getParent());
+        Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().size);
+                out.writeLong(entry.getValue().lastModified);
+                out.writeLong(entry.getValue().hash);
+            }
+        }
+        Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<String, Entry> read(Path cachePath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(cachePath))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported hash cache " + cachePath);
+            }
+            int count = in.readInt();
+            Map<String, Entry> entries = new ConcurrentHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                long hash = in.readLong();
+                entries.put(key, new Entry(size, lastModified, hash));
+            }
+            return entries;
+        }
+    }
+
+    private static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final long hash;
+
+        private Entry(long size, long lastModified, long hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package fileBackup.fileAnalysis;
+
+import java.nio.file.attribute.FileTime;
+
+/**
+ * The result of comparing the current file with its backup, see {@link #compare(FileTime, FileTime)}.
+ */
+public enum FileModifiedComparision {
+    CURRENT_IS_NEWER,
+    CURRENT_IS_OLDER,
+    UNCHANGED,
+
+    // Only produced by FileContentComparator when the contents are identical but the last modified time isn't.
+    TIMESTAMP_CHANGED;
+
+    /*
+     * If a file hasn't been changed in the last FILE_UNCHANGED_THRESHOLD_SECONDS, count it as unchanged.
+     * This is to account for minor variances in lastModifiedTime when copying. See Files.copy docs,
+     * it says some precision can be lost when copying and appears to be around 1 or 2 seconds difference.
+     * The underlying operating system may also change time stamps when copying based on google research and windows.
+     */
+    private final static long FILE_UNCHANGED_THRESHOLD_SECONDS = 5;
+
+    /**
+     * Converts each supplied {@code FileTime} to milliseconds and compares the result.
+     * {@code FileTime.compareTo} cannot be used as its not guaranteed to times will be exactly the same as shown
+     * below.
+     *
+     * <pre>
+     *     current = 2011-07-19T05:54:10.783025Z
+     *     backup  = 2011-07-19T05:54:10.783Z
+     *
+     *     current millis = 1311054850783
+     *     backup millis  = 1311054850783
+     * </pre>
+     *
+     * <p>Notice how the milliseconds are identical which is what should be used. If the times were used, current
+     * is deemed more recent purely because it has 0.25ms extra time yet the millis are identical which means
+     * the {@code FileTime} cannot be relied upon.</p>
+     *
+     * @return The {@code FileModifiedComparision} result
+     */
+    public static FileModifiedComparision compare(FileTime current, FileTime backup) {
+        long currentMillis = current.toMillis();
+        long backupMillis = backup.toMillis();
+
+        // Difference in milliseconds must be less than threshold in milliseconds.
+        boolean isUnchanged = Math.abs(currentMillis - backupMillis) <= FILE_UNCHANGED_THRESHOLD_SECONDS * 1000;
+
+        if (isUnchanged) {
+            return UNCHANGED;
+        }
+        if (currentMillis > backupMillis) {
+            return CURRENT_IS_NEWER;
+        }
+        return CURRENT_IS_OLDER;
+    }
+}
@@ -10,7 +10,9 @@ import javax.persistence.*;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -53,6 +55,13 @@ public class FilePathInfo {
 
     private static final PathMappingStrategy pathMappingStrategy = PathMappingStrategy.create();
 
+    // Created on first use since hibernate populates the fields after construction.
+    @Transient
+    private transient RootPathMapper currentToBackupMapper;
+
+    @Transient
+    private transient RootPathMapper backupToCurrentMapper;
+
     /**
      * For hibernate only.
      */
@@ -71,7 +80,7 @@ public class FilePathInfo {
     }
 
     /**
-     * @return If {@code true}, {@code ModifiedFileCollector} and {@code DirectoryWatcher} follow symbolic links when
+     * @return If {@code true}, {@code TreeDiffCollector} and {@code DirectoryWatcher} follow symbolic links when
      * performing a file walk.
      */
     public boolean isFollowSymlinks() {
@@ -116,7 +125,7 @@ public class FilePathInfo {
      *
      * @param currentWorkingRootPath The current working root directory.
      * @param backupRootPath The backup root directory.
-     * @param followSymlinks {@code true} to allow following symbolic links during {@code ModifiedFileCollector} file walk.
+     * @param followSymlinks {@code true} to allow following symbolic links during {@code TreeDiffCollector} file walk.
      * @param fileValidator How to validate if a {@code File} exists.
      * @return {@code Either.Left} explaining the error otherwise {@code Either.Right} contains a valid {@code FilePathInfo}.
      */
@@ -164,14 +173,21 @@ public class FilePathInfo {
      *            = F:\FolderC\rootDirectoryName\FolderA\FolderB\document.txt
      * </pre>
      *
+     * <p>Called for every file visited so the trailing segments are found by {@code RootPathMapper} without
+     * splitting the path into strings.</p>
+     *
      * @param currentPath The full current file path
      * @return The converted to backup path
      */
     public Path fromCurrentToBackupPath(Path currentPath) {
-        String backupPath = getPathComponents(currentPath)
+        Path backupPath = getCurrentToBackupMapper().map(currentPath);
+        if (backupPath != null) {
+            return backupPath;
+        }
+        String mappedPath = getPathComponents(currentPath)
                 .map2(trailingSegments -> backupRootPath.toString() + trailingSegments)
                 ._2;
-        return Paths.get(backupPath);
+        return Paths.get(mappedPath);
     }
 
     /**
@@ -193,14 +209,34 @@ public class FilePathInfo {
      *            = C:\FolderA\FolderB\rootDirectoryName\FolderA\FolderB\document.txt
      * </pre>
      *
+     * <p>See {@link #fromCurrentToBackupPath(Path)}.</p>
+     *
      * @param backupPath The full current file path
      * @return The converted to backup path
      */
     public Path fromBackupToCurrentPath(Path backupPath) {
-        String currentPath = getPathComponents(backupPath)
+        Path currentPath = getBackupToCurrentMapper().map(backupPath);
+        if (currentPath != null) {
+            return currentPath;
+        }
+        String mappedPath = getPathComponents(backupPath)
                 .map2(trailingSegments -> currentWorkingRootPath.toString() + trailingSegments)
                 ._2;
-        return Paths.get(currentPath);
+        return Paths.get(mappedPath);
+    }
+
+    private RootPathMapper getCurrentToBackupMapper() {
+        if (currentToBackupMapper == null) {
+            currentToBackupMapper = new RootPathMapper(currentWorkingRootPath, backupRootPath, rootDirectoryName);
+        }
+        return currentToBackupMapper;
+    }
+
+    private RootPathMapper getBackupToCurrentMapper() {
+        if (backupToCurrentMapper == null) {
+            backupToCurrentMapper = new RootPathMapper(backupRootPath, currentWorkingRootPath, rootDirectoryName);
+        }
+        return backupToCurrentMapper;
     }
 
     /**
@@ -346,6 +382,20 @@ public class FilePathInfo {
      * @return The list of {@code Path}s.
      */
     public java.util.List<Path> getAllPaths(Path path) {
+        int rootIndex = getCurrentToBackupMapper().firstRootDirectoryIndex(path);
+        if (rootIndex >= 0) {
+            // Walk up from path to the first rootDirectoryName collecting each parent, then order from the root down.
+            java.util.List<Path> result = new ArrayList<>();
+            for (Path parent = path; parent != null && parent.getNameCount() > rootIndex + 1; parent = parent.getParent()) {
+                result.add(parent);
+            }
+            Collections.reverse(result);
+
+            // Include the project root edge case.
+            result.add(currentWorkingRootPath);
+            return result;
+        }
+
         Tuple2<String, String> pathComponents = getPathComponents(path);
 
         if (pathComponents._2.isEmpty()) {
@@ -8,7 +8,17 @@ package fileBackup.fileAnalysis;
 public enum FileSystemAction {
     New("New"),
     Modify("Replace"),
-    Delete("Delete");
+    Touch("Update Timestamp"),
+    Delete("Delete"),
+
+    // A directory reached through another symbolic link is linked to the backup of the directory which owns it.
+    Link("Link Duplicate"),
+
+    // A new file sharing its data with another new file through a hard link is linked to the copy of that file.
+    HardLink("Hard Link"),
+
+    // A new file or directory matching one about to be deleted is moved on the backup rather than copied.
+    Move("Move");
 
     private String description;
 
@@ -1,5 +1,10 @@
 package fileBackup.fileAnalysis;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
 /**
  * Possible backup operations that can be performed. The additional description can be used for UI labels etc.
  *
@@ -20,4 +25,43 @@ public enum FileType {
     public String getDescription() {
         return description;
     }
+
+    /**
+     * @param file The {@code File} to check.
+     * @return The {@code FileType} of the supplied {@code File}.
+     */
+    public static FileType of(File file) {
+        if (file.isFile()) {
+            return FileType.File;
+        }
+        if (Files.isSymbolicLink(file.toPath())) {
+            return FileType.Symbolic;
+        }
+        if (file.isDirectory()) {
+            return FileType.Directory;
+        }
+        return FileType.Unknown;
+    }
+
+    /**
+     * Gives the same result as {@link #of(File)} from attributes already read during a file walk, avoiding the
+     * additional stat calls made by {@code File.isFile}, {@code Files.isSymbolicLink} and {@code File.isDirectory}.
+     *
+     * <p>{@code of(File)} reports a link to a file as a {@code File} but a link to a directory as {@code Symbolic},
+     * so links and directories whose attributes were read following links can't be decided from the attributes
+     * alone.</p>
+     *
+     * @param attrs The attributes of the file.
+     * @param followLinks {@code true} if {@code attrs} were read following symbolic links.
+     * @return The {@code FileType}, or empty if the file system must be checked using {@link #of(File)}.
+     */
+    public static Optional<FileType> of(BasicFileAttributes attrs, boolean followLinks) {
+        if (attrs.isRegularFile()) {
+            return Optional.of(FileType.File);
+        }
+        if (followLinks || attrs.isSymbolicLink()) {
+            return Optional.empty();
+        }
+        return Optional.of(attrs.isDirectory() ? FileType.Directory : FileType.Unknown);
+    }
 }
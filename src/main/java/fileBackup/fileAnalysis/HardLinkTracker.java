@@ -0,0 +1,60 @@
+package fileBackup.fileAnalysis;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Groups new files which are hard links to the same data so the data is copied to the backup once and every other
+ * name is created as a hard link to that copy.
+ *
+ * <p>Files are grouped by {@code BasicFileAttributes.fileKey()}. Only files with more than one link are remembered,
+ * which costs a single extra attribute read for each new file but keeps the map to the few hard linked files rather
+ * than every file in the scan. The link count is only available on file systems supporting the {@code unix}
+ * attribute view, elsewhere nothing is grouped and each file is copied as before.</p>
+ *
+ * <p>The first name claiming the data owns it regardless of the order workers run in. Once every name exists on the
+ * backup none of them are new again, so the owner never needs to be the same between scans.</p>
+ */
+public class HardLinkTracker {
+    private final Map<Object, Path> owners = new ConcurrentHashMap<>();
+    private final boolean supported;
+
+    /**
+     * @param root The current working root, deciding if link counts can be read.
+     */
+    public HardLinkTracker(Path root) {
+        this.supported = root.getFileSystem().supportedFileAttributeViews().contains("unix");
+    }
+
+    /**
+     * Claims the data of a new file. Safe to call from concurrent workers.
+     *
+     * @param file The new file on the current drive.
+     * @param attrs The attributes of {@code file}.
+     * @param result Counts the file system call reading the link count.
+     * @return Empty if {@code file} should be copied, otherwise the current path of the file already owning the same
+     * data which {@code file} can be linked to on the backup.
+     */
+    public Optional<Path> claim(Path file, BasicFileAttributes attrs, FileAnalysisResult result) {
+        if (!supported || !attrs.isRegularFile() || attrs.fileKey() == null) {
+            return Optional.empty();
+        }
+        result.addFileSystemCalls(1);
+        int links;
+        try {
+            links = (Integer) Files.getAttribute(file, "unix:nlink");
+        } catch (IOException | RuntimeException e) {
+            return Optional.empty();
+        }
+        if (links < 2) {
+            return Optional.empty();
+        }
+        Path owner = owners.putIfAbsent(attrs.fileKey(), file);
+        return owner == null || owner.equals(file) ? Optional.empty() : Optional.of(owner);
+    }
+}
@@ -1,7 +1,7 @@
 package fileBackup.fileAnalysis;
 
 /**
- * Used by {@code ModifiedFileCollector} to collect statistics for understanding the types of files analysed during
+ * Used by {@code TreeDiffCollector} to collect statistics for understanding the types of files analysed during
  * the backup scanning process.
  *
  * Created by matt on 30-Jun-17.
@@ -9,8 +9,10 @@ package fileBackup.fileAnalysis;
 public class ModifiedFileWalkerResult extends FileAnalysisResult {
     private long totalFilesModified = 0;
     private long totalFilesUnmodified = 0;
+    private long totalFilesTouched = 0;
     private long totalNewFiles = 0;
     private long totalNewDirectories = 0;
+    private long totalFilesMoved = 0;
 
     public ModifiedFileWalkerResult() {
         super();
@@ -24,6 +26,13 @@ public class ModifiedFileWalkerResult extends FileAnalysisResult {
         return totalFilesUnmodified;
     }
 
+    /**
+     * @return The number of files with identical contents where only the last modified time differs.
+     */
+    public long getTotalFilesTouched() {
+        return totalFilesTouched;
+    }
+
     public long getTotalNewFiles() {
         return totalNewFiles;
     }
@@ -32,6 +41,13 @@ public class ModifiedFileWalkerResult extends FileAnalysisResult {
         return totalNewDirectories;
     }
 
+    /**
+     * @return The number of new files moved from a path about to be deleted on the backup rather than copied.
+     */
+    public long getTotalFilesMoved() {
+        return totalFilesMoved;
+    }
+
     public void incrementTotalFilesModified() {
         totalFilesModified++;
     }
@@ -40,6 +56,10 @@ public class ModifiedFileWalkerResult extends FileAnalysisResult {
         totalFilesUnmodified++;
     }
 
+    public void incrementTotalFilesTouched() {
+        totalFilesTouched++;
+    }
+
     public void incrementTotalNewFiles() {
         totalNewFiles++;
     }
@@ -47,4 +67,21 @@ public class ModifiedFileWalkerResult extends FileAnalysisResult {
     public void incrementTotalNewDirectories() {
         totalNewDirectories++;
     }
+
+    public void incrementTotalFilesMoved() {
+        totalFilesMoved++;
+    }
+
+    /**
+     * @param other The result to merge into this result.
+     */
+    public void merge(ModifiedFileWalkerResult other) {
+        super.merge(other);
+        totalFilesModified += other.totalFilesModified;
+        totalFilesUnmodified += other.totalFilesUnmodified;
+        totalFilesTouched += other.totalFilesTouched;
+        totalNewFiles += other.totalNewFiles;
+        totalNewDirectories += other.totalNewDirectories;
+        totalFilesMoved += other.totalFilesMoved;
+    }
 }
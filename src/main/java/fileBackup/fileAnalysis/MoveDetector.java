@@ -0,0 +1,391 @@
+package fileBackup.fileAnalysis;
+
+import fileBackup.copying.CopyEngine;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Reconciles the results of a scan before they are backed up, turning files and directories which were moved or
+ * renamed on the current drive into a single Move on the backup rather than a copy of the new path followed by a
+ * delete of the old path.
+ *
+ * <p>Each New file is matched against the files about to be deleted from the backup, including every file within a
+ * deleted directory. A match needs the same size and last modified time as per {@code FileModifiedComparision},
+ * and when {@code compareContent} is {@code true} the same {@code FastHash}. Files with the same name are preferred
+ * so a directory full of similar files keeps its names. Candidates are grouped by last modified time, so the size and
+ * hash are only read for the few files sharing a time with a deleted file.</p>
+ *
+ * <table border=1 cellpadding=5 summary="">
+ * <tr> <th>Match</th> <th>Result</th> </tr>
+ * <tr>
+ *   <td>Every file within a deleted directory moved to the same relative path under a new directory</td>
+ *   <td>A single directory Move replacing the Delete record and every New record under the new directory.</td>
+ * </tr>
+ * <tr>
+ *   <td>A single file</td>
+ *   <td>A file Move replacing the New record. A deleted file's Delete record is removed, a deleted directory is still
+ *   deleted once the file has been moved out of it.</td>
+ * </tr>
+ * </table>
+ *
+ * <p>Moves are executed with the other modified records, which always complete before any deletion.</p>
+ */
+public class MoveDetector {
+    // Wider than the threshold used by FileModifiedComparision, so only the neighbouring buckets need checking.
+    private static final long BUCKET_MILLIS = 10_000;
+
+    private final boolean compareContent;
+
+    /**
+     * @param compareContent {@code true} to also compare the contents of matching files by hash.
+     */
+    public MoveDetector(boolean compareContent) {
+        this.compareContent = compareContent;
+    }
+
+    /**
+     * Replaces the matched New and Delete records within the supplied results with Move records.
+     *
+     * @param modified The modified results of the scan.
+     * @param deleted The deleted results of the same scan.
+     */
+    public void reconcile(ModifiedFileWalkerResult modified, DeletedFileWalkerResult deleted) {
+        List<FileChangeRecord> modifiedRecords = modified.getFileChangeRecords();
+        List<FileChangeRecord> deletedRecords = deleted.getFileChangeRecords();
+        if (deletedRecords.isEmpty() || modifiedRecords.stream().noneMatch(MoveDetector::isNewFile)) {
+            return;
+        }
+
+        Map<Long, List<Candidate>> candidates = new HashMap<>();
+        List<DeletedDirectory> deletedDirectories = new ArrayList<>();
+        for (int i = 0; i < deletedRecords.size(); i++) {
+            FileChangeRecord record = deletedRecords.get(i);
+            if (record.getFileType() == FileType.Directory) {
+                DeletedDirectory directory = new DeletedDirectory(i, record.getBackupPath());
+                if (directory.walk(deleted)) {
+                    deletedDirectories.add(directory);
+                    directory.files.forEach(candidate -> index(candidates, candidate));
+                }
+            } else if (record.getFileType() == FileType.File && record.getBackupLastModified() != null) {
+                index(candidates, new Candidate(record.getBackupPath(), -1, record.getBackupLastModified(), i, null));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Candidate> matches = new HashMap<>();
+        for (int i = 0; i < modifiedRecords.size(); i++) {
+            FileChangeRecord record = modifiedRecords.get(i);
+            if (isNewFile(record)) {
+                int index = i;
+                match(record, candidates, modified).ifPresent(candidate -> {
+                    candidate.matched = true;
+                    matches.put(index, candidate);
+                    if (candidate.directory != null) {
+                        candidate.directory.matched++;
+                    }
+                });
+            }
+        }
+        if (matches.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, FileChangeRecord> modifiedReplacements = new HashMap<>();
+        Set<Integer> deletedRemovals = new HashSet<>();
+        moveDirectories(modifiedRecords, matches, deletedDirectories, modified, modifiedReplacements, deletedRemovals);
+
+        matches.forEach((index, candidate) -> {
+            if (modifiedReplacements.containsKey(index)) {
+                return;
+            }
+            FileChangeRecord record = modifiedRecords.get(index);
+            modifiedReplacements.put(index, new FileChangeRecord.Builder()
+                    .currentWorkingPath(record.getCurrentWorkingPath().orElse(null))
+                    .backupPath(record.getBackupPath())
+                    .sourceBackupPath(candidate.path)
+                    .currentLastModified(record.getCurrentLastModified())
+                    .backupLastModified(candidate.lastModified)
+                    .currentSize(record.getCurrentSize())
+                    .fileSystemAction(FileSystemAction.Move)
+                    .fileType(FileType.File)
+                    .create());
+            modified.incrementTotalFilesMoved();
+            if (candidate.directory == null) {
+                deletedRemovals.add(candidate.deletedIndex);
+            }
+        });
+
+        modified.setFileChangeRecords(replace(modifiedRecords, modifiedReplacements));
+        deleted.setFileChangeRecords(replace(deletedRecords, deletedRemovals));
+    }
+
+    /**
+     * Collapses deleted directories whose files were all moved under the same new directory into a single Move.
+     */
+    private void moveDirectories(List<FileChangeRecord> modifiedRecords, Map<Integer, Candidate> matches,
+                                 List<DeletedDirectory> deletedDirectories, ModifiedFileWalkerResult modified,
+                                 Map<Integer, FileChangeRecord> modifiedReplacements, Set<Integer> deletedRemovals) {
+        Map<Path, DeletedDirectory> targets = new HashMap<>();
+        matches.forEach((index, candidate) -> {
+            DeletedDirectory directory = candidate.directory;
+            if (directory == null || directory.matched != directory.files.size() || directory.invalid) {
+                return;
+            }
+            Path relative = directory.path.relativize(candidate.path);
+            Path backupPath = modifiedRecords.get(index).getBackupPath();
+            Path target = ancestor(backupPath, relative);
+            if (target == null || (directory.target != null && !directory.target.equals(target))) {
+                directory.invalid = true;
+                return;
+            }
+            directory.target = target;
+            directory.currentTarget = modifiedRecords.get(index).getCurrentWorkingPath()
+                    .map(path -> ancestor(path, relative))
+                    .orElse(null);
+        });
+        for (DeletedDirectory directory : deletedDirectories) {
+            if (directory.target != null && !directory.invalid && directory.currentTarget != null
+                    && targets.putIfAbsent(directory.target, directory) == null) {
+                modified.addFileSystemCalls(1);
+                if (Files.exists(directory.target, LinkOption.NOFOLLOW_LINKS)) {
+                    targets.remove(directory.target);
+                }
+            }
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        // Every record under the new directory must be one of the moved files or one of its empty directories.
+        Map<DeletedDirectory, List<Integer>> moved = new HashMap<>();
+        for (int i = 0; i < modifiedRecords.size(); i++) {
+            FileChangeRecord record = modifiedRecords.get(i);
+            for (Path parent = record.getBackupPath(); parent != null; parent = parent.getParent()) {
+                DeletedDirectory directory = targets.get(parent);
+                if (directory == null) {
+                    continue;
+                }
+                Candidate candidate = matches.get(i);
+                boolean movedFile = candidate != null && candidate.directory == directory;
+                boolean emptyDirectory = record.getFileSystemAction() == FileSystemAction.New
+                        && record.getFileType() == FileType.Directory
+                        && directory.directories.contains(parent.relativize(record.getBackupPath()));
+                if (movedFile || emptyDirectory) {
+                    moved.computeIfAbsent(directory, key -> new ArrayList<>()).add(i);
+                } else {
+                    directory.invalid = true;
+                }
+                break;
+            }
+        }
+
+        moved.forEach((directory, indexes) -> {
+            if (directory.invalid) {
+                return;
+            }
+            indexes.forEach(index -> modifiedReplacements.put(index, null));
+            modifiedReplacements.put(indexes.get(0), new FileChangeRecord.Builder()
+                    .currentWorkingPath(directory.currentTarget)
+                    .backupPath(directory.target)
+                    .sourceBackupPath(directory.path)
+                    .fileSystemAction(FileSystemAction.Move)
+                    .fileType(FileType.Directory)
+                    .create());
+            for (int i = 0; i < directory.files.size(); i++) {
+                modified.incrementTotalFilesMoved();
+            }
+            deletedRemovals.add(directory.deletedIndex);
+        });
+    }
+
+    private Optional<Candidate> match(FileChangeRecord record, Map<Long, List<Candidate>> candidates,
+                                      FileAnalysisResult result) {
+        FileTime lastModified = record.getCurrentLastModified();
+        Path currentPath = record.getCurrentWorkingPath().orElse(null);
+        if (lastModified == null || currentPath == null) {
+            return Optional.empty();
+        }
+        long bucket = Math.floorDiv(lastModified.toMillis(), BUCKET_MILLIS);
+        List<Candidate> sameTime = new ArrayList<>();
+        for (long b = bucket - 1; b <= bucket + 1; b++) {
+            for (Candidate candidate : candidates.getOrDefault(b, Collections.emptyList())) {
+                if (!candidate.matched && FileModifiedComparision.compare(lastModified, candidate.lastModified)
+                        == FileModifiedComparision.UNCHANGED) {
+                    sameTime.add(candidate);
+                }
+            }
+        }
+        if (sameTime.isEmpty()) {
+            return Optional.empty();
+        }
+
+        result.addFileSystemCalls(1);
+        long size;
+        try {
+            size = Files.size(currentPath);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+
+        // Moves keep the name, renames keep the directory, prefer the former when both are possible.
+        Path fileName = record.getBackupPath().getFileName();
+        sameTime.sort(Comparator.comparing(candidate -> !candidate.path.getFileName().equals(fileName)));
+        for (Candidate candidate : sameTime) {
+            if (candidate.size(result) == size && isSameContent(currentPath, candidate, result)) {
+                return Optional.of(candidate);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean isSameContent(Path currentPath, Candidate candidate, FileAnalysisResult result) {
+        if (!compareContent) {
+            return true;
+        }
+        result.addFileSystemCalls(2);
+        try {
+            return FastHash.hash(currentPath) == FastHash.hash(candidate.path);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void index(Map<Long, List<Candidate>> candidates, Candidate candidate) {
+        long bucket = Math.floorDiv(candidate.lastModified.toMillis(), BUCKET_MILLIS);
+        candidates.computeIfAbsent(bucket, key -> new ArrayList<>()).add(candidate);
+    }
+
+    private static boolean isNewFile(FileChangeRecord record) {
+        return record.getFileSystemAction() == FileSystemAction.New && record.getFileType() == FileType.File;
+    }
+
+    /**
+     * @return The ancestor of {@code path} which {@code relative} resolves against to give {@code path}, or
+     * {@code null} if {@code path} doesn't end with {@code relative}.
+     */
+    private static Path ancestor(Path path, Path relative) {
+        if (!path.endsWith(relative) || path.getNameCount() <= relative.getNameCount()) {
+            return null;
+        }
+        Path ancestor = path;
+        for (int i = 0; i < relative.getNameCount(); i++) {
+            ancestor = ancestor.getParent();
+        }
+        return ancestor;
+    }
+
+    private static List<FileChangeRecord> replace(List<FileChangeRecord> records,
+                                                  Map<Integer, FileChangeRecord> replacements) {
+        FileChangeSet replaced = new FileChangeSet();
+        for (int i = 0; i < records.size(); i++) {
+            if (!replacements.containsKey(i)) {
+                replaced.add(records.get(i));
+            } else if (replacements.get(i) != null) {
+                replaced.add(replacements.get(i));
+            }
+        }
+        return replaced;
+    }
+
+    private static List<FileChangeRecord> replace(List<FileChangeRecord> records, Set<Integer> removals) {
+        Map<Integer, FileChangeRecord> replacements = new HashMap<>();
+        removals.forEach(index -> replacements.put(index, null));
+        return replace(records, replacements);
+    }
+
+    /**
+     * A file about to be deleted from the backup.
+     */
+    private static class Candidate {
+        private final Path path;
+        private final FileTime lastModified;
+        private final int deletedIndex;
+        private final DeletedDirectory directory;
+        private long size;
+        private boolean matched;
+
+        /**
+         * @param size The size of the file or -1 to read it when first needed.
+         * @param deletedIndex The index of the Delete record, only used when not within a {@code directory}.
+         * @param directory The deleted directory containing the file, or {@code null} for a deleted file.
+         */
+        private Candidate(Path path, long size, FileTime lastModified, int deletedIndex, DeletedDirectory directory) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.deletedIndex = deletedIndex;
+            this.directory = directory;
+        }
+
+        private long size(FileAnalysisResult result) {
+            if (size < 0) {
+                result.addFileSystemCalls(1);
+                try {
+                    size = Files.size(path);
+                } catch (IOException e) {
+                    size = Long.MAX_VALUE;
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * A directory about to be deleted from the backup along with the files and directories within it.
+     */
+    private static class DeletedDirectory {
+        private final int deletedIndex;
+        private final Path path;
+        private final List<Candidate> files = new ArrayList<>();
+        private final Set<Path> directories = new HashSet<>();
+        private int matched;
+        private boolean invalid;
+        private Path target;
+        private Path currentTarget;
+
+        private DeletedDirectory(int deletedIndex, Path path) {
+            this.deletedIndex = deletedIndex;
+            this.path = path;
+        }
+
+        /**
+         * @return {@code true} if the whole directory could be read.
+         */
+        private boolean walk(FileAnalysisResult result) {
+            try {
+                Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        result.addFileSystemCalls(2);
+                        directories.add(path.relativize(dir));
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        result.addFileSystemCalls(1);
+                        if (CopyEngine.isTemporaryFile(file)) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                        if (attrs.isRegularFile()) {
+                            files.add(new Candidate(file, attrs.size(), attrs.lastModifiedTime(), -1,
+                                    DeletedDirectory.this));
+                        } else {
+                            invalid = true;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+}
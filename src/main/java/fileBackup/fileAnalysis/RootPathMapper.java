@@ -0,0 +1,63 @@
+package fileBackup.fileAnalysis;
+
+import java.nio.file.Path;
+
+/**
+ * Maps paths beneath one root directory onto another root directory for {@code FilePathInfo}. The mapping is made
+ * at the first occurrence of {@code rootDirectoryName} within the path, see {@code FilePathInfo.getPathComponents}.
+ *
+ * <p>Nearly every mapped path starts with {@code sourceRootPath}. When {@code rootDirectoryName} first occurs as the
+ * last segment of {@code sourceRootPath}, the offset of the trailing segments is the same for every such path and is
+ * computed once here. Mapping is then a {@code startsWith} check followed by a single {@code subpath} and
+ * {@code resolve}, rather than splitting and joining every segment of the path as strings.</p>
+ */
+class RootPathMapper {
+    private final Path sourceRootPath;
+    private final Path targetRootPath;
+    private final String rootDirectoryName;
+
+    // Name count of sourceRootPath when its first rootDirectoryName is its last segment, otherwise -1.
+    private final int trailingOffset;
+
+    RootPathMapper(Path sourceRootPath, Path targetRootPath, String rootDirectoryName) {
+        this.sourceRootPath = sourceRootPath;
+        this.targetRootPath = targetRootPath;
+        this.rootDirectoryName = rootDirectoryName;
+
+        int rootIndex = indexOf(sourceRootPath, rootDirectoryName);
+        this.trailingOffset = rootIndex == sourceRootPath.getNameCount() - 1 ? rootIndex + 1 : -1;
+    }
+
+    /**
+     * @param path The path to map.
+     * @return The mapped path, or {@code null} if {@code rootDirectoryName} does not occur within {@code path}.
+     */
+    Path map(Path path) {
+        int offset = firstRootDirectoryIndex(path) + 1;
+        if (offset == 0) {
+            return null;
+        }
+        int nameCount = path.getNameCount();
+        return nameCount > offset ? targetRootPath.resolve(path.subpath(offset, nameCount)) : targetRootPath;
+    }
+
+    /**
+     * @param path The path to search.
+     * @return The index of the first {@code rootDirectoryName} segment within {@code path}, otherwise -1.
+     */
+    int firstRootDirectoryIndex(Path path) {
+        if (trailingOffset >= 0 && path.startsWith(sourceRootPath)) {
+            return trailingOffset - 1;
+        }
+        return indexOf(path, rootDirectoryName);
+    }
+
+    private static int indexOf(Path path, String name) {
+        for (int i = 0; i < path.getNameCount(); i++) {
+            if (path.getName(i).toString().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
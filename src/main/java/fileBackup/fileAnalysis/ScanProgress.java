@@ -0,0 +1,142 @@
+package fileBackup.fileAnalysis;
+
+import fileBackup.events.Publisher;
+import fileBackup.events.Subscriber;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the files and directories visited by a scan while it runs and publishes a {@code ScanProgressSnapshot} to
+ * each {@code Subscriber} at most once every {@code interval}, plus a final snapshot once the scan completes.
+ *
+ * <p>The totals in {@code FileAnalysisResult} are only complete once every worker has finished and been merged, so
+ * they can't be used to report progress. Every scanning worker instead reports each entry here. The counters are
+ * {@code LongAdder}s so concurrent workers don't contend on a single value, and publishing is claimed by whichever
+ * worker first notices the interval has passed. Subscribers are invoked on that scanning thread and must hand the
+ * snapshot over to the UI thread themselves.</p>
+ *
+ * <p>A new {@code ScanProgress} is created for each scan, the elapsed time is measured from its creation.</p>
+ */
+public class ScanProgress implements Publisher<ScanProgressSnapshot> {
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMillis(250);
+
+    private final LongAdder filesScanned = new LongAdder();
+    private final LongAdder directoriesScanned = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private volatile int currentDepth;
+
+    private final List<Subscriber<ScanProgressSnapshot>> subscribers = new CopyOnWriteArrayList<>();
+    private final long intervalNanos;
+    private final long startNanos;
+    private final AtomicLong nextPublishNanos;
+
+    // Guarded by this, the rates of the next snapshot are measured from the previous one.
+    private long previousNanos;
+    private long previousFilesScanned;
+    private long previousDirectoriesScanned;
+
+    public ScanProgress() {
+        this(DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param interval The minimum time between published snapshots.
+     */
+    public ScanProgress(Duration interval) {
+        this.intervalNanos = interval.toNanos();
+        this.startNanos = System.nanoTime();
+        this.previousNanos = startNanos;
+        this.nextPublishNanos = new AtomicLong(startNanos + intervalNanos);
+    }
+
+    @Override
+    public void addSubscriber(Subscriber<ScanProgressSnapshot> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void removeSubscriber(Subscriber<ScanProgressSnapshot> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Invoked by a scanning worker for each file visited.
+     */
+    public void fileScanned() {
+        filesScanned.increment();
+        publishIfDue();
+    }
+
+    /**
+     * Invoked by a scanning worker for each directory visited.
+     *
+     * @param depth The depth of the directory below the scan root, the root being 0.
+     */
+    public void directoryScanned(int depth) {
+        directoriesScanned.increment();
+        currentDepth = depth;
+        maxDepth.accumulate(depth);
+        publishIfDue();
+    }
+
+    /**
+     * Publishes the final snapshot. Invoked once the scan has completed or failed.
+     */
+    public void complete() {
+        publish(System.nanoTime(), true);
+    }
+
+    /**
+     * @return A snapshot of the progress so far with rates averaged since the scan started. Nothing is published.
+     */
+    public ScanProgressSnapshot getSnapshot() {
+        long files = filesScanned.sum();
+        long directories = directoriesScanned.sum();
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return new ScanProgressSnapshot(files, directories, currentDepth, maxDepth.intValue(),
+                Duration.ofNanos(elapsedNanos), perSecond(files, elapsedNanos), perSecond(directories, elapsedNanos),
+                false);
+    }
+
+    private void publishIfDue() {
+        long now = System.nanoTime();
+        long next = nextPublishNanos.get();
+        // Only the worker winning the update publishes, the others carry on scanning.
+        if (now - next >= 0 && nextPublishNanos.compareAndSet(next, now + intervalNanos)) {
+            publish(now, false);
+        }
+    }
+
+    private synchronized void publish(long now, boolean complete) {
+        long files = filesScanned.sum();
+        long directories = directoriesScanned.sum();
+        long elapsedNanos = now - startNanos;
+
+        ScanProgressSnapshot snapshot;
+        if (complete) {
+            snapshot = new ScanProgressSnapshot(files, directories, currentDepth, maxDepth.intValue(),
+                    Duration.ofNanos(elapsedNanos), perSecond(files, elapsedNanos),
+                    perSecond(directories, elapsedNanos), true);
+        } else {
+            long sinceNanos = now - previousNanos;
+            snapshot = new ScanProgressSnapshot(files, directories, currentDepth, maxDepth.intValue(),
+                    Duration.ofNanos(elapsedNanos), perSecond(files - previousFilesScanned, sinceNanos),
+                    perSecond(directories - previousDirectoriesScanned, sinceNanos), false);
+        }
+        previousNanos = now;
+        previousFilesScanned = files;
+        previousDirectoriesScanned = directories;
+
+        subscribers.forEach(subscriber -> subscriber.update(snapshot));
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+}
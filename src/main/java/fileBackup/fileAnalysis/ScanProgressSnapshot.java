@@ -0,0 +1,80 @@
+package fileBackup.fileAnalysis;
+
+import java.time.Duration;
+
+/**
+ * An immutable view of a scan in progress published by {@code ScanProgress}.
+ *
+ * <p>The rates are measured over the time since the previous snapshot so they follow the scan speeding up and slowing
+ * down as it moves between small and large directories. The final snapshot is marked {@code complete} and its rates
+ * are averaged over the entire scan instead.</p>
+ */
+public class ScanProgressSnapshot {
+    private final long filesScanned;
+    private final long directoriesScanned;
+    private final int currentDepth;
+    private final int maxDepth;
+    private final Duration elapsed;
+    private final double filesPerSecond;
+    private final double directoriesPerSecond;
+    private final boolean complete;
+
+    ScanProgressSnapshot(long filesScanned, long directoriesScanned, int currentDepth, int maxDepth, Duration elapsed,
+                         double filesPerSecond, double directoriesPerSecond, boolean complete) {
+        this.filesScanned = filesScanned;
+        this.directoriesScanned = directoriesScanned;
+        this.currentDepth = currentDepth;
+        this.maxDepth = maxDepth;
+        this.elapsed = elapsed;
+        this.filesPerSecond = filesPerSecond;
+        this.directoriesPerSecond = directoriesPerSecond;
+        this.complete = complete;
+    }
+
+    public long getFilesScanned() {
+        return filesScanned;
+    }
+
+    public long getDirectoriesScanned() {
+        return directoriesScanned;
+    }
+
+    /**
+     * @return The depth below the root of the most recently entered directory, the root being 0.
+     */
+    public int getCurrentDepth() {
+        return currentDepth;
+    }
+
+    /**
+     * @return The deepest directory entered so far.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getFilesPerSecond() {
+        return filesPerSecond;
+    }
+
+    public double getDirectoriesPerSecond() {
+        return directoriesPerSecond;
+    }
+
+    /**
+     * @return {@code true} if this is the last snapshot of the scan.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d files (%,.0f/s), %,d directories (%,.0f/s), depth %d",
+                filesScanned, filesPerSecond, directoriesScanned, directoriesPerSecond, currentDepth);
+    }
+}
@@ -0,0 +1,915 @@
+package fileBackup.fileAnalysis;
+
+import fileBackup.backupExecution.directoryFilters.DirectoryFilter;
+import fileBackup.copying.CopyEngine;
+import fileBackup.devices.Device;
+import fileBackup.devices.DeviceScheduler;
+import fileBackup.devices.IoThrottle;
+import fileBackup.rules.FileRuleMatcher;
+import io.vavr.control.Either;
+import io.vavr.control.Try;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Performs a read only scan of the current working drive and backup drive together in a single pass, producing the
+ * New, Modify and Delete {@code FileChangeRecord}s of every file which differs between them.
+ *
+ * <p>Rather than walking each drive independently and checking every visited path for existence on the opposite
+ * drive, each directory is read once on both drives. The 2 listings are sorted by file name and merge joined, so the
+ * existence and last modified time of the opposite file is already known from the listing without any further
+ * file system access. This halves the number of directory reads compared to walking each drive and removes the
+ * per file cross drive stat calls which dominate the scan time when the backup is on a slow USB drive.</p>
+ *
+ * <p>The merge join produces the below outcomes for each file name.</p>
+ *
+ * <table border=1 cellpadding=5 summary="">
+ * <tr> <th>Listing</th> <th>Description</th> </tr>
+ * <tr>
+ *   <td>Current only</td>
+ *   <td>A New record for a file. A directory is walked on the current drive only, creating New records for every
+ *   file and empty directory within it.</td>
+ * </tr>
+ * <tr>
+ *   <td>Backup only</td>
+ *   <td>A Delete record for a file. A directory is deleted as a whole without reading its contents.</td>
+ * </tr>
+ * <tr>
+ *   <td>Both</td>
+ *   <td>Files are compared by last modified time as per {@code FileModifiedComparision}. Directories are merge
+ *   joined recursively.</td>
+ * </tr>
+ * </table>
+ *
+ * <p>The {@code DirectoryFilter} is consulted for each side independently. A
+ * directory pair is only entered when either side is active, and records are only produced for the active side.
+ * Symbolic links are followed on the current drive only when {@code filePathInfo.isFollowSymlinks()} is {@code true}.
+ * Directory pairs are merge joined concurrently in a {@code ForkJoinPool} when {@code parallelism} is greater than 1.</p>
+ *
+ * <p>When a {@code BackupManifest} is supplied, backup directory listings are taken from the manifest so the backup
+ * drive is not read at all beyond the backup root attributes.</p>
+ *
+ * <p>When {@code DirectoryTimestamps} are supplied, a backup directory whose names were all found in its current
+ * directory at the last scan, and neither of which has been modified since, isn't listed. The backup of each current
+ * entry is read directly instead, which skips the directory read on the backup drive. The timestamps are updated and
+ * written once the scan completes.</p>
+ *
+ * <p>With {@code ChangeDetection.Content} files on both drives are compared by a {@code FileContentComparator}, and
+ * files with identical contents but different last modified times produce a Touch record.</p>
+ *
+ * <p>A name missing from the current listing is only deleted when the current directory was listed in full. When the
+ * directory or any entry within it can't be read, the error is reported and no Delete record is produced for the
+ * directory pair or anything beneath it, so the backup of an unreadable directory is kept rather than wiped.</p>
+ *
+ * <p>A {@code fileChangeRecordConsumer} can be supplied to receive each record as soon as it is found, allowing the
+ * backup to begin while the scan continues.</p>
+ *
+ * <p>A {@code FileRuleMatcher} can be supplied to skip excluded files and directories on both drives. Excluded
+ * directories are never listed, and excluded files are neither compared nor deleted.</p>
+ *
+ * <p>A {@code ScanProgress} can be supplied to publish the number of files and directories visited while the scan
+ * runs. Each name is counted once even when it exists on both drives.</p>
+ *
+ * <p>When a {@code DeviceScheduler} is supplied, each directory listing and content comparison waits for a free slot
+ * on the devices it reads, so a scan with many workers still reads a hard disk or USB drive one directory at a time.</p>
+ *
+ * <p>An {@code IoThrottle} can be supplied to limit the rate directories are read. Each listing takes an operation
+ * before it starts, waiting outside of its device slot, and an operation for every entry it stats once it is read so
+ * the listings after a large directory wait for it to be repaid.</p>
+ *
+ * <p>When following symbolic links, each physical directory on the current drive is merge joined once. Linked
+ * directories are deferred and joined in rounds as per {@code VisitedDirectories}, a directory already claimed by
+ * another path produces a single Link record mapping its backup path to the backup of that owner. A backup directory
+ * which is itself a link is never written through, the directory is reported as an error instead.</p>
+ *
+ * <p>New files which are hard links to the same data are grouped by a {@code HardLinkTracker}, the first file found
+ * is copied and the others are HardLink records linking to its backup.</p>
+ *
+ * <p>Names reserved by {@code CopyEngine} for unfinished copies are skipped on both drives. A listed backup directory
+ * holding any beside a file which isn't being copied by this scan produces Delete records for them, since the copy
+ * they belong to will never be resumed, such as a failed copy of a new file which has since been deleted.</p>
+ *
+ * <p>On windows file names are matched ignoring case to agree with the file system, otherwise a renamed file
+ * differing only by case would be copied and then deleted on the backup.</p>
+ */
+public class TreeDiffCollector {
+    private static final Comparator<String> FILE_NAME_ORDER =
+            File.separatorChar == '\\' ? String.CASE_INSENSITIVE_ORDER : Comparator.naturalOrder();
+
+    private FilePathInfo filePathInfo;
+    private DirectoryFilter directoryFilter;
+    private int parallelism;
+    private BackupManifest backupManifest;
+    private FileContentComparator fileContentComparator;
+    private Consumer<FileChangeRecord> fileChangeRecordConsumer;
+    private DeviceScheduler deviceScheduler;
+    private ScanProgress scanProgress;
+    private FileRuleMatcher fileRuleMatcher = FileRuleMatcher.empty();
+    private IoThrottle ioThrottle = IoThrottle.UNLIMITED;
+    private DirectoryTimestamps directoryTimestamps;
+
+    // Assigned from the deviceScheduler when the scan starts.
+    private Device currentDevice = Device.UNLIMITED;
+    private Device backupDevice = Device.UNLIMITED;
+
+    // Only present while following symbolic links, assigned when the scan starts.
+    private VisitedDirectories visitedDirectories;
+    private Queue<DirectoryPairTask> deferredLinks;
+    private HardLinkTracker hardLinkTracker;
+
+    /**
+     * @param filePathInfo The {@code FilePathInfo}.
+     * @param directoryFilter Determines which directories should be scanned.
+     * @param parallelism The number of workers used to merge join directory pairs.
+     */
+    public TreeDiffCollector(FilePathInfo filePathInfo, DirectoryFilter directoryFilter, int parallelism) {
+        this.filePathInfo = filePathInfo;
+        this.directoryFilter = directoryFilter;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Builds a {@code TreeDiffCollector} with the optional scanning features.
+     */
+    public static class Builder {
+        private final FilePathInfo filePathInfo;
+        private final DirectoryFilter directoryFilter;
+        private int parallelism = 1;
+        private BackupManifest backupManifest;
+        private FileContentComparator fileContentComparator;
+        private Consumer<FileChangeRecord> fileChangeRecordConsumer;
+        private DeviceScheduler deviceScheduler;
+        private ScanProgress scanProgress;
+        private FileRuleMatcher fileRuleMatcher = FileRuleMatcher.empty();
+        private IoThrottle ioThrottle = IoThrottle.UNLIMITED;
+        private DirectoryTimestamps directoryTimestamps;
+
+        /**
+         * @param filePathInfo The {@code FilePathInfo}.
+         * @param directoryFilter Determines which directories should be scanned.
+         */
+        public Builder(FilePathInfo filePathInfo, DirectoryFilter directoryFilter) {
+            this.filePathInfo = filePathInfo;
+            this.directoryFilter = directoryFilter;
+        }
+
+        /**
+         * The number of workers used to merge join directory pairs, defaults to 1.
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Optional validated manifest of the backup drive used in place of reading backup directories.
+         */
+        public Builder backupManifest(BackupManifest backupManifest) {
+            this.backupManifest = backupManifest;
+            return this;
+        }
+
+        /**
+         * Optional comparator to compare files existing on both drives by content rather than last modified time.
+         */
+        public Builder fileContentComparator(FileContentComparator fileContentComparator) {
+            this.fileContentComparator = fileContentComparator;
+            return this;
+        }
+
+        /**
+         * Optional consumer receiving each {@code FileChangeRecord} as soon as it is found, while the scan continues.
+         * Invoked concurrently by scanning workers.
+         */
+        public Builder fileChangeRecordConsumer(Consumer<FileChangeRecord> fileChangeRecordConsumer) {
+            this.fileChangeRecordConsumer = fileChangeRecordConsumer;
+            return this;
+        }
+
+        /**
+         * Optional scheduler limiting the concurrent reads of each device.
+         */
+        public Builder deviceScheduler(DeviceScheduler deviceScheduler) {
+            this.deviceScheduler = deviceScheduler;
+            return this;
+        }
+
+        /**
+         * Optional progress receiving each visited file and directory while the scan runs.
+         */
+        public Builder scanProgress(ScanProgress scanProgress) {
+            this.scanProgress = scanProgress;
+            return this;
+        }
+
+        /**
+         * Optional include and exclude rules, defaults to excluding nothing.
+         */
+        public Builder fileRuleMatcher(FileRuleMatcher fileRuleMatcher) {
+            this.fileRuleMatcher = fileRuleMatcher;
+            return this;
+        }
+
+        /**
+         * Optional limit on the directories listed and files read per second, defaults to unlimited.
+         */
+        public Builder ioThrottle(IoThrottle ioThrottle) {
+            this.ioThrottle = ioThrottle;
+            return this;
+        }
+
+        /**
+         * Optional timestamps from the previous scan used to skip unchanged backup directory listings, which are
+         * updated and written once the scan completes.
+         */
+        public Builder directoryTimestamps(DirectoryTimestamps directoryTimestamps) {
+            this.directoryTimestamps = directoryTimestamps;
+            return this;
+        }
+
+        public TreeDiffCollector create() {
+            TreeDiffCollector collector = new TreeDiffCollector(filePathInfo, directoryFilter, parallelism);
+            collector.backupManifest = backupManifest;
+            collector.fileContentComparator = fileContentComparator;
+            collector.fileChangeRecordConsumer = fileChangeRecordConsumer;
+            collector.deviceScheduler = deviceScheduler;
+            collector.scanProgress = scanProgress;
+            collector.fileRuleMatcher = fileRuleMatcher;
+            collector.ioThrottle = ioThrottle;
+            collector.directoryTimestamps = directoryTimestamps;
+            return collector;
+        }
+    }
+
+    /**
+     * @return The {@code Either} where left is the error if this method failed otherwise right contains the
+     * {@code TreeDiffResult}.
+     */
+    public Either<FileAccessError, TreeDiffResult> getFiles() {
+        Try<TreeDiffResult> tryDiff = Try.of(() -> {
+            Path currentRoot = filePathInfo.getCurrentWorkingRootPath();
+            Path backupRoot = filePathInfo.getBackupRootPath();
+            if (deviceScheduler != null) {
+                currentDevice = deviceScheduler.getDevice(currentRoot);
+                backupDevice = deviceScheduler.getDevice(backupRoot);
+            }
+            hardLinkTracker = new HardLinkTracker(currentRoot);
+            if (filePathInfo.isFollowSymlinks()) {
+                visitedDirectories = new VisitedDirectories();
+                deferredLinks = new ConcurrentLinkedQueue<>();
+            }
+            BasicFileAttributes currentAttrs = readAttributes(currentRoot, filePathInfo.isFollowSymlinks());
+            BasicFileAttributes backupAttrs = readAttributes(backupRoot, false);
+
+            DirectoryPairTask task = new DirectoryPairTask(currentRoot, currentAttrs, backupRoot, backupAttrs,
+                    directoryFilter.isActive(currentRoot), directoryFilter.isActive(backupRoot), null, 0);
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                TreeDiffResult result = pool.invoke(task);
+                if (deferredLinks != null) {
+                    VisitedDirectories.walkInRounds(deferredLinks, link -> link.currentDir,
+                            link -> result.merge(pool.invoke(link)));
+                }
+                if (directoryTimestamps != null) {
+                    // The timestamps only save work on the next scan, failing to write them must not fail this scan.
+                    Try.run(directoryTimestamps::write);
+                }
+                return result;
+            } finally {
+                pool.shutdown();
+            }
+        });
+        if (scanProgress != null) {
+            scanProgress.complete();
+        }
+        if (tryDiff.isSuccess()) {
+            return Either.right(tryDiff.get());
+        }
+        return Either.left(new FileAccessError("TreeDiffCollector: unable to walk files due to IO error"));
+    }
+
+    /**
+     * A single directory entry with its attributes.
+     */
+    private static class Entry {
+        private final String name;
+        private final Path path;
+        private final BasicFileAttributes attrs;
+
+        private Entry(Path path, BasicFileAttributes attrs) {
+            this.name = path.getFileName().toString();
+            this.path = path;
+            this.attrs = attrs;
+        }
+    }
+
+    /**
+     * Merge joins a directory on the current drive with its mapped directory on the backup drive. At least one side
+     * is a directory, the other side may be missing ({@code null} attributes) or a file.
+     */
+    private class DirectoryPairTask extends RecursiveTask<TreeDiffResult> {
+        private final Path currentDir;
+        private final BasicFileAttributes currentAttrs;
+        private final Path backupDir;
+        private final BasicFileAttributes backupAttrs;
+        private final boolean currentActive;
+        private final boolean backupActive;
+        private final Ancestor ancestors;
+        private final int depth;
+
+        // Written by this task only.
+        private final TreeDiffResult result = new TreeDiffResult();
+        // False when the current directory couldn't be fully listed, nothing beneath it is then deleted.
+        private boolean currentListed = true;
+        private final ModifiedFileWalkerResult modified = result.getModifiedFileWalkerResult();
+        private final DeletedFileWalkerResult deleted = result.getDeletedFileWalkerResult();
+
+        /**
+         * @param currentActive {@code true} if records for the current drive should be produced.
+         * @param backupActive {@code true} if records for the backup drive should be produced.
+         * @param depth The depth of the directory pair below the roots.
+         */
+        private DirectoryPairTask(Path currentDir, BasicFileAttributes currentAttrs,
+                                  Path backupDir, BasicFileAttributes backupAttrs,
+                                  boolean currentActive, boolean backupActive,
+                                  Ancestor ancestors, int depth) {
+            this.currentDir = currentDir;
+            this.currentAttrs = currentAttrs;
+            this.backupDir = backupDir;
+            this.backupAttrs = backupAttrs;
+            this.currentActive = currentActive && isDirectory(currentAttrs);
+            this.backupActive = backupActive && isDirectory(backupAttrs) && currentAttrs != null;
+            this.ancestors = ancestors;
+            this.depth = depth;
+        }
+
+        @Override
+        protected TreeDiffResult compute() {
+            if (!currentActive && !backupActive) {
+                return result;
+            }
+            if (currentActive && visitedDirectories != null) {
+                Optional<Path> owner = visitedDirectories.claim(currentDir, currentAttrs);
+                if (owner.isPresent()) {
+                    linkDuplicate(owner.get());
+                    return result;
+                }
+            }
+            if (currentActive && backupAttrs != null && !backupAttrs.isDirectory() && depth > 0
+                    && isSymbolicLink(backupDir)) {
+                // Copying into the link would overwrite the backup of the directory it was linked to.
+                modified.addFileError(new FileAccessError(currentDir, backupDir.toString() + " is a link to the " +
+                        "backup of another directory, " + currentDir.toString() + " could not be analysed for " +
+                        "backup until the link is removed"));
+                return result;
+            }
+
+            List<Entry> currentEntries = new ArrayList<>();
+            if (isDirectory(currentAttrs)) {
+                currentListed = list(currentDir, currentDevice, filePathInfo.isFollowSymlinks(),
+                        currentActive ? modified : deleted, currentEntries);
+                currentEntries.removeIf(entry -> CopyEngine.isTemporaryFile(entry.path));
+            }
+            List<Entry> backupEntries = new ArrayList<>();
+            List<Entry> temporaryEntries = new ArrayList<>();
+            boolean backupListed = !isDirectory(backupAttrs) || listBackup(backupDir,
+                    backupActive ? deleted : modified, currentEntries, backupEntries, temporaryEntries);
+
+            if (currentActive) {
+                modified.incrementTotalDirectoriesScanned();
+                if (backupAttrs == null) {
+                    modified.incrementTotalNewDirectories();
+                    if (currentEntries.isEmpty()) {
+                        // Empty directory, no file will be created within it to create the directory on the backup.
+                        addModified(new FileChangeRecord.Builder()
+                                .currentWorkingPath(currentDir)
+                                .backupPath(backupDir)
+                                .currentLastModified(currentAttrs.lastModifiedTime())
+                                .fileSystemAction(FileSystemAction.New)
+                                .fileType(currentFileType(currentDir, currentAttrs))
+                                .create());
+                    }
+                }
+            }
+            if (backupActive) {
+                deleted.incrementTotalDirectoriesScanned();
+            }
+            if (scanProgress != null) {
+                scanProgress.directoryScanned(depth);
+            }
+
+            Ancestor self = filePathInfo.isFollowSymlinks()
+                    ? new Ancestor(currentDir, currentAttrs.fileKey(), ancestors)
+                    : null;
+            List<DirectoryPairTask> subDirectories = new ArrayList<>();
+
+            int c = 0;
+            int b = 0;
+            int backupOnly = 0;
+            while (c < currentEntries.size() || b < backupEntries.size()) {
+                Entry current = c < currentEntries.size() ? currentEntries.get(c) : null;
+                Entry backup = b < backupEntries.size() ? backupEntries.get(b) : null;
+
+                int order;
+                if (current == null) {
+                    order = 1;
+                } else if (backup == null) {
+                    order = -1;
+                } else {
+                    order = FILE_NAME_ORDER.compare(current.name, backup.name);
+                }
+
+                if (order < 0) {
+                    join(current, null, backupDir.resolve(current.name), self, subDirectories);
+                    c++;
+                } else if (order > 0) {
+                    join(null, backup, currentDir.resolve(backup.name), self, subDirectories);
+                    b++;
+                    backupOnly++;
+                } else {
+                    join(current, backup, null, self, subDirectories);
+                    c++;
+                    b++;
+                }
+            }
+
+            sweepTemporaryFiles(temporaryEntries);
+
+            if (directoryTimestamps != null && isDirectory(backupAttrs)) {
+                if (isDirectory(currentAttrs) && currentListed && backupListed && backupOnly == 0
+                        && temporaryEntries.isEmpty()) {
+                    directoryTimestamps.record(backupDir, backupAttrs.lastModifiedTime(),
+                            currentAttrs.lastModifiedTime());
+                } else {
+                    directoryTimestamps.remove(backupDir);
+                }
+            }
+
+            for (DirectoryPairTask task : subDirectories) {
+                result.merge(task.join());
+            }
+            return result;
+        }
+
+        /**
+         * Handles a single file name from the merge join where either {@code current} or {@code backup} can be
+         * {@code null} when the name is missing from that side.
+         *
+         * @param mappedPath The path on the missing side when one side is {@code null}.
+         */
+        private void join(Entry current, Entry backup, Path mappedPath, Ancestor self,
+                          List<DirectoryPairTask> subDirectories) {
+            Path currentPath = current != null ? current.path : mappedPath;
+            Path backupPath = backup != null ? backup.path : mappedPath;
+            BasicFileAttributes cAttrs = current != null ? current.attrs : null;
+            BasicFileAttributes bAttrs = backup != null ? backup.attrs : null;
+
+            boolean currentFile = currentActive && cAttrs != null && !cAttrs.isDirectory();
+            boolean backupFile = backupActive && currentListed && bAttrs != null && !bAttrs.isDirectory();
+            if ((currentFile || backupFile) && isExcludedFile(currentPath, cAttrs, backupPath, bAttrs)) {
+                currentFile = false;
+                backupFile = false;
+            }
+            if (scanProgress != null && (currentFile || backupFile)) {
+                scanProgress.fileScanned();
+            }
+
+            if (currentFile) {
+                compareCurrentFile(currentPath, cAttrs, backupPath, bAttrs);
+            }
+
+            if (backupFile) {
+                deleted.incrementTotalFilesScanned();
+                if (cAttrs == null) {
+                    addDeleted(new FileChangeRecord.Builder()
+                            .currentWorkingPath(currentPath)
+                            .backupPath(backupPath)
+                            .backupLastModified(bAttrs.lastModifiedTime())
+                            .fileSystemAction(FileSystemAction.Delete)
+                            .fileType(backupFileType(backupPath, bAttrs))
+                            .create());
+                    deleted.incrementTotalFilesDeleted();
+                }
+            }
+
+            boolean childCurrentActive = currentActive && isDirectory(cAttrs);
+            if (childCurrentActive && self != null && Ancestor.isCycle(self, currentPath, cAttrs)) {
+                modified.addFileError(new FileAccessError(currentPath, new FileSystemLoopException(currentPath.toString())
+                        .getMessage() + ", " + currentPath + " could not be analysed for backup."));
+                childCurrentActive = false;
+            }
+            childCurrentActive = childCurrentActive && directoryFilter.isActive(currentPath)
+                    && !fileRuleMatcher.isExcludedDirectory(filePathInfo.getCurrentWorkingRootPath(), currentPath);
+            boolean childBackupActive = backupActive && currentListed && isDirectory(bAttrs)
+                    && directoryFilter.isActive(backupPath)
+                    && !fileRuleMatcher.isExcludedDirectory(filePathInfo.getBackupRootPath(), backupPath);
+
+            if (childBackupActive && cAttrs == null) {
+                // Backup directory doesn't exist on current, delete the entire directory without reading it.
+                deleted.incrementTotalDirectoriesScanned();
+                if (scanProgress != null) {
+                    scanProgress.directoryScanned(depth + 1);
+                }
+                addDeleted(new FileChangeRecord.Builder()
+                        .currentWorkingPath(currentPath)
+                        .backupPath(backupPath)
+                        .fileSystemAction(FileSystemAction.Delete)
+                        .backupLastModified(bAttrs.lastModifiedTime())
+                        .fileType(backupFileType(backupPath, bAttrs))
+                        .create());
+                deleted.incrementTotalDirectoriesDeleted();
+                return;
+            }
+
+            if (!childCurrentActive && !childBackupActive) {
+                return;
+            }
+
+            DirectoryPairTask task = new DirectoryPairTask(currentPath, cAttrs, backupPath, bAttrs,
+                    childCurrentActive, childBackupActive, self, depth + 1);
+            if (childCurrentActive && deferredLinks != null && isSymbolicLink(currentPath)) {
+                deferredLinks.add(task);
+                return;
+            }
+            task.fork();
+            subDirectories.add(task);
+        }
+
+        /**
+         * Links the backup directory to the backup of {@code owner} when nothing exists there yet. An existing backup
+         * is either the link itself or a copy made before the duplicate was detected and is left alone.
+         */
+        private void linkDuplicate(Path owner) {
+            if (backupAttrs != null) {
+                return;
+            }
+            addModified(new FileChangeRecord.Builder()
+                    .currentWorkingPath(currentDir)
+                    .backupPath(backupDir)
+                    .sourceBackupPath(filePathInfo.fromCurrentToBackupPath(owner))
+                    .currentLastModified(currentAttrs.lastModifiedTime())
+                    .fileSystemAction(FileSystemAction.Link)
+                    .fileType(currentFileType(currentDir, currentAttrs))
+                    .create());
+        }
+
+        private boolean isSymbolicLink(Path path) {
+            modified.addFileSystemCalls(1);
+            return Files.isSymbolicLink(path);
+        }
+
+        /**
+         * Judged by the current file when it exists, otherwise by the backup file about to be deleted.
+         */
+        private boolean isExcludedFile(Path currentPath, BasicFileAttributes cAttrs,
+                                       Path backupPath, BasicFileAttributes bAttrs) {
+            if (cAttrs != null && !cAttrs.isDirectory()) {
+                return fileRuleMatcher.isExcludedFile(filePathInfo.getCurrentWorkingRootPath(), currentPath, cAttrs);
+            }
+            return fileRuleMatcher.isExcludedFile(filePathInfo.getBackupRootPath(), backupPath, bAttrs);
+        }
+
+        private FileType currentFileType(Path path, BasicFileAttributes attrs) {
+            return toFileType(path, attrs, filePathInfo.isFollowSymlinks(), modified);
+        }
+
+        private FileType backupFileType(Path path, BasicFileAttributes attrs) {
+            return toFileType(path, attrs, false, deleted);
+        }
+
+        /**
+         * Deletes the siblings and checkpoints left by unfinished copies unless they belong to a file copied by this
+         * scan, which resumes or overwrites them.
+         */
+        private void sweepTemporaryFiles(List<Entry> temporaryEntries) {
+            if (temporaryEntries.isEmpty() || !backupActive || !currentListed) {
+                return;
+            }
+            Set<Path> copying = new HashSet<>();
+            for (FileChangeRecord record : modified.getFileChangeRecords()) {
+                copying.add(CopyEngine.temporarySibling(record.getBackupPath()));
+                copying.add(CopyEngine.checkpoint(record.getBackupPath()));
+            }
+            for (Entry entry : temporaryEntries) {
+                if (copying.contains(entry.path)) {
+                    continue;
+                }
+                deleted.incrementTotalFilesScanned();
+                addDeleted(new FileChangeRecord.Builder()
+                        .currentWorkingPath(currentDir.resolve(entry.name))
+                        .backupPath(entry.path)
+                        .backupLastModified(entry.attrs.lastModifiedTime())
+                        .fileSystemAction(FileSystemAction.Delete)
+                        .fileType(backupFileType(entry.path, entry.attrs))
+                        .create());
+                if (entry.attrs.isDirectory()) {
+                    deleted.incrementTotalDirectoriesDeleted();
+                } else {
+                    deleted.incrementTotalFilesDeleted();
+                }
+            }
+        }
+
+        private void addModified(FileChangeRecord record) {
+            modified.addFileChangeRecord(record);
+            if (fileChangeRecordConsumer != null) {
+                fileChangeRecordConsumer.accept(record);
+            }
+        }
+
+        private void addDeleted(FileChangeRecord record) {
+            deleted.addFileChangeRecord(record);
+            if (fileChangeRecordConsumer != null) {
+                fileChangeRecordConsumer.accept(record);
+            }
+        }
+
+        /**
+         * Compares a current file with its backup using the backup attributes from the listing.
+         */
+        private void compareCurrentFile(Path currentPath, BasicFileAttributes cAttrs,
+                                        Path backupPath, BasicFileAttributes bAttrs) {
+            modified.incrementTotalFilesScanned();
+
+            if (bAttrs == null) {
+                modified.incrementTotalNewFiles();
+                Optional<Path> owner = hardLinkTracker.claim(currentPath, cAttrs, modified);
+                addModified(new FileChangeRecord.Builder()
+                        .currentWorkingPath(currentPath)
+                        .backupPath(backupPath)
+                        .sourceBackupPath(owner.map(filePathInfo::fromCurrentToBackupPath).orElse(null))
+                        .currentLastModified(cAttrs.lastModifiedTime())
+                        .currentSize(cAttrs.size())
+                        .fileSystemAction(owner.isPresent() ? FileSystemAction.HardLink : FileSystemAction.New)
+                        .fileType(currentFileType(currentPath, cAttrs))
+                        .create());
+                return;
+            }
+
+            FileModifiedComparision modifiedComparision;
+            if (fileContentComparator != null) {
+                Try<FileModifiedComparision> tryCompare = Device.call(currentDevice, backupDevice, () ->
+                        Try.of(() -> fileContentComparator.compare(currentPath, cAttrs.size(), cAttrs.lastModifiedTime(),
+                                backupPath, bAttrs.size(), bAttrs.lastModifiedTime())));
+                if (tryCompare.isFailure()) {
+                    modified.addFileError(new FileAccessError(currentPath, tryCompare.getCause().getMessage() + ", "
+                            + currentPath + " could not be compared by content for backup"));
+                    return;
+                }
+                modifiedComparision = tryCompare.get();
+            } else {
+                modifiedComparision = FileModifiedComparision.compare(cAttrs.lastModifiedTime(), bAttrs.lastModifiedTime());
+            }
+
+            switch (modifiedComparision) {
+                case CURRENT_IS_NEWER:
+                    modified.incrementTotalFilesModified();
+                    addModified(new FileChangeRecord.Builder()
+                            .currentWorkingPath(currentPath)
+                            .backupPath(backupPath)
+                            .currentLastModified(cAttrs.lastModifiedTime())
+                            .backupLastModified(bAttrs.lastModifiedTime())
+                            .currentSize(cAttrs.size())
+                            .fileSystemAction(FileSystemAction.Modify)
+                            .fileType(currentFileType(currentPath, cAttrs))
+                            .create());
+                    break;
+                case TIMESTAMP_CHANGED:
+                    modified.incrementTotalFilesTouched();
+                    addModified(new FileChangeRecord.Builder()
+                            .currentWorkingPath(currentPath)
+                            .backupPath(backupPath)
+                            .currentLastModified(cAttrs.lastModifiedTime())
+                            .backupLastModified(bAttrs.lastModifiedTime())
+                            .fileSystemAction(FileSystemAction.Touch)
+                            .fileType(currentFileType(currentPath, cAttrs))
+                            .create());
+                    break;
+                case UNCHANGED:
+                    modified.incrementTotalFilesUnmodified();
+                    break;
+                case CURRENT_IS_OLDER:
+                    modified.addFileError(new FileAccessError("TreeDiffCollector - Current file: " + currentPath.toString()
+                            + " is older than the backup version, this path cannot be analysed for backup"));
+                    break;
+            }
+        }
+
+        /**
+         * Lists the backup directory into {@code entries} from the {@code BackupManifest} when available, or from the
+         * backup of each current entry when {@code DirectoryTimestamps} show the directory is unchanged, only falling
+         * back to reading the backup directory when neither applies. Names reserved for unfinished copies are moved
+         * into {@code temporaryEntries}.
+         *
+         * @return {@code false} if the backup directory couldn't be fully listed.
+         */
+        private boolean listBackup(Path dir, FileAnalysisResult errors, List<Entry> currentEntries,
+                                   List<Entry> entries, List<Entry> temporaryEntries) {
+            Optional<Map<Path, BasicFileAttributes>> listing = backupManifest != null
+                    ? backupManifest.list(dir)
+                    : Optional.empty();
+            boolean complete = true;
+            if (listing.isPresent()) {
+                for (Map.Entry<Path, BasicFileAttributes> entry : listing.get().entrySet()) {
+                    entries.add(new Entry(entry.getKey(), entry.getValue()));
+                }
+                entries.sort((a, b) -> FILE_NAME_ORDER.compare(a.name, b.name));
+            } else if (isUnchanged()) {
+                complete = readBackups(dir, errors, currentEntries, entries);
+            } else {
+                complete = list(dir, backupDevice, false, errors, entries);
+            }
+            // Unfinished copies are resumed or swept by the backup, they are never backups themselves.
+            entries.removeIf(entry -> CopyEngine.isTemporaryFile(entry.path) && temporaryEntries.add(entry));
+            return complete;
+        }
+
+        private boolean isUnchanged() {
+            return directoryTimestamps != null && currentListed && isDirectory(currentAttrs)
+                    && directoryTimestamps.isUnchanged(backupDir, backupAttrs.lastModifiedTime(),
+                    currentAttrs.lastModifiedTime());
+        }
+
+        /**
+         * Reads the backup of each current entry without listing {@code dir}, which holds no other names while it is
+         * unchanged. Current entries which haven't been backed up are skipped.
+         *
+         * @return {@code false} if the backup of an entry couldn't be read.
+         */
+        private boolean readBackups(Path dir, FileAnalysisResult errors, List<Entry> currentEntries,
+                                    List<Entry> entries) {
+            ioThrottle.acquire(0, currentEntries.size());
+            return backupDevice.call(() -> {
+                boolean complete = true;
+                for (Entry current : currentEntries) {
+                    Path entry = dir.resolve(current.name);
+                    if (BackupManifest.isManifestFile(filePathInfo.getBackupRootPath(), entry)) {
+                        continue;
+                    }
+                    errors.addFileSystemCalls(1);
+                    try {
+                        entries.add(new Entry(entry, readAttributes(entry, false)));
+                    } catch (NoSuchFileException e) {
+                        // New since the last backup.
+                    } catch (IOException e) {
+                        complete = false;
+                        errors.addFileError(new FileAccessError(entry, e.getMessage() + ", " + entry.toString()
+                                + " could not be analysed for backup."));
+                    }
+                }
+                return complete;
+            });
+        }
+
+        /**
+         * Reads and sorts the directory listing into {@code entries} once {@code device} has a free slot. Any errors
+         * and file system calls are added to {@code errors} which is the result of the side the listing belongs to.
+         *
+         * @return {@code false} if the directory or any entry within it couldn't be read, leaving {@code entries}
+         * incomplete.
+         */
+        private boolean list(Path dir, Device device, boolean followLinks, FileAnalysisResult errors,
+                             List<Entry> entries) {
+            ioThrottle.acquire(0, 1);
+            long[] nanos = new long[1];
+            boolean complete = device.call(() -> {
+                long started = System.nanoTime();
+                boolean read = read(dir, followLinks, errors, entries);
+                nanos[0] = System.nanoTime() - started;
+                return read;
+            });
+            ioThrottle.record(nanos[0], 0, entries.size() + 1);
+            ioThrottle.acquire(0, entries.size());
+            entries.sort((a, b) -> FILE_NAME_ORDER.compare(a.name, b.name));
+            return complete;
+        }
+
+        private boolean read(Path dir, boolean followLinks, FileAnalysisResult errors, List<Entry> entries) {
+            boolean complete = true;
+            errors.addFileSystemCalls(1);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    if (BackupManifest.isManifestFile(filePathInfo.getBackupRootPath(), entry)) {
+                        continue;
+                    }
+                    errors.addFileSystemCalls(1);
+                    try {
+                        entries.add(new Entry(entry, readAttributes(entry, followLinks)));
+                    } catch (IOException e) {
+                        complete = false;
+                        errors.addFileError(new FileAccessError(entry, e.getMessage() + ", " + entry.toString()
+                                + " could not be analysed for backup."));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                complete = false;
+                errors.addFileError(new FileAccessError(dir, e.getMessage() + ", " + dir.toString()
+                        + " could not be analysed for backup"));
+            }
+            return complete;
+        }
+    }
+
+    private static boolean isDirectory(BasicFileAttributes attrs) {
+        return attrs != null && attrs.isDirectory();
+    }
+
+    /**
+     * Reads the attributes of {@code path} the same way {@code Files.walkFileTree} does.
+     *
+     * @param path The {@code Path} to read.
+     * @param followLinks {@code true} to read the attributes of the link target.
+     * @return The {@code BasicFileAttributes}.
+     * @throws IOException If the attributes could not be read.
+     */
+    static BasicFileAttributes readAttributes(Path path, boolean followLinks) throws IOException {
+        if (followLinks) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // Broken links are visited as the link itself, same as Files.walkFileTree.
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            }
+        }
+        return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    /**
+     * @param path The path to get the {@code FileType} of.
+     * @param attrs The attributes of {@code path} read from the listing.
+     * @param followLinks {@code true} if {@code attrs} were read following symbolic links.
+     * @param result Counts the file system calls made when {@code attrs} are not enough to decide the type.
+     * @return The same {@code FileType} as {@code FileType.of(File)}.
+     */
+    static FileType toFileType(Path path, BasicFileAttributes attrs, boolean followLinks, FileAnalysisResult result) {
+        return FileType.of(attrs, followLinks).orElseGet(() -> {
+            // isFile, isSymbolicLink and isDirectory
+            result.addFileSystemCalls(3);
+            return FileType.of(path.toFile());
+        });
+    }
+
+    /**
+     * Directories on the path from the current root used for cycle detection when following links.
+     */
+    static class Ancestor {
+        private final Path dir;
+        private final Object fileKey;
+        private final Ancestor parent;
+
+        Ancestor(Path dir, Object fileKey, Ancestor parent) {
+            this.dir = dir;
+            this.fileKey = fileKey;
+            this.parent = parent;
+        }
+
+        /**
+         * @param ancestors The ancestors of {@code dir}, can be {@code null} for the current root.
+         * @param dir The directory about to be entered.
+         * @param attrs The attributes of {@code dir}.
+         * @return {@code true} if {@code dir} is the same file as one of its ancestors.
+         */
+        static boolean isCycle(Ancestor ancestors, Path dir, BasicFileAttributes attrs) {
+            Object fileKey = attrs.fileKey();
+            for (Ancestor ancestor = ancestors; ancestor != null; ancestor = ancestor.parent) {
+                if (fileKey != null && ancestor.fileKey != null) {
+                    if (Objects.equals(fileKey, ancestor.fileKey)) {
+                        return true;
+                    }
+                } else {
+                    try {
+                        if (Files.isSameFile(dir, ancestor.dir)) {
+                            return true;
+                        }
+                    } catch (IOException | SecurityException ignored) {
+                        // Same as Files.walkFileTree, assume no cycle when the files can't be compared.
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
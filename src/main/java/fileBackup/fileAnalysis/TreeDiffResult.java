@@ -0,0 +1,37 @@
+package fileBackup.fileAnalysis;
+
+/**
+ * Used by {@code TreeDiffCollector} to collect both the modified and deleted file statistics in a single pass.
+ * The statistics are kept in separate results for the current drive and backup drive sides of the scan.
+ */
+public class TreeDiffResult {
+    private ModifiedFileWalkerResult modifiedFileWalkerResult;
+    private DeletedFileWalkerResult deletedFileWalkerResult;
+
+    public TreeDiffResult() {
+        modifiedFileWalkerResult = new ModifiedFileWalkerResult();
+        deletedFileWalkerResult = new DeletedFileWalkerResult();
+    }
+
+    /**
+     * @return The New and Modify {@code FileChangeRecord}s with current working drive statistics.
+     */
+    public ModifiedFileWalkerResult getModifiedFileWalkerResult() {
+        return modifiedFileWalkerResult;
+    }
+
+    /**
+     * @return The Delete {@code FileChangeRecord}s with backup drive statistics.
+     */
+    public DeletedFileWalkerResult getDeletedFileWalkerResult() {
+        return deletedFileWalkerResult;
+    }
+
+    /**
+     * @param other The result to merge into this result.
+     */
+    public void merge(TreeDiffResult other) {
+        modifiedFileWalkerResult.merge(other.modifiedFileWalkerResult);
+        deletedFileWalkerResult.merge(other.deletedFileWalkerResult);
+    }
+}
@@ -0,0 +1,87 @@
+package fileBackup.fileAnalysis;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Tracks the physical directories visited by a walk following symbolic links so each directory is scanned once no
+ * matter how many links lead to it. The first path to claim a directory becomes its owner, any other path reaching
+ * the same directory is a duplicate which is mapped to the owner on the backup rather than copied again.
+ *
+ * <p>Directories are identified by {@code BasicFileAttributes.fileKey()}, falling back to the real path on file
+ * systems without file keys.</p>
+ *
+ * <p>Which path owns a directory must not depend on the order workers happen to run in, otherwise the owner could
+ * swap between backups and the backup would be copied and replaced by a link over and over. Walks therefore defer
+ * every linked directory they find into a queue and only claim directories reached without a link. Once the walk
+ * completes, {@link #walkInRounds(Queue, Function, Consumer)} walks the linked directories one at a time sorted by
+ * path, deferring any links found within them to the next round. The scan and the {@code DirectoryWatcher} follow the
+ * same rounds and only claim directories which are not excluded, so they agree on the owner.</p>
+ */
+public class VisitedDirectories {
+    private final Map<Object, Path> owners = new ConcurrentHashMap<>();
+
+    /**
+     * Claims {@code dir} for the current path. Safe to call from concurrent workers.
+     *
+     * @param dir The directory about to be walked.
+     * @param attrs The attributes of {@code dir} read following links.
+     * @return Empty if {@code dir} is now owned by this path, otherwise the path which already owns it.
+     */
+    public Optional<Path> claim(Path dir, BasicFileAttributes attrs) {
+        Path owner = owners.putIfAbsent(key(dir, attrs), dir);
+        return owner == null || owner.equals(dir) ? Optional.empty() : Optional.of(owner);
+    }
+
+    /**
+     * Walks the deferred links in rounds until no more are found. Each round is sorted by path and walked in order
+     * on the calling thread, {@code walk} may itself use many workers for the sub tree of each link.
+     *
+     * @param deferred The links deferred by the first walk, {@code walk} adds any further links found to it.
+     * @param path The path of a deferred link used for ordering.
+     * @param walk Claims and walks a single link.
+     * @param <T> The deferred link, holding whatever the walk needs to resume from it.
+     */
+    public static <T> void walkInRounds(Queue<T> deferred, Function<T, Path> path, Consumer<T> walk) {
+        while (!deferred.isEmpty()) {
+            List<T> round = new ArrayList<>();
+            for (T link; (link = deferred.poll()) != null; ) {
+                round.add(link);
+            }
+            round.sort(Comparator.comparing(link -> path.apply(link).toString()));
+            round.forEach(walk);
+        }
+    }
+
+    /**
+     * Only links are deferred, this is an extra file system call so should only be made when following links.
+     *
+     * @param dir A directory read following links.
+     * @return {@code true} if {@code dir} itself is a symbolic link.
+     */
+    public static boolean isLink(Path dir) {
+        return Files.isSymbolicLink(dir);
+    }
+
+    private static Object key(Path dir, BasicFileAttributes attrs) {
+        if (attrs.fileKey() != null) {
+            return attrs.fileKey();
+        }
+        try {
+            return dir.toRealPath();
+        } catch (IOException e) {
+            return dir.toAbsolutePath().normalize();
+        }
+    }
+}
@@ -4,17 +4,20 @@ import fileBackup.events.Publisher;
 import fileBackup.events.Subscriber;
 import fileBackup.fileAnalysis.FileAccessError;
 import fileBackup.fileAnalysis.FilePathInfo;
+import fileBackup.fileAnalysis.VisitedDirectories;
 import fileBackup.monitoring.pathMapping.CurrentToBackupPathMapping;
 import fileBackup.monitoring.pathMapping.PathMappingStrategy;
 import fileBackup.monitoring.persistence.FileBackupRepository;
 import fileBackup.monitoring.persistence.LogMessage;
 import fileBackup.monitoring.persistence.Repository;
 import fileBackup.monitoring.persistence.WatchedFile;
+import fileBackup.rules.FileRuleMatcher;
 import io.vavr.control.Either;
 import ui.tasks.Shutdownable;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
@@ -87,12 +90,12 @@ import static java.nio.file.StandardWatchEventKinds.*;
  *
  * <p>So for example, if 50/500 files were modified in directory C:\Users\me\Desktop\backup\stuff, all we know
  * is there there has been some activity in this directory, we don't know the actual specific files. This is
- * where the {@code ModifiedFileCollector and DeletedFileCollector} come in and find them based on looking at the
+ * where the {@code TreeDiffCollector} comes in and find them based on looking at the
  * above active paths.</p>
  *
  * <p>The database keeps the getMappedHashCode of each active path resulting in a {@code HashSet} of these hashCodes
  * representing directories that have had activity in them throughout the day.
- * During the file analysis phase, the {@code ModifiedFileCollector and DeletedFileCollector} can hashCode their current
+ * During the file analysis phase, the {@code TreeDiffCollector} can hashCode its current
  * path when in {@code preVisitDirectory} and check if its in the {@code Set} of hashCodes from the database.
  * If its not, the entire directory can be skipped otherwise scan deeper into the file system to pick up the modified files.
  * This results in significantly less work as most of the directories can be skipped. Using the existing file
@@ -109,6 +112,14 @@ import static java.nio.file.StandardWatchEventKinds.*;
  * activity which will allow the user to resume live monitoring right from where the computer turned off. Without this
  * the only option would be to run a full manual backup.</p>
  *
+ * <p>Directories excluded by the {@code FileRuleMatcher} are never registered, and events for excluded files and
+ * directories are ignored so they are never marked as active.</p>
+ *
+ * <p>When following symbolic links, each physical directory is registered once under the path which owns it as per
+ * {@code VisitedDirectories}, the same path the {@code TreeDiffCollector} scans. Activity within a directory reachable
+ * through many links is therefore recorded against the owner, and links back to a parent directory are skipped rather
+ * than failing the registration.</p>
+ *
  * <p>Before running the backup, all logs should be checked to ensure the user is warned the backup could result in
  * losing data if there exists at least 1 {@code LogMessage} at {@code Level.SEVERE}. All {@code LogMessage}s created
  * in this class therefore follow a convention where {@code Level.SEVERE} is used to signify the backup is likely to
@@ -124,13 +135,27 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
 
     private AtomicBoolean running = new AtomicBoolean(false);
     private FilePathInfo filePathInfo;
+    private FileRuleMatcher fileRuleMatcher;
+
+    // Directories registered so far when following symbolic links, kept so new directories are only registered once.
+    private VisitedDirectories visitedDirectories;
 
     /**
      * @param filePathInfo The application {@code FilePathInfo} which provides the currentWorkingRootPath which this
      *                     {@code DirectoryWatcher} will begin file walking from and registering directories to watch.
      */
     public DirectoryWatcher(FilePathInfo filePathInfo) {
+        this(filePathInfo, FileRuleMatcher.empty());
+    }
+
+    /**
+     * @param filePathInfo The application {@code FilePathInfo} which provides the currentWorkingRootPath which this
+     *                     {@code DirectoryWatcher} will begin file walking from and registering directories to watch.
+     * @param fileRuleMatcher Excluded directories are not registered and excluded paths produce no activity.
+     */
+    public DirectoryWatcher(FilePathInfo filePathInfo, FileRuleMatcher fileRuleMatcher) {
         this.filePathInfo = filePathInfo;
+        this.fileRuleMatcher = fileRuleMatcher;
     }
 
     /**
@@ -146,6 +171,7 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
         try {
             watcher = FileSystems.getDefault().newWatchService();
             keys = new HashMap<>();
+            visitedDirectories = new VisitedDirectories();
             subscribers = Collections.synchronizedList(new ArrayList<>());
             registerAll(filePathInfo.getCurrentWorkingRootPath());
             return Either.right(this);
@@ -204,14 +230,13 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
     private void registerAll(Path startDirectory) throws Exception {
         // register directory and sub-directories
         if (filePathInfo.isFollowSymlinks()) {
-            EnumSet<FileVisitOption> opts = EnumSet.of(FOLLOW_LINKS);
-            Files.walkFileTree(startDirectory, opts, Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
-                        throws IOException {
-                    WatchKey key = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
-                    keys.put(key, dir);
-                    return FileVisitResult.CONTINUE;
+            Queue<Path> deferredLinks = new ArrayDeque<>();
+            registerLinked(startDirectory, deferredLinks);
+            VisitedDirectories.walkInRounds(deferredLinks, link -> link, link -> {
+                try {
+                    registerLinked(link, deferredLinks);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
             });
         } else {
@@ -219,6 +244,9 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
                 @Override
                 public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
                         throws IOException {
+                    if (isExcludedDirectory(dir)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
                     WatchKey key = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
                     keys.put(key, dir);
                     return FileVisitResult.CONTINUE;
@@ -227,6 +255,43 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
         }
     }
 
+    /**
+     * Registers each directory from {@code startDirectory} following links, other than directories reached through
+     * a link which are added to {@code deferredLinks} for the next round.
+     */
+    private void registerLinked(Path startDirectory, Queue<Path> deferredLinks) throws IOException {
+        EnumSet<FileVisitOption> opts = EnumSet.of(FOLLOW_LINKS);
+        Files.walkFileTree(startDirectory, opts, Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                    throws IOException {
+                if (isExcludedDirectory(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (!dir.equals(startDirectory) && VisitedDirectories.isLink(dir)) {
+                    deferredLinks.add(dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (visitedDirectories.claim(dir, attrs).isPresent()) {
+                    // Already registered through the path which owns it.
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                keys.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                if (exc instanceof FileSystemLoopException) {
+                    // The parent directory the link leads back to is already registered.
+                    return FileVisitResult.CONTINUE;
+                }
+                return super.visitFileFailed(file, exc);
+            }
+        });
+    }
+
     @Override
     public void run() {
         running.set(true);
@@ -275,6 +340,9 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
                  */
                 Path fileName = ev.context();
                 Path child = dir.resolve(fileName);
+                if (isExcluded(child, eventKind)) {
+                    continue;
+                }
                 processEvent(child, eventKind);
 
                 // if directory is created, register it and its sub-directories
@@ -327,6 +395,35 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
         }
     }
 
+    private boolean isExcludedDirectory(Path dir) {
+        return fileRuleMatcher.isExcludedDirectory(filePathInfo.getCurrentWorkingRootPath(), dir);
+    }
+
+    /**
+     * A deleted path can't be read so only the exclude patterns applying to both files and directories are checked.
+     *
+     * @param path The full {@code Path} of the event.
+     * @return {@code true} if the event should be ignored.
+     */
+    private boolean isExcluded(Path path, WatchEvent.Kind<?> eventKind) {
+        if (fileRuleMatcher.isEmpty()) {
+            return false;
+        }
+        Path root = filePathInfo.getCurrentWorkingRootPath();
+        if (eventKind == ENTRY_DELETE) {
+            return fileRuleMatcher.isExcludedPath(root, path);
+        }
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return attrs.isDirectory()
+                    ? fileRuleMatcher.isExcludedDirectory(root, path)
+                    : fileRuleMatcher.isExcludedFile(root, path, attrs);
+        } catch (IOException e) {
+            // Already deleted again, only patterns can be checked.
+            return fileRuleMatcher.isExcludedPath(root, path);
+        }
+    }
+
     /**
      * Persist and log.
      *
@@ -349,8 +446,8 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
 
         /*
          * Get all the possible paths from the event path trailing back up to the project root to ensure
-         * AbstractFileCollectors can scan the file system all the way down to the active directory.
-         * CurrentToBackupPathMapping ensures the corresponding mirrored backup path is created for the DeletedFileCollector.
+         * TreeDiffCollector can scan the file system all the way down to the active directory.
+         * CurrentToBackupPathMapping ensures the corresponding mirrored backup path is created for the backup side of the scan.
          *
          * Path deletion needs to be handled differently because the file or directory no longer exists on the file system!
          * This means the path cannot be determined if its a file or directory since both return false.
@@ -358,7 +455,7 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
          * Files.isDirectory(path)   = false
          * Files.isRegularFile(path) = false
          *
-         * Since all information is lost, the only way we can tell the DeletedFileCollector to remove the contents
+         * Since all information is lost, the only way we can tell the TreeDiffCollector to remove the contents
          * at the given Path is to keep the full path and not perform any mapping through pathMappingStrategy.map(path).
          * pathMappingStrategy.map(path) relies upon Files.isDirectory to work correctly but in the delete case we know
          * it doesn't actually tell us if the path is a directory.
@@ -366,8 +463,8 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
          * If ENTRY_DELETE wasn't checked for this example highlights the issue.
          * 1. Delete path = C:\Users\me\Desktop\project\stuff
          * 2. pathMappingStrategy.map(path) => will return parent C:\Users\me\Desktop\project
-         * 3. DeletedFileCollector will see C:\Users\me\Desktop\project as active, but when it goes deeper it will skip
-         *    C:\Users\me\Desktop\project\stuff since it was not marked active which never gives the DeletedFileCollector
+         * 3. TreeDiffCollector will see C:\Users\me\Desktop\project as active, but when it goes deeper it will skip
+         *    C:\Users\me\Desktop\project\stuff since it was not marked active which never gives the TreeDiffCollector
          *    a chance to actually compare this file to see if it exists on the current drive.
          */
         Path actualPath = eventKind == ENTRY_DELETE ? path : pathMappingStrategy.map(path);
@@ -375,7 +472,7 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
 
         /*
          * But if this path is a directory, we need to add all the new sub directories as being active, otherwise the
-         * AbstractFileCollectors wont pick these up as being active and therefore will skip the subtree...
+         * TreeDiffCollector wont pick these up as being active and therefore will skip the subtree...
          * The result can be added to the existing set of paths. Since a set is used, duplicates are gone for free as
          * there will be 2 copies of the path argument to this method which is fine. WatchedFile implements equals
          * and hashCode based on the path strings hashCode.
@@ -436,6 +533,9 @@ public class DirectoryWatcher implements Runnable, Publisher<LogMessage>, Shutdo
         @Override
         public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
             super.preVisitDirectory(dir, attrs);
+            if (isExcludedDirectory(dir)) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
             directories.add(dir);
             return FileVisitResult.CONTINUE;
         }
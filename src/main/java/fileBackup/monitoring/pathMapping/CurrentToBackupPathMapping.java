@@ -12,15 +12,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * For both {@code ModifiedFileCollector} and {@code DeletedFileCollector} to work correctly, both current and
- * backup paths need to be marked as active.
+ * For {@code TreeDiffCollector} to scan both drives correctly, both current and backup paths need to be marked as
+ * active.
  *
  * <p>For example, when the {@code WatchService} receives a new event for path "C:\Users\me\Desktop\project\important",
- * the backup path needs to be created for "F:\project\important" to allow the {@code DeletedFileCollector} to run.
- * Without saving the backup path, since {@code DeletedFileCollector} reads from the backup drive and looks back
- * at the current working path, no directories are scanned since its looking up to see if
+ * the backup path needs to be created for "F:\project\important" to allow deleted files to be found.
+ * Without saving the backup path, since deleted files are found by reading the backup drive and looking back
+ * at the current working path, no backup directories are scanned since its looking up to see if
  * "F:\project\important" is in the {@code Set} of active directory hashCodes but only the current drive paths
- * were saved which means only the {@code ModifiedFileCollector} is run.</p>
+ * were saved which means only new and modified files are found.</p>
  */
 public class CurrentToBackupPathMapping {
     private List<WatchedFile> mappedFiles;
@@ -14,10 +14,10 @@ import java.util.function.Predicate;
  * the {@code String} representation for persistence and {@code getMappedHashCode} for querying.</p>
  *
  * <p>The main motivation to centralise this is for isolated testing and to reduce the chance of subtle bugs. Any
- * class that needs to use a {@code Path} goes through these static methods such as {@code AbstractFileCollector}s
+ * class that needs to use a {@code Path} goes through these static methods such as {@code TreeDiffCollector}
  * and {@code DirectoryWatcher}.</p>
  *
- * <p>Unmapped versions are provided as for example {@code MonitoredDirectoryFilter} used by {@code ModifiedFileCollector}
+ * <p>Unmapped versions are provided as for example {@code MonitoredDirectoryFilter} used by {@code TreeDiffCollector}
  * only cares about an unmapped path and seeing if its in the {@code Set} of active directory hashCodes. Therefore
  * no mapping to parent directories needs to be done, however a central place to ensure the hashCode is correctly
  * calculated is needed as its easy to use the {@code Path} hashCode which is different from using the {@code Path}s
@@ -0,0 +1,51 @@
+package fileBackup.rules;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+
+/**
+ * A single include or exclude rule configured in the {@code BackupOptions} of a {@code TaskSetting}. Rules are only
+ * used once compiled into a {@code FileRuleMatcher}.
+ */
+@JsonAutoDetect(
+        fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE,
+        setterVisibility = JsonAutoDetect.Visibility.NONE
+)
+public class FileRule {
+    private FileRuleAction action;
+    private FileRuleType type;
+    private String value;
+
+    public FileRule(FileRuleAction action, FileRuleType type, String value) {
+        this.action = action;
+        this.type = type;
+        this.value = value;
+    }
+
+    public FileRule() {}
+
+    public static FileRule exclude(FileRuleType type, String value) {
+        return new FileRule(FileRuleAction.Exclude, type, value);
+    }
+
+    public static FileRule include(FileRuleType type, String value) {
+        return new FileRule(FileRuleAction.Include, type, value);
+    }
+
+    public FileRuleAction getAction() {
+        return action;
+    }
+
+    public FileRuleType getType() {
+        return type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return action + " " + type + " " + value;
+    }
+}
@@ -0,0 +1,26 @@
+package fileBackup.rules;
+
+/**
+ * Whether a {@code FileRule} selects the paths to back up or the paths to leave out.
+ */
+public enum FileRuleAction {
+    /**
+     * When at least one include rule exists, only files matching an include rule are backed up.
+     */
+    Include("Include"),
+
+    /**
+     * Files and directories matching an exclude rule are never scanned, watched or backed up.
+     */
+    Exclude("Exclude");
+
+    private String description;
+
+    FileRuleAction(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,352 @@
+package fileBackup.rules;
+
+import io.vavr.control.Either;
+import io.vavr.control.Try;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code FileRule}s of a {@code TaskSetting} compiled into a single matcher consulted for every entry visited by
+ * the file collectors and the {@code DirectoryWatcher}.
+ *
+ * <p>Rules are grouped by how cheaply they can be checked rather than checked one by one.</p>
+ *
+ * <table border=1 cellpadding=5 summary="">
+ *     <tr><th>Rule</th><th>Compiled into</th></tr>
+ *     <tr><td>Glob of a literal name such as node_modules</td><td>{@code HashSet} of names</td></tr>
+ *     <tr><td>Glob of an extension such as *.tmp</td><td>{@code HashSet} of extensions</td></tr>
+ *     <tr><td>Any other glob without '/'</td><td>A single alternation {@code Pattern} matching the file name</td></tr>
+ *     <tr><td>Glob with '/' and Regex</td><td>A single alternation {@code Pattern} matching the relative path, only
+ *     built for entries when such a rule exists</td></tr>
+ *     <tr><td>LargerThan, OlderThan and NewerThan</td><td>A single threshold each, the most restrictive rule
+ *     wins</td></tr>
+ * </table>
+ *
+ * <p>Excluded directories are pruned so nothing beneath them is scanned or watched. Excluded files are left alone on
+ * both drives, they are neither copied to the backup nor deleted from it. Age rules are measured from the time the
+ * rules were compiled so every file in a scan is judged against the same cutoff.</p>
+ *
+ * <p>On windows names and paths are matched ignoring case to agree with the file system.</p>
+ */
+public class FileRuleMatcher {
+    private static final boolean IGNORE_CASE = File.separatorChar == '\\';
+    private static final FileRuleMatcher EMPTY = new FileRuleMatcher();
+
+    // Applies to both files and directories.
+    private final PatternSet exclude = new PatternSet();
+    // Globs ending in '/'.
+    private final PatternSet excludeDirectories = new PatternSet();
+    // Applies to files only.
+    private final PatternSet include = new PatternSet();
+
+    private long largerThan = Long.MAX_VALUE;
+    private long olderThanCutoffMillis = Long.MIN_VALUE;
+    private long newerThanCutoffMillis = Long.MAX_VALUE;
+
+    private boolean empty = true;
+    private boolean hasIncludes;
+    private boolean needsRelativePath;
+
+    private FileRuleMatcher() {}
+
+    /**
+     * @return A matcher which excludes nothing, used when a {@code TaskSetting} has no rules.
+     */
+    public static FileRuleMatcher empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param rules The rules to compile, may be {@code null}.
+     * @return The {@code Either} where left is the reason the first invalid rule could not be compiled, otherwise
+     * right contains the {@code FileRuleMatcher}.
+     */
+    public static Either<String, FileRuleMatcher> compile(List<FileRule> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return Either.right(EMPTY);
+        }
+        return Try.of(() -> {
+            FileRuleMatcher matcher = new FileRuleMatcher();
+            long now = System.currentTimeMillis();
+            for (FileRule rule : rules) {
+                matcher.add(rule, now);
+            }
+            matcher.exclude.compile();
+            matcher.excludeDirectories.compile();
+            matcher.include.compile();
+            matcher.needsRelativePath = matcher.exclude.hasPathPatterns()
+                    || matcher.excludeDirectories.hasPathPatterns() || matcher.include.hasPathPatterns();
+            return matcher;
+        }).toEither().mapLeft(Throwable::getMessage);
+    }
+
+    private void add(FileRule rule, long now) {
+        if (rule == null || rule.getAction() == null || rule.getType() == null || rule.getValue() == null
+                || rule.getValue().trim().isEmpty()) {
+            throw new IllegalArgumentException("Rule " + rule + " must have an action, type and value");
+        }
+        if (rule.getAction() == FileRuleAction.Include && !rule.getType().isPattern()) {
+            throw new IllegalArgumentException("Rule " + rule + " is invalid, only Glob and Regex rules can include");
+        }
+        String value = rule.getValue().trim();
+        empty = false;
+
+        Try<Void> tryAdd = Try.run(() -> {
+            switch (rule.getType()) {
+                case Glob:
+                    boolean directoriesOnly = value.endsWith("/");
+                    String glob = directoriesOnly ? value.substring(0, value.length() - 1) : value;
+                    if (rule.getAction() == FileRuleAction.Include) {
+                        include.addGlob(glob);
+                        hasIncludes = true;
+                    } else {
+                        (directoriesOnly ? excludeDirectories : exclude).addGlob(glob);
+                    }
+                    break;
+                case Regex:
+                    Pattern.compile(value);
+                    if (rule.getAction() == FileRuleAction.Include) {
+                        include.addPathRegex(value);
+                        hasIncludes = true;
+                    } else {
+                        exclude.addPathRegex(value);
+                    }
+                    break;
+                case LargerThan:
+                    largerThan = Math.min(largerThan, Long.parseLong(value));
+                    break;
+                case OlderThan:
+                    olderThanCutoffMillis = Math.max(olderThanCutoffMillis, now - Duration.parse(value).toMillis());
+                    break;
+                case NewerThan:
+                    newerThanCutoffMillis = Math.min(newerThanCutoffMillis, now - Duration.parse(value).toMillis());
+                    break;
+            }
+        });
+        if (tryAdd.isFailure()) {
+            throw new IllegalArgumentException("Rule " + rule + " is invalid, " + tryAdd.getCause().getMessage());
+        }
+    }
+
+    /**
+     * @return {@code true} if no rules were compiled and nothing is ever excluded.
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @param root The root being scanned or watched which {@code dir} is beneath.
+     * @param dir The directory to check.
+     * @return {@code true} if {@code dir} and everything beneath it must be skipped. The root itself is never
+     * excluded.
+     */
+    public boolean isExcludedDirectory(Path root, Path dir) {
+        if (empty || dir.getNameCount() <= root.getNameCount()) {
+            return false;
+        }
+        String name = name(dir);
+        String relativePath = relativePath(root, dir);
+        return exclude.matches(name, relativePath) || excludeDirectories.matches(name, relativePath);
+    }
+
+    /**
+     * @param root The root being scanned or watched which {@code file} is beneath.
+     * @param file The file to check.
+     * @param attrs The attributes of {@code file} or {@code null} to only check patterns.
+     * @return {@code true} if {@code file} must not be backed up or deleted from the backup.
+     */
+    public boolean isExcludedFile(Path root, Path file, BasicFileAttributes attrs) {
+        if (empty) {
+            return false;
+        }
+        if (attrs != null) {
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            if (attrs.size() > largerThan || lastModified < olderThanCutoffMillis
+                    || lastModified > newerThanCutoffMillis) {
+                return true;
+            }
+        }
+        String name = name(file);
+        String relativePath = relativePath(root, file);
+        return exclude.matches(name, relativePath) || (hasIncludes && !include.matches(name, relativePath));
+    }
+
+    /**
+     * Used when it is unknown whether {@code path} was a file or directory such as after it has been deleted. Only
+     * exclude patterns applying to both files and directories are checked, so a path is never wrongly ignored.
+     *
+     * @param root The root being watched which {@code path} is beneath.
+     * @param path The path to check.
+     * @return {@code true} if {@code path} is excluded whether it was a file or directory.
+     */
+    public boolean isExcludedPath(Path root, Path path) {
+        if (empty || path.getNameCount() <= root.getNameCount()) {
+            return false;
+        }
+        return exclude.matches(name(path), relativePath(root, path));
+    }
+
+    private static String name(Path path) {
+        String name = path.getFileName().toString();
+        return IGNORE_CASE ? name.toLowerCase(Locale.ROOT) : name;
+    }
+
+    /**
+     * @return The path of {@code path} relative to {@code root} using '/' separators, or {@code null} if no rule
+     * matches relative paths.
+     */
+    private String relativePath(Path root, Path path) {
+        if (!needsRelativePath) {
+            return null;
+        }
+        String relativePath = path.startsWith(root) ? root.relativize(path).toString() : path.toString();
+        return File.separatorChar == '/' ? relativePath : relativePath.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * The patterns of a single action grouped by how cheaply they can be matched.
+     */
+    private static class PatternSet {
+        private final Set<String> names = new HashSet<>();
+        private final Set<String> extensions = new HashSet<>();
+        private final List<String> nameRegexes = new ArrayList<>();
+        private final List<String> pathRegexes = new ArrayList<>();
+
+        private Pattern namePattern;
+        private Pattern pathPattern;
+
+        private void addGlob(String glob) {
+            if (glob.startsWith("/")) {
+                // Anchored to the root.
+                pathRegexes.add(globToRegex(glob.substring(1)));
+            } else if (glob.indexOf('/') >= 0) {
+                pathRegexes.add(globToRegex(glob));
+            } else if (!hasGlobCharacters(glob)) {
+                names.add(IGNORE_CASE ? glob.toLowerCase(Locale.ROOT) : glob);
+            } else if (glob.startsWith("*.") && glob.indexOf('.', 2) < 0 && !hasGlobCharacters(glob.substring(2))) {
+                extensions.add(IGNORE_CASE ? glob.substring(1).toLowerCase(Locale.ROOT) : glob.substring(1));
+            } else {
+                nameRegexes.add(globToRegex(glob));
+            }
+        }
+
+        private void addPathRegex(String regex) {
+            pathRegexes.add(regex);
+        }
+
+        private void compile() {
+            namePattern = alternation(nameRegexes);
+            pathPattern = alternation(pathRegexes);
+        }
+
+        private boolean hasPathPatterns() {
+            return pathPattern != null;
+        }
+
+        private boolean matches(String name, String relativePath) {
+            if (names.contains(name)) {
+                return true;
+            }
+            if (!extensions.isEmpty()) {
+                int dot = name.lastIndexOf('.');
+                if (dot >= 0 && extensions.contains(name.substring(dot))) {
+                    return true;
+                }
+            }
+            if (namePattern != null && namePattern.matcher(name).matches()) {
+                return true;
+            }
+            return pathPattern != null && pathPattern.matcher(relativePath).matches();
+        }
+
+        private static Pattern alternation(List<String> regexes) {
+            if (regexes.isEmpty()) {
+                return null;
+            }
+            String regex = regexes.stream().map(r -> "(?:" + r + ")").collect(Collectors.joining("|"));
+            return Pattern.compile(regex, IGNORE_CASE ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+        }
+    }
+
+    private static boolean hasGlobCharacters(String glob) {
+        for (int i = 0; i < glob.length(); i++) {
+            if ("*?[{".indexOf(glob.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts a glob into a regex with the same syntax as {@code FileSystem.getPathMatcher}, where '*' and '?' don't
+     * cross directory boundaries and '**' does. A '**&#47;' matches zero or more directories.
+     */
+    static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int groups = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        i++;
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                            i++;
+                            regex.append("(?:.*/)?");
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '{':
+                    groups++;
+                    regex.append("(?:");
+                    break;
+                case '}':
+                    if (groups == 0) {
+                        throw new IllegalArgumentException("unmatched '}' in " + glob);
+                    }
+                    groups--;
+                    regex.append(')');
+                    break;
+                case ',':
+                    regex.append(groups > 0 ? "|" : ",");
+                    break;
+                case '[':
+                    int end = glob.indexOf(']', i + 1);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("unmatched '[' in " + glob);
+                    }
+                    String range = glob.substring(i + 1, end);
+                    regex.append('[').append(range.startsWith("!") ? "^" + range.substring(1) : range).append(']');
+                    i = end;
+                    break;
+                default:
+                    if ("\\.^$+()|]".indexOf(c) >= 0) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+            }
+        }
+        if (groups > 0) {
+            throw new IllegalArgumentException("unmatched '{' in " + glob);
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package fileBackup.rules;
+
+/**
+ * How the value of a {@code FileRule} is matched.
+ *
+ * <table border=1 cellpadding=5 summary="">
+ *     <tr><th>Type</th><th>Value</th><th>Matches</th></tr>
+ *     <tr><td>Glob</td><td>node_modules/, *.tmp, build/**</td><td>The file name when the glob has no '/', otherwise
+ *     the path relative to the root. A trailing '/' only matches directories.</td></tr>
+ *     <tr><td>Regex</td><td>logs/.+\.log\.[0-9]+</td><td>The whole path relative to the root using '/'
+ *     separators.</td></tr>
+ *     <tr><td>LargerThan</td><td>Bytes, 1073741824</td><td>Files larger than the value.</td></tr>
+ *     <tr><td>OlderThan</td><td>ISO-8601 duration, P365D</td><td>Files last modified longer ago than the value.</td></tr>
+ *     <tr><td>NewerThan</td><td>ISO-8601 duration, PT10M</td><td>Files last modified more recently than the
+ *     value.</td></tr>
+ * </table>
+ *
+ * <p>Size and age rules only apply to files and can only exclude.</p>
+ */
+public enum FileRuleType {
+    Glob("Glob"),
+    Regex("Regex"),
+    LargerThan("Larger than"),
+    OlderThan("Older than"),
+    NewerThan("Newer than");
+
+    private String description;
+
+    FileRuleType(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return {@code true} if the rule matches paths rather than file attributes.
+     */
+    public boolean isPattern() {
+        return this == Glob || this == Regex;
+    }
+}
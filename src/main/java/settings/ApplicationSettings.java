@@ -18,6 +18,18 @@ public class ApplicationSettings {
         return Paths.get(System.getProperty("user.home"), ".filebackup", "db", "filebackup");
     }
 
+    public static Path getDirectoryTimestampsPath() {
+        return Paths.get(System.getProperty("user.home"), ".filebackup", "directory-timestamps");
+    }
+
+    public static Path getHashCachePath() {
+        return Paths.get(System.getProperty("user.home"), ".filebackup", "hash-cache");
+    }
+
+    public static Path getResultJournalDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".filebackup", "results");
+    }
+
     public static Path getHibernateLogPath() {
         return Paths.get(System.getProperty("user.home"), ".filebackup", "hibernate.log");
     }
@@ -0,0 +1,168 @@
+package settings;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import fileBackup.backupExecution.ExecutionLanes;
+import fileBackup.copying.CopyBenchmark;
+import fileBackup.copying.CopyEngine;
+import fileBackup.copying.CopyStrategy;
+import fileBackup.devices.IoThrottle;
+import fileBackup.fileAnalysis.ChangeDetection;
+import fileBackup.fileAnalysis.FilePathInfo;
+import fileBackup.rules.FileRule;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Optional tuning of how a {@code TaskSetting} is scanned and backed up. Every option has a default so existing
+ * backup-tasks.json files without options behave exactly as before.
+ */
+@JsonAutoDetect(
+        fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE,
+        setterVisibility = JsonAutoDetect.Visibility.NONE
+)
+public class BackupOptions {
+    private ChangeDetection changeDetection = ChangeDetection.Timestamp;
+
+    // Back up files while scanning without reviewing the scan results first, see StreamingBackupExecutor.
+    private boolean streaming = false;
+    private int streamingQueueCapacity = 1024;
+
+    // Records backed up at once, 0 uses one worker per processor. Always limited by the concurrency of each Device.
+    private int copyParallelism = 0;
+
+    // Files of at least largeFileThreshold bytes are copied by at most largeFileWorkers, see ExecutionLanes.
+    private long largeFileThreshold = ExecutionLanes.DEFAULT_LARGE_FILE_THRESHOLD;
+    private int largeFileWorkers = ExecutionLanes.DEFAULT_LARGE_FILE_WORKERS;
+    private boolean shortestJobFirst = true;
+
+    // How CopyEngine copies file data, null uses TransferTo or the fastest found by CopyBenchmark when enabled.
+    private CopyStrategy copyStrategy;
+
+    // Time each strategy copying from the current drive to the backup drive before the backup starts.
+    private boolean benchmarkCopyStrategy = false;
+
+    // Modified files of at least this many bytes only have their changed blocks written, see DeltaCopier. 0 disables,
+    // the default, since an update interrupted part way leaves neither the old nor the new backup.
+    private long deltaThreshold = 0;
+
+    // Files of at least this many bytes are copied in checkpointed chunks which resume after a failure, 0 disables.
+    private long resumableThreshold = CopyEngine.DEFAULT_RESUMABLE_THRESHOLD;
+
+    // Bytes copied per second, 0 is unlimited. Shared by every worker of the backup, see IoThrottle.
+    private long bandwidthLimit = 0;
+
+    // Directory listings, file reads and writes per second, 0 is unlimited.
+    private long iopsLimit = 0;
+
+    // Back off from the limits, or from full speed without them, while the machine is busy.
+    private boolean adaptiveThrottling = false;
+
+    // Include and exclude rules compiled into a FileRuleMatcher before scanning or watching.
+    private List<FileRule> rules;
+
+    // Move files and directories on the backup which were moved on the current drive rather than copying and
+    // deleting them, see MoveDetector. Off unless enabled since it changes which records a scan returns.
+    private boolean detectMoves = false;
+
+    public BackupOptions() {}
+
+    /**
+     * @return The options used by manual configuration and tasks without options.
+     */
+    public static BackupOptions defaults() {
+        return new BackupOptions();
+    }
+
+    public ChangeDetection getChangeDetection() {
+        return changeDetection != null ? changeDetection : ChangeDetection.Timestamp;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public int getStreamingQueueCapacity() {
+        return streamingQueueCapacity;
+    }
+
+    public boolean isDetectMoves() {
+        return detectMoves;
+    }
+
+    /**
+     * @return The maximum number of records backed up at once.
+     */
+    public int getCopyParallelism() {
+        return copyParallelism > 0 ? copyParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return The lanes {@code BackupExecutor} schedules copies with.
+     */
+    public ExecutionLanes getExecutionLanes() {
+        return new ExecutionLanes.Builder(getCopyParallelism())
+                .largeFileThreshold(largeFileThreshold)
+                .largeFileWorkers(largeFileWorkers)
+                .shortestJobFirst(shortestJobFirst)
+                .create();
+    }
+
+    /**
+     * @return The strategy chosen by the user, or empty when it is left to {@link #chooseCopyStrategy(FilePathInfo)}.
+     */
+    public Optional<CopyStrategy> getCopyStrategy() {
+        return Optional.ofNullable(copyStrategy);
+    }
+
+    /**
+     * Runs {@code CopyBenchmark} between the current and backup drives when enabled, so must be called before the
+     * backup starts rather than by the copies themselves.
+     *
+     * @param filePathInfo The current and backup roots.
+     * @return The strategy used for every copy of the backup.
+     */
+    public CopyStrategy chooseCopyStrategy(FilePathInfo filePathInfo) {
+        if (copyStrategy != null) {
+            return copyStrategy;
+        }
+        return benchmarkCopyStrategy
+                ? CopyBenchmark.fastest(filePathInfo.getCurrentWorkingRootPath(), filePathInfo.getBackupRootPath())
+                : CopyStrategy.TransferTo;
+    }
+
+    /**
+     * Chooses the copy strategy, see {@link #chooseCopyStrategy(FilePathInfo)}, so must be called before the backup
+     * starts.
+     *
+     * @param filePathInfo The current and backup roots.
+     * @param ioThrottle The throttle shared by the scan and copies of the backup.
+     * @return A new {@code CopyEngine} with the copy settings of a single backup.
+     */
+    public CopyEngine getCopyEngine(FilePathInfo filePathInfo, IoThrottle ioThrottle) {
+        return new CopyEngine.Builder()
+                .strategy(chooseCopyStrategy(filePathInfo))
+                .deltaThreshold(deltaThreshold)
+                .resumableThreshold(resumableThreshold)
+                .throttle(ioThrottle)
+                .create();
+    }
+
+    /**
+     * @return A new {@code IoThrottle} of the bandwidth and IOPS limits, to be shared by the scan and copies of a
+     * single backup.
+     */
+    public IoThrottle getIoThrottle() {
+        return new IoThrottle.Builder()
+                .bytesPerSecond(bandwidthLimit)
+                .operationsPerSecond(iopsLimit)
+                .adaptive(adaptiveThrottling)
+                .create();
+    }
+
+    public List<FileRule> getRules() {
+        return rules != null ? rules : Collections.emptyList();
+    }
+}
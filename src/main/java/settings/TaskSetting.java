@@ -22,6 +22,9 @@ public class TaskSetting {
     private String backupDirectory;
     private boolean followSymlinks;
 
+    // Optional, missing from task settings created before options existed.
+    private BackupOptions options;
+
     public TaskSetting(String description, String currentWorkingDirectory, String backupDirectory, boolean followSymlinks) {
         this.description = description;
         this.currentWorkingDirectory = currentWorkingDirectory;
@@ -47,6 +50,10 @@ public class TaskSetting {
         return followSymlinks;
     }
 
+    public BackupOptions getBackupOptions() {
+        return options != null ? options : BackupOptions.defaults();
+    }
+
     public Either<String, FilePathInfo> status() {
         return FilePathInfo.of(getCurrentWorkingDirectoryPath(), getBackupDirectoryPath(), followSymlinks, new FileValidator());
     }
@@ -32,8 +32,12 @@ public class TableCellFactory {
         Function<FileChangeRecord, CssStyleString> styleMapper = record -> {
             switch (record.getFileSystemAction()) {
                 case New:
+                case Link:
+                case HardLink:
                     return styles.get(0);
                 case Modify:
+                case Touch:
+                case Move:
                     return styles.get(1);
                 case Delete:
                     return styles.get(2);
@@ -94,8 +98,12 @@ public class TableCellFactory {
         Function<BackupOperation, CssStyleString> styleMapper = operation -> {
             switch (operation.getFileChangeRecord().getFileSystemAction()) {
                 case New:
+                case Link:
+                case HardLink:
                     return styles.get(0);
                 case Modify:
+                case Touch:
+                case Move:
                     return styles.get(1);
                 case Delete:
                     return styles.get(2);
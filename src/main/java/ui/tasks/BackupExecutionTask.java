@@ -5,8 +5,16 @@ import fileBackup.backupExecution.completed.CompletedDeletionBackup;
 import fileBackup.backupExecution.completed.CompletedModifiedFilesBackup;
 import fileBackup.backupExecution.pending.PendingDeletedRecords;
 import fileBackup.backupExecution.pending.PendingModifiedRecords;
+import fileBackup.copying.CopyEngine;
+import fileBackup.devices.Device;
+import fileBackup.devices.DeviceScheduler;
+import fileBackup.fileAnalysis.BackupManifest;
+import fileBackup.fileAnalysis.FilePathInfo;
+import io.vavr.control.Try;
 import javafx.concurrent.Task;
+import settings.BackupOptions;
 
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 
@@ -19,14 +27,31 @@ import java.util.concurrent.ExecutorService;
  * feels like it should be done sequentially to prevent possible random bugs for accessing the same file system at
  * the same time.</p>
  *
+ * <p>Modified records are backed up by up to {@code BackupOptions.getCopyParallelism()} workers, limited by the
+ * concurrency of each {@code Device} and split into small and large file lanes by {@code ExecutionLanes}.</p>
+ *
+ * <p>Each completed {@code BackupOperation} is appended to a {@code ResultJournal} rather than held in memory, only
+ * the failures and counts are returned in memory.</p>
+ *
+ * <p>The {@code BackupManifest} is removed from the backup root before any changes are made and only written back
+ * once the backup completes, so a backup that fails part way through results in the next scan reading the backup
+ * drive in full.</p>
+ *
  * Created by matt on 08-Jul-17.
  */
 public class BackupExecutionTask extends Task<BackupExecutionResult> {
 
+    private FilePathInfo filePathInfo;
+    private BackupOptions backupOptions;
     private PendingModifiedRecords pendingModifiedRecords;
     private PendingDeletedRecords pendingDeletedRecords;
 
-    public BackupExecutionTask(PendingModifiedRecords pendingModifiedRecords, PendingDeletedRecords pendingDeletedRecords) {
+    public BackupExecutionTask(FilePathInfo filePathInfo,
+                               BackupOptions backupOptions,
+                               PendingModifiedRecords pendingModifiedRecords,
+                               PendingDeletedRecords pendingDeletedRecords) {
+        this.filePathInfo = filePathInfo;
+        this.backupOptions = backupOptions;
         this.pendingModifiedRecords = pendingModifiedRecords;
         this.pendingDeletedRecords = pendingDeletedRecords;
     }
@@ -35,24 +60,55 @@ public class BackupExecutionTask extends Task<BackupExecutionResult> {
     protected BackupExecutionResult call() throws Exception {
         ExecutorService executorService = FileBackupExecutorService.getInstance().get();
 
-        return CompletableFuture.supplyAsync(() -> BackupExecutor.backupModifiedFiles(pendingModifiedRecords), executorService)
-                .thenComposeAsync(modifiedBackupOperations -> applyDeleteAndCombine(modifiedBackupOperations, pendingDeletedRecords), executorService)
+        Optional<BackupManifest> backupManifest = BackupManifest.load(filePathInfo);
+        BackupManifest.invalidate(filePathInfo.getBackupRootPath());
+
+        CopyEngine copyEngine = backupOptions.getCopyEngine(filePathInfo, backupOptions.getIoThrottle());
+
+        DeviceScheduler deviceScheduler = DeviceScheduler.getInstance();
+        Device currentDevice = deviceScheduler.getDevice(filePathInfo.getCurrentWorkingRootPath());
+        Device backupDevice = deviceScheduler.getDevice(filePathInfo.getBackupRootPath());
+
+        return CompletableFuture.supplyAsync(() ->
+                        backupModifiedFiles(currentDevice, backupDevice, copyEngine), executorService)
+                .thenComposeAsync(modifiedBackupOperations -> applyDeleteAndCombine(modifiedBackupOperations, pendingDeletedRecords, backupDevice), executorService)
+                .thenApply(backupExecutionResult -> {
+                    BackupManifest.update(filePathInfo.getBackupRootPath(), backupManifest, backupExecutionResult);
+                    return backupExecutionResult;
+                })
                 .exceptionally(this::onException)
                 .get();
     }
 
+    /**
+     * Streams the results to a new {@code ResultJournal}, only keeping them all in memory if it can't be created.
+     */
+    private CompletedModifiedFilesBackup backupModifiedFiles(Device currentDevice, Device backupDevice,
+                                                             CopyEngine copyEngine) {
+        Optional<ResultJournal> journal = Try.of(ResultJournal::create).toJavaOptional();
+        if (journal.isPresent()) {
+            return BackupExecutor.backupModifiedFiles(pendingModifiedRecords, currentDevice, backupDevice,
+                    backupOptions.getExecutionLanes(), copyEngine, journal.get());
+        }
+        return BackupExecutor.backupModifiedFiles(pendingModifiedRecords, currentDevice, backupDevice,
+                backupOptions.getExecutionLanes(), copyEngine);
+    }
+
     /**
      * Creates a {@code CompletableFuture} which runs the delete files backup executor and packages the result of
      * the previous stage into a single type ready for the caller to receive.
      *
      * @param completedModifiedFilesBackup {@code CompletedModifiedFilesBackup} from the previous step.
      * @param pendingDeletedRecords The records requiring deletion.
+     * @param backupDevice The {@code Device} of the backup root.
      * @return The {@code CompletableFuture}.
      */
     private CompletableFuture<BackupExecutionResult> applyDeleteAndCombine(CompletedModifiedFilesBackup completedModifiedFilesBackup,
-                                                                           PendingDeletedRecords pendingDeletedRecords) {
+                                                                           PendingDeletedRecords pendingDeletedRecords,
+                                                                           Device backupDevice) {
         return CompletableFuture.supplyAsync(() -> {
-            CompletedDeletionBackup completedDeletionBackup = BackupExecutor.deleteFiles(pendingDeletedRecords);
+            CompletedDeletionBackup completedDeletionBackup = BackupExecutor.deleteFiles(pendingDeletedRecords, backupDevice,
+                    backupOptions.getCopyParallelism());
             return BackupExecutionResult.success(completedModifiedFilesBackup, completedDeletionBackup);
         });
     }
@@ -3,8 +3,10 @@ package ui.tasks;
 import fileBackup.fileAnalysis.FileAccessError;
 import fileBackup.fileAnalysis.FilePathInfo;
 import fileBackup.monitoring.DirectoryWatcher;
+import fileBackup.rules.FileRuleMatcher;
 import io.vavr.control.Either;
 import javafx.concurrent.Task;
+import settings.BackupOptions;
 
 /**
  * Registers all directories to be watched.
@@ -13,14 +15,24 @@ import javafx.concurrent.Task;
  */
 public class DirectoryWatcherRegistrationTask extends Task<Either<FileAccessError, DirectoryWatcher>> {
 
-    private DirectoryWatcher directoryWatcher;
+    private FilePathInfo filePathInfo;
+    private BackupOptions backupOptions;
 
-    public DirectoryWatcherRegistrationTask(FilePathInfo filePathInfo) {
-        this.directoryWatcher = new DirectoryWatcher(filePathInfo);
+    /**
+     * @param filePathInfo The {@code FilePathInfo}.
+     * @param backupOptions The {@code BackupOptions} whose rules exclude directories from being watched.
+     */
+    public DirectoryWatcherRegistrationTask(FilePathInfo filePathInfo, BackupOptions backupOptions) {
+        this.filePathInfo = filePathInfo;
+        this.backupOptions = backupOptions;
     }
 
     @Override
     protected Either<FileAccessError, DirectoryWatcher> call() throws Exception {
-        return directoryWatcher.create();
+        Either<String, FileRuleMatcher> fileRuleMatcher = FileRuleMatcher.compile(backupOptions.getRules());
+        if (fileRuleMatcher.isLeft()) {
+            return Either.left(new FileAccessError("Invalid backup rule, " + fileRuleMatcher.getLeft()));
+        }
+        return new DirectoryWatcher(filePathInfo, fileRuleMatcher.get()).create();
     }
 }
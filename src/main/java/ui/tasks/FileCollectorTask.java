@@ -1,17 +1,38 @@
 package ui.tasks;
 
 import fileBackup.backupExecution.directoryFilters.DirectoryFilter;
+import fileBackup.devices.DeviceScheduler;
 import fileBackup.fileAnalysis.*;
+import fileBackup.rules.FileRuleMatcher;
 import io.vavr.control.Either;
+import io.vavr.control.Try;
 import javafx.concurrent.Task;
+import settings.BackupOptions;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 
 /**
  * Scan the file system in both directions (current to backup collecting modified files) and (backup to current collecting
- * deleted files). Both tasks are executed concurrently and the results are combined together and returned within
- * a {@code FileSystemScanResult}.
+ * deleted files). Both directions are computed in a single pass by the {@code TreeDiffCollector} which reads each
+ * directory once on both drives and merge joins the listings. The results are returned within a
+ * {@code FileSystemScanResult}.
+ *
+ * <p>When the backup root contains a valid {@code BackupManifest} the backup directory listings are read from the
+ * manifest rather than the backup drive.</p>
+ *
+ * <p>With {@code ChangeDetection.Content} files are compared by a {@code FileContentComparator} whose hash cache is
+ * written back once the scan completes.</p>
+ *
+ * <p>Directory pairs are merge joined with one worker per available processor since the scan is bound by the latency
+ * of reading directories rather than bandwidth.</p>
+ *
+ * <p>Files and directories excluded by the {@code BackupOptions} rules are skipped on both drives.</p>
+ *
+ * <p>When enabled by the {@code BackupOptions}, new files and directories which match ones about to be deleted are
+ * reconciled into moves by a {@code MoveDetector}, also comparing contents with {@code ChangeDetection.Content}.</p>
+ *
+ * <p>The task message is updated from a {@code ScanProgress} with the files and directories scanned so far.</p>
  *
  * Created by matt on 05-Jul-17.
  */
@@ -19,29 +40,73 @@ public class FileCollectorTask extends Task<FileSystemScanResult> {
 
     private FilePathInfo filePathInfo;
     private DirectoryFilter directoryFilter;
+    private BackupOptions backupOptions;
 
     /**
      *
      * @param filePathInfo The {@code FilePathInfo}.
-     * @param directoryFilter Passes through to the {@code AbstractFileCollector}s.
+     * @param directoryFilter Passes through to the {@code TreeDiffCollector}.
+     * @param backupOptions The {@code BackupOptions} deciding how files are compared.
      */
-    public FileCollectorTask(FilePathInfo filePathInfo, DirectoryFilter directoryFilter) {
+    public FileCollectorTask(FilePathInfo filePathInfo, DirectoryFilter directoryFilter, BackupOptions backupOptions) {
         this.filePathInfo = filePathInfo;
         this.directoryFilter = directoryFilter;
+        this.backupOptions = backupOptions;
     }
 
     @Override
     protected FileSystemScanResult call() throws Exception {
         ExecutorService executorService = FileBackupExecutorService.getInstance().get();
 
-        CompletableFuture<Either<FileAccessError, ModifiedFileWalkerResult>> scanModifiedFiles =
-                CompletableFuture.supplyAsync(() -> new ModifiedFileCollector(filePathInfo, directoryFilter).getFiles(), executorService);
+        Either<String, FileRuleMatcher> fileRuleMatcher = FileRuleMatcher.compile(backupOptions.getRules());
+        if (fileRuleMatcher.isLeft()) {
+            return new FileSystemScanResult("FileCollectorTask: Invalid backup rule, " + fileRuleMatcher.getLeft());
+        }
 
-        CompletableFuture<Either<FileAccessError, DeletedFileWalkerResult>> scanDeletedFiles =
-                CompletableFuture.supplyAsync(() -> new DeletedFileCollector(filePathInfo, directoryFilter).getFiles(), executorService);
+        FileContentComparator fileContentComparator = backupOptions.getChangeDetection() == ChangeDetection.Content
+                ? new FileContentComparator(FileHashCache.load())
+                : null;
 
-        return scanModifiedFiles.thenCombineAsync(scanDeletedFiles, FileSystemScanResult::new, executorService)
+        ScanProgress scanProgress = new ScanProgress();
+        scanProgress.addSubscriber(snapshot -> updateMessage(snapshot.toString()));
+
+        return CompletableFuture.supplyAsync(() -> new TreeDiffCollector.Builder(filePathInfo, directoryFilter)
+                        .parallelism(Runtime.getRuntime().availableProcessors())
+                        .deviceScheduler(DeviceScheduler.getInstance())
+                        .scanProgress(scanProgress)
+                        .fileRuleMatcher(fileRuleMatcher.get())
+                        .ioThrottle(backupOptions.getIoThrottle())
+                        .directoryTimestamps(DirectoryTimestamps.load(filePathInfo))
+                        .backupManifest(BackupManifest.load(filePathInfo).orElse(null))
+                        .fileContentComparator(fileContentComparator)
+                        .create()
+                        .getFiles(), executorService)
+                .whenComplete((result, throwable) -> {
+                    if (fileContentComparator != null) {
+                        // Only saves work on the next scan, failing to write the cache must not fail this scan.
+                        Try.run(() -> fileContentComparator.getFileHashCache().write());
+                    }
+                })
+                .thenApply(this::detectMoves)
+                .thenApply(this::toFileSystemScanResult)
                 .exceptionally(throwable -> new FileSystemScanResult("FileCollectorTask: Error attempting to scan file system"))
                 .get();
     }
+
+    private Either<FileAccessError, TreeDiffResult> detectMoves(Either<FileAccessError, TreeDiffResult> treeDiffResult) {
+        if (treeDiffResult.isRight() && backupOptions.isDetectMoves()) {
+            new MoveDetector(backupOptions.getChangeDetection() == ChangeDetection.Content)
+                    .reconcile(treeDiffResult.get().getModifiedFileWalkerResult(),
+                            treeDiffResult.get().getDeletedFileWalkerResult());
+        }
+        return treeDiffResult;
+    }
+
+    private FileSystemScanResult toFileSystemScanResult(Either<FileAccessError, TreeDiffResult> treeDiffResult) {
+        if (treeDiffResult.isLeft()) {
+            return new FileSystemScanResult(Either.left(treeDiffResult.getLeft()), Either.left(treeDiffResult.getLeft()));
+        }
+        return new FileSystemScanResult(Either.right(treeDiffResult.get().getModifiedFileWalkerResult()),
+                Either.right(treeDiffResult.get().getDeletedFileWalkerResult()));
+    }
 }
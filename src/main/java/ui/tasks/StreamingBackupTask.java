@@ -0,0 +1,103 @@
+package ui.tasks;
+
+import fileBackup.backupExecution.BackupExecutionResult;
+import fileBackup.backupExecution.StreamingBackupExecutor;
+import fileBackup.backupExecution.StreamingBackupResult;
+import fileBackup.backupExecution.directoryFilters.DirectoryFilter;
+import fileBackup.copying.CopyEngine;
+import fileBackup.devices.DeviceScheduler;
+import fileBackup.devices.IoThrottle;
+import fileBackup.fileAnalysis.*;
+import fileBackup.rules.FileRuleMatcher;
+import io.vavr.control.Either;
+import io.vavr.control.Try;
+import javafx.concurrent.Task;
+import settings.BackupOptions;
+
+import java.util.Optional;
+
+/**
+ * Scans the file system and executes the backup at the same time using a {@code StreamingBackupExecutor}, rather than
+ * running a {@code FileCollectorTask} for review followed by a {@code BackupExecutionTask}.
+ *
+ * <p>The {@code BackupManifest} is handled the same way as {@code BackupExecutionTask}. It is loaded for the scan and
+ * removed from the backup root before any changes are made, then updated once the backup completes.</p>
+ */
+public class StreamingBackupTask extends Task<BackupExecutionResult> {
+
+    private FilePathInfo filePathInfo;
+    private DirectoryFilter directoryFilter;
+    private BackupOptions backupOptions;
+
+    /**
+     * @param filePathInfo The {@code FilePathInfo}.
+     * @param directoryFilter Passes through to the {@code TreeDiffCollector}.
+     * @param backupOptions The {@code BackupOptions}.
+     */
+    public StreamingBackupTask(FilePathInfo filePathInfo, DirectoryFilter directoryFilter, BackupOptions backupOptions) {
+        this.filePathInfo = filePathInfo;
+        this.directoryFilter = directoryFilter;
+        this.backupOptions = backupOptions;
+    }
+
+    @Override
+    protected BackupExecutionResult call() throws Exception {
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        Either<String, FileRuleMatcher> fileRuleMatcher = FileRuleMatcher.compile(backupOptions.getRules());
+        if (fileRuleMatcher.isLeft()) {
+            return BackupExecutionResult.failure("StreamingBackupTask: Invalid backup rule, " + fileRuleMatcher.getLeft());
+        }
+
+        FileContentComparator fileContentComparator = backupOptions.getChangeDetection() == ChangeDetection.Content
+                ? new FileContentComparator(FileHashCache.load())
+                : null;
+
+        Optional<BackupManifest> backupManifest = BackupManifest.load(filePathInfo);
+        BackupManifest.invalidate(filePathInfo.getBackupRootPath());
+
+        ScanProgress scanProgress = new ScanProgress();
+        scanProgress.addSubscriber(snapshot -> updateMessage(snapshot.toString()));
+
+        // One throttle shared by the scan and the copies so together they stay within the limits.
+        IoThrottle ioThrottle = backupOptions.getIoThrottle();
+        CopyEngine copyEngine = backupOptions.getCopyEngine(filePathInfo, ioThrottle);
+
+        DeviceScheduler deviceScheduler = DeviceScheduler.getInstance();
+        TreeDiffCollector.Builder collectorBuilder = new TreeDiffCollector.Builder(filePathInfo, directoryFilter)
+                .parallelism(processors)
+                .deviceScheduler(deviceScheduler)
+                .scanProgress(scanProgress)
+                .fileRuleMatcher(fileRuleMatcher.get())
+                .ioThrottle(ioThrottle)
+                .directoryTimestamps(DirectoryTimestamps.load(filePathInfo))
+                .backupManifest(backupManifest.orElse(null))
+                .fileContentComparator(fileContentComparator);
+
+        StreamingBackupResult result = new StreamingBackupExecutor(backupOptions.getStreamingQueueCapacity(),
+                backupOptions.getCopyParallelism(),
+                deviceScheduler.getDevice(filePathInfo.getCurrentWorkingRootPath()),
+                deviceScheduler.getDevice(filePathInfo.getBackupRootPath()),
+                copyEngine)
+                .backup(collectorBuilder);
+
+        if (fileContentComparator != null) {
+            Try.run(() -> fileContentComparator.getFileHashCache().write());
+        }
+
+        if (result.getScanResult().isLeft()) {
+            // Files may have been copied before the scan failed, leave no manifest so the next scan is complete.
+            return BackupExecutionResult.failure("StreamingBackupTask: Error attempting to scan file system, " +
+                    "re-run backup to view files that were not backed up");
+        }
+
+        int skippedDeletions = result.getSkippedDeletedRecords().getDeletedFiles().size();
+        if (skippedDeletions > 0) {
+            updateMessage("Skipped " + skippedDeletions + " deletions as some paths could not be read, " +
+                    "scan for changes to review them");
+        }
+
+        BackupManifest.update(filePathInfo.getBackupRootPath(), backupManifest, result.getBackupExecutionResult());
+        return result.getBackupExecutionResult();
+    }
+}
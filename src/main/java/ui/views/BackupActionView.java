@@ -6,6 +6,7 @@ import fileBackup.backupExecution.pending.PendingModifiedRecords;
 import fileBackup.fileAnalysis.FileAccessError;
 import fileBackup.fileAnalysis.FileAnalysisResult;
 import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FilePathInfo;
 import io.vavr.control.Either;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -14,6 +15,7 @@ import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.util.Duration;
+import settings.BackupOptions;
 import ui.utils.ObservableListCollector;
 import ui.controls.ControlUtil;
 import ui.controls.FormattedTableView;
@@ -43,6 +45,12 @@ public class BackupActionView extends StyledVBox {
      */
     private final HomeView homeView;
 
+    // The backup execution needs the backup root to maintain the BackupManifest.
+    private final FilePathInfo filePathInfo;
+
+    // Decides how many records the backup execution copies at once.
+    private final BackupOptions backupOptions;
+
     /*
      * Provide access so when backup execution is run we can easily go back in and get the modified and deleted file
      * records rather than having to group them back into modified and deleted records that were aggregated into
@@ -56,8 +64,12 @@ public class BackupActionView extends StyledVBox {
     private TitledPane errorPane;
 
     public BackupActionView(HomeView homeView,
+                            FilePathInfo filePathInfo,
+                            BackupOptions backupOptions,
                             Either<TaskFailureError, FileSystemScanResult> eitherFileSystemScanResult) {
         this.homeView = homeView;
+        this.filePathInfo = filePathInfo;
+        this.backupOptions = backupOptions;
         this.eitherFileSystemScanResult = eitherFileSystemScanResult;
 
         // When HomeView invokes FileCollectorTask and setOnFailed is triggered.
@@ -184,8 +196,8 @@ public class BackupActionView extends StyledVBox {
      * Displays file system analysis statistics. getModifiedFileResult and getDeletedFileResult are available as they
      * are verified prior to constructing an instance in the BackupActionView constructor.
      *
-     * <p>Note: these statistics are based on what the {@code AbstractFileCollector}s gathers. For example, if
-     * {@code ModifiedFileCollector} says its found 2 new directories, it doesn't necessarily indicate these will
+     * <p>Note: these statistics are based on what the {@code TreeDiffCollector} gathers. For example, if
+     * {@code TreeDiffCollector} says its found 2 new directories, it doesn't necessarily indicate these will
      * be in the files ready for backup table view. Its purely an indication of new directories being found and its
      * most likely they will be created indirectly when a new file is created and non existing parent directories
      * are created at the same time.</p>
@@ -217,6 +229,11 @@ public class BackupActionView extends StyledVBox {
                     new SimpleStringProperty(param.getValue().getModifiedFileResult().get().getTotalFilesModified() + ""));
             filesModifiedColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
 
+            TableColumn<FileSystemScanResult, String> filesTouchedColumn = new TableColumn<>("Timestamps updated");
+            filesTouchedColumn.setCellValueFactory(param ->
+                    new SimpleStringProperty(param.getValue().getModifiedFileResult().get().getTotalFilesTouched() + ""));
+            filesTouchedColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
+
             TableColumn<FileSystemScanResult, String> filesUnmodifiedColumn = new TableColumn<>("Files unmodified");
             filesUnmodifiedColumn.setCellValueFactory(param ->
                     new SimpleStringProperty(param.getValue().getModifiedFileResult().get().getTotalFilesUnmodified() + ""));
@@ -232,6 +249,17 @@ public class BackupActionView extends StyledVBox {
                     new SimpleStringProperty(param.getValue().getDeletedFileResult().get().getTotalDirectoriesDeleted() + ""));
             directoriesDeletedColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
 
+            TableColumn<FileSystemScanResult, String> fileSystemCallsColumn = new TableColumn<>("File system calls per entry");
+            fileSystemCallsColumn.setCellValueFactory(param -> {
+                FileAnalysisResult modifiedResult = param.getValue().getModifiedFileResult().get();
+                FileAnalysisResult deletedResult = param.getValue().getDeletedFileResult().get();
+                long totalCalls = modifiedResult.getTotalFileSystemCalls() + deletedResult.getTotalFileSystemCalls();
+                long totalEntries = modifiedResult.getTotalFilesScanned() + modifiedResult.getTotalDirectoriesScanned()
+                        + deletedResult.getTotalFilesScanned() + deletedResult.getTotalDirectoriesScanned();
+                return new SimpleStringProperty(String.format("%.2f", totalEntries == 0 ? 0 : (double) totalCalls / totalEntries));
+            });
+            fileSystemCallsColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
+
             FormattedTableView<FileSystemScanResult> tableView = new FormattedTableView<>();
 
             tableView.getColumns().add(filesScannedColumn);
@@ -239,9 +267,11 @@ public class BackupActionView extends StyledVBox {
             tableView.getColumns().add(newFilesColumn);
             tableView.getColumns().add(newDirectoriesColumn);
             tableView.getColumns().add(filesModifiedColumn);
+            tableView.getColumns().add(filesTouchedColumn);
             tableView.getColumns().add(filesUnmodifiedColumn);
             tableView.getColumns().add(filesDeletedColumn);
             tableView.getColumns().add(directoriesDeletedColumn);
+            tableView.getColumns().add(fileSystemCallsColumn);
 
             tableView.setItems(FXCollections.observableArrayList(fileSystemScanResult));
 
@@ -310,8 +340,12 @@ public class BackupActionView extends StyledVBox {
          */
         private int fileSystemScanResultsSortOrder(FileChangeRecord record) {
             switch (record.getFileSystemAction()) {
-                case New: return 1;
-                case Modify: return 2;
+                case New:
+                case Link:
+                case HardLink: return 1;
+                case Modify:
+                case Touch:
+                case Move: return 2;
                 case Delete: return 3;
                 default: return 0;
             }
@@ -340,9 +374,9 @@ public class BackupActionView extends StyledVBox {
     /**
      * Merges all errors into a single {@code ObservableList} to be presented in a single TableView.
      *
-     * <p>For example, {@code ModifiedFileCollector} could have failed to run resulting in
+     * <p>For example, {@code TreeDiffCollector} could have failed to run resulting in
      * {@code FileSystemScanResult.modifiedFileResult} containing the error in Either.left. However if
-     * {@code ModifiedFileCollector} was able to run, there can be potential errors during the file walking process which
+     * {@code TreeDiffCollector} was able to run, there can be potential errors during the file walking process which
      * are available by accessing Either.right to get access to the {@code ModifiedFileWalkerResult} which contains any
      * errors generated during the walking phase. This same logic is applied to the deleted file scan process.</p>
      *
@@ -371,7 +405,7 @@ public class BackupActionView extends StyledVBox {
          * eitherFileSystemScanResult.right exists as per the very first validation in constructor.
          *
          * We still need to ensure getModifiedFileResult and getDeletedFileResult contain FileChangeRecords
-         * generated during successful file walking by ModifiedFileCollector and DeletedFileCollector. If this is not
+         * generated during successful file walking by TreeDiffCollector. If this is not
          * the case, empty PendingXXX records are created and sent to the BackupExecutionTask which results in
          * BackupExecutor methods handling empty records fine without any null issues.
          */
@@ -387,7 +421,8 @@ public class BackupActionView extends StyledVBox {
                 .map(PendingDeletedRecords::of)
                 .getOrElse(PendingDeletedRecords.ofEmpty());
 
-        BackupExecutionTask backupExecutionTask = new BackupExecutionTask(pendingModifiedRecords, pendingDeletedRecords);
+        BackupExecutionTask backupExecutionTask = new BackupExecutionTask(filePathInfo, backupOptions,
+                pendingModifiedRecords, pendingDeletedRecords);
 
         // execute button is a 1 time operation, must go through backup flow again to enable it.
         buttonExecuteBackup.setDisable(true);
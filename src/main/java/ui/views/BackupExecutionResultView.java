@@ -7,10 +7,13 @@ import fileBackup.fileAnalysis.FileAccessError;
 import fileBackup.fileAnalysis.FileChangeRecord;
 import fileBackup.fileAnalysis.TimeUtils;
 import io.vavr.control.Either;
+import io.vavr.control.Try;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.control.Pagination;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TitledPane;
 import javafx.scene.layout.HBox;
@@ -29,6 +32,7 @@ import ui.tasks.TaskFailureError;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -45,6 +49,8 @@ import java.util.function.ToIntFunction;
  * Created by matt on 09-Jul-17.
  */
 public class BackupExecutionResultView extends StyledVBox {
+    // The number of journaled results read for each page.
+    private static final int JOURNAL_PAGE_SIZE = 100;
 
     public BackupExecutionResultView(Either<TaskFailureError, BackupExecutionResult> eitherBackupExecutionResult) {
 
@@ -67,7 +73,10 @@ public class BackupExecutionResultView extends StyledVBox {
                 .getCompletedDirectoryDeletions()
                 .getDirectoryDeletions().stream().collect(new ObservableListCollector<>());
 
-        if (singleBackupOperations.isEmpty() && deleteDirectoryTaskResults.isEmpty()) {
+        Optional<ResultJournal> journal = backupExecutionResult.getCompletedModifiedFilesBackup().getJournal();
+        boolean hasJournal = journal.isPresent() && journal.get().getTotal() > 0;
+
+        if (singleBackupOperations.isEmpty() && deleteDirectoryTaskResults.isEmpty() && !hasJournal) {
             // Technically should never happen since BackupActionView only executes backup if there are pending files.
             getChildren().add(ControlUtil.getBasicErrorComponent("There are no backup execution results to display"));
             return;
@@ -76,14 +85,28 @@ public class BackupExecutionResultView extends StyledVBox {
         /*
          * The landing view contains 2 root views displaying the results of performing the single backup operations
          * (Anything other than an entire directory deletion) and any complete directory deletions.
-         * Each view is only displayed if there exists records.
+         * Each view is only displayed if there exists records. When the modified file results were journaled, the
+         * single backup operations only contain the failures and a third view pages through every journaled result.
          *
          * Within each of these views you can drill down to explore the finer details of each backup operation stage
          * as well as any errors.
          */
+        TitledPane journalPane = new TitledPane();
+        if (hasJournal) {
+            journalPane.setText("All modified file backup execution results (" + journal.get().getTotal() + ")");
+            journalPane.setExpanded(false);
+            journalPane.setContent(new ResultJournalPagination(journal.get()));
+            HBox.setHgrow(journalPane, Priority.ALWAYS);
+
+            getChildren().add(journalPane);
+            ControlUtil.fadeIn(journalPane);
+        }
+
         TitledPane singleBackupOperationsPane = new TitledPane();
         if (!singleBackupOperations.isEmpty()) {
-            singleBackupOperationsPane.setText("Single file backup execution results (" + singleBackupOperations.size() + ")");
+            String title = journal.isPresent() ? "Failed modified files and single file deletion results ("
+                    : "Single file backup execution results (";
+            singleBackupOperationsPane.setText(title + singleBackupOperations.size() + ")");
             singleBackupOperationsPane.setExpanded(false);
             singleBackupOperationsPane.setContent(new BackupOperationTableView(singleBackupOperations));
             HBox.setHgrow(singleBackupOperationsPane, Priority.ALWAYS);
@@ -105,6 +128,9 @@ public class BackupExecutionResultView extends StyledVBox {
 
         // Expand panes once populated for ui feedback
         ControlUtil.doAfterDelay(Duration.millis(500), e -> {
+            if (hasJournal && singleBackupOperations.isEmpty()) {
+                journalPane.setExpanded(true);
+            }
             if (!singleBackupOperations.isEmpty()) {
                 singleBackupOperationsPane.setExpanded(true);
             }
@@ -118,7 +144,8 @@ public class BackupExecutionResultView extends StyledVBox {
     /**
      * Gets the data to be displayed in {@code BackupOperationTableView} located within the
      * 'Single file backup execution pane'. This is a combination of the modified/new and single file deletion
-     * backup execution results (anything other than a complete directory deletion).
+     * backup execution results (anything other than a complete directory deletion). Only the failed modified/new
+     * files are included when the results were journaled.
      *
      * <p>Directory deletion is handled separately as a this has 'many' sub deletions which can't be merged nicely
      * into this list so for clarity it is put in a separate table.</p>
@@ -140,6 +167,60 @@ public class BackupExecutionResultView extends StyledVBox {
         return modifiedOperations;
     }
 
+    /**
+     * Pages through a {@code ResultJournal}, only reading the entries of the page being displayed so a backup of
+     * millions of files is never loaded into memory at once.
+     */
+    private class ResultJournalPagination extends Pagination {
+
+        private ResultJournalPagination(ResultJournal journal) {
+            super((int) Math.max(1, (journal.getTotal() + JOURNAL_PAGE_SIZE - 1) / JOURNAL_PAGE_SIZE));
+
+            setPageFactory(page -> Try.of(() -> journal.read((long) page * JOURNAL_PAGE_SIZE, JOURNAL_PAGE_SIZE))
+                    .<Node>map(entries -> createTableView(FXCollections.observableArrayList(entries)))
+                    .getOrElseGet(e -> ControlUtil.getBasicErrorComponent("Unable to read the backup results from "
+                            + journal.getJournalPath())));
+        }
+
+        private FormattedTableView<ResultJournal.Entry> createTableView(ObservableList<ResultJournal.Entry> entries) {
+            TableColumn<ResultJournal.Entry, String> statusColumn = new TableColumn<>("Status");
+            statusColumn.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().getFileBackupStatus().getDescription()));
+            statusColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
+
+            TableColumn<ResultJournal.Entry, String> fileSystemActionColumn = new TableColumn<>("File System Action");
+            fileSystemActionColumn.setCellValueFactory(param ->
+                    new SimpleStringProperty(param.getValue().getFileSystemAction().getDescription()));
+            fileSystemActionColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
+
+            TableColumn<ResultJournal.Entry, String> fileTypeColumn = new TableColumn<>("File Type");
+            fileTypeColumn.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().getFileType().getDescription()));
+            fileTypeColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
+
+            TableColumn<ResultJournal.Entry, String> backupPathColumn = new TableColumn<>("Backup Path");
+            backupPathColumn.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().getBackupPath().toString()));
+            backupPathColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
+
+            TableColumn<ResultJournal.Entry, String> commitTimeColumn = new TableColumn<>("Commit Time");
+            commitTimeColumn.setCellValueFactory(param -> new SimpleStringProperty(TimeUtils.format(param.getValue().getCommitTime())));
+            commitTimeColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
+
+            TableColumn<ResultJournal.Entry, String> errorColumn = new TableColumn<>("Error Reason");
+            errorColumn.setCellValueFactory(param -> param.getValue().getErrorReason()
+                    .map(SimpleStringProperty::new)
+                    .orElseGet(() -> new SimpleStringProperty("")));
+            errorColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
+
+            FormattedTableView<ResultJournal.Entry> tableView = new FormattedTableView<>(entries);
+            tableView.getColumns().add(statusColumn);
+            tableView.getColumns().add(fileSystemActionColumn);
+            tableView.getColumns().add(fileTypeColumn);
+            tableView.getColumns().add(backupPathColumn);
+            tableView.getColumns().add(commitTimeColumn);
+            tableView.getColumns().add(errorColumn);
+            return tableView;
+        }
+    }
+
     /**
      * A {@code TableView} to display {@code BackupOperation}s. This can be reused for for both the single file
      * backup execution view and for the details of the deleted directory view where each deleted file in the directory
@@ -282,8 +363,8 @@ public class BackupExecutionResultView extends StyledVBox {
      *
      * <p>A 'details' column provides a button which opens another view depending on whether there was an error.
      * If {@code DeleteDirectoryTask} failed to execute, {@code BackupTaskErrorTableView} is displayed.
-     * Otherwise {@code DeletedDirectoryDetailsView} displays the complete breakdown of all the files deleted
-     * in the directory plus any errors.</p>
+     * Otherwise {@code DeletedDirectoryDetailsView} displays every file in the directory which failed to be deleted
+     * plus any errors.</p>
      */
     private class DeleteDirectoryTaskTableView extends FormattedTableView<DeleteDirectoryTaskResult> {
 
@@ -308,7 +389,7 @@ public class BackupExecutionResultView extends StyledVBox {
                 if (result.isLeft()) {
                     return new SimpleStringProperty("0");
                 }
-                return new SimpleStringProperty(result.get().getBackupOperations().size() + "");
+                return new SimpleStringProperty(result.get().getTotalCompleted() + "");
             });
             filesDeletedColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
 
@@ -318,7 +399,8 @@ public class BackupExecutionResultView extends StyledVBox {
                 if (result.isLeft()) {
                     return new SimpleStringProperty("1");
                 }
-                return new SimpleStringProperty(result.get().getFileAccessErrors().size() + "");
+                return new SimpleStringProperty(result.get().getFileAccessErrors().size()
+                        + result.get().getBackupOperations().size() + "");
             });
             relatingErrorsColumn.setCellFactory(param -> TableCellFactory.defaultTableCell());
 
@@ -398,7 +480,8 @@ public class BackupExecutionResultView extends StyledVBox {
     }
 
     /**
-     * Displays all {@code BackupOperation}s corresponding to a file that was deleted within the entire directory delete.
+     * Displays the {@code BackupOperation}s of the files which failed to be deleted within the entire directory delete,
+     * successful deletions are only counted.
      *
      * <p>If there are errors, an additional error pane is displayed.</p>
      */
@@ -433,7 +516,8 @@ public class BackupExecutionResultView extends StyledVBox {
 
             if (!backupOperations.isEmpty()) {
                 deletedFilesInDirectoryPane = new TitledPane();
-                deletedFilesInDirectoryPane.setText("All deleted files within directory (" + backupOperations.size() + ")");
+                deletedFilesInDirectoryPane.setText("Files which failed to be deleted within directory ("
+                        + backupOperations.size() + ")");
                 deletedFilesInDirectoryPane.setExpanded(false);
                 deletedFilesInDirectoryPane.setContent(new BackupOperationTableView(backupOperations));
                 HBox.setHgrow(deletedFilesInDirectoryPane, Priority.ALWAYS);
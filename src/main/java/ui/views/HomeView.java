@@ -30,6 +30,7 @@ import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.util.Duration;
 import settings.ApplicationSettings;
+import settings.BackupOptions;
 import ui.tasks.Shutdownable;
 import ui.controls.*;
 import ui.tableCells.TableCellFactory;
@@ -53,6 +54,9 @@ public class HomeView extends StyledBorderPane implements Shutdownable {
     private final MenuPanel menuPanel;
     private LiveMonitoringView liveMonitoringView;
 
+    // Options of the most recently selected paths used by every backup analysis.
+    private BackupOptions backupOptions = BackupOptions.defaults();
+
     public HomeView() {
         topPanel = new TopPanel();
         menuPanel = new MenuPanel();
@@ -107,20 +111,48 @@ public class HomeView extends StyledBorderPane implements Shutdownable {
      * @param directoryFilter Determines which directories should be scanned.
      */
     private void runBackupAnalysis(FilePathInfo filePathInfo, DirectoryFilter directoryFilter) {
-        FileCollectorTask fileCollectorTask = new FileCollectorTask(filePathInfo, directoryFilter);
+        if (backupOptions.isStreaming()) {
+            runStreamingBackup(filePathInfo, directoryFilter);
+            return;
+        }
+        FileCollectorTask fileCollectorTask = new FileCollectorTask(filePathInfo, directoryFilter, backupOptions);
         bindDisableProperty(fileCollectorTask.runningProperty());
-        topPanel.progressStatus.start("Analysing file system", fileCollectorTask.runningProperty());
+        topPanel.progressStatus.start("Analysing file system", fileCollectorTask.runningProperty(),
+                fileCollectorTask.messageProperty());
 
         fileCollectorTask.setOnSucceeded(value ->
-                setCenterView(new BackupActionView(HomeView.this, Either.right(fileCollectorTask.getValue()))));
+                setCenterView(new BackupActionView(HomeView.this, filePathInfo, backupOptions, Either.right(fileCollectorTask.getValue()))));
 
         fileCollectorTask.setOnFailed(value ->
-                setCenterView(new BackupActionView(HomeView.this,
+                setCenterView(new BackupActionView(HomeView.this, filePathInfo, backupOptions,
                         Either.left(TaskFailureError.of("Analysing file system failed, please run manual backup")))));
 
         FileBackupExecutorService.getInstance().get().submit(fileCollectorTask);
     }
 
+    /**
+     * Scans and executes the backup at the same time, skipping the {@code BackupActionView} review and going straight
+     * to the {@code BackupExecutionResultView}.
+     *
+     * @param filePathInfo    The valid {@code FilePathInfo}.
+     * @param directoryFilter Determines which directories should be scanned.
+     */
+    private void runStreamingBackup(FilePathInfo filePathInfo, DirectoryFilter directoryFilter) {
+        StreamingBackupTask streamingBackupTask = new StreamingBackupTask(filePathInfo, directoryFilter, backupOptions);
+        bindDisableProperty(streamingBackupTask.runningProperty());
+        topPanel.progressStatus.start("Analysing file system and executing backup",
+                streamingBackupTask.runningProperty(), streamingBackupTask.messageProperty());
+
+        streamingBackupTask.setOnSucceeded(value ->
+                setCenterView(new BackupExecutionResultView(Either.right(streamingBackupTask.getValue()))));
+
+        streamingBackupTask.setOnFailed(value ->
+                setCenterView(new BackupExecutionResultView(Either.left(
+                        TaskFailureError.of("Backup execution task failed - rerun backup to view files that are pending backup")))));
+
+        FileBackupExecutorService.getInstance().get().submit(streamingBackupTask);
+    }
+
     @Override
     public void stop() {
         if (liveMonitoringView != null) {
@@ -219,6 +251,7 @@ public class HomeView extends StyledBorderPane implements Shutdownable {
                 if (pathSetupView.getFilePathInfo().isRight()) {
                     // The path information the user selected in PathSetupView is valid.
                     FilePathInfo filePathInfo = pathSetupView.getFilePathInfo().get();
+                    backupOptions = pathSetupView.getBackupOptions();
                     runBackupAnalysis(filePathInfo, new AllowAllDirectoriesFilter());
                 }
             });
@@ -241,6 +274,7 @@ public class HomeView extends StyledBorderPane implements Shutdownable {
                 if (pathSetupView.getFilePathInfo().isRight()) {
                     // The path information the user selected in PathSetupView is valid.
                     FilePathInfo filePathInfo = pathSetupView.getFilePathInfo().get();
+                    backupOptions = pathSetupView.getBackupOptions();
 
                     GetAllTablesTask getAllTablesTask = new GetAllTablesTask();
                     bindDisableProperty(getAllTablesTask.runningProperty());
@@ -387,7 +421,7 @@ public class HomeView extends StyledBorderPane implements Shutdownable {
             monitoringLogPane = new MonitoringLogPane(logMessages);
 
             // Try register all directories for monitoring.
-            DirectoryWatcherRegistrationTask registrationTask = new DirectoryWatcherRegistrationTask(filePathInfo);
+            DirectoryWatcherRegistrationTask registrationTask = new DirectoryWatcherRegistrationTask(filePathInfo, backupOptions);
             menuPanel.bindDisableProperty(registrationTask.runningProperty());
             bindDisableProperty(registrationTask.runningProperty());
             topPanel.progressStatus.start("Setting up file system for live monitoring", registrationTask.runningProperty());
@@ -556,7 +590,7 @@ public class HomeView extends StyledBorderPane implements Shutdownable {
              * <p><b>The overall process</b></p>
              *
              * <p>The {@code MonitoredDirectoryFilter} contains the {@code Set} of hashCodes of each {@code WatchedFile}
-             * in the database achieved through a {@code DirectoryFilter}. When an {@code AbstractFileCollector} does the
+             * in the database achieved through a {@code DirectoryFilter}. When the {@code TreeDiffCollector} does the
              * file walk and enters the {@code preVisitDirectory} method, the path is converted to its corresponding
              * hashCode by using {@code PathMappingStrategy.getUnmappedHashCode} and checked to see if its in the {@code Set}.
              * If the {@code DirectoryFilter} says this path is active, the directory has seen activity and must be
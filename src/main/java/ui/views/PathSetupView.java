@@ -21,6 +21,7 @@ import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 import settings.ApplicationSettings;
+import settings.BackupOptions;
 import settings.TaskSettings;
 import settings.TaskSetting;
 import ui.controls.StageUtils;
@@ -72,6 +73,9 @@ public class PathSetupView extends StyledVBox {
     // Passed back to caller with Either.Right containing the valid path information for the application to use.
     private Either<String, FilePathInfo> filePathInfo;
 
+    // Options of the selected task, manual configuration always uses the defaults.
+    private BackupOptions backupOptions = BackupOptions.defaults();
+
     public PathSetupView(Stage stage) {
         this.stage = stage;
 
@@ -146,6 +150,7 @@ public class PathSetupView extends StyledVBox {
             Consumer<TaskSetting> onAction = task -> {
                 // Populated field and close window as caller will come back in and access via getFilePathInfo
                 filePathInfo = task.status();
+                backupOptions = task.getBackupOptions();
                 ControlUtil.fadeOutThen(this, e -> stage.close());
             };
             Predicate<TaskSetting> isEnabled = setting -> setting.status().isRight();
@@ -305,6 +310,13 @@ public class PathSetupView extends StyledVBox {
         return filePathInfo;
     }
 
+    /**
+     * @return The {@code BackupOptions} to use with {@link #getFilePathInfo()}.
+     */
+    public BackupOptions getBackupOptions() {
+        return backupOptions;
+    }
+
     private void applyValidStyle(Label label, String text) {
         label.setText(text);
         label.getStyleClass().setAll("valid-validation-text");
@@ -2,6 +2,7 @@ package ui.views;
 
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanExpression;
+import javafx.beans.value.ObservableStringValue;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressIndicator;
 import ui.controls.StyledHBox;
@@ -41,6 +42,24 @@ public class ProgressStatus extends StyledHBox {
         status.visibleProperty().bind(property);
     }
 
+    /**
+     * Same as {@link #start(String, BooleanExpression)} followed by {@code detail} which changes while running, such
+     * as the message of a {@code Task} reporting its progress.
+     *
+     * @param whenRunningMessage The text to display when the indicator is displayed.
+     * @param property The property that controls when the status text and progress indicator are visible.
+     * @param detail The changing text displayed after {@code whenRunningMessage}.
+     */
+    public void start(String whenRunningMessage, BooleanExpression property, ObservableStringValue detail) {
+        progressIndicator.visibleProperty().bind(property);
+
+        status.textProperty().bind(
+                Bindings.when(property)
+                        .then(Bindings.concat(whenRunningMessage, "... ", detail))
+                        .otherwise(""));
+        status.visibleProperty().bind(property);
+    }
+
     public void unbind() {
         progressIndicator.visibleProperty().unbind();
         status.visibleProperty().unbind();
@@ -0,0 +1,64 @@
+package fileBackup.backupExecution;
+
+import fileBackup.backupExecution.completed.CompletedModifiedFilesBackup;
+import fileBackup.backupExecution.pending.PendingModifiedRecords;
+import fileBackup.devices.Device;
+import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FileSystemAction;
+import fileBackup.fileAnalysis.FileType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BackupExecutorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void concurrentBackupKeepsRecordOrder() throws IOException {
+        assertBackupKeepsRecordOrder(ExecutionLanes.of(8));
+    }
+
+    @Test
+    public void sizeLanesKeepRecordOrder() throws IOException {
+        assertBackupKeepsRecordOrder(new ExecutionLanes.Builder(4).largeFileThreshold(25).create());
+    }
+
+    private void assertBackupKeepsRecordOrder(ExecutionLanes executionLanes) throws IOException {
+        Path current = folder.newFolder("current").toPath();
+        Path backup = folder.newFolder("backup").toPath();
+        List<FileChangeRecord> records = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String path = "dir" + (i % 5) + "/sub/file" + i;
+            Files.createDirectories(current.resolve(path).getParent());
+            Files.write(current.resolve(path), new byte[i]);
+            records.add(new FileChangeRecord.Builder()
+                    .currentWorkingPath(current.resolve(path))
+                    .backupPath(backup.resolve(path))
+                    .currentSize(i)
+                    .fileSystemAction(FileSystemAction.New)
+                    .fileType(FileType.File)
+                    .create());
+        }
+
+        CompletedModifiedFilesBackup completed = BackupExecutor.backupModifiedFiles(PendingModifiedRecords.of(records),
+                Device.UNLIMITED, Device.UNLIMITED, executionLanes);
+
+        assertThat(completed.getResults().size(), is(records.size()));
+        for (int i = 0; i < records.size(); i++) {
+            BackupOperation operation = completed.getResults().get(i);
+            assertThat(operation.getFileChangeRecord().getBackupPath(), is(records.get(i).getBackupPath()));
+            assertThat(operation.getFileBackupStatus(), is(FileBackupStatus.SUCCESS));
+            assertThat(Files.size(records.get(i).getBackupPath()), is((long) i));
+        }
+    }
+}
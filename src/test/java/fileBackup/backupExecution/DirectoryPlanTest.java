@@ -0,0 +1,80 @@
+package fileBackup.backupExecution;
+
+import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FileSystemAction;
+import fileBackup.fileAnalysis.FileType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DirectoryPlanTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void plansEachMissingDirectoryOnceParentFirst() throws IOException {
+        Path backup = folder.newFolder("backup").toPath();
+        List<FileChangeRecord> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(record(backup.resolve("a/b/file" + i), FileSystemAction.New));
+            records.add(record(backup.resolve("a/c/d/file" + i), FileSystemAction.New));
+        }
+        records.add(record(backup.resolve("e/file"), FileSystemAction.Link));
+        // A Modify record never creates its parent.
+        records.add(record(backup.resolve("f/file"), FileSystemAction.Modify));
+
+        DirectoryPlan plan = DirectoryPlan.of(records);
+
+        List<Path> missing = plan.getMissingDirectories();
+        assertThat(missing.size(), is(5));
+        assertThat(missing.containsAll(Arrays.asList(backup.resolve("a"), backup.resolve("a/b"),
+                backup.resolve("a/c"), backup.resolve("a/c/d"), backup.resolve("e"))), is(true));
+        for (Path directory : missing) {
+            int parentIndex = missing.indexOf(directory.getParent());
+            assertThat(parentIndex < missing.indexOf(directory), is(true));
+        }
+        assertThat(plan.isReady(backup), is(true));
+        assertThat(plan.isReady(backup.resolve("a/b")), is(false));
+
+        plan.create(4);
+
+        for (Path directory : missing) {
+            assertThat(Files.isDirectory(directory), is(true));
+            assertThat(plan.isReady(directory), is(true));
+        }
+        assertThat(Files.exists(backup.resolve("f")), is(false));
+    }
+
+    @Test
+    public void failedDirectoryLeavesBranchNotReady() throws IOException {
+        Path backup = folder.newFolder("backup").toPath();
+        Files.write(backup.resolve("blocked"), new byte[1]);
+
+        DirectoryPlan plan = DirectoryPlan.of(Arrays.asList(
+                record(backup.resolve("blocked/sub/file"), FileSystemAction.New),
+                record(backup.resolve("open/file"), FileSystemAction.New)));
+        plan.create(2);
+
+        assertThat(plan.isReady(backup.resolve("blocked")), is(false));
+        assertThat(plan.isReady(backup.resolve("blocked/sub")), is(false));
+        assertThat(plan.isReady(backup.resolve("open")), is(true));
+    }
+
+    private static FileChangeRecord record(Path backupPath, FileSystemAction action) {
+        return new FileChangeRecord.Builder()
+                .backupPath(backupPath)
+                .fileSystemAction(action)
+                .fileType(FileType.File)
+                .create();
+    }
+}
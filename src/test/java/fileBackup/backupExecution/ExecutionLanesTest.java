@@ -0,0 +1,41 @@
+package fileBackup.backupExecution;
+
+import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FileSystemAction;
+import fileBackup.fileAnalysis.FileType;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ExecutionLanesTest {
+    @Test
+    public void largeLaneOnlyTakesWorkersWhenNeeded() {
+        ExecutionLanes lanes = new ExecutionLanes.Builder(8).largeFileWorkers(2).create();
+
+        assertThat(lanes.largeLaneWorkers(8, 100, 0), is(0));
+        assertThat(lanes.largeLaneWorkers(8, 100, 5), is(2));
+        assertThat(lanes.largeLaneWorkers(8, 0, 5), is(2));
+        assertThat(lanes.largeLaneWorkers(2, 100, 5), is(1));
+    }
+
+    @Test
+    public void onlyCopiesHaveJobSize() {
+        assertThat(ExecutionLanes.jobSize(record(FileSystemAction.New, 500)), is(500L));
+        assertThat(ExecutionLanes.jobSize(record(FileSystemAction.Modify, 500)), is(500L));
+        assertThat(ExecutionLanes.jobSize(record(FileSystemAction.Touch, 500)), is(0L));
+        assertThat(ExecutionLanes.jobSize(record(FileSystemAction.Move, 500)), is(0L));
+    }
+
+    private static FileChangeRecord record(FileSystemAction fileSystemAction, long size) {
+        return new FileChangeRecord.Builder()
+                .currentWorkingPath(Paths.get("/current/file"))
+                .backupPath(Paths.get("/backup/file"))
+                .currentSize(size)
+                .fileSystemAction(fileSystemAction)
+                .fileType(FileType.File)
+                .create();
+    }
+}
@@ -0,0 +1,120 @@
+package fileBackup.backupExecution;
+
+import fileBackup.backupExecution.backupTasks.UpdateLastModifiedTask;
+import fileBackup.backupExecution.completed.CompletedModifiedFilesBackup;
+import fileBackup.backupExecution.pending.PendingModifiedRecords;
+import fileBackup.devices.Device;
+import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FileSystemAction;
+import fileBackup.fileAnalysis.FileType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ResultJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void pagesAcrossIndexIntervals() throws IOException {
+        Path existing = folder.newFile("existing").toPath();
+        Path missing = folder.getRoot().toPath().resolve("missing");
+        int total = ResultJournal.INDEX_INTERVAL * 2 + 10;
+
+        try (ResultJournal journal = ResultJournal.create(folder.getRoot().toPath().resolve("results.journal"))) {
+            for (int i = 0; i < total; i++) {
+                // Every 10th operation fails since its file doesn't exist.
+                journal.append(touch(i % 10 == 0 ? missing : existing));
+            }
+
+            assertThat(journal.getTotal(), is((long) total));
+            assertThat(journal.getTotalFailed(), is((long) (total + 9) / 10));
+            assertThat(journal.getFailures().size(), is((total + 9) / 10));
+
+            long from = ResultJournal.INDEX_INTERVAL - 5;
+            List<ResultJournal.Entry> page = journal.read(from, 20);
+            assertThat(page.size(), is(20));
+            for (int i = 0; i < page.size(); i++) {
+                boolean failed = (from + i) % 10 == 0;
+                ResultJournal.Entry entry = page.get(i);
+                assertThat(entry.getFileBackupStatus(), is(failed ? FileBackupStatus.FAILURE : FileBackupStatus.SUCCESS));
+                assertThat(entry.getBackupPath(), is(failed ? missing : existing));
+                assertThat(entry.getFileSystemAction(), is(FileSystemAction.Touch));
+                assertThat(entry.getTotalStages(), is(1));
+                assertThat(entry.getErrorReason().isPresent(), is(failed));
+            }
+
+            assertThat(journal.read(total - 3, 20).size(), is(3));
+            assertThat(journal.read(total, 20).isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void readsEveryEntryOnceClosed() throws IOException {
+        Path existing = folder.newFile("existing").toPath();
+        ResultJournal journal = ResultJournal.create(folder.getRoot().toPath().resolve("results.journal"));
+        for (int i = 0; i < 50; i++) {
+            journal.append(touch(existing));
+        }
+        journal.close();
+
+        List<ResultJournal.Entry> entries = new ArrayList<>();
+        journal.forEach(entries::add);
+
+        assertThat(entries.size(), is(50));
+        assertThat(journal.read(45, 10).size(), is(5));
+    }
+
+    @Test
+    public void backupOnlyKeepsFailuresInMemory() throws IOException {
+        Path current = folder.newFolder("current").toPath();
+        Path backup = folder.newFolder("backup").toPath();
+        List<FileChangeRecord> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Files.write(current.resolve("file" + i), new byte[i]);
+            records.add(new FileChangeRecord.Builder()
+                    .currentWorkingPath(current.resolve("file" + i))
+                    .backupPath(backup.resolve("file" + i))
+                    .fileSystemAction(FileSystemAction.New)
+                    .fileType(FileType.File)
+                    .create());
+        }
+        records.add(new FileChangeRecord.Builder()
+                .currentWorkingPath(current.resolve("missing"))
+                .backupPath(backup.resolve("missing"))
+                .fileSystemAction(FileSystemAction.New)
+                .fileType(FileType.File)
+                .create());
+
+        ResultJournal journal = ResultJournal.create(folder.getRoot().toPath().resolve("results.journal"));
+        CompletedModifiedFilesBackup completed = BackupExecutor.backupModifiedFiles(PendingModifiedRecords.of(records),
+                Device.UNLIMITED, Device.UNLIMITED, ExecutionLanes.of(4), journal);
+
+        assertThat(completed.getTotal(), is(21L));
+        assertThat(completed.getTotalFailed(), is(1L));
+        assertThat(completed.getResults().size(), is(1));
+        assertThat(completed.getResults().get(0).getFileChangeRecord().getBackupPath(), is(backup.resolve("missing")));
+        assertThat(journal.read(0, 100).size(), is(21));
+    }
+
+    private static BackupOperation touch(Path path) {
+        FileChangeRecord record = new FileChangeRecord.Builder()
+                .currentWorkingPath(path)
+                .backupPath(path)
+                .currentLastModified(FileTime.fromMillis(0))
+                .fileSystemAction(FileSystemAction.Touch)
+                .fileType(FileType.File)
+                .create();
+        return BackupOperation.of(record, BackupTaskExecutionPipeline.of(UpdateLastModifiedTask.of(record)));
+    }
+}
@@ -0,0 +1,88 @@
+package fileBackup.backupExecution;
+
+import fileBackup.backupExecution.directoryFilters.AllowAllDirectoriesFilter;
+import fileBackup.fileAnalysis.FilePathInfo;
+import fileBackup.fileAnalysis.FileValidator;
+import fileBackup.fileAnalysis.TreeDiffCollector;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class StreamingBackupExecutorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path current;
+    private Path backup;
+
+    @Before
+    public void setUp() throws IOException {
+        current = Files.createDirectories(folder.getRoot().toPath().resolve("cur").resolve("proj"));
+        backup = Files.createDirectories(folder.getRoot().toPath().resolve("bak").resolve("proj"));
+    }
+
+    @Test
+    public void copiesAndDeletesWhileScanning() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            Files.write(current.resolve("file" + i), new byte[i]);
+        }
+        Files.write(backup.resolve("gone.txt"), new byte[]{1});
+
+        StreamingBackupResult result = backup(2);
+
+        assertThat(result.getScanResult().isRight(), is(true));
+        for (int i = 0; i < 20; i++) {
+            assertThat(Files.size(backup.resolve("file" + i)), is((long) i));
+        }
+        assertThat(Files.exists(backup.resolve("gone.txt")), is(false));
+        assertThat(result.getSkippedDeletedRecords().getDeletedFiles().isEmpty(), is(true));
+    }
+
+    @Test
+    public void accessErrorsSkipDeletes() throws Exception {
+        assumeTrue(current.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path docs = Files.createDirectories(current.resolve("docs"));
+        Files.write(current.resolve("new.txt"), new byte[]{1});
+        Files.write(backup.resolve("gone.txt"), new byte[]{1});
+
+        Files.setPosixFilePermissions(docs, PosixFilePermissions.fromString("--x--x--x"));
+        try {
+            assumeTrue(!canList(docs));
+
+            StreamingBackupResult result = backup(2);
+
+            // Modifications are still copied, only the deletions wait for review.
+            assertThat(Files.exists(backup.resolve("new.txt")), is(true));
+            assertThat(Files.exists(backup.resolve("gone.txt")), is(true));
+            assertThat(result.getSkippedDeletedRecords().getDeletedFiles().size(), is(1));
+        } finally {
+            Files.setPosixFilePermissions(docs, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+    }
+
+    private StreamingBackupResult backup(int workers) throws InterruptedException {
+        FilePathInfo filePathInfo = FilePathInfo.of(current, backup, false, new FileValidator()).get();
+        // A queue smaller than the number of records so the scan waits on the workers.
+        return new StreamingBackupExecutor(2, workers)
+                .backup(new TreeDiffCollector.Builder(filePathInfo, new AllowAllDirectoriesFilter()).parallelism(2));
+    }
+
+    private static boolean canList(Path dir) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
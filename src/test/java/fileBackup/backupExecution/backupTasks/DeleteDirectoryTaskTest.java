@@ -0,0 +1,87 @@
+package fileBackup.backupExecution.backupTasks;
+
+import fileBackup.backupExecution.FileWalkBackupOperation;
+import fileBackup.fileAnalysis.FileChangeRecord;
+import fileBackup.fileAnalysis.FileSystemAction;
+import fileBackup.fileAnalysis.FileType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class DeleteDirectoryTaskTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void deletesTreeInParallelOnlyCounting() throws IOException {
+        Path root = folder.newFolder("root").toPath();
+        int files = DeleteDirectoryTask.FILE_BATCH_SIZE * 2 + 7;
+        for (int i = 0; i < files; i++) {
+            Files.write(root.resolve("file" + i), new byte[1]);
+        }
+        for (int i = 0; i < 10; i++) {
+            Path dir = Files.createDirectories(root.resolve("dir" + i).resolve("sub"));
+            Files.write(dir.resolve("file"), new byte[1]);
+        }
+
+        DeleteDirectoryTaskResult result = DeleteDirectoryTask.of(deleteRecord(root)).execute(4);
+
+        assertThat(result.isValid(), is(true));
+        FileWalkBackupOperation operation = result.getResult().get();
+        assertThat(operation.getFilesCompleted(), is(files + 10L));
+        assertThat(operation.getDirectoriesCompleted(), is(21L));
+        assertThat(operation.getBackupOperations().isEmpty(), is(true));
+        assertThat(operation.getFileAccessErrors().isEmpty(), is(true));
+        assertThat(Files.exists(root), is(false));
+    }
+
+    @Test
+    public void keepsOnlyFailedDeletions() throws IOException {
+        assumeTrue(!"root".equals(System.getProperty("user.name")));
+        Path root = folder.newFolder("root").toPath();
+        Files.write(root.resolve("deleted"), new byte[1]);
+        Path locked = Files.createDirectory(root.resolve("locked"));
+        Files.write(locked.resolve("kept"), new byte[1]);
+        assumeTrue(Files.getFileStore(locked).supportsFileAttributeView("posix"));
+        Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("r-xr-xr-x"));
+
+        try {
+            FileWalkBackupOperation operation = DeleteDirectoryTask.of(deleteRecord(root)).execute(2).getResult().get();
+
+            assertThat(operation.getFilesCompleted(), is(1L));
+            // The file within locked, locked and root all fail.
+            assertThat(operation.getBackupOperations().size(), is(3));
+            assertThat(Files.exists(locked.resolve("kept")), is(true));
+        } finally {
+            Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+    }
+
+    @Test
+    public void missingRootIsAccessError() {
+        Path root = folder.getRoot().toPath().resolve("missing");
+
+        DeleteDirectoryTaskResult result = DeleteDirectoryTask.of(deleteRecord(root)).execute(2);
+
+        assertThat(result.isValid(), is(true));
+        assertThat(result.getResult().get().getFileAccessErrors().size(), is(1));
+        assertThat(result.getResult().get().getTotalCompleted(), is(0L));
+    }
+
+    private static FileChangeRecord deleteRecord(Path root) {
+        return new FileChangeRecord.Builder()
+                .backupPath(root)
+                .fileSystemAction(FileSystemAction.Delete)
+                .fileType(FileType.Directory)
+                .create();
+    }
+}
@@ -0,0 +1,46 @@
+package fileBackup.copying;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CopyBenchmarkTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void fastestHasLowestTime() {
+        Map<CopyStrategy, Long> timings = new EnumMap<>(CopyStrategy.class);
+        timings.put(CopyStrategy.TransferTo, 300L);
+        timings.put(CopyStrategy.MemoryMapped, 100L);
+        timings.put(CopyStrategy.DirectBuffer, 200L);
+
+        assertThat(CopyBenchmark.fastest(timings), is(CopyStrategy.MemoryMapped));
+    }
+
+    @Test
+    public void runTimesEveryCandidateAndCleansUp() throws IOException {
+        Path source = folder.newFolder("source").toPath();
+        Path target = folder.newFolder("target").toPath();
+
+        Map<CopyStrategy, Long> timings = CopyBenchmark.run(source, target);
+
+        // Memory mapping locks the source on Windows so it is never chosen automatically.
+        assertThat(timings.keySet(), is(CopyBenchmark.CANDIDATES));
+        for (Path directory : new Path[]{source, target}) {
+            try (Stream<Path> paths = Files.list(directory)) {
+                assertThat(paths.count(), is(0L));
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package fileBackup.copying;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class CopyEngineTest {
+    private static final FileTime LAST_MODIFIED = FileTime.fromMillis(1_500_000_000_000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void everyStrategyCopiesDataAndAttributes() throws IOException {
+        for (int size : Arrays.asList(0, 1, CopyStrategy.BUFFER_SIZE + 1, 3 * CopyStrategy.BUFFER_SIZE)) {
+            byte[] data = new byte[size];
+            new Random(size).nextBytes(data);
+            Path source = folder.getRoot().toPath().resolve("source" + size);
+            Files.write(source, data);
+            Files.setLastModifiedTime(source, LAST_MODIFIED);
+
+            for (CopyStrategy strategy : CopyStrategy.values()) {
+                Path target = folder.getRoot().toPath().resolve(strategy + "-" + size);
+                CopyEngine.getInstance().copy(source, target, attributes(source), strategy);
+
+                assertThat(Arrays.equals(Files.readAllBytes(target), data), is(true));
+                assertThat(Files.getLastModifiedTime(target), is(LAST_MODIFIED));
+                assertThat(Files.exists(CopyEngine.temporarySibling(target)), is(false));
+            }
+        }
+    }
+
+    @Test
+    public void replacesHardLinkedTargetWithoutChangingOtherNames() throws IOException {
+        Path root = folder.getRoot().toPath();
+        Path source = Files.write(root.resolve("source"), new byte[]{2, 2});
+        Path target = Files.write(root.resolve("target"), new byte[]{1});
+        Path other;
+        try {
+            other = Files.createLink(root.resolve("other"), target);
+        } catch (UnsupportedOperationException e) {
+            assumeTrue(false);
+            return;
+        }
+
+        CopyEngine.getInstance().copy(source, target, attributes(source), CopyStrategy.DirectBuffer);
+
+        assertThat(Files.readAllBytes(target), is(new byte[]{2, 2}));
+        assertThat(Files.readAllBytes(other), is(new byte[]{1}));
+    }
+
+    @Test
+    public void resumesAfterCheckpoint() throws IOException {
+        byte[] data = new byte[10 * 1024];
+        new Random(3).nextBytes(data);
+        Path source = sourceOf(data);
+        Path target = folder.getRoot().toPath().resolve("target");
+
+        writeCheckpoint(source, target, Arrays.copyOf(data, 4 * 1024), 4 * 1024);
+
+        CopyEngine.getInstance().copyResumable(source, target, attributes(source), CopyStrategy.DirectBuffer, 1024);
+
+        assertThat(Arrays.equals(Files.readAllBytes(target), data), is(true));
+        assertThat(Files.getLastModifiedTime(target), is(LAST_MODIFIED));
+        assertThat(Files.exists(CopyEngine.checkpoint(target)), is(false));
+        assertThat(Files.exists(CopyEngine.temporarySibling(target)), is(false));
+    }
+
+    @Test
+    public void restartsWhenEarlierChunkDiffers() throws IOException {
+        byte[] data = new byte[10 * 1024];
+        new Random(6).nextBytes(data);
+        Path source = sourceOf(data);
+        Path target = folder.getRoot().toPath().resolve("target");
+
+        // The first 4 chunks were copied, only the last of them still matches the source.
+        byte[] partial = Arrays.copyOf(data, 4 * 1024);
+        Arrays.fill(partial, 0, 1024, (byte) 0);
+        writeCheckpoint(source, target, partial, 4 * 1024);
+
+        CopyEngine.getInstance().copyResumable(source, target, attributes(source), CopyStrategy.DirectBuffer, 1024);
+
+        assertThat(Arrays.equals(Files.readAllBytes(target), data), is(true));
+    }
+
+    @Test
+    public void restartsWhenLastCheckpointDiffers() throws IOException {
+        byte[] data = new byte[10 * 1024];
+        new Random(4).nextBytes(data);
+        Path source = sourceOf(data);
+        Path target = folder.getRoot().toPath().resolve("target");
+
+        byte[] partial = Arrays.copyOf(data, 4 * 1024);
+        partial[3 * 1024]++;
+        writeCheckpoint(source, target, partial, 4 * 1024);
+
+        CopyEngine.getInstance().copyResumable(source, target, attributes(source), CopyStrategy.TransferTo, 1024);
+
+        assertThat(Arrays.equals(Files.readAllBytes(target), data), is(true));
+    }
+
+    @Test
+    public void copiesToLongestFileName() throws IOException {
+        byte[] data = new byte[10 * 1024];
+        new Random(5).nextBytes(data);
+        Path source = sourceOf(data);
+        char[] name = new char[255];
+        Arrays.fill(name, 'a');
+        Path target;
+        try {
+            target = Files.write(folder.getRoot().toPath().resolve(new String(name)), new byte[]{1});
+        } catch (IOException e) {
+            assumeTrue(false);
+            return;
+        }
+
+        CopyEngine.getInstance().copy(source, target, attributes(source), CopyStrategy.TransferTo);
+        assertThat(Arrays.equals(Files.readAllBytes(target), data), is(true));
+
+        Files.delete(target);
+        CopyEngine.getInstance().copyResumable(source, target, attributes(source), CopyStrategy.TransferTo, 1024);
+        assertThat(Arrays.equals(Files.readAllBytes(target), data), is(true));
+        assertThat(Files.exists(CopyEngine.checkpoint(target)), is(false));
+    }
+
+    @Test
+    public void onlyReservesTemporaryNames() {
+        Path target = folder.getRoot().toPath().resolve("target");
+
+        assertThat(CopyEngine.isTemporaryFile(CopyEngine.temporarySibling(target)), is(true));
+        assertThat(CopyEngine.isTemporaryFile(CopyEngine.checkpoint(target)), is(true));
+        assertThat(CopyEngine.isTemporaryFile(target.resolveSibling(".filebackup-benchmark123")), is(true));
+        assertThat(CopyEngine.isTemporaryFile(target.resolveSibling(".filebackup-notes.txt")), is(false));
+        assertThat(CopyEngine.isTemporaryFile(target), is(false));
+    }
+
+    @Test
+    public void enginesKeepTheirOwnSettings() throws IOException {
+        Path root = folder.getRoot().toPath();
+        Path source = sourceOf(new byte[]{1, 2, 3});
+        Path updated = Files.write(root.resolve("updated"), new byte[]{1, 1, 1});
+        Path replaced = Files.write(root.resolve("replaced"), new byte[]{1, 1, 1});
+        Object updatedKey = attributes(updated).fileKey();
+        Object replacedKey = attributes(replaced).fileKey();
+        assumeTrue(updatedKey != null && replacedKey != null);
+
+        CopyEngine deltaEngine = new CopyEngine.Builder().deltaThreshold(1).create();
+        deltaEngine.copy(source, updated);
+        CopyEngine.getInstance().copy(source, replaced);
+
+        assertThat(Files.readAllBytes(updated), is(Files.readAllBytes(source)));
+        assertThat(Files.readAllBytes(replaced), is(Files.readAllBytes(source)));
+        // Only the engine built with a delta threshold updates the target in place.
+        assertThat(attributes(updated).fileKey(), is(updatedKey));
+        assertThat(attributes(replaced).fileKey().equals(replacedKey), is(false));
+    }
+
+    private Path sourceOf(byte[] data) throws IOException {
+        Path source = Files.write(folder.getRoot().toPath().resolve("source"), data);
+        Files.setLastModifiedTime(source, LAST_MODIFIED);
+        return source;
+    }
+
+    private static void writeCheckpoint(Path source, Path target, byte[] partial, long copied) throws IOException {
+        Files.write(CopyEngine.temporarySibling(target), partial);
+        String line = Files.size(source) + " " + LAST_MODIFIED.toMillis() + " " + copied;
+        Files.write(CopyEngine.checkpoint(target), line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BasicFileAttributes attributes(Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class);
+    }
+}
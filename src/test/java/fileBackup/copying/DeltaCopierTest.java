@@ -0,0 +1,74 @@
+package fileBackup.copying;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class DeltaCopierTest {
+    private static final FileTime LAST_MODIFIED = FileTime.fromMillis(1_500_000_000_000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void onlyWritesChangedBlocks() throws IOException {
+        byte[] backupData = new byte[10 * DeltaCopier.BLOCK_SIZE];
+        new Random(1).nextBytes(backupData);
+        byte[] currentData = Arrays.copyOf(backupData, backupData.length);
+        currentData[3 * DeltaCopier.BLOCK_SIZE + 7]++;
+
+        assertThat(update(currentData, backupData), is((long) DeltaCopier.BLOCK_SIZE));
+    }
+
+    @Test
+    public void growsAndShrinksBackup() throws IOException {
+        byte[] backupData = new byte[4 * DeltaCopier.BLOCK_SIZE];
+        new Random(2).nextBytes(backupData);
+
+        byte[] grown = Arrays.copyOf(backupData, backupData.length + 10);
+        assertThat(update(grown, backupData), is(10L));
+
+        byte[] shrunk = Arrays.copyOf(backupData, backupData.length - DeltaCopier.BLOCK_SIZE - 1);
+        assertThat(update(shrunk, backupData), is(0L));
+    }
+
+    @Test
+    public void hardLinkedBackupIsNotUpdated() throws IOException {
+        Path root = folder.getRoot().toPath();
+        assumeTrue(root.getFileSystem().supportedFileAttributeViews().contains("unix"));
+        Path backup = Files.write(root.resolve("backup"), new byte[]{1});
+
+        assertThat(DeltaCopier.canUpdate(backup), is(true));
+        Files.createLink(root.resolve("other"), backup);
+        assertThat(DeltaCopier.canUpdate(backup), is(false));
+    }
+
+    /**
+     * @return The bytes written updating a backup of {@code backupData} to {@code currentData}.
+     */
+    private long update(byte[] currentData, byte[] backupData) throws IOException {
+        Path current = folder.newFile().toPath();
+        Path backup = folder.newFile().toPath();
+        Files.write(current, currentData);
+        Files.setLastModifiedTime(current, LAST_MODIFIED);
+        Files.write(backup, backupData);
+
+        long written = DeltaCopier.update(current, backup, Files.readAttributes(current, BasicFileAttributes.class));
+
+        assertThat(Arrays.equals(Files.readAllBytes(backup), currentData), is(true));
+        assertThat(Files.getLastModifiedTime(backup), is(LAST_MODIFIED));
+        return written;
+    }
+}
@@ -0,0 +1,138 @@
+package fileBackup.devices;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DeviceTest {
+
+    @Test(timeout = 10000)
+    public void oppositeDirectionCallsDoNotDeadlock() throws Exception {
+        Device a = new Device("a", DeviceType.Rotational, 1);
+        Device b = new Device("b", DeviceType.Rotational, 1);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                boolean forwards = i % 2 == 0;
+                futures.add(executorService.submit(() -> Device.call(forwards ? a : b, forwards ? b : a, () -> 1)));
+            }
+            int completed = 0;
+            for (Future<Integer> future : futures) {
+                completed += future.get();
+            }
+            assertThat(completed, is(2000));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void devicesAreAcquiredInCreationOrder() throws Exception {
+        Device a = new Device("a", DeviceType.Rotational, 1);
+        Device b = new Device("b", DeviceType.Rotational, 1);
+        CountDownLatch aHeld = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            executorService.submit(() -> a.call(() -> {
+                aHeld.countDown();
+                return await(release);
+            }));
+            aHeld.await();
+
+            // Called with b first but waits for a without holding b.
+            Thread reversed = new Thread(() -> Device.call(b, a, () -> true));
+            reversed.start();
+            while (reversed.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            Future<Boolean> bCall = executorService.submit(() -> b.call(() -> true));
+            assertThat(bCall.get(5, TimeUnit.SECONDS), is(true));
+
+            release.countDown();
+            reversed.join();
+        } finally {
+            release.countDown();
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void concurrentCallsAreLimitedToConcurrency() throws Exception {
+        Device device = new Device("ssd", DeviceType.SolidState, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executorService.submit(() -> device.call(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(2);
+                    return running.decrementAndGet();
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertThat(maxRunning.get(), is(2));
+    }
+
+    @Test
+    public void sameDeviceIsOnlyAcquiredOnce() {
+        Device device = new Device("usb", DeviceType.Removable, 1);
+        // Would wait forever on its own permit if acquired twice.
+        assertThat(Device.call(device, device, () -> true), is(true));
+    }
+
+    @Test
+    public void concurrencyIsAtLeastOne() {
+        assertThat(new Device("none", DeviceType.Unknown, 0).getConcurrency(), is(1));
+        assertThat(Device.getConcurrency(new Device("hdd", DeviceType.Rotational, 1), Device.UNLIMITED), is(1));
+    }
+
+    @Test(expected = CancellationException.class)
+    public void interruptedWaitIsCancelled() {
+        Device device = new Device("hdd", DeviceType.Rotational, 1);
+        device.call(() -> {
+            Thread.currentThread().interrupt();
+            try {
+                // No permit is free while the outer call holds it.
+                return device.call(() -> true);
+            } finally {
+                Thread.interrupted();
+            }
+        });
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            latch.await();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package fileBackup.devices;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileStoreAttributeView;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class DeviceTypeTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path sysClassBlock;
+    private Path devices;
+
+    @Before
+    public void setUp() throws IOException {
+        Path sys = folder.getRoot().toPath().resolve("sys");
+        sysClassBlock = Files.createDirectories(sys.resolve("class").resolve("block"));
+        devices = Files.createDirectories(sys.resolve("devices"));
+    }
+
+    @Test
+    public void networkFileSystems() {
+        assertThat(DeviceType.of(new FakeFileStore("nfs4", "server:/export", false)), is(DeviceType.Network));
+        assertThat(DeviceType.of(new FakeFileStore("CIFS", "//server/share", false)), is(DeviceType.Network));
+        assertThat(DeviceType.of(new FakeFileStore("fuse.sshfs", "me@server:", false)), is(DeviceType.Network));
+    }
+
+    @Test
+    public void removableFileSystems() {
+        assertThat(DeviceType.of(new FakeFileStore("vfat", "/dev/sdz1", false)), is(DeviceType.Removable));
+        assertThat(DeviceType.of(new FakeFileStore("exfat", "/dev/sdz1", false)), is(DeviceType.Removable));
+        // Windows reports removable drives through the volume attributes.
+        assertThat(DeviceType.of(new FakeFileStore("NTFS", "USB DISK", true)), is(DeviceType.Removable));
+    }
+
+    @Test
+    public void undetectedFileSystemIsUnknown() {
+        assertThat(DeviceType.of(new FakeFileStore("NTFS", "Local Disk", false)), is(DeviceType.Unknown));
+        assertThat(DeviceType.of(new FakeFileStore("tmpfs", "tmpfs", false)), is(DeviceType.Unknown));
+    }
+
+    @Test
+    public void partitionUsesItsDiskQueue() throws IOException {
+        assumeSymbolicLinks();
+        Path sda = disk(devices.resolve("pci0000:00").resolve("block").resolve("sda"), false, true);
+        partition(sda, "sda1");
+        Path nvme = disk(devices.resolve("pci0000:00").resolve("block").resolve("nvme0n1"), false, false);
+        partition(nvme, "nvme0n1p1");
+
+        assertThat(DeviceType.ofBlockDevice("sda1", sysClassBlock), is(Optional.of(DeviceType.Rotational)));
+        assertThat(DeviceType.ofBlockDevice("sda", sysClassBlock), is(Optional.of(DeviceType.Rotational)));
+        assertThat(DeviceType.ofBlockDevice("nvme0n1p1", sysClassBlock), is(Optional.of(DeviceType.SolidState)));
+    }
+
+    @Test
+    public void removableOrUsbDiskIsRemovable() throws IOException {
+        assumeSymbolicLinks();
+        partition(disk(devices.resolve("pci0000:00").resolve("block").resolve("mmcblk0"), true, false), "mmcblk0p1");
+        // A USB hard disk reports itself as fixed and rotational.
+        partition(disk(devices.resolve("pci0000:00").resolve("usb2").resolve("block").resolve("sdb"), false, true), "sdb1");
+
+        assertThat(DeviceType.ofBlockDevice("mmcblk0p1", sysClassBlock), is(Optional.of(DeviceType.Removable)));
+        assertThat(DeviceType.ofBlockDevice("sdb1", sysClassBlock), is(Optional.of(DeviceType.Removable)));
+    }
+
+    @Test
+    public void missingBlockDeviceIsNotDetected() {
+        assertThat(DeviceType.ofBlockDevice("sdq1", sysClassBlock), is(Optional.empty()));
+    }
+
+    private void assumeSymbolicLinks() {
+        assumeTrue(folder.getRoot().toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+    }
+
+    private Path disk(Path disk, boolean removable, boolean rotational) throws IOException {
+        Files.createDirectories(disk.resolve("queue"));
+        Files.write(disk.resolve("removable"), (removable ? "1\n" : "0\n").getBytes());
+        Files.write(disk.resolve("queue").resolve("rotational"), (rotational ? "1\n" : "0\n").getBytes());
+        Files.createSymbolicLink(sysClassBlock.resolve(disk.getFileName()), disk);
+        return disk;
+    }
+
+    private void partition(Path disk, String name) throws IOException {
+        Path partition = Files.createDirectories(disk.resolve(name));
+        Files.write(partition.resolve("partition"), "1\n".getBytes());
+        Files.createSymbolicLink(sysClassBlock.resolve(name), partition);
+    }
+
+    private static class FakeFileStore extends FileStore {
+        private final String type;
+        private final String name;
+        private final boolean removable;
+
+        private FakeFileStore(String type, String name, boolean removable) {
+            this.type = type;
+            this.name = name;
+            this.removable = removable;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String type() {
+            return type;
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return false;
+        }
+
+        @Override
+        public long getTotalSpace() {
+            return 0;
+        }
+
+        @Override
+        public long getUsableSpace() {
+            return 0;
+        }
+
+        @Override
+        public long getUnallocatedSpace() {
+            return 0;
+        }
+
+        @Override
+        public boolean supportsFileAttributeView(Class<? extends FileAttributeView> type) {
+            return false;
+        }
+
+        @Override
+        public boolean supportsFileAttributeView(String name) {
+            return false;
+        }
+
+        @Override
+        public <V extends FileStoreAttributeView> V getFileStoreAttributeView(Class<V> type) {
+            return null;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) {
+            if (attribute.equals("volume:isRemovable")) {
+                return removable;
+            }
+            throw new UnsupportedOperationException(attribute);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package fileBackup.devices;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+
+public class IoThrottleTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long INTERVAL = IoThrottle.ADJUST_INTERVAL_MILLIS * MILLIS;
+
+    private final long[] now = new long[1];
+
+    @Test
+    public void unlimitedNeverWaits() {
+        assertThat(IoThrottle.UNLIMITED.isLimited(), is(false));
+        assertThat(new TokenBucket(0, () -> now[0]).reserve(Long.MAX_VALUE), is(0L));
+    }
+
+    @Test
+    public void waitsUntilDebtIsRepaid() {
+        TokenBucket bucket = new TokenBucket(100, () -> now[0]);
+
+        // A full bucket holds a quarter of a second of tokens.
+        assertThat(bucket.reserve(25), is(0L));
+        assertThat(bucket.reserve(50), is(500 * MILLIS));
+
+        now[0] += 500 * MILLIS;
+        assertThat(bucket.reserve(1), is(10 * MILLIS));
+    }
+
+    @Test
+    public void halvesLimitWhenLatencyRisesAndRecovers() {
+        IoThrottle throttle = new IoThrottle.Builder()
+                .bytesPerSecond(100 * IoThrottle.CHUNK_SIZE)
+                .adaptive(true)
+                .clock(() -> now[0])
+                .create();
+
+        window(throttle, MILLIS);
+        assertThat(throttle.getScale(), is(1.0));
+
+        window(throttle, 3 * MILLIS);
+        assertThat(throttle.getScale(), is(0.5));
+        assertThat(throttle.getBytesPerSecond(), is(50.0 * IoThrottle.CHUNK_SIZE));
+
+        window(throttle, MILLIS);
+        assertThat(throttle.getScale(), closeTo(0.5 + IoThrottle.RECOVERY_STEP, 1e-9));
+    }
+
+    @Test
+    public void unlimitedAdaptiveBacksOffFromMeasuredRate() {
+        IoThrottle throttle = new IoThrottle.Builder()
+                .adaptive(true)
+                .clock(() -> now[0])
+                .create();
+
+        window(throttle, MILLIS);
+        assertThat(throttle.getBytesPerSecond(), is(0.0));
+
+        // A chunk every quarter of a second is 4 chunks per second, halved.
+        window(throttle, 3 * MILLIS);
+        assertThat(throttle.getBytesPerSecond(), is(2.0 * IoThrottle.CHUNK_SIZE));
+
+        for (int i = 0; i < 20 && throttle.getScale() < 1; i++) {
+            window(throttle, MILLIS);
+        }
+        assertThat(throttle.getBytesPerSecond(), is(0.0));
+    }
+
+    @Test
+    public void recoversWhenLatencySettlesAfterFastBurst() {
+        IoThrottle throttle = new IoThrottle.Builder()
+                .bytesPerSecond(100 * IoThrottle.CHUNK_SIZE)
+                .adaptive(true)
+                .clock(() -> now[0])
+                .create();
+
+        // Cached reads complete quickly before the copy settles at the speed of the drive.
+        for (int i = 0; i < 4; i++) {
+            window(throttle, MILLIS);
+        }
+        window(throttle, 3 * MILLIS);
+        assertThat(throttle.getScale(), is(0.5));
+
+        for (int i = 0; i < 40; i++) {
+            window(throttle, 3 * MILLIS);
+        }
+        assertThat(throttle.getScale(), is(1.0));
+        assertThat(throttle.getBytesPerSecond(), is(100.0 * IoThrottle.CHUNK_SIZE));
+    }
+
+    /**
+     * Records a single chunk taking {@code nanos} at the end of an adjustment interval.
+     */
+    private void window(IoThrottle throttle, long nanos) {
+        now[0] += INTERVAL;
+        throttle.record(nanos, IoThrottle.CHUNK_SIZE, 2);
+    }
+}
@@ -0,0 +1,142 @@
+package fileBackup.fileAnalysis;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class BackupManifestTest {
+    private static final FileTime LAST_MODIFIED = FileTime.fromMillis(1_500_000_000_000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path backup;
+    private FilePathInfo filePathInfo;
+
+    @Before
+    public void setUp() throws IOException {
+        Path current = Files.createDirectories(folder.getRoot().toPath().resolve("cur").resolve("proj"));
+        backup = Files.createDirectories(folder.getRoot().toPath().resolve("bak").resolve("proj"));
+        filePathInfo = FilePathInfo.of(current, backup, false, new FileValidator()).get();
+    }
+
+    @Test
+    public void roundTripsEntries() throws IOException {
+        Path docs = Files.createDirectories(backup.resolve("docs"));
+        Path file = Files.write(docs.resolve("a.txt"), new byte[]{1, 2, 3});
+        Files.setLastModifiedTime(file, LAST_MODIFIED);
+        Path link = null;
+        if (backup.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            link = Files.createSymbolicLink(backup.resolve("link"), docs);
+        }
+
+        BackupManifest.scan(backup).write();
+        Optional<BackupManifest> loaded = BackupManifest.load(filePathInfo);
+
+        assertThat(loaded.isPresent(), is(true));
+        assertThat(loaded.get().size(), is(link != null ? 3L : 2L));
+        BasicFileAttributes fileAttrs = loaded.get().getAttributes(file).get();
+        assertThat(fileAttrs.isRegularFile(), is(true));
+        assertThat(fileAttrs.size(), is(3L));
+        assertThat(fileAttrs.lastModifiedTime().toMillis(), is(LAST_MODIFIED.toMillis()));
+        assertThat(loaded.get().getAttributes(docs).get().isDirectory(), is(true));
+        // The manifest never lists itself.
+        assertThat(loaded.get().list(backup).get().containsKey(backup.resolve(BackupManifest.FILE_NAME)), is(false));
+        if (link != null) {
+            BasicFileAttributes linkAttrs = loaded.get().getAttributes(link).get();
+            assertThat(linkAttrs.isSymbolicLink(), is(true));
+            assertThat(linkAttrs.isRegularFile(), is(false));
+        }
+    }
+
+    @Test
+    public void invalidatedManifestIsNotLoaded() throws IOException {
+        Files.write(backup.resolve("a.txt"), new byte[]{1});
+        BackupManifest.scan(backup).write();
+
+        assertThat(BackupManifest.invalidate(backup), is(true));
+        assertThat(BackupManifest.load(filePathInfo).isPresent(), is(false));
+    }
+
+    @Test
+    public void changedBackupFailsValidation() throws IOException {
+        Path file = Files.write(backup.resolve("a.txt"), new byte[]{1});
+        Files.setLastModifiedTime(file, LAST_MODIFIED);
+        BackupManifest.scan(backup).write();
+        assertThat(BackupManifest.load(filePathInfo).isPresent(), is(true));
+
+        // Same last modified time but a different size is still caught by sampling.
+        Files.write(file, new byte[]{1, 2});
+        Files.setLastModifiedTime(file, LAST_MODIFIED);
+
+        assertThat(BackupManifest.load(filePathInfo).isPresent(), is(false));
+    }
+
+    @Test
+    public void writingKeepsBackupRootLastModified() throws IOException {
+        Files.write(backup.resolve("a.txt"), new byte[]{1});
+        Files.setLastModifiedTime(backup, LAST_MODIFIED);
+
+        BackupManifest.scan(backup).write();
+        BackupManifest.scan(backup).write();
+
+        assertThat(Files.getLastModifiedTime(backup).toMillis(), is(LAST_MODIFIED.toMillis()));
+        assertThat(BackupManifest.load(filePathInfo).isPresent(), is(true));
+    }
+
+    @Test
+    public void fileAddedToBackupRootFailsValidation() throws IOException {
+        Files.write(backup.resolve("a.txt"), new byte[]{1});
+        BackupManifest.scan(backup).write();
+        assertThat(BackupManifest.load(filePathInfo).isPresent(), is(true));
+
+        Files.write(backup.resolve("b.txt"), new byte[]{1});
+
+        assertThat(BackupManifest.load(filePathInfo).isPresent(), is(false));
+    }
+
+    @Test
+    public void fileRemovedFromBackupRootFailsValidation() throws IOException {
+        files(backup, 200);
+        Files.setLastModifiedTime(backup, LAST_MODIFIED);
+        BackupManifest.scan(backup).write();
+
+        // Restoring the last modified time leaves only the number of entries to catch the deletion as most files
+        // aren't sampled.
+        Files.delete(backup.resolve("1.txt"));
+        Files.setLastModifiedTime(backup, LAST_MODIFIED);
+
+        assertThat(BackupManifest.load(filePathInfo).isPresent(), is(false));
+    }
+
+    @Test
+    public void fileRemovedWithPreservedDirectoryTimeFailsValidation() throws IOException {
+        Path docs = Files.createDirectories(backup.resolve("docs"));
+        files(docs, 200);
+        Files.setLastModifiedTime(docs, LAST_MODIFIED);
+        BackupManifest.scan(backup).write();
+
+        Files.delete(docs.resolve("1.txt"));
+        Files.setLastModifiedTime(docs, LAST_MODIFIED);
+
+        assertThat(BackupManifest.load(filePathInfo).isPresent(), is(false));
+    }
+
+    private static void files(Path dir, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            Files.write(dir.resolve(i + ".txt"), new byte[]{1});
+        }
+    }
+}
@@ -28,4 +28,23 @@ public class DeletedFileWalkerResultTest {
         assertThat(deletedFileWalkerResult.getTotalDirectoriesDeleted(), is(2L));
     }
 
+    @Test
+    public void merge() {
+        deletedFileWalkerResult.incrementTotalFilesDeleted();
+        deletedFileWalkerResult.incrementTotalFilesScanned();
+
+        DeletedFileWalkerResult other = new DeletedFileWalkerResult();
+        other.incrementTotalFilesDeleted();
+        other.incrementTotalDirectoriesDeleted();
+        other.incrementTotalFilesScanned();
+        other.addFileError(new FileAccessError("error"));
+
+        deletedFileWalkerResult.merge(other);
+
+        assertThat(deletedFileWalkerResult.getTotalFilesDeleted(), is(2L));
+        assertThat(deletedFileWalkerResult.getTotalDirectoriesDeleted(), is(1L));
+        assertThat(deletedFileWalkerResult.getTotalFilesScanned(), is(2L));
+        assertThat(deletedFileWalkerResult.getFileAccessErrors().size(), is(1));
+    }
+
 }
\ No newline at end of file
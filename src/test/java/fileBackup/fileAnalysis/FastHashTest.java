@@ -0,0 +1,67 @@
+package fileBackup.fileAnalysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+public class FastHashTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("fast-hash", ".txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void hash_EmptyFile_MatchesXxHash64() throws IOException {
+        assertThat(FastHash.hash(file), is(0xEF46DB3751D8E999L));
+    }
+
+    @Test
+    public void hash_PartialStripe_MatchesXxHash64() throws IOException {
+        Files.write(file, "abc".getBytes(StandardCharsets.US_ASCII));
+        assertThat(FastHash.hash(file), is(0x44BC2CF5AD770999L));
+    }
+
+    @Test
+    public void hash_DifferentContentsSameSize_DifferentHash() throws IOException {
+        byte[] contents = new byte[1000];
+        Files.write(file, contents);
+        long first = FastHash.hash(file);
+
+        contents[999] = 1;
+        Files.write(file, contents);
+        assertThat(FastHash.hash(file), is(not(first)));
+    }
+
+    @Test
+    public void hash_SpansBuffers_DifferentHash() throws IOException {
+        byte[] contents = new byte[FastHash.BUFFER_SIZE * 2 + 5];
+        Files.write(file, contents);
+        long first = FastHash.hash(file);
+
+        contents[FastHash.BUFFER_SIZE] = 1;
+        Files.write(file, contents);
+        long second = FastHash.hash(file);
+        assertThat(second, is(not(first)));
+
+        contents[contents.length - 1] = 1;
+        Files.write(file, contents);
+        assertThat(FastHash.hash(file), is(not(second)));
+    }
+}
@@ -3,6 +3,8 @@ package fileBackup.fileAnalysis;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.file.Paths;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -32,4 +34,45 @@ public class FileAnalysisResultTest {
         assertThat(modifiedFileWalkerResult.getTotalDirectoriesScanned(), is(2L));
     }
 
+    @Test
+    public void getFileSystemCallsPerEntry() {
+        assertThat(modifiedFileWalkerResult.getFileSystemCallsPerEntry(), is(0.0));
+
+        modifiedFileWalkerResult.incrementTotalFilesScanned();
+        modifiedFileWalkerResult.incrementTotalDirectoriesScanned();
+        modifiedFileWalkerResult.addFileSystemCalls(3);
+
+        ModifiedFileWalkerResult other = new ModifiedFileWalkerResult();
+        other.incrementTotalFilesScanned();
+        other.addFileSystemCalls(1);
+        modifiedFileWalkerResult.merge(other);
+
+        assertThat(modifiedFileWalkerResult.getTotalFileSystemCalls(), is(4L));
+        assertThat(modifiedFileWalkerResult.getFileSystemCallsPerEntry(), is(4.0 / 3));
+    }
+
+    @Test
+    public void merge() {
+        modifiedFileWalkerResult.incrementTotalFilesScanned();
+        modifiedFileWalkerResult.addFileError(new FileAccessError("first"));
+
+        ModifiedFileWalkerResult other = new ModifiedFileWalkerResult();
+        other.incrementTotalFilesScanned();
+        other.incrementTotalDirectoriesScanned();
+        other.addFileError(new FileAccessError("second"));
+        other.addFileChangeRecord(new FileChangeRecord.Builder()
+                .backupPath(Paths.get("backup"))
+                .fileSystemAction(FileSystemAction.New)
+                .fileType(FileType.File)
+                .create());
+
+        modifiedFileWalkerResult.merge(other);
+
+        assertThat(modifiedFileWalkerResult.getTotalFilesScanned(), is(2L));
+        assertThat(modifiedFileWalkerResult.getTotalDirectoriesScanned(), is(1L));
+        assertThat(modifiedFileWalkerResult.getFileChangeRecords().size(), is(1));
+        assertThat(modifiedFileWalkerResult.getFileAccessErrors().get(0).getReason(), is("first"));
+        assertThat(modifiedFileWalkerResult.getFileAccessErrors().get(1).getReason(), is("second"));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package fileBackup.fileAnalysis;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class FileChangeSetTest {
+
+    private FileChangeSet fileChangeSet;
+
+    @Before
+    public void setUp() {
+        fileChangeSet = new FileChangeSet();
+    }
+
+    @Test
+    public void getReturnsRecordValues() {
+        Path currentPath = Paths.get("/current/a/b.txt");
+        Path backupPath = Paths.get("/backup/a/b.txt");
+        fileChangeSet.add(new FileChangeRecord.Builder()
+                .fileType(FileType.File)
+                .fileSystemAction(FileSystemAction.Modify)
+                .currentWorkingPath(currentPath)
+                .backupPath(backupPath)
+                .currentLastModified(FileTime.fromMillis(2000))
+                .backupLastModified(FileTime.fromMillis(1000))
+                .currentSize(42)
+                .create());
+
+        FileChangeRecord record = fileChangeSet.get(0);
+        assertThat(record.getFileType(), is(FileType.File));
+        assertThat(record.getFileSystemAction(), is(FileSystemAction.Modify));
+        assertThat(record.getCurrentWorkingPath(), is(Optional.of(currentPath)));
+        assertThat(record.getBackupPath(), is(backupPath));
+        assertThat(record.getCurrentLastModified(), is(FileTime.fromMillis(2000)));
+        assertThat(record.getBackupLastModified(), is(FileTime.fromMillis(1000)));
+        assertThat(record.getCurrentSize(), is(42L));
+    }
+
+    @Test
+    public void getReturnsAbsentValues() {
+        fileChangeSet.add(new FileChangeRecord.Builder()
+                .fileType(FileType.Directory)
+                .fileSystemAction(FileSystemAction.Delete)
+                .backupPath(Paths.get("/"))
+                .create());
+
+        FileChangeRecord record = fileChangeSet.get(0);
+        assertThat(record.getFileSystemAction(), is(FileSystemAction.Delete));
+        assertThat(record.getCurrentWorkingPath(), is(Optional.empty()));
+        assertThat(record.getBackupPath(), is(Paths.get("/")));
+        assertThat(record.getCurrentLastModified(), is(nullValue()));
+        assertThat(record.getBackupLastModified(), is(nullValue()));
+        assertThat(record.getCurrentSize(), is(-1L));
+    }
+
+    @Test
+    public void keepsTimesNanosecondsCannotHold() {
+        // Before 1677 and after 2262, both saturate when converted to nanoseconds.
+        FileTime veryOld = FileTime.fromMillis(-10_000_000_000_000L);
+        FileTime farFuture = FileTime.fromMillis(10_000_000_000_000L);
+        fileChangeSet.add(new FileChangeRecord.Builder()
+                .fileType(FileType.File)
+                .fileSystemAction(FileSystemAction.Touch)
+                .backupPath(Paths.get("/backup/a.txt"))
+                .currentLastModified(veryOld)
+                .backupLastModified(farFuture)
+                .create());
+
+        FileChangeSet merged = new FileChangeSet();
+        merged.add(newRecord(Paths.get("/current/b.txt"), Paths.get("/backup/b.txt")));
+        merged.addAll(fileChangeSet);
+
+        assertThat(fileChangeSet.get(0).getCurrentLastModified(), is(veryOld));
+        assertThat(fileChangeSet.get(0).getBackupLastModified(), is(farFuture));
+        assertThat(merged.get(1).getCurrentLastModified(), is(veryOld));
+        assertThat(merged.get(1).getBackupLastModified(), is(farFuture));
+        assertThat(merged.get(0).getCurrentLastModified(), is(FileTime.fromMillis(1000)));
+    }
+
+    @Test
+    public void sharesParentDirectories() {
+        for (int i = 0; i < 10; i++) {
+            fileChangeSet.add(newRecord(Paths.get("/current/dir/" + i), Paths.get("/backup/dir/" + i)));
+        }
+        assertThat(fileChangeSet.size(), is(10));
+        assertThat(fileChangeSet.getDirectoryCount(), is(2));
+        assertThat(fileChangeSet.get(9).getBackupPath(), is(Paths.get("/backup/dir/9")));
+    }
+
+    @Test
+    public void addAllRemapsDirectories() {
+        fileChangeSet.add(newRecord(Paths.get("/current/x/1"), Paths.get("/backup/x/1")));
+
+        FileChangeSet other = new FileChangeSet();
+        other.add(newRecord(Paths.get("/current/y/2"), Paths.get("/backup/y/2")));
+        other.add(newRecord(Paths.get("/current/x/3"), Paths.get("/backup/x/3")));
+
+        fileChangeSet.addAll(other);
+
+        assertThat(fileChangeSet.size(), is(3));
+        assertThat(fileChangeSet.getDirectoryCount(), is(4));
+        assertThat(fileChangeSet.get(1).getCurrentWorkingPath(), is(Optional.of(Paths.get("/current/y/2"))));
+        assertThat(fileChangeSet.get(2).getBackupPath(), is(Paths.get("/backup/x/3")));
+    }
+
+    @Test
+    public void addAllRemapsSourceBackupPaths() {
+        fileChangeSet.add(newRecord(Paths.get("/current/x/1"), Paths.get("/backup/x/1")));
+
+        FileChangeSet other = new FileChangeSet();
+        other.add(newRecord(Paths.get("/current/y/2"), Paths.get("/backup/y/2")));
+        other.add(new FileChangeRecord.Builder()
+                .fileType(FileType.Directory)
+                .fileSystemAction(FileSystemAction.Link)
+                .currentWorkingPath(Paths.get("/current/link"))
+                .backupPath(Paths.get("/backup/link"))
+                .sourceBackupPath(Paths.get("/backup/x"))
+                .create());
+
+        fileChangeSet.addAll(other);
+
+        assertThat(fileChangeSet.get(0).getSourceBackupPath(), is(Optional.empty()));
+        assertThat(fileChangeSet.get(1).getSourceBackupPath(), is(Optional.empty()));
+        assertThat(fileChangeSet.get(2).getFileSystemAction(), is(FileSystemAction.Link));
+        assertThat(fileChangeSet.get(2).getSourceBackupPath(), is(Optional.of(Paths.get("/backup/x"))));
+    }
+
+    private FileChangeRecord newRecord(Path currentPath, Path backupPath) {
+        return new FileChangeRecord.Builder()
+                .fileType(FileType.File)
+                .fileSystemAction(FileSystemAction.New)
+                .currentWorkingPath(currentPath)
+                .backupPath(backupPath)
+                .currentLastModified(FileTime.fromMillis(1000))
+                .create();
+    }
+}
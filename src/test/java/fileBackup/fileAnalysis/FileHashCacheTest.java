@@ -0,0 +1,68 @@
+package fileBackup.fileAnalysis;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+public class FileHashCacheTest {
+    private static final FileTime LAST_MODIFIED = FileTime.fromMillis(1_500_000_000_000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path cachePath;
+
+    @Before
+    public void setUp() {
+        cachePath = folder.getRoot().toPath().resolve("cache").resolve("hashes");
+    }
+
+    @Test
+    public void unchangedFileIsNotHashedAgain() throws IOException {
+        Path file = file("a.txt", new byte[]{1});
+        FileHashCache cache = FileHashCache.load(cachePath);
+        long hash = cache.hash(file, 1, LAST_MODIFIED);
+        cache.write();
+
+        // Same size and last modified time so the cached hash is returned without reading the file.
+        file("a.txt", new byte[]{2});
+        assertThat(FileHashCache.load(cachePath).hash(file, 1, LAST_MODIFIED), is(hash));
+    }
+
+    @Test
+    public void entriesNotHashedByTheLatestScanArePruned() throws IOException {
+        Path kept = file("kept.txt", new byte[]{1});
+        Path pruned = file("pruned.txt", new byte[]{1});
+        FileHashCache first = FileHashCache.load(cachePath);
+        long keptHash = first.hash(kept, 1, LAST_MODIFIED);
+        long prunedHash = first.hash(pruned, 1, LAST_MODIFIED);
+        first.write();
+
+        FileHashCache second = FileHashCache.load(cachePath);
+        second.hash(kept, 1, LAST_MODIFIED);
+        second.write();
+
+        file("kept.txt", new byte[]{2});
+        file("pruned.txt", new byte[]{2});
+        FileHashCache third = FileHashCache.load(cachePath);
+        assertThat(third.hash(kept, 1, LAST_MODIFIED), is(keptHash));
+        // No entry left so the changed contents are read.
+        assertThat(third.hash(pruned, 1, LAST_MODIFIED), is(not(prunedHash)));
+    }
+
+    private Path file(String name, byte[] contents) throws IOException {
+        Path file = Files.write(folder.getRoot().toPath().resolve(name), contents);
+        Files.setLastModifiedTime(file, LAST_MODIFIED);
+        return file;
+    }
+}
@@ -0,0 +1,42 @@
+package fileBackup.fileAnalysis;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class HardLinkTrackerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void groupsHardLinkedFiles() throws IOException {
+        Path root = folder.getRoot().toPath();
+        assumeTrue(root.getFileSystem().supportedFileAttributeViews().contains("unix"));
+
+        Path first = Files.write(root.resolve("first"), new byte[]{1});
+        Path second = Files.createLink(root.resolve("second"), first);
+        Path other = Files.write(root.resolve("other"), new byte[]{1});
+
+        HardLinkTracker tracker = new HardLinkTracker(root);
+        FileAnalysisResult result = new ModifiedFileWalkerResult();
+
+        assertThat(tracker.claim(first, attributes(first), result), is(Optional.empty()));
+        assertThat(tracker.claim(other, attributes(other), result), is(Optional.empty()));
+        assertThat(tracker.claim(second, attributes(second), result), is(Optional.of(first)));
+        assertThat(tracker.claim(first, attributes(first), result), is(Optional.empty()));
+    }
+
+    private static BasicFileAttributes attributes(Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class);
+    }
+}
@@ -32,6 +32,13 @@ public class ModifiedFileWalkerResultTest {
         assertThat(modifiedFileWalkerResult.getTotalFilesUnmodified(), is(2L));
     }
 
+    @Test
+    public void incrementTotalFilesTouched() {
+        modifiedFileWalkerResult.incrementTotalFilesTouched();
+        modifiedFileWalkerResult.incrementTotalFilesTouched();
+        assertThat(modifiedFileWalkerResult.getTotalFilesTouched(), is(2L));
+    }
+
     @Test
     public void incrementTotalNewFiles() {
         modifiedFileWalkerResult.incrementTotalNewFiles();
@@ -46,5 +53,25 @@ public class ModifiedFileWalkerResultTest {
         assertThat(modifiedFileWalkerResult.getTotalNewDirectories(), is(2L));
     }
 
+    @Test
+    public void merge() {
+        modifiedFileWalkerResult.incrementTotalFilesModified();
+        modifiedFileWalkerResult.incrementTotalNewFiles();
+
+        ModifiedFileWalkerResult other = new ModifiedFileWalkerResult();
+        other.incrementTotalFilesModified();
+        other.incrementTotalFilesUnmodified();
+        other.incrementTotalNewFiles();
+        other.incrementTotalNewDirectories();
+        other.incrementTotalFilesTouched();
+
+        modifiedFileWalkerResult.merge(other);
+
+        assertThat(modifiedFileWalkerResult.getTotalFilesModified(), is(2L));
+        assertThat(modifiedFileWalkerResult.getTotalFilesUnmodified(), is(1L));
+        assertThat(modifiedFileWalkerResult.getTotalNewFiles(), is(2L));
+        assertThat(modifiedFileWalkerResult.getTotalNewDirectories(), is(1L));
+        assertThat(modifiedFileWalkerResult.getTotalFilesTouched(), is(1L));
+    }
 
 }
\ No newline at end of file
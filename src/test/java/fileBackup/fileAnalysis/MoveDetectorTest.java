@@ -0,0 +1,142 @@
+package fileBackup.fileAnalysis;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MoveDetectorTest {
+    private static final FileTime LAST_MODIFIED = FileTime.fromMillis(1_500_000_000_000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path current;
+    private Path backup;
+    private ModifiedFileWalkerResult modified;
+    private DeletedFileWalkerResult deleted;
+
+    @Before
+    public void setUp() throws IOException {
+        current = folder.newFolder("current").toPath();
+        backup = folder.newFolder("backup").toPath();
+        modified = new ModifiedFileWalkerResult();
+        deleted = new DeletedFileWalkerResult();
+    }
+
+    @Test
+    public void renamedFileBecomesMove() throws IOException {
+        write(backup.resolve("old.txt"), "contents");
+        write(current.resolve("new.txt"), "contents");
+        addNewFile("new.txt");
+        addDeleted("old.txt", FileType.File);
+
+        new MoveDetector(true).reconcile(modified, deleted);
+
+        assertThat(modified.getFileChangeRecords().size(), is(1));
+        FileChangeRecord record = modified.getFileChangeRecords().get(0);
+        assertThat(record.getFileSystemAction(), is(FileSystemAction.Move));
+        assertThat(record.getBackupPath(), is(backup.resolve("new.txt")));
+        assertThat(record.getSourceBackupPath(), is(Optional.of(backup.resolve("old.txt"))));
+        assertThat(deleted.getFileChangeRecords().isEmpty(), is(true));
+        assertThat(modified.getTotalFilesMoved(), is(1L));
+    }
+
+    @Test
+    public void differentContentIsNotMoved() throws IOException {
+        write(backup.resolve("old.txt"), "contents");
+        write(current.resolve("new.txt"), "CONTENTS");
+        addNewFile("new.txt");
+        addDeleted("old.txt", FileType.File);
+
+        new MoveDetector(true).reconcile(modified, deleted);
+
+        assertThat(modified.getFileChangeRecords().get(0).getFileSystemAction(), is(FileSystemAction.New));
+        assertThat(deleted.getFileChangeRecords().size(), is(1));
+    }
+
+    @Test
+    public void renamedDirectoryBecomesSingleMove() throws IOException {
+        write(backup.resolve("a/x"), "x");
+        write(backup.resolve("a/sub/y"), "y");
+        write(current.resolve("b/x"), "x");
+        write(current.resolve("b/sub/y"), "y");
+        addNewDirectory("b");
+        addNewDirectory("b/sub");
+        addNewFile("b/x");
+        addNewFile("b/sub/y");
+        addDeleted("a", FileType.Directory);
+
+        new MoveDetector(false).reconcile(modified, deleted);
+
+        assertThat(modified.getFileChangeRecords().size(), is(1));
+        FileChangeRecord record = modified.getFileChangeRecords().get(0);
+        assertThat(record.getFileSystemAction(), is(FileSystemAction.Move));
+        assertThat(record.getFileType(), is(FileType.Directory));
+        assertThat(record.getBackupPath(), is(backup.resolve("b")));
+        assertThat(record.getCurrentWorkingPath(), is(Optional.of(current.resolve("b"))));
+        assertThat(record.getSourceBackupPath(), is(Optional.of(backup.resolve("a"))));
+        assertThat(deleted.getFileChangeRecords().isEmpty(), is(true));
+    }
+
+    @Test
+    public void partiallyMovedDirectoryMovesFilesAndDeletesDirectory() throws IOException {
+        write(backup.resolve("a/x"), "x");
+        write(backup.resolve("a/gone"), "gone");
+        write(current.resolve("b/x"), "x");
+        addNewDirectory("b");
+        addNewFile("b/x");
+        addDeleted("a", FileType.Directory);
+
+        new MoveDetector(false).reconcile(modified, deleted);
+
+        assertThat(modified.getFileChangeRecords().size(), is(2));
+        FileChangeRecord record = modified.getFileChangeRecords().get(1);
+        assertThat(record.getFileSystemAction(), is(FileSystemAction.Move));
+        assertThat(record.getSourceBackupPath(), is(Optional.of(backup.resolve("a/x"))));
+        assertThat(deleted.getFileChangeRecords().size(), is(1));
+    }
+
+    private void addNewFile(String path) {
+        modified.addFileChangeRecord(new FileChangeRecord.Builder()
+                .currentWorkingPath(current.resolve(path))
+                .backupPath(backup.resolve(path))
+                .currentLastModified(LAST_MODIFIED)
+                .fileSystemAction(FileSystemAction.New)
+                .fileType(FileType.File)
+                .create());
+    }
+
+    private void addNewDirectory(String path) {
+        modified.addFileChangeRecord(new FileChangeRecord.Builder()
+                .currentWorkingPath(current.resolve(path))
+                .backupPath(backup.resolve(path))
+                .fileSystemAction(FileSystemAction.New)
+                .fileType(FileType.Directory)
+                .create());
+    }
+
+    private void addDeleted(String path, FileType fileType) {
+        deleted.addFileChangeRecord(new FileChangeRecord.Builder()
+                .backupPath(backup.resolve(path))
+                .backupLastModified(LAST_MODIFIED)
+                .fileSystemAction(FileSystemAction.Delete)
+                .fileType(fileType)
+                .create());
+    }
+
+    private static void write(Path path, String contents) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, contents.getBytes());
+        Files.setLastModifiedTime(path, LAST_MODIFIED);
+    }
+}
@@ -0,0 +1,124 @@
+package fileBackup.fileAnalysis;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks {@code RootPathMapper} maps every path exactly as the string based {@code FilePathInfo.getPathComponents}
+ * mapping it replaced.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RootPathMapperTest {
+    private static final String ROOT_DIRECTORY = "project";
+
+    @Mock
+    private FileValidator validator;
+
+    private Path currentWorkingRootPath;
+    private Path backupRootPath;
+    private FilePathInfo filePathInfo;
+
+    @Before
+    public void setUp() {
+        assumeTrue(File.separator.equals("/"));
+        currentWorkingRootPath = Paths.get("/home/me/work/" + ROOT_DIRECTORY);
+        backupRootPath = Paths.get("/media/me/USB DISK/" + ROOT_DIRECTORY);
+
+        Mockito.when(validator.fileExists(currentWorkingRootPath)).thenReturn(true);
+        Mockito.when(validator.fileExists(backupRootPath)).thenReturn(true);
+        filePathInfo = FilePathInfo.of(currentWorkingRootPath, backupRootPath, false, validator).get();
+    }
+
+    @Test
+    public void mapsPathsBeneathTheRoot() {
+        assertSameMapping("/home/me/work/project");
+        assertSameMapping("/home/me/work/project/document.txt");
+        assertSameMapping("/home/me/work/project/FolderA/FolderB/document.txt");
+    }
+
+    @Test
+    public void mapsAtTheFirstDuplicateRootName() {
+        assertSameMapping("/home/me/work/project/project");
+        assertSameMapping("/home/me/work/project/FolderA/project/document.txt");
+        assertSameMapping("/home/me/work/project/project/project/document.txt");
+    }
+
+    @Test
+    public void duplicateRootNameWithinTheRootPath() {
+        // The first rootDirectoryName is not the last segment of the root, so every path is searched.
+        Path currentRoot = Paths.get("/home/project/work/" + ROOT_DIRECTORY);
+        Mockito.when(validator.fileExists(currentRoot)).thenReturn(true);
+        filePathInfo = FilePathInfo.of(currentRoot, backupRootPath, false, validator).get();
+        RootPathMapper mapper = new RootPathMapper(currentRoot, backupRootPath, ROOT_DIRECTORY);
+
+        for (String path : new String[]{"/home/project/work/project/document.txt", "/home/project/work/project"}) {
+            assertThat(mapper.map(Paths.get(path)), is(oldMapping(Paths.get(path), backupRootPath)));
+        }
+        assertThat(mapper.map(Paths.get("/home/project/work/project/document.txt")),
+                is(backupRootPath.resolve("work/project/document.txt")));
+    }
+
+    @Test
+    public void mapsPathsOutsideTheRootAtTheRootName() {
+        assertSameMapping("/mnt/other/project/document.txt");
+        assertSameMapping("/home/me/work/projects/../project/document.txt");
+        assertSameMapping("/project/FolderA/project");
+    }
+
+    @Test
+    public void pathWithoutTheRootNameIsNotMapped() {
+        RootPathMapper mapper = new RootPathMapper(currentWorkingRootPath, backupRootPath, ROOT_DIRECTORY);
+
+        assertThat(mapper.map(Paths.get("/home/me/work/projects/document.txt")), is(nullValue()));
+        assertThat(mapper.firstRootDirectoryIndex(Paths.get("/home/me/work")), is(-1));
+    }
+
+    @Test
+    public void randomPathsMatchOldMapping() {
+        String[] segments = {ROOT_DIRECTORY, "projects", "a", "b b", "c.txt"};
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder path = new StringBuilder(random.nextBoolean() ? currentWorkingRootPath.toString() : "/mnt");
+            int depth = random.nextInt(6);
+            for (int d = 0; d < depth; d++) {
+                path.append('/').append(segments[random.nextInt(segments.length)]);
+            }
+            if (new RootPathMapper(currentWorkingRootPath, backupRootPath, ROOT_DIRECTORY)
+                    .firstRootDirectoryIndex(Paths.get(path.toString())) >= 0) {
+                assertSameMapping(path.toString());
+            }
+        }
+    }
+
+    private void assertSameMapping(String path) {
+        Path currentPath = Paths.get(path);
+        RootPathMapper toBackup = new RootPathMapper(currentWorkingRootPath, backupRootPath, ROOT_DIRECTORY);
+        RootPathMapper toCurrent = new RootPathMapper(backupRootPath, currentWorkingRootPath, ROOT_DIRECTORY);
+
+        Path backupPath = toBackup.map(currentPath);
+        assertThat(path, backupPath, is(oldMapping(currentPath, backupRootPath)));
+        assertThat(path, filePathInfo.fromCurrentToBackupPath(currentPath), is(backupPath));
+        assertThat(path, toCurrent.map(backupPath), is(oldMapping(backupPath, currentWorkingRootPath)));
+    }
+
+    /**
+     * The mapping used by {@code FilePathInfo} before {@code RootPathMapper}.
+     */
+    private Path oldMapping(Path path, Path targetRootPath) {
+        return Paths.get(targetRootPath.toString() + filePathInfo.getPathComponents(path)._2);
+    }
+}
@@ -0,0 +1,68 @@
+package fileBackup.fileAnalysis;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ScanProgressTest {
+
+    @Test
+    public void publishesFinalSnapshotOnComplete() {
+        ScanProgress scanProgress = new ScanProgress(Duration.ofHours(1));
+        List<ScanProgressSnapshot> snapshots = new ArrayList<>();
+        scanProgress.addSubscriber(snapshots::add);
+
+        scanProgress.directoryScanned(0);
+        scanProgress.directoryScanned(2);
+        scanProgress.directoryScanned(1);
+        scanProgress.fileScanned();
+
+        assertThat(snapshots.size(), is(0));
+
+        scanProgress.complete();
+
+        assertThat(snapshots.size(), is(1));
+        ScanProgressSnapshot snapshot = snapshots.get(0);
+        assertThat(snapshot.isComplete(), is(true));
+        assertThat(snapshot.getFilesScanned(), is(1L));
+        assertThat(snapshot.getDirectoriesScanned(), is(3L));
+        assertThat(snapshot.getCurrentDepth(), is(1));
+        assertThat(snapshot.getMaxDepth(), is(2));
+    }
+
+    @Test
+    public void publishesOncePerInterval() {
+        ScanProgress scanProgress = new ScanProgress(Duration.ZERO);
+        List<ScanProgressSnapshot> snapshots = new ArrayList<>();
+        scanProgress.addSubscriber(snapshots::add);
+
+        scanProgress.fileScanned();
+        scanProgress.fileScanned();
+
+        assertThat(snapshots.size(), is(2));
+        assertThat(snapshots.get(1).getFilesScanned(), is(2L));
+        assertThat(snapshots.get(1).isComplete(), is(false));
+    }
+
+    @Test
+    public void countsConcurrentWorkers() {
+        ScanProgress scanProgress = new ScanProgress();
+        IntStream.range(0, 10_000).parallel().forEach(i -> {
+            scanProgress.fileScanned();
+            if (i % 10 == 0) {
+                scanProgress.directoryScanned(i % 7);
+            }
+        });
+
+        ScanProgressSnapshot snapshot = scanProgress.getSnapshot();
+        assertThat(snapshot.getFilesScanned(), is(10_000L));
+        assertThat(snapshot.getDirectoriesScanned(), is(1_000L));
+        assertThat(snapshot.getMaxDepth(), is(6));
+    }
+}
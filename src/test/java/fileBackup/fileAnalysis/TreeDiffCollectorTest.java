@@ -0,0 +1,299 @@
+package fileBackup.fileAnalysis;
+
+import fileBackup.backupExecution.directoryFilters.AllowAllDirectoriesFilter;
+import fileBackup.copying.CopyEngine;
+import io.vavr.control.Either;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class TreeDiffCollectorTest {
+    private static final FileTime OLDER = FileTime.fromMillis(1_500_000_000_000L);
+    private static final FileTime NEWER = FileTime.fromMillis(1_600_000_000_000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path current;
+    private Path backup;
+
+    @Before
+    public void setUp() throws IOException {
+        current = Files.createDirectories(folder.getRoot().toPath().resolve("cur").resolve("proj"));
+        backup = Files.createDirectories(folder.getRoot().toPath().resolve("bak").resolve("proj"));
+    }
+
+    @Test
+    public void mergeJoinsBothDrives() throws IOException {
+        file(current.resolve("new.txt"), NEWER);
+        file(current.resolve("same.txt"), OLDER);
+        file(backup.resolve("same.txt"), OLDER);
+        file(current.resolve("changed.txt"), NEWER);
+        file(backup.resolve("changed.txt"), OLDER);
+        file(backup.resolve("gone.txt"), OLDER);
+        file(backup.resolve("goneDir").resolve("inner.txt"), OLDER);
+
+        TreeDiffResult result = scan();
+
+        Map<String, FileSystemAction> modified = actions(result.getModifiedFileWalkerResult());
+        assertThat(modified.size(), is(2));
+        assertThat(modified.get("new.txt"), is(FileSystemAction.New));
+        assertThat(modified.get("changed.txt"), is(FileSystemAction.Modify));
+
+        Map<String, FileSystemAction> deleted = actions(result.getDeletedFileWalkerResult());
+        assertThat(deleted.size(), is(2));
+        assertThat(deleted.get("gone.txt"), is(FileSystemAction.Delete));
+        // The directory is deleted as a whole without listing inner.txt.
+        assertThat(deleted.get("goneDir"), is(FileSystemAction.Delete));
+    }
+
+    @Test
+    public void unreadableCurrentDirectoryDeletesNothing() throws IOException {
+        assumeTrue(current.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path docs = Files.createDirectories(current.resolve("docs"));
+        file(docs.resolve("a.txt"), OLDER);
+        file(backup.resolve("docs").resolve("a.txt"), OLDER);
+        file(backup.resolve("docs").resolve("sub").resolve("b.txt"), OLDER);
+
+        Files.setPosixFilePermissions(docs, PosixFilePermissions.fromString("--x--x--x"));
+        try {
+            assumeTrue(!canList(docs));
+
+            TreeDiffResult result = scan();
+
+            assertThat(result.getDeletedFileWalkerResult().getFileChangeRecords(), is(empty()));
+            assertThat(result.getModifiedFileWalkerResult().getFileAccessErrors(), is(not(empty())));
+        } finally {
+            Files.setPosixFilePermissions(docs, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+    }
+
+    @Test
+    public void unchangedBackupDirectoryIsNotListed() throws IOException {
+        Path timestamps = folder.getRoot().toPath().resolve("timestamps");
+        file(current.resolve("docs").resolve("a.txt"), OLDER);
+        file(backup.resolve("docs").resolve("a.txt"), OLDER);
+        setDirectoriesLastModified(OLDER);
+        scan(timestamps);
+
+        // Only found by listing the backup directory, which keeps its recorded last modified time.
+        file(backup.resolve("docs").resolve("stray.txt"), OLDER);
+        Files.setLastModifiedTime(current.resolve("docs").resolve("a.txt"), NEWER);
+        setDirectoriesLastModified(OLDER);
+        TreeDiffResult result = scan(timestamps);
+
+        assertThat(result.getDeletedFileWalkerResult().getFileChangeRecords(), is(empty()));
+        assertThat(actions(result.getModifiedFileWalkerResult()).get("a.txt"), is(FileSystemAction.Modify));
+    }
+
+    @Test
+    public void changedBackupDirectoryIsListed() throws IOException {
+        Path timestamps = folder.getRoot().toPath().resolve("timestamps");
+        file(current.resolve("docs").resolve("a.txt"), OLDER);
+        file(backup.resolve("docs").resolve("a.txt"), OLDER);
+        setDirectoriesLastModified(OLDER);
+        scan(timestamps);
+
+        file(backup.resolve("docs").resolve("stray.txt"), OLDER);
+        Files.setLastModifiedTime(backup.resolve("docs"), NEWER);
+        TreeDiffResult result = scan(timestamps);
+
+        assertThat(actions(result.getDeletedFileWalkerResult()).get("stray.txt"), is(FileSystemAction.Delete));
+    }
+
+    @Test
+    public void newFilesMatchFileWalk() throws IOException {
+        file(current.resolve("a.txt"), NEWER);
+        file(current.resolve("docs").resolve("b.txt"), NEWER);
+        file(current.resolve("docs").resolve("sub").resolve("c.txt"), NEWER);
+        file(current.resolve("docs").resolve("sub").resolve("deeper").resolve("d.txt"), NEWER);
+        file(current.resolve("src").resolve("e.txt"), NEWER);
+        Files.createDirectories(current.resolve("src").resolve("empty"));
+
+        // Every file and empty directory is expected as a New record, same as a single threaded walk.
+        Set<Path> expected = new TreeSet<>();
+        Files.walkFileTree(current, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                    if (!dir.equals(current) && !stream.iterator().hasNext()) {
+                        expected.add(dir);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                expected.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        TreeDiffResult result = scan();
+
+        Set<Path> actual = new TreeSet<>();
+        for (FileChangeRecord record : result.getModifiedFileWalkerResult().getFileChangeRecords()) {
+            assertThat(record.getFileSystemAction(), is(FileSystemAction.New));
+            actual.add(record.getCurrentWorkingPath().get());
+        }
+        assertThat(actual, is(expected));
+        assertThat(result.getModifiedFileWalkerResult().getFileAccessErrors(), is(empty()));
+    }
+
+    @Test
+    public void inactiveDirectoryIsPruned() throws IOException {
+        file(current.resolve("docs").resolve("a.txt"), NEWER);
+        file(current.resolve("skip").resolve("b.txt"), NEWER);
+        file(current.resolve("skip").resolve("sub").resolve("c.txt"), NEWER);
+        file(backup.resolve("skip").resolve("gone.txt"), OLDER);
+
+        TreeDiffResult result = getFiles(new TreeDiffCollector.Builder(filePathInfo(false),
+                path -> !path.getFileName().toString().equals("skip"))
+                .parallelism(2)
+                .create());
+
+        assertThat(actions(result.getModifiedFileWalkerResult()).keySet(), is(Collections.singleton("a.txt")));
+        assertThat(result.getDeletedFileWalkerResult().getFileChangeRecords(), is(empty()));
+        // The roots and docs only, the skipped subtree is never read.
+        assertThat(result.getModifiedFileWalkerResult().getTotalDirectoriesScanned(), is(2L));
+    }
+
+    @Test
+    public void linkToAncestorIsReportedAsLoop() throws IOException {
+        file(current.resolve("docs").resolve("a.txt"), NEWER);
+        Path loop = current.resolve("docs").resolve("loop");
+        try {
+            Files.createSymbolicLink(loop, current);
+        } catch (IOException | UnsupportedOperationException e) {
+            assumeTrue(false);
+        }
+
+        TreeDiffResult result = getFiles(new TreeDiffCollector.Builder(filePathInfo(true),
+                new AllowAllDirectoriesFilter())
+                .parallelism(2)
+                .create());
+
+        List<FileAccessError> errors = result.getModifiedFileWalkerResult().getFileAccessErrors();
+        assertThat(errors.size(), is(1));
+        assertThat(errors.get(0).getPath().get(), is(loop));
+        assertThat(actions(result.getModifiedFileWalkerResult()).keySet(), is(Collections.singleton("a.txt")));
+    }
+
+    @Test
+    public void reservedNamesAreSkippedOnCurrent() throws IOException {
+        file(CopyEngine.temporarySibling(current.resolve("a.txt")), NEWER);
+        file(current.resolve(".filebackup-notes.txt"), NEWER);
+
+        TreeDiffResult result = scan();
+
+        // Only the exact names of unfinished copies are reserved, other names with the prefix are backed up.
+        assertThat(actions(result.getModifiedFileWalkerResult()).keySet(),
+                is(Collections.singleton(".filebackup-notes.txt")));
+        assertThat(result.getDeletedFileWalkerResult().getFileChangeRecords(), is(empty()));
+    }
+
+    @Test
+    public void temporaryFilesOfFinishedCopiesAreDeleted() throws IOException {
+        // A failed copy of a new file which has since been deleted.
+        Path gone = backup.resolve("gone.bin");
+        file(CopyEngine.temporarySibling(gone), OLDER);
+        file(CopyEngine.checkpoint(gone), OLDER);
+        // A failed copy which is copied again by this backup.
+        file(current.resolve("retry.bin"), NEWER);
+        Path retry = backup.resolve("retry.bin");
+        file(CopyEngine.temporarySibling(retry), OLDER);
+        file(CopyEngine.checkpoint(retry), OLDER);
+
+        TreeDiffResult result = scan();
+
+        Set<Path> deleted = new TreeSet<>();
+        for (FileChangeRecord record : result.getDeletedFileWalkerResult().getFileChangeRecords()) {
+            assertThat(record.getFileSystemAction(), is(FileSystemAction.Delete));
+            deleted.add(record.getBackupPath());
+        }
+        assertThat(deleted, is(new TreeSet<>(Arrays.asList(CopyEngine.temporarySibling(gone),
+                CopyEngine.checkpoint(gone)))));
+        assertThat(actions(result.getModifiedFileWalkerResult()).keySet(), is(Collections.singleton("retry.bin")));
+    }
+
+    private TreeDiffResult scan() {
+        return getFiles(new TreeDiffCollector.Builder(filePathInfo(), new AllowAllDirectoriesFilter())
+                .parallelism(2)
+                .create());
+    }
+
+    private TreeDiffResult scan(Path timestamps) {
+        FilePathInfo filePathInfo = filePathInfo();
+        return getFiles(new TreeDiffCollector.Builder(filePathInfo, new AllowAllDirectoriesFilter())
+                .parallelism(2)
+                .directoryTimestamps(DirectoryTimestamps.load(timestamps, filePathInfo))
+                .create());
+    }
+
+    private FilePathInfo filePathInfo() {
+        return filePathInfo(false);
+    }
+
+    private FilePathInfo filePathInfo(boolean followSymlinks) {
+        return FilePathInfo.of(current, backup, followSymlinks, new FileValidator()).get();
+    }
+
+    private static TreeDiffResult getFiles(TreeDiffCollector collector) {
+        Either<FileAccessError, TreeDiffResult> result = collector.getFiles();
+        assertThat(result.isRight(), is(true));
+        return result.get();
+    }
+
+    private void setDirectoriesLastModified(FileTime lastModified) throws IOException {
+        for (Path dir : new Path[]{current, current.resolve("docs"), backup, backup.resolve("docs")}) {
+            Files.setLastModifiedTime(dir, lastModified);
+        }
+    }
+
+    private static Map<String, FileSystemAction> actions(FileAnalysisResult result) {
+        Map<String, FileSystemAction> actions = new TreeMap<>();
+        for (FileChangeRecord record : result.getFileChangeRecords()) {
+            actions.put(record.getBackupPath().getFileName().toString(), record.getFileSystemAction());
+        }
+        return actions;
+    }
+
+    private static void file(Path path, FileTime lastModified) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[]{1});
+        Files.setLastModifiedTime(path, lastModified);
+    }
+
+    private static boolean canList(Path dir) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
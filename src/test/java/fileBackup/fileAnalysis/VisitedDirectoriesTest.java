@@ -0,0 +1,62 @@
+package fileBackup.fileAnalysis;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class VisitedDirectoriesTest {
+
+    @Test
+    public void firstPathOwnsDirectory() {
+        VisitedDirectories visitedDirectories = new VisitedDirectories();
+        Path real = Paths.get("/current/real");
+        Path link = Paths.get("/current/link");
+
+        assertThat(visitedDirectories.claim(real, attributes("inode-1")), is(Optional.empty()));
+        assertThat(visitedDirectories.claim(real, attributes("inode-1")), is(Optional.empty()));
+        assertThat(visitedDirectories.claim(link, attributes("inode-1")), is(Optional.of(real)));
+        assertThat(visitedDirectories.claim(link, attributes("inode-2")), is(Optional.empty()));
+    }
+
+    @Test
+    public void walksDeferredLinksInSortedRounds() {
+        Queue<Path> deferred = new ArrayDeque<>(Arrays.asList(Paths.get("/b"), Paths.get("/a")));
+        List<Path> walked = new ArrayList<>();
+
+        VisitedDirectories.walkInRounds(deferred, link -> link, link -> {
+            walked.add(link);
+            if (link.equals(Paths.get("/a"))) {
+                // Found while walking /a so only walked in the next round.
+                deferred.add(Paths.get("/a/0"));
+            }
+        });
+
+        assertThat(walked, is(Arrays.asList(Paths.get("/a"), Paths.get("/b"), Paths.get("/a/0"))));
+    }
+
+    private static BasicFileAttributes attributes(Object fileKey) {
+        return new BasicFileAttributes() {
+            public FileTime lastModifiedTime() { return FileTime.fromMillis(0); }
+            public FileTime lastAccessTime() { return lastModifiedTime(); }
+            public FileTime creationTime() { return lastModifiedTime(); }
+            public boolean isRegularFile() { return false; }
+            public boolean isDirectory() { return true; }
+            public boolean isSymbolicLink() { return false; }
+            public boolean isOther() { return false; }
+            public long size() { return 0; }
+            public Object fileKey() { return fileKey; }
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package fileBackup.rules;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FileRuleMatcherTest {
+    private static final Path ROOT = Paths.get("/current/project");
+
+    @Test
+    public void emptyExcludesNothing() {
+        FileRuleMatcher matcher = FileRuleMatcher.compile(Collections.emptyList()).get();
+
+        assertThat(matcher.isEmpty(), is(true));
+        assertThat(matcher.isExcludedDirectory(ROOT, ROOT.resolve("node_modules")), is(false));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("a.tmp"), null), is(false));
+    }
+
+    @Test
+    public void excludesByNameExtensionAndPath() {
+        FileRuleMatcher matcher = FileRuleMatcher.compile(Arrays.asList(
+                FileRule.exclude(FileRuleType.Glob, "node_modules"),
+                FileRule.exclude(FileRuleType.Glob, "*.tmp"),
+                FileRule.exclude(FileRuleType.Glob, "~$*"),
+                FileRule.exclude(FileRuleType.Glob, "build/"),
+                FileRule.exclude(FileRuleType.Glob, "docs/**/*.pdf"),
+                FileRule.exclude(FileRuleType.Regex, "logs/.+\\.log\\.[0-9]+"))).get();
+
+        assertThat(matcher.isExcludedDirectory(ROOT, ROOT.resolve("web/node_modules")), is(true));
+        assertThat(matcher.isExcludedDirectory(ROOT, ROOT.resolve("app/build")), is(true));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("app/build"), null), is(false));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("a/b.tmp"), null), is(true));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("a/b.tmp.txt"), null), is(false));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("~$report.docx"), null), is(true));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("docs/manual.pdf"), null), is(true));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("docs/a/b/manual.pdf"), null), is(true));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("other/docs/manual.pdf"), null), is(false));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("logs/app.log.3"), null), is(true));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("logs/app.log"), null), is(false));
+    }
+
+    @Test
+    public void rootIsNeverExcluded() {
+        FileRuleMatcher matcher = FileRuleMatcher.compile(Collections.singletonList(
+                FileRule.exclude(FileRuleType.Glob, "project"))).get();
+
+        assertThat(matcher.isExcludedDirectory(ROOT, ROOT), is(false));
+        assertThat(matcher.isExcludedDirectory(ROOT, ROOT.resolve("a/project")), is(true));
+    }
+
+    @Test
+    public void includesOnlyMatchingFiles() {
+        FileRuleMatcher matcher = FileRuleMatcher.compile(Collections.singletonList(
+                FileRule.include(FileRuleType.Glob, "*.{java,md}"))).get();
+
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("src/Main.java"), null), is(false));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("README.md"), null), is(false));
+        assertThat(matcher.isExcludedFile(ROOT, ROOT.resolve("src/Main.class"), null), is(true));
+        assertThat(matcher.isExcludedDirectory(ROOT, ROOT.resolve("src")), is(false));
+    }
+
+    @Test
+    public void excludesBySizeAndAge() {
+        FileRuleMatcher matcher = FileRuleMatcher.compile(Arrays.asList(
+                FileRule.exclude(FileRuleType.LargerThan, "1000"),
+                FileRule.exclude(FileRuleType.OlderThan, "P30D"))).get();
+        long now = System.currentTimeMillis();
+        Path file = ROOT.resolve("file");
+
+        assertThat(matcher.isExcludedFile(ROOT, file, attributes(1000, now)), is(false));
+        assertThat(matcher.isExcludedFile(ROOT, file, attributes(1001, now)), is(true));
+        assertThat(matcher.isExcludedFile(ROOT, file, attributes(10, now - Duration.ofDays(31).toMillis())), is(true));
+    }
+
+    @Test
+    public void invalidRulesAreRejected() {
+        assertThat(FileRuleMatcher.compile(Collections.singletonList(
+                FileRule.exclude(FileRuleType.Regex, "("))).isLeft(), is(true));
+        assertThat(FileRuleMatcher.compile(Collections.singletonList(
+                FileRule.exclude(FileRuleType.Glob, "{a,b"))).isLeft(), is(true));
+        assertThat(FileRuleMatcher.compile(Collections.singletonList(
+                FileRule.include(FileRuleType.LargerThan, "10"))).isLeft(), is(true));
+        assertThat(FileRuleMatcher.compile(Collections.singletonList(
+                FileRule.exclude(FileRuleType.OlderThan, "30 days"))).isLeft(), is(true));
+    }
+
+    private static BasicFileAttributes attributes(long size, long lastModifiedMillis) {
+        return new BasicFileAttributes() {
+            public FileTime lastModifiedTime() { return FileTime.fromMillis(lastModifiedMillis); }
+            public FileTime lastAccessTime() { return lastModifiedTime(); }
+            public FileTime creationTime() { return lastModifiedTime(); }
+            public boolean isRegularFile() { return true; }
+            public boolean isDirectory() { return false; }
+            public boolean isSymbolicLink() { return false; }
+            public boolean isOther() { return false; }
+            public long size() { return size; }
+            public Object fileKey() { return null; }
+        };
+    }
+}